@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.benchmarks;
+
+import com.google.common.collect.Maps;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.spotify.helios.common.Json;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Compares two JMH result files written with {@code -rf json}, e.g. those of the last release and
+ * of a release candidate, and flags the benchmarks that got slower.
+ *
+ * A benchmark has regressed when its score got worse by more than the threshold, 10% unless
+ * given, and by more than the error margins of both scores. Exits with status 1 if any did.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.spotify.helios.benchmarks.BenchmarkComparison \
+ *     baseline.json candidate.json [threshold-percent]
+ * </pre>
+ */
+public class BenchmarkComparison {
+
+  private static final double DEFAULT_THRESHOLD_PERCENT = 10;
+
+  private final Map<String, JsonNode> baseline;
+  private final Map<String, JsonNode> candidate;
+  private final double threshold;
+
+  public BenchmarkComparison(final JsonNode baseline, final JsonNode candidate,
+                             final double thresholdPercent) {
+    this.baseline = index(baseline);
+    this.candidate = index(candidate);
+    this.threshold = thresholdPercent / 100;
+  }
+
+  public static void main(final String... args) throws IOException {
+    if (args.length < 2 || args.length > 3) {
+      System.err.println("usage: BenchmarkComparison <baseline.json> <candidate.json> "
+                         + "[threshold-percent]");
+      System.exit(2);
+    }
+    final double threshold = args.length == 3 ? Double.parseDouble(args[2])
+                                              : DEFAULT_THRESHOLD_PERCENT;
+    final BenchmarkComparison comparison = new BenchmarkComparison(
+        Json.readTree(new File(args[0])), Json.readTree(new File(args[1])), threshold);
+    System.exit(comparison.print(System.out) > 0 ? 1 : 0);
+  }
+
+  /**
+   * Prints a line per benchmark with its baseline and candidate scores and the change between
+   * them.
+   *
+   * @return The number of benchmarks that regressed.
+   */
+  public int print(final PrintStream out) {
+    int regressions = 0;
+    for (final Map.Entry<String, JsonNode> entry : candidate.entrySet()) {
+      final String name = entry.getKey();
+      final JsonNode after = entry.getValue();
+      final JsonNode before = baseline.get(name);
+      final String unit = after.path("primaryMetric").path("scoreUnit").asText();
+      if (before == null) {
+        out.printf("%-80s %12s %12.3f %s  new%n", name, "-", score(after), unit);
+        continue;
+      }
+
+      final double change = (score(after) - score(before)) / score(before);
+      // Lower is better for times per op, higher for ops per time
+      final boolean higherIsBetter = "thrpt".equals(after.path("mode").asText());
+      final double worse = higherIsBetter ? -change : change;
+      final boolean regressed = worse > threshold
+          && Math.abs(score(after) - score(before)) > error(after) + error(before);
+      if (regressed) {
+        regressions++;
+      }
+      out.printf("%-80s %12.3f %12.3f %s %+7.1f%%%s%n", name, score(before), score(after), unit,
+                 change * 100, regressed ? "  REGRESSION" : "");
+    }
+    for (final String name : baseline.keySet()) {
+      if (!candidate.containsKey(name)) {
+        out.printf("%-80s  removed%n", name);
+      }
+    }
+    return regressions;
+  }
+
+  private static double score(final JsonNode result) {
+    return result.path("primaryMetric").path("score").asDouble();
+  }
+
+  private static double error(final JsonNode result) {
+    final double error = result.path("primaryMetric").path("scoreError").asDouble();
+    return Double.isNaN(error) ? 0 : error;
+  }
+
+  /**
+   * Keys the results by benchmark, mode and parameters.
+   */
+  private static Map<String, JsonNode> index(final JsonNode results) {
+    final Map<String, JsonNode> index = Maps.newTreeMap();
+    for (final JsonNode result : results) {
+      final StringBuilder name = new StringBuilder(result.path("benchmark").asText())
+          .append(' ').append(result.path("mode").asText());
+      final Iterator<Map.Entry<String, JsonNode>> params = result.path("params").fields();
+      while (params.hasNext()) {
+        final Map.Entry<String, JsonNode> param = params.next();
+        name.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+      }
+      index.put(name.toString(), result);
+    }
+    return index;
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+import com.spotify.helios.common.descriptors.Deployment;
+import com.spotify.helios.common.descriptors.Goal;
+import com.spotify.helios.common.descriptors.HealthCheck;
+import com.spotify.helios.common.descriptors.HostInfo;
+import com.spotify.helios.common.descriptors.HostSelector;
+import com.spotify.helios.common.descriptors.HostStatus;
+import com.spotify.helios.common.descriptors.Job;
+import com.spotify.helios.common.descriptors.JobId;
+import com.spotify.helios.common.descriptors.PortMapping;
+import com.spotify.helios.common.descriptors.Resources;
+import com.spotify.helios.common.descriptors.ServiceEndpoint;
+import com.spotify.helios.common.descriptors.ServicePorts;
+import com.spotify.helios.common.descriptors.TaskStatus;
+import com.spotify.helios.common.descriptors.ThrottleState;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates jobs, hosts and task statuses shaped like those of a large production cluster: jobs
+ * with a handful of env vars, ports, service registrations, resources and a health check, and
+ * hosts labelled with a role, site and pool that run a few dozen jobs each.
+ *
+ * The same seed always gives the same fixtures, so results can be compared between runs and
+ * releases.
+ */
+public class Fixtures {
+
+  public static final long SEED = 0x4e110;
+
+  private static final List<String> ROLES = ImmutableList.of(
+      "web", "api", "search", "playlist", "metadata", "storage", "cache", "batch");
+  private static final List<String> SITES = ImmutableList.of("ash", "gew", "lon", "sto");
+  private static final List<String> POOLS = ImmutableList.of("a", "b", "c");
+
+  private final Random random;
+
+  public Fixtures() {
+    this(SEED);
+  }
+
+  public Fixtures(final long seed) {
+    this.random = new Random(seed);
+  }
+
+  public Job job(final int i) {
+    final String role = ROLES.get(i % ROLES.size());
+    final String name = role + "-service-" + i;
+    final String version = "1.0." + random.nextInt(1000);
+    return Job.newBuilder()
+        .setName(name)
+        .setVersion(version)
+        .setImage("registry.example.com/" + name + ":" + version)
+        .setCommand(ImmutableList.of("/usr/bin/" + name, "--config", "/etc/" + name + ".yaml"))
+        .setEnv(ImmutableMap.of(
+            "SERVICE_ENV", "production",
+            "JVM_HEAP", (1 + random.nextInt(8)) + "g",
+            "SERVICE_ROLE", role,
+            "LOG_LEVEL", "INFO"))
+        .setPorts(ImmutableMap.of(
+            "http", PortMapping.of(8080),
+            "http-admin", PortMapping.of(8081),
+            "hermes", PortMapping.of(5700)))
+        .setRegistration(ImmutableMap.of(
+            ServiceEndpoint.of(name, "http"), ServicePorts.of("http"),
+            ServiceEndpoint.of(name, "hm"), ServicePorts.of("hermes")))
+        .setResources(new Resources((long) (1 + random.nextInt(8)) << 30, null,
+                                    (long) (256 * (1 + random.nextInt(8))), null))
+        .setHealthCheck(HealthCheck.newHttpHealthCheck()
+                            .setPath("/healthcheck")
+                            .setPort("http-admin")
+                            .build())
+        .setGracePeriod(10)
+        .setMetadata(ImmutableMap.of(
+            "owner", role + "-squad",
+            "commit", Long.toHexString(random.nextLong())))
+        .build();
+  }
+
+  public List<Job> jobs(final int count) {
+    final ImmutableList.Builder<Job> jobs = ImmutableList.builder();
+    for (int i = 0; i < count; i++) {
+      jobs.add(job(i));
+    }
+    return jobs.build();
+  }
+
+  public TaskStatus taskStatus(final Job job) {
+    return TaskStatus.newBuilder()
+        .setJob(job)
+        .setGoal(Goal.START)
+        .setState(TaskStatus.State.RUNNING)
+        .setContainerId(Long.toHexString(random.nextLong()) + Long.toHexString(random.nextLong()))
+        .setThrottled(ThrottleState.NO)
+        .setPorts(job.getPorts())
+        .setEnv(ImmutableMap.of("SYSLOG_HOST_PORT", "10.99.0.1:514"))
+        .build();
+  }
+
+  public String hostname(final int i) {
+    return String.format("%s-%s-%05d.example.com", SITES.get(i % SITES.size()),
+                         ROLES.get(i % ROLES.size()), i);
+  }
+
+  public Map<String, String> labels(final int i) {
+    return ImmutableMap.of(
+        "role", ROLES.get(i % ROLES.size()),
+        "site", SITES.get(i % SITES.size()),
+        "pool", POOLS.get(random.nextInt(POOLS.size())));
+  }
+
+  /**
+   * Returns {@code count} hosts, most of them up, that each run {@code jobsPerHost} of
+   * {@code jobs}.
+   */
+  public Map<String, HostStatus> hosts(final int count, final List<Job> jobs,
+                                       final int jobsPerHost) {
+    final Map<String, HostStatus> hosts = Maps.newLinkedHashMap();
+    for (int i = 0; i < count; i++) {
+      final Map<JobId, Deployment> deployments = Maps.newHashMap();
+      final Map<JobId, TaskStatus> statuses = Maps.newHashMap();
+      for (int j = 0; j < jobsPerHost && !jobs.isEmpty(); j++) {
+        final Job job = jobs.get(random.nextInt(jobs.size()));
+        deployments.put(job.getId(), Deployment.of(job.getId(), Goal.START));
+        statuses.put(job.getId(), taskStatus(job));
+      }
+      final HostStatus status = HostStatus.newBuilder()
+          .setStatus(random.nextInt(50) == 0 ? HostStatus.Status.DOWN : HostStatus.Status.UP)
+          .setJobs(deployments)
+          .setStatuses(statuses)
+          .setHostInfo(HostInfo.newBuilder()
+                           .setCpus(32)
+                           .setMemoryTotalBytes(128L << 30)
+                           .build())
+          .setLabels(labels(i))
+          .build();
+      hosts.put(hostname(i), status);
+    }
+    return hosts;
+  }
+
+  /**
+   * Returns the host selectors of a deployment group that matches about a twelfth of the hosts.
+   */
+  public List<HostSelector> selectors() {
+    return ImmutableList.of(HostSelector.parse("role=" + ROLES.get(0)),
+                            HostSelector.parse("pool!=" + POOLS.get(0)));
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.benchmarks;
+
+import com.google.common.collect.Maps;
+
+import com.spotify.helios.common.descriptors.DeploymentGroup;
+import com.spotify.helios.rollingupdate.RollingUpdateService.HostMatcher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matching the host selectors of a deployment group against the labels of every host, which the
+ * master does for every deployment group whenever hosts change.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class HostMatcherBenchmark {
+
+  @Param({"1000", "10000"})
+  public int hosts;
+
+  private HostMatcher matcher;
+  private DeploymentGroup group;
+
+  @Setup
+  public void setUp() {
+    final Fixtures fixtures = new Fixtures();
+    final Map<String, Map<String, String>> labels = Maps.newHashMap();
+    for (int i = 0; i < hosts; i++) {
+      labels.put(fixtures.hostname(i), fixtures.labels(i));
+    }
+    matcher = new HostMatcher(labels);
+    group = DeploymentGroup.newBuilder()
+        .setName("benchmark")
+        .setHostSelectors(fixtures.selectors())
+        .build();
+  }
+
+  @Benchmark
+  public List<String> getMatchingHosts() {
+    return matcher.getMatchingHosts(group);
+  }
+}
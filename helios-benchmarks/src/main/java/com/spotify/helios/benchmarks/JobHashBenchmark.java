@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.benchmarks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.spotify.helios.common.Json;
+import com.spotify.helios.common.descriptors.Job;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashing job configs, which happens for every job built and every job the master validates.
+ *
+ * {@link #digestRoundTrip} is how the digest used to be computed: the normalized JSON read back
+ * into a map and written again. It gives the same digest as {@link #digest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class JobHashBenchmark {
+
+  private static final TypeReference<Map<String, Object>> MAP_TYPE =
+      new TypeReference<Map<String, Object>>() {};
+
+  private Job job;
+  private Job.Builder builder;
+
+  @Setup
+  public void setUp() {
+    job = new Fixtures().job(0);
+    builder = job.toBuilder();
+  }
+
+  @Benchmark
+  public Job build() {
+    return builder.build();
+  }
+
+  @Benchmark
+  public byte[] digest() throws IOException {
+    return Json.sha1digest(job);
+  }
+
+  @Benchmark
+  public byte[] digestRoundTrip() throws IOException {
+    final Map<String, Object> map = Json.read(Json.asNormalizedString(job), MAP_TYPE);
+    return Json.sha1digest(map);
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.benchmarks;
+
+import com.spotify.helios.common.Json;
+import com.spotify.helios.common.descriptors.Job;
+import com.spotify.helios.common.descriptors.TaskStatus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializing and parsing the descriptors the master and agents read and write the most.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+  private Job job;
+  private byte[] jobJson;
+  private TaskStatus taskStatus;
+  private byte[] taskStatusJson;
+
+  @Setup
+  public void setUp() throws IOException {
+    final Fixtures fixtures = new Fixtures();
+    job = fixtures.job(0);
+    jobJson = Json.asBytes(job);
+    taskStatus = fixtures.taskStatus(job);
+    taskStatusJson = Json.asBytes(taskStatus);
+  }
+
+  @Benchmark
+  public byte[] writeJob() throws IOException {
+    return Json.asBytes(job);
+  }
+
+  @Benchmark
+  public Job readJob() throws IOException {
+    return Json.read(jobJson, Job.class);
+  }
+
+  @Benchmark
+  public byte[] writeTaskStatus() throws IOException {
+    return Json.asBytes(taskStatus);
+  }
+
+  @Benchmark
+  public TaskStatus readTaskStatus() throws IOException {
+    return Json.read(taskStatusJson, TaskStatus.class);
+  }
+}
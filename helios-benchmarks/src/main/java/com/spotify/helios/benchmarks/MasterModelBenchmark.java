@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.benchmarks;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
+
+import com.spotify.helios.ZooKeeperTestingServerManager;
+import com.spotify.helios.common.descriptors.Deployment;
+import com.spotify.helios.common.descriptors.Goal;
+import com.spotify.helios.common.descriptors.HostStatus;
+import com.spotify.helios.common.descriptors.Job;
+import com.spotify.helios.common.descriptors.JobId;
+import com.spotify.helios.common.descriptors.JobStatus;
+import com.spotify.helios.master.ZooKeeperMasterModel;
+import com.spotify.helios.servicescommon.KafkaSender;
+import com.spotify.helios.servicescommon.coordination.DefaultZooKeeperClient;
+import com.spotify.helios.servicescommon.coordination.Paths;
+import com.spotify.helios.servicescommon.coordination.ZooKeeperClient;
+import com.spotify.helios.servicescommon.coordination.ZooKeeperClientProvider;
+import com.spotify.helios.servicescommon.coordination.ZooKeeperModelReporter;
+
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link ZooKeeperMasterModel} getters behind the master's most frequent API calls, against
+ * an in-process ZooKeeper server holding {@link #jobs} jobs deployed to {@link #hosts} hosts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MasterModelBenchmark {
+
+  private static final int JOBS_PER_HOST = 10;
+
+  @Param({"1000"})
+  public int jobs;
+
+  @Param({"100"})
+  public int hosts;
+
+  private final Random random = new Random(Fixtures.SEED);
+
+  private ZooKeeperTestingServerManager zk;
+  private ZooKeeperMasterModel model;
+  private List<Job> jobList;
+  private List<String> hostnames;
+
+  @Setup
+  public void setUp() throws Exception {
+    zk = new ZooKeeperTestingServerManager();
+    zk.awaitUp(30, TimeUnit.SECONDS);
+    final ZooKeeperClient client = new DefaultZooKeeperClient(zk.curatorWithSuperAuth());
+    client.ensurePath(Paths.configHosts());
+    client.ensurePath(Paths.configJobs());
+    client.ensurePath(Paths.configJobRefs());
+    client.ensurePath(Paths.statusHosts());
+    client.ensurePath(Paths.statusMasters());
+    client.ensurePath(Paths.historyJobs());
+
+    model = new ZooKeeperMasterModel(
+        new ZooKeeperClientProvider(client, ZooKeeperModelReporter.noop()), "benchmark",
+        new KafkaSender(Optional.<KafkaProducer<String, byte[]>>absent()));
+
+    final Fixtures fixtures = new Fixtures();
+    jobList = fixtures.jobs(jobs);
+    hostnames = Lists.newArrayList();
+    for (final Job job : jobList) {
+      model.addJob(job);
+    }
+    for (int i = 0; i < hosts; i++) {
+      final String host = fixtures.hostname(i);
+      hostnames.add(host);
+      model.registerHost(host, "id-" + i);
+      for (int j = 0; j < JOBS_PER_HOST; j++) {
+        final Job job = jobList.get((i * JOBS_PER_HOST + j) % jobList.size());
+        model.deployJob(host, Deployment.of(job.getId(), Goal.START));
+      }
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    zk.close();
+  }
+
+  @Benchmark
+  public Map<JobId, Job> getJobs() {
+    return model.getJobs();
+  }
+
+  @Benchmark
+  public Job getJob() {
+    return model.getJob(randomJob());
+  }
+
+  @Benchmark
+  public JobStatus getJobStatus() {
+    return model.getJobStatus(randomJob());
+  }
+
+  @Benchmark
+  public HostStatus getHostStatus() {
+    return model.getHostStatus(hostnames.get(random.nextInt(hostnames.size())));
+  }
+
+  private JobId randomJob() {
+    return jobList.get(random.nextInt(jobList.size())).getId();
+  }
+}
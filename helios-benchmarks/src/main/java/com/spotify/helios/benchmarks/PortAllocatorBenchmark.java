@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.benchmarks;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
+
+import com.spotify.helios.agent.PortAllocator;
+import com.spotify.helios.common.descriptors.PortMapping;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocating the dynamic ports of a container on an agent that already has {@link #used} ports
+ * taken, scattered over its port range.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class PortAllocatorBenchmark {
+
+  private static final int START = 20000;
+  private static final int END = 32768;
+
+  @Param({"0", "100", "5000"})
+  public int used;
+
+  private final PortAllocator allocator = new PortAllocator(START, END);
+  private final Map<String, PortMapping> ports = ImmutableMap.of(
+      "http", PortMapping.of(8080),
+      "http-admin", PortMapping.of(8081),
+      "hermes", PortMapping.of(5700),
+      "static", PortMapping.of(9090, 9090));
+
+  private Set<Integer> usedPorts;
+
+  @Setup
+  public void setUp() {
+    final Random random = new Random(Fixtures.SEED);
+    usedPorts = Sets.newHashSet();
+    while (usedPorts.size() < used) {
+      usedPorts.add(START + random.nextInt(END - START));
+    }
+  }
+
+  @Benchmark
+  public Map<String, Integer> allocate() {
+    return allocator.allocate(ports, usedPorts);
+  }
+}
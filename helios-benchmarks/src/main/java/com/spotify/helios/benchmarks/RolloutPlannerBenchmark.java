@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.benchmarks;
+
+import com.spotify.helios.common.descriptors.DeploymentGroup;
+import com.spotify.helios.common.descriptors.HostStatus;
+import com.spotify.helios.common.descriptors.RolloutOptions;
+import com.spotify.helios.common.descriptors.RolloutTask;
+import com.spotify.helios.rollingupdate.DefaultRolloutPlanner;
+import com.spotify.helios.rollingupdate.RolloutPlanner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Planning the rollout of a deployment group to all of its hosts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class RolloutPlannerBenchmark {
+
+  @Param({"100", "1000"})
+  public int hosts;
+
+  @Param({"1", "10"})
+  public int parallelism;
+
+  private RolloutPlanner planner;
+  private Map<String, HostStatus> hostsAndStatuses;
+
+  @Setup
+  public void setUp() {
+    final Fixtures fixtures = new Fixtures();
+    hostsAndStatuses = fixtures.hosts(hosts, Collections.singletonList(fixtures.job(0)), 1);
+    planner = DefaultRolloutPlanner.of(DeploymentGroup.newBuilder()
+        .setName("benchmark")
+        .setJobId(fixtures.job(1).getId())
+        .setRolloutOptions(RolloutOptions.newBuilder().setParallelism(parallelism).build())
+        .build());
+  }
+
+  @Benchmark
+  public List<RolloutTask> plan() {
+    return planner.plan(hostsAndStatuses);
+  }
+}
@@ -0,0 +1,533 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.benchmarks.simulator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.CharStreams;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import com.codahale.metrics.UniformReservoir;
+import com.spotify.helios.ZooKeeperTestingServerManager;
+import com.spotify.helios.benchmarks.Fixtures;
+import com.spotify.helios.client.HeliosClient;
+import com.spotify.helios.common.descriptors.Deployment;
+import com.spotify.helios.common.descriptors.DeploymentGroup;
+import com.spotify.helios.common.descriptors.DeploymentGroupStatus;
+import com.spotify.helios.common.descriptors.Goal;
+import com.spotify.helios.common.descriptors.HostSelector;
+import com.spotify.helios.common.descriptors.HostStatus;
+import com.spotify.helios.common.descriptors.Job;
+import com.spotify.helios.common.descriptors.JobId;
+import com.spotify.helios.common.descriptors.JobStatus;
+import com.spotify.helios.common.descriptors.PortMapping;
+import com.spotify.helios.common.descriptors.RolloutOptions;
+import com.spotify.helios.common.descriptors.TaskStatus;
+import com.spotify.helios.common.protocol.CreateDeploymentGroupResponse;
+import com.spotify.helios.common.protocol.JobDeployResponse;
+import com.spotify.helios.common.protocol.RollingUpdateResponse;
+import com.spotify.helios.master.MasterMain;
+import com.spotify.helios.servicescommon.coordination.DefaultZooKeeperClient;
+import com.spotify.helios.servicescommon.coordination.ZooKeeperClient;
+import com.spotify.helios.servicescommon.coordination.ZooKeeperClientProvider;
+import com.spotify.helios.servicescommon.coordination.ZooKeeperModelReporter;
+
+import net.sourceforge.argparse4j.ArgumentParsers;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.ArgumentParserException;
+import net.sourceforge.argparse4j.inf.Namespace;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Runs a master against many {@link FakeAgent}s in one JVM, backed by an in-process ZooKeeper
+ * server, and measures how it copes with the load of a large cluster.
+ *
+ * It runs three workloads in turn: a mass deploy of many jobs to every host, two rolling updates
+ * of a deployment group, and host churn, where agents go away and come back. Every call to the
+ * master API is timed, and the report lists the latency percentiles of each kind of call, the
+ * rate of requests the ZooKeeper server handled, and how long each workload took to converge.
+ *
+ * The fake agents share one ZooKeeper session and one thread pool, so the number of threads does
+ * not grow with the number of agents.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar \
+ *     com.spotify.helios.benchmarks.simulator.ClusterSimulator --agents 2000 --jobs 20
+ * </pre>
+ */
+public class ClusterSimulator implements AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(ClusterSimulator.class);
+
+  private static final String DEPLOYMENT_GROUP = "simulated-group";
+
+  // Bounds the number of outstanding API calls, like a handful of busy deploy tools would
+  private static final int MAX_CONCURRENT_REQUESTS = 32;
+
+  private final int agentCount;
+  private final long stepMillis;
+  private final long timeoutSeconds;
+
+  private final Fixtures fixtures = new Fixtures();
+  private final Semaphore requests = new Semaphore(MAX_CONCURRENT_REQUESTS);
+  private final ConcurrentMap<String, Timer> latencies = Maps.newConcurrentMap();
+  private final Map<String, Long> completions = Maps.newLinkedHashMap();
+  private final Map<String, FakeAgent> agents = Maps.newLinkedHashMap();
+
+  private ZooKeeperTestingServerManager zk;
+  private MasterMain master;
+  private ZooKeeperClient agentClient;
+  private ScheduledExecutorService executor;
+  private HeliosClient client;
+  private Path stateDirectory;
+
+  private long startNanos;
+  private long startRequests;
+
+  public ClusterSimulator(final int agentCount, final long stepMillis,
+                          final long timeoutSeconds) {
+    this.agentCount = agentCount;
+    this.stepMillis = stepMillis;
+    this.timeoutSeconds = timeoutSeconds;
+  }
+
+  public static void main(final String... args) throws Exception {
+    final ArgumentParser parser = ArgumentParsers.newArgumentParser("cluster-simulator")
+        .defaultHelp(true)
+        .description("Load test a master with simulated agents");
+    parser.addArgument("--agents").type(Integer.class).setDefault(1000)
+        .help("The number of simulated agents.");
+    parser.addArgument("--jobs").type(Integer.class).setDefault(10)
+        .help("The number of jobs to deploy to every agent.");
+    parser.addArgument("--churn").type(Integer.class).setDefault(100)
+        .help("The number of agents to take down and bring back up.");
+    parser.addArgument("--step-millis").type(Long.class).setDefault(500L)
+        .help("About how long an agent takes between task states.");
+    parser.addArgument("--timeout").type(Long.class).setDefault(600L)
+        .help("How many seconds to wait for each workload to converge.");
+
+    final Namespace options;
+    try {
+      options = parser.parseArgs(args);
+    } catch (ArgumentParserException e) {
+      parser.handleError(e);
+      System.exit(2);
+      return;
+    }
+
+    try (final ClusterSimulator simulator = new ClusterSimulator(
+        options.getInt("agents"), options.getLong("step_millis"), options.getLong("timeout"))) {
+      simulator.start();
+      simulator.massDeploy(options.getInt("jobs"));
+      simulator.rollingUpdate();
+      simulator.hostChurn(Math.min(options.getInt("churn"), options.getInt("agents")));
+      simulator.report(System.out);
+    }
+    System.exit(0);
+  }
+
+  /**
+   * Starts ZooKeeper, a master and the agents, and waits for the master to see every agent.
+   */
+  public void start() throws Exception {
+    stateDirectory = Files.createTempDirectory("helios-simulator");
+    zk = new ZooKeeperTestingServerManager();
+    zk.awaitUp(30, SECONDS);
+
+    final int port = zk.temporaryPorts.localPort("master");
+    final int adminPort = zk.temporaryPorts.localPort("master-admin");
+    master = new MasterMain(ImmutableMap.<String, String>of(), new String[]{
+        "--no-log-setup",
+        "--http", "http://0.0.0.0:" + port,
+        "--admin", "http://0.0.0.0:" + adminPort,
+        "--domain", "",
+        "--zk", zk.connectString(),
+        "--name", "simulated-master",
+        "--state-dir", stateDirectory.resolve("master").toString()});
+    master.startAsync().awaitRunning();
+
+    client = HeliosClient.newBuilder()
+        .setUser("simulator")
+        .setEndpoints("http://localhost:" + port)
+        .build();
+
+    // Agents share one ZooKeeper session and a thread pool so that thousands of them fit in a JVM.
+    // Most of their work is waiting for ZooKeeper round trips, hence the generous pool.
+    agentClient = new DefaultZooKeeperClient(zk.curatorWithSuperAuth());
+    agentClient.start();
+    executor = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors() * 8);
+
+    log.info("starting {} agents", agentCount);
+    for (int i = 0; i < agentCount; i++) {
+      startAgent(fixtures.hostname(i), "simulated-agent-" + i, fixtures.labels(i));
+    }
+    awaitHosts(agents.keySet(), HostStatus.Status.UP);
+
+    startNanos = System.nanoTime();
+    startRequests = zooKeeperRequests();
+  }
+
+  /**
+   * Creates {@code jobCount} jobs and deploys each of them to every agent, and waits until all of
+   * them are running.
+   */
+  public void massDeploy(final int jobCount) throws Exception {
+    log.info("deploying {} jobs to {} agents", jobCount, agents.size());
+    final long start = System.nanoTime();
+
+    final List<JobId> jobIds = Lists.newArrayList();
+    for (int i = 0; i < jobCount; i++) {
+      final Job job = job(i, "1");
+      await(timed("createJob", () -> client.createJob(job)));
+      jobIds.add(job.getId());
+    }
+
+    final List<ListenableFuture<JobDeployResponse>> deploys = Lists.newArrayList();
+    for (final JobId jobId : jobIds) {
+      for (final String host : agents.keySet()) {
+        deploys.add(timed("deploy", () -> client.deploy(Deployment.of(jobId, Goal.START), host)));
+      }
+    }
+    await(Futures.allAsList(deploys));
+
+    for (final JobId jobId : jobIds) {
+      awaitRunning(jobId, agents.keySet());
+    }
+    completed("mass deploy", start);
+  }
+
+  /**
+   * Rolls a job out to a deployment group of about a twelfth of the agents, then rolls a new
+   * version of it out, and waits for each rollout to finish.
+   */
+  public void rollingUpdate() throws Exception {
+    final RolloutOptions options = RolloutOptions.newBuilder()
+        .setParallelism(Math.max(1, agents.size() / 100))
+        .setTimeout(timeoutSeconds)
+        .build();
+    final DeploymentGroup group = DeploymentGroup.newBuilder()
+        .setName(DEPLOYMENT_GROUP)
+        .setHostSelectors(fixtures.selectors())
+        .setRolloutOptions(options)
+        .build();
+    final CreateDeploymentGroupResponse created =
+        await(timed("createDeploymentGroup", () -> client.createDeploymentGroup(group)));
+    if (created.getStatus() == CreateDeploymentGroupResponse.Status.CONFLICT) {
+      throw new IllegalStateException("deployment group already exists: " + created);
+    }
+
+    // The master resolves the hosts of a group in the background; roll out once it has
+    final int members = members(group);
+    log.info("waiting for the master to find the {} agents of {}", members, DEPLOYMENT_GROUP);
+    poll(() -> await(timed(
+        "deploymentGroupStatus", () -> client.deploymentGroupStatus(DEPLOYMENT_GROUP)))
+        .getHostStatuses().size() == members ? true : null);
+
+    for (final String version : ImmutableList.of("1", "2")) {
+      final Job job = job(-1, version);
+      await(timed("createJob", () -> client.createJob(job)));
+
+      log.info("rolling out {}", job.getId());
+      final long start = System.nanoTime();
+      final RollingUpdateResponse response = await(timed(
+          "rollingUpdate", () -> client.rollingUpdate(DEPLOYMENT_GROUP, job.getId(), options)));
+      if (response.getStatus() != RollingUpdateResponse.Status.OK) {
+        throw new IllegalStateException("rolling update failed: " + response);
+      }
+      poll(() -> {
+        final DeploymentGroupStatus status = await(timed(
+            "deploymentGroupStatus", () -> client.deploymentGroupStatus(DEPLOYMENT_GROUP)))
+            .getDeploymentGroupStatus();
+        if (status != null && status.getState() == DeploymentGroupStatus.State.FAILED) {
+          throw new IllegalStateException("rollout failed: " + status.getError());
+        }
+        return status != null && status.getState() == DeploymentGroupStatus.State.DONE
+               ? true : null;
+      });
+      completed("rolling update to version " + version, start);
+    }
+  }
+
+  /**
+   * Takes {@code count} agents down, waits for the master to notice, and brings them back up
+   * again. Measures how long it takes until they are up and run all their jobs again.
+   */
+  public void hostChurn(final int count) throws Exception {
+    final List<String> hosts = ImmutableList.copyOf(agents.keySet()).subList(0, count);
+    final List<FakeAgent> stopped = Lists.newArrayList();
+
+    log.info("taking {} agents down", count);
+    final long down = System.nanoTime();
+    for (final String host : hosts) {
+      final FakeAgent agent = agents.remove(host);
+      agent.stopAsync().awaitTerminated();
+      stopped.add(agent);
+    }
+    awaitHosts(hosts, HostStatus.Status.DOWN);
+    completed("host churn: agents down", down);
+
+    log.info("bringing {} agents back up", count);
+    final long up = System.nanoTime();
+    for (final FakeAgent agent : stopped) {
+      startAgent(agent.getName(), agent.getId(), agent.getLabels());
+    }
+    awaitHosts(hosts, HostStatus.Status.UP);
+    poll(() -> {
+      final Map<String, HostStatus> statuses = await(timed(
+          "hostStatuses", () -> client.hostStatuses(hosts)));
+      for (final HostStatus status : statuses.values()) {
+        for (final TaskStatus task : status.getStatuses().values()) {
+          if (task.getGoal() == Goal.START && task.getState() != TaskStatus.State.RUNNING) {
+            return null;
+          }
+        }
+      }
+      return true;
+    });
+    completed("host churn: agents back up", up);
+  }
+
+  /**
+   * Prints the latency percentiles of each kind of master API call, the rate of requests handled
+   * by ZooKeeper, and the time each workload took.
+   */
+  public void report(final PrintStream out) throws IOException {
+    final double seconds = (System.nanoTime() - startNanos) / 1e9;
+    final long zooKeeperRequests = zooKeeperRequests() - startRequests;
+
+    out.printf("%d agents, %.1f s%n%n", agentCount, seconds);
+    out.printf("%-24s %8s %10s %10s %10s %10s%n",
+               "master api", "count", "p50 ms", "p95 ms", "p99 ms", "max ms");
+    for (final Map.Entry<String, Timer> entry : ImmutableSortedMap.copyOf(latencies).entrySet()) {
+      final Snapshot snapshot = entry.getValue().getSnapshot();
+      out.printf("%-24s %8d %10.1f %10.1f %10.1f %10.1f%n",
+                 entry.getKey(), entry.getValue().getCount(),
+                 millis(snapshot.getMedian()), millis(snapshot.get95thPercentile()),
+                 millis(snapshot.get99thPercentile()), millis(snapshot.getMax()));
+    }
+    out.printf("%nzookeeper: %d requests, %.0f per second%n%n",
+               zooKeeperRequests, zooKeeperRequests / seconds);
+    for (final Map.Entry<String, Long> entry : completions.entrySet()) {
+      out.printf("%-40s %10.1f s%n", entry.getKey(), entry.getValue() / 1000.0);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    for (final FakeAgent agent : agents.values()) {
+      agent.stopAsync();
+    }
+    for (final FakeAgent agent : agents.values()) {
+      agent.awaitTerminated();
+    }
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+    if (client != null) {
+      client.close();
+    }
+    if (master != null) {
+      master.stopAsync().awaitTerminated();
+    }
+    if (agentClient != null) {
+      agentClient.close();
+    }
+    if (zk != null) {
+      try {
+        zk.close();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private int members(final DeploymentGroup group) {
+    int members = 0;
+    for (final FakeAgent agent : agents.values()) {
+      boolean matches = true;
+      for (final HostSelector selector : group.getHostSelectors()) {
+        matches &= selector.matches(agent.getLabels().get(selector.getLabel()));
+      }
+      members += matches ? 1 : 0;
+    }
+    return members;
+  }
+
+  private void startAgent(final String host, final String id, final Map<String, String> labels) {
+    final FakeAgent agent = new FakeAgent(
+        host, id, labels, new ZooKeeperClientProvider(agentClient, ZooKeeperModelReporter.noop()),
+        executor, stepMillis, stateDirectory.resolve(host));
+    agent.startAsync().awaitRunning();
+    agents.put(host, agent);
+  }
+
+  /**
+   * A job like those of {@link Fixtures}, but with only dynamic ports so that any number of them
+   * fit on a host.
+   */
+  private Job job(final int i, final String version) {
+    final Job job = i < 0 ? fixtures.job(0).toBuilder().setName("simulated-rollout").build()
+                          : fixtures.job(i);
+    return job.toBuilder()
+        .setVersion(version)
+        .setPorts(ImmutableMap.of("http", PortMapping.of(8080),
+                                  "http-admin", PortMapping.of(8081),
+                                  "hermes", PortMapping.of(5700)))
+        .setHash(null)
+        .build();
+  }
+
+  private void awaitRunning(final JobId jobId, final Collection<String> hosts) throws Exception {
+    poll(() -> {
+      final JobStatus status = await(timed("jobStatus", () -> client.jobStatus(jobId)));
+      for (final String host : hosts) {
+        final TaskStatus task = status.getTaskStatuses().get(host);
+        if (task == null || task.getState() != TaskStatus.State.RUNNING) {
+          return null;
+        }
+      }
+      return true;
+    });
+  }
+
+  private void awaitHosts(final Collection<String> hosts, final HostStatus.Status state)
+      throws Exception {
+    final List<String> list = ImmutableList.copyOf(hosts);
+    poll(() -> {
+      final Map<String, HostStatus> statuses = await(timed(
+          "hostStatuses", () -> client.hostStatuses(list)));
+      for (final String host : list) {
+        final HostStatus status = statuses.get(host);
+        if (status == null || status.getStatus() != state) {
+          return null;
+        }
+      }
+      return true;
+    });
+  }
+
+  private void poll(final Callable<Boolean> done) throws Exception {
+    final long deadline = System.nanoTime() + SECONDS.toNanos(timeoutSeconds);
+    while (done.call() == null) {
+      if (System.nanoTime() > deadline) {
+        throw new TimeoutException("workload did not converge in " + timeoutSeconds + " s");
+      }
+      Thread.sleep(100);
+    }
+  }
+
+  private void completed(final String workload, final long startNanos) {
+    final long millis = NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    log.info("{}: {} ms", workload, millis);
+    completions.put(workload, millis);
+  }
+
+  /**
+   * Calls the master through {@code call} once fewer than {@link #MAX_CONCURRENT_REQUESTS} calls
+   * are outstanding, and records how long the call took under {@code name}.
+   */
+  private <T> ListenableFuture<T> timed(final String name,
+                                        final Callable<ListenableFuture<T>> call)
+      throws Exception {
+    Timer timer = latencies.get(name);
+    if (timer == null) {
+      latencies.putIfAbsent(name, new Timer(new UniformReservoir()));
+      timer = latencies.get(name);
+    }
+    requests.acquire();
+    final Timer.Context context = timer.time();
+    final ListenableFuture<T> future;
+    try {
+      future = call.call();
+    } catch (Exception e) {
+      requests.release();
+      throw e;
+    }
+    future.addListener(() -> {
+      context.stop();
+      requests.release();
+    }, directExecutor());
+    return future;
+  }
+
+  private <T> T await(final ListenableFuture<T> future) throws Exception {
+    try {
+      return future.get(timeoutSeconds, SECONDS);
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+    }
+  }
+
+  /**
+   * Returns the number of requests the ZooKeeper server has received, from its {@code srvr}
+   * four letter command.
+   */
+  private long zooKeeperRequests() throws IOException {
+    final String connect = zk.connectString();
+    final String host = connect.substring(0, connect.lastIndexOf(':'));
+    final int port = Integer.parseInt(connect.substring(connect.lastIndexOf(':') + 1));
+    try (final Socket socket = new Socket(host, port)) {
+      final OutputStream out = socket.getOutputStream();
+      out.write("srvr".getBytes(UTF_8));
+      out.flush();
+      for (final String line : CharStreams.readLines(
+          new InputStreamReader(socket.getInputStream(), UTF_8))) {
+        if (line.startsWith("Received:")) {
+          return Long.parseLong(line.substring("Received:".length()).trim());
+        }
+      }
+    }
+    return 0;
+  }
+
+  private static double millis(final double nanos) {
+    return nanos / MILLISECONDS.toNanos(1);
+  }
+}
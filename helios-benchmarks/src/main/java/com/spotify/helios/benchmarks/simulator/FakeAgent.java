@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.benchmarks.simulator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.AbstractIdleService;
+
+import com.spotify.helios.agent.AgentModel;
+import com.spotify.helios.agent.AgentZooKeeperRegistrar;
+import com.spotify.helios.agent.ZooKeeperAgentModel;
+import com.spotify.helios.common.Json;
+import com.spotify.helios.common.SystemClock;
+import com.spotify.helios.common.descriptors.Goal;
+import com.spotify.helios.common.descriptors.HostInfo;
+import com.spotify.helios.common.descriptors.Job;
+import com.spotify.helios.common.descriptors.JobId;
+import com.spotify.helios.common.descriptors.Task;
+import com.spotify.helios.common.descriptors.TaskStatus;
+import com.spotify.helios.common.descriptors.ThrottleState;
+import com.spotify.helios.servicescommon.KafkaClientProvider;
+import com.spotify.helios.servicescommon.PayloadFormat;
+import com.spotify.helios.servicescommon.coordination.Paths;
+import com.spotify.helios.servicescommon.coordination.ZooKeeperClient;
+import com.spotify.helios.servicescommon.coordination.ZooKeeperClientProvider;
+import com.spotify.helios.servicescommon.coordination.ZooKeeperNodeUpdaterFactory;
+import com.spotify.helios.servicescommon.statistics.NoopSupervisorMetrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.spotify.helios.common.descriptors.TaskStatus.State.CREATING;
+import static com.spotify.helios.common.descriptors.TaskStatus.State.PULLING_IMAGE;
+import static com.spotify.helios.common.descriptors.TaskStatus.State.RUNNING;
+import static com.spotify.helios.common.descriptors.TaskStatus.State.STARTING;
+import static com.spotify.helios.common.descriptors.TaskStatus.State.STOPPED;
+import static com.spotify.helios.common.descriptors.TaskStatus.State.STOPPING;
+
+/**
+ * A simulated host. It registers with {@link AgentZooKeeperRegistrar}, reports its host info and
+ * labels, and watches and writes its tasks and task statuses through a real
+ * {@link ZooKeeperAgentModel}, so status writes and history go through the same code as on a real
+ * agent. Instead of supervising containers, it walks each task through the states a supervisor
+ * would report, one step every {@code stepMillis}.
+ *
+ * The ZooKeeper session and the executor are shared by all fake agents. Besides walking the tasks,
+ * the executor runs the task cache, the task status directory and the task history writer of each
+ * {@link ZooKeeperAgentModel}, which on a real agent each run on a thread of their own. A fake
+ * agent thereby costs no threads of its own.
+ */
+public class FakeAgent extends AbstractIdleService implements AgentModel.Listener {
+
+  private static final Logger log = LoggerFactory.getLogger(FakeAgent.class);
+
+  private static final List<TaskStatus.State> START_STATES =
+      ImmutableList.of(PULLING_IMAGE, CREATING, STARTING, RUNNING);
+  private static final List<TaskStatus.State> STOP_STATES = ImmutableList.of(STOPPING, STOPPED);
+
+  private final String name;
+  private final String id;
+  private final Map<String, String> labels;
+  private final ZooKeeperClientProvider provider;
+  private final ScheduledExecutorService executor;
+  private final long stepMillis;
+  private final Path stateDirectory;
+  private final Random random = new Random();
+
+  // The goal each job was last walked towards, and a generation to abandon superseded walks
+  private final Map<JobId, Goal> goals = Maps.newHashMap();
+  private final Map<JobId, Integer> generations = Maps.newHashMap();
+
+  private AgentZooKeeperRegistrar registrar;
+  private volatile ZooKeeperAgentModel model;
+  private volatile boolean stopped;
+
+  public FakeAgent(final String name, final String id, final Map<String, String> labels,
+                   final ZooKeeperClientProvider provider,
+                   final ScheduledExecutorService executor, final long stepMillis,
+                   final Path stateDirectory) {
+    this.name = name;
+    this.id = id;
+    this.labels = ImmutableMap.copyOf(labels);
+    this.provider = provider;
+    this.executor = executor;
+    this.stepMillis = stepMillis;
+    this.stateDirectory = stateDirectory;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public Map<String, String> getLabels() {
+    return labels;
+  }
+
+  @Override
+  protected void startUp() throws Exception {
+    final ZooKeeperClient client = provider.get("fake_agent");
+    Files.createDirectories(stateDirectory);
+
+    registrar = new AgentZooKeeperRegistrar(name, id, 10, new SystemClock());
+    if (!registrar.tryToRegister(client)) {
+      throw new IllegalStateException("another agent is registered as " + name);
+    }
+
+    final ZooKeeperNodeUpdaterFactory updaters = new ZooKeeperNodeUpdaterFactory(client);
+    updaters.create(Paths.statusHostInfo(name)).update(Json.asBytes(
+        HostInfo.newBuilder()
+            .setHostname(name)
+            .setCpus(32)
+            .setMemoryTotalBytes(128L << 30)
+            .setMemoryFreeBytes(64L << 30)
+            .setOsName("Linux")
+            .build()));
+    updaters.create(Paths.statusHostLabels(name)).update(Json.asBytes(labels));
+
+    model = new ZooKeeperAgentModel(provider, new KafkaClientProvider(null), name,
+                                    stateDirectory, false, PayloadFormat.JSON, null,
+                                    new NoopSupervisorMetrics(), executor);
+    model.addListener(this);
+    model.startAsync().awaitRunning();
+  }
+
+  @Override
+  protected void shutDown() throws Exception {
+    stopped = true;
+    if (model != null) {
+      model.removeListener(this);
+      model.stopAsync().awaitTerminated();
+    }
+    if (registrar != null) {
+      // Takes the up node down, as if the agent died
+      registrar.shutDown();
+    }
+  }
+
+  @Override
+  public void tasksChanged(final AgentModel model) {
+    executor.execute(this::reconcile);
+  }
+
+  /**
+   * Starts walking every task whose goal changed towards its new goal, and every job whose task
+   * is gone towards undeployment.
+   */
+  private synchronized void reconcile() {
+    if (stopped) {
+      return;
+    }
+    final Map<JobId, Task> tasks = model.getTasks();
+    final Set<JobId> jobs = Sets.union(tasks.keySet(), model.getTaskStatuses().keySet())
+        .immutableCopy();
+    for (final JobId jobId : jobs) {
+      final Task task = tasks.get(jobId);
+      final Goal goal = task == null ? Goal.UNDEPLOY : task.getGoal();
+      if (goal == goals.get(jobId)) {
+        continue;
+      }
+      goals.put(jobId, goal);
+      final Integer previous = generations.get(jobId);
+      final int generation = previous == null ? 0 : previous + 1;
+      generations.put(jobId, generation);
+
+      final Job job = task != null ? task.getJob() : model.getTaskStatus(jobId).getJob();
+      walk(job, goal, generation, goal == Goal.START ? START_STATES : STOP_STATES, 0);
+    }
+  }
+
+  private void walk(final Job job, final Goal goal, final int generation,
+                    final List<TaskStatus.State> states, final int step) {
+    // Spread the steps a little so that hosts don't move in lockstep
+    final long delay = stepMillis / 2 + (stepMillis > 0 ? random.nextInt((int) stepMillis) : 0);
+    executor.schedule(() -> {
+      try {
+        if (!advance(job, goal, generation, states.get(step))) {
+          return;
+        }
+        if (step + 1 < states.size()) {
+          walk(job, goal, generation, states, step + 1);
+        } else if (goal == Goal.UNDEPLOY) {
+          undeployed(job.getId(), generation);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (Exception e) {
+        log.warn("{}: failed to update task status of {}", name, job.getId(), e);
+      }
+    }, delay, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Writes the next state of a job, unless the walk has been superseded.
+   *
+   * @return false if the walk has been superseded.
+   */
+  private synchronized boolean advance(final Job job, final Goal goal, final int generation,
+                                       final TaskStatus.State state)
+      throws InterruptedException {
+    if (stopped || generations.get(job.getId()) != generation) {
+      return false;
+    }
+    final TaskStatus previous = model.getTaskStatus(job.getId());
+    final String containerId = previous != null && previous.getContainerId() != null
+                               ? previous.getContainerId()
+                               : Long.toHexString(random.nextLong()) + Long.toHexString(
+                                   random.nextLong());
+    model.setTaskStatus(job.getId(), TaskStatus.newBuilder()
+        .setJob(job)
+        .setGoal(goal)
+        .setState(state)
+        .setContainerId(state == PULLING_IMAGE ? null : containerId)
+        .setThrottled(ThrottleState.NO)
+        .setPorts(job.getPorts())
+        .setEnv(job.getEnv())
+        .build());
+    return true;
+  }
+
+  private synchronized void undeployed(final JobId jobId, final int generation)
+      throws InterruptedException {
+    if (generations.get(jobId) == generation) {
+      model.removeTaskStatus(jobId);
+      goals.remove(jobId);
+    }
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.benchmarks.simulator;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertThat;
+
+public class ClusterSimulatorTest {
+
+  @Test
+  public void testSmallCluster() throws Exception {
+    final ByteArrayOutputStream report = new ByteArrayOutputStream();
+    try (final ClusterSimulator simulator = new ClusterSimulator(4, 10, 60)) {
+      simulator.start();
+      simulator.massDeploy(2);
+      simulator.rollingUpdate();
+      simulator.hostChurn(2);
+      simulator.report(new PrintStream(report, true, UTF_8.name()));
+    }
+
+    final String output = report.toString(UTF_8.name());
+    assertThat(output, containsString("4 agents"));
+    assertThat(output, containsString("mass deploy"));
+    assertThat(output, containsString("rolling update to version 2"));
+    assertThat(output, containsString("host churn: agents back up"));
+  }
+}
@@ -44,6 +44,7 @@ import java.util.Queue;
 
 import static java.net.HttpURLConnection.HTTP_FORBIDDEN;
 import static java.net.HttpURLConnection.HTTP_UNAUTHORIZED;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 /**
  * HttpConnector that wraps another connector to add the necessary hooks into HttpURLConnection for
@@ -99,20 +100,27 @@ public class AuthenticatingHttpConnector implements HttpConnector {
       throw new HeliosException(e);
     }
 
+    endpointIterator.started(endpoint);
+    final long start = System.nanoTime();
+    boolean succeeded = false;
     try {
       log.debug("connecting to {}", ipUri);
 
+      final HttpURLConnection connection;
       if (clientCertificatePath.isPresent()) {
         // prioritize using the certificate file if set
-        return connectWithCertificateFile(ipUri, method, entity, headers);
+        connection = connectWithCertificateFile(ipUri, method, entity, headers);
       } else if (agentProxy.isPresent() && !identities.isEmpty()) {
         // ssh-agent based authentication
-        return connectWithIdentities(identities, ipUri, method, entity, headers);
+        connection = connectWithIdentities(identities, ipUri, method, entity, headers);
       } else {
         // no authentication
-        return doConnect(ipUri, method, entity, headers);
+        connection = doConnect(ipUri, method, entity, headers);
       }
 
+      // A master that answers with a server error is no more use than one that doesn't answer
+      succeeded = connection.getResponseCode() / 100 != 5;
+      return connection;
     } catch (ConnectException | SocketTimeoutException | UnknownHostException e) {
       // UnknownHostException happens if we can't resolve hostname into IP address.
       // UnknownHostException's getMessage method returns just the hostname which is a
@@ -121,6 +129,13 @@ public class AuthenticatingHttpConnector implements HttpConnector {
       throw new HeliosException("Unable to connect to master", e);
     } catch (IOException e) {
       throw new HeliosException(e);
+    } finally {
+      // Every started request must be completed, or the endpoint looks busy forever
+      if (succeeded) {
+        endpointIterator.success(endpoint, NANOSECONDS.toMillis(System.nanoTime() - start));
+      } else {
+        endpointIterator.failure(endpoint);
+      }
     }
   }
 
@@ -0,0 +1,367 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.client;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Optional;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.net.InetAddresses;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.spotify.helios.common.Clock;
+import com.spotify.helios.common.Json;
+import com.spotify.helios.common.Resolver;
+import com.spotify.helios.common.Resolver.Resolution;
+import com.spotify.helios.common.SystemClock;
+
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.impl.conn.SystemDefaultDnsResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * A {@link Supplier} of {@link Endpoint}s that caches the result of resolving the Helios masters
+ * for as long as the SRV records say it may.
+ *
+ * Once the cached endpoints have expired they are still returned while a refresh happens in the
+ * background, so callers only ever block on DNS the first time. Optionally the endpoints are also
+ * written to a cache directory so that short-lived processes, like the CLI, can skip DNS entirely
+ * while the cached entry is fresh, and fall back to a stale entry if DNS fails.
+ */
+public class CachingEndpointSupplier implements Supplier<List<Endpoint>> {
+
+  private static final Logger log = LoggerFactory.getLogger(CachingEndpointSupplier.class);
+
+  private static final ConcurrentMap<String, CachingEndpointSupplier> SHARED =
+      Maps.newConcurrentMap();
+
+  private static final Executor DEFAULT_EXECUTOR = Executors.newSingleThreadExecutor(
+      new ThreadFactoryBuilder()
+          .setNameFormat("helios-endpoint-refresh-%d")
+          .setDaemon(true)
+          .build());
+
+  private final String name;
+  private final Supplier<Resolution> resolutionSupplier;
+  private final DnsResolver dnsResolver;
+  private final Executor executor;
+  private final Clock clock;
+  private final Optional<Path> cacheFile;
+  private final long minTtlMillis;
+  private final long maxTtlMillis;
+
+  private final AtomicBoolean refreshing = new AtomicBoolean();
+  private volatile Snapshot snapshot;
+
+  private CachingEndpointSupplier(final Builder builder) {
+    this.name = builder.name;
+    this.resolutionSupplier = builder.resolutionSupplier;
+    this.dnsResolver = builder.dnsResolver;
+    this.executor = builder.executor;
+    this.clock = builder.clock;
+    this.cacheFile = builder.cacheDirectory.isPresent()
+                     ? Optional.of(builder.cacheDirectory.get().resolve(name + ".json"))
+                     : Optional.<Path>absent();
+    this.minTtlMillis = builder.minTtlMillis;
+    this.maxTtlMillis = builder.maxTtlMillis;
+  }
+
+  /**
+   * Returns a caching supplier of the Helios masters in a domain. Suppliers are shared within
+   * the JVM, so every client created for the same domain and cache directory reuses the same
+   * cached endpoints.
+   * @param srvName The SRV name, e.g. "helios".
+   * @param domain The domain.
+   * @return A caching Supplier of Endpoints.
+   */
+  public static CachingEndpointSupplier forDomain(final String srvName, final String domain) {
+    return forDomain(srvName, domain, Optional.<Path>absent());
+  }
+
+  /**
+   * Like {@link #forDomain(String, String)}, but also persists the endpoints in a directory so
+   * that they survive the process.
+   * @param srvName The SRV name, e.g. "helios".
+   * @param domain The domain.
+   * @param cacheDirectory The directory in which to store the cached endpoints, if any.
+   * @return A caching Supplier of Endpoints.
+   */
+  public static CachingEndpointSupplier forDomain(final String srvName, final String domain,
+                                                  final Optional<Path> cacheDirectory) {
+    final String name = srvName + "." + domain;
+    // Callers that persist the endpoints elsewhere, or not at all, get a supplier of their own
+    final String key = cacheDirectory.isPresent()
+                       ? name + ":" + cacheDirectory.get().toAbsolutePath().normalize()
+                       : name;
+    final CachingEndpointSupplier existing = SHARED.get(key);
+    if (existing != null) {
+      return existing;
+    }
+    final CachingEndpointSupplier supplier =
+        newBuilder(name, Resolver.resolutionSupplier(srvName, domain))
+            .setCacheDirectory(cacheDirectory)
+            .build();
+    final CachingEndpointSupplier raced = SHARED.putIfAbsent(key, supplier);
+    return raced == null ? supplier : raced;
+  }
+
+  @Override
+  public List<Endpoint> get() {
+    Snapshot current = snapshot;
+
+    if (current == null) {
+      current = load();
+    }
+
+    if (current == null || current.endpoints.isEmpty()) {
+      // Nothing to serve while refreshing in the background, so we have to wait for DNS
+      return refresh();
+    }
+
+    if (current.isExpired(clock.now().getMillis())) {
+      refreshAsync();
+    }
+
+    return current.endpoints;
+  }
+
+  private synchronized Snapshot load() {
+    if (snapshot != null || !cacheFile.isPresent()) {
+      return snapshot;
+    }
+    // A stale entry is only used if DNS fails, see refresh()
+    final Snapshot cached = read(cacheFile.get());
+    if (cached != null && !cached.isExpired(clock.now().getMillis())) {
+      snapshot = cached;
+    }
+    return snapshot;
+  }
+
+  private void refreshAsync() {
+    if (!refreshing.compareAndSet(false, true)) {
+      return;
+    }
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          refresh();
+        } catch (Exception e) {
+          log.warn("Failed to refresh Helios master endpoints for {}", name, e);
+        } finally {
+          refreshing.set(false);
+        }
+      }
+    });
+  }
+
+  private synchronized List<Endpoint> refresh() {
+    final long now = clock.now().getMillis();
+    final Snapshot previous = snapshot != null ? snapshot : read(cacheFile);
+
+    final Resolution resolution;
+    try {
+      resolution = resolutionSupplier.get();
+    } catch (RuntimeException e) {
+      if (previous == null) {
+        throw e;
+      }
+      log.warn("Failed to resolve Helios masters for {}, using endpoints that expired at {}",
+               name, previous.expires, e);
+      snapshot = previous.extend(now + minTtlMillis);
+      return snapshot.endpoints;
+    }
+
+    final List<Endpoint> endpoints = Endpoints.of(resolution.getUris(), dnsResolver);
+    if (endpoints.isEmpty() && previous != null && !previous.endpoints.isEmpty()) {
+      log.warn("No Helios masters found for {}, using previously cached endpoints", name);
+      snapshot = previous.extend(now + minTtlMillis);
+      return snapshot.endpoints;
+    }
+
+    final long ttlMillis = Math.max(minTtlMillis,
+        Math.min(maxTtlMillis, TimeUnit.SECONDS.toMillis(resolution.getTtlSeconds())));
+    snapshot = new Snapshot(endpoints, now + ttlMillis);
+    write(snapshot);
+    return endpoints;
+  }
+
+  private Snapshot read(final Optional<Path> path) {
+    return path.isPresent() ? read(path.get()) : null;
+  }
+
+  private Snapshot read(final Path path) {
+    if (!Files.isReadable(path)) {
+      return null;
+    }
+    try {
+      final CacheEntry entry = Json.read(Files.readAllBytes(path), CacheEntry.class);
+      final ImmutableList.Builder<Endpoint> endpoints = ImmutableList.builder();
+      for (final Map<String, String> endpoint : entry.getEndpoints()) {
+        endpoints.add(Endpoints.of(URI.create(endpoint.get("uri")),
+                                   InetAddresses.forString(endpoint.get("ip"))));
+      }
+      return new Snapshot(endpoints.build(), entry.getExpires());
+    } catch (IOException | RuntimeException e) {
+      log.debug("Ignoring unreadable endpoint cache file {}", path, e);
+      return null;
+    }
+  }
+
+  private void write(final Snapshot snapshot) {
+    if (!cacheFile.isPresent()) {
+      return;
+    }
+    final Path path = cacheFile.get();
+    final ImmutableList.Builder<Map<String, String>> endpoints = ImmutableList.builder();
+    for (final Endpoint endpoint : snapshot.endpoints) {
+      endpoints.add(ImmutableMap.of("uri", endpoint.getUri().toString(),
+                                    "ip", endpoint.getIp().getHostAddress()));
+    }
+    try {
+      Files.createDirectories(path.getParent());
+      final Path tmp = Files.createTempFile(path.getParent(), name, ".tmp");
+      Files.write(tmp, Json.asBytes(new CacheEntry(snapshot.expires, endpoints.build())));
+      Files.move(tmp, path, REPLACE_EXISTING, ATOMIC_MOVE);
+    } catch (IOException e) {
+      log.debug("Failed to write endpoint cache file {}", path, e);
+    }
+  }
+
+  @VisibleForTesting
+  static Builder newBuilder(final String name, final Supplier<Resolution> resolutionSupplier) {
+    return new Builder(name, resolutionSupplier);
+  }
+
+  private static class Snapshot {
+
+    private final List<Endpoint> endpoints;
+    private final long expires;
+
+    Snapshot(final List<Endpoint> endpoints, final long expires) {
+      this.endpoints = endpoints;
+      this.expires = expires;
+    }
+
+    boolean isExpired(final long now) {
+      return now >= expires;
+    }
+
+    Snapshot extend(final long expires) {
+      return new Snapshot(endpoints, expires);
+    }
+  }
+
+  private static class CacheEntry {
+
+    private final long expires;
+    private final List<Map<String, String>> endpoints;
+
+    @JsonCreator
+    CacheEntry(@JsonProperty("expires") final long expires,
+               @JsonProperty("endpoints") final List<Map<String, String>> endpoints) {
+      this.expires = expires;
+      this.endpoints = endpoints == null ? ImmutableList.<Map<String, String>>of() : endpoints;
+    }
+
+    @JsonProperty("expires")
+    public long getExpires() {
+      return expires;
+    }
+
+    @JsonProperty("endpoints")
+    public List<Map<String, String>> getEndpoints() {
+      return endpoints;
+    }
+  }
+
+  static class Builder {
+
+    private final String name;
+    private final Supplier<Resolution> resolutionSupplier;
+    private DnsResolver dnsResolver = SystemDefaultDnsResolver.INSTANCE;
+    private Executor executor = DEFAULT_EXECUTOR;
+    private Clock clock = new SystemClock();
+    private Optional<Path> cacheDirectory = Optional.absent();
+    private long minTtlMillis = TimeUnit.SECONDS.toMillis(10);
+    private long maxTtlMillis = TimeUnit.HOURS.toMillis(1);
+
+    private Builder(final String name, final Supplier<Resolution> resolutionSupplier) {
+      this.name = checkNotNull(name);
+      this.resolutionSupplier = checkNotNull(resolutionSupplier);
+    }
+
+    Builder setDnsResolver(final DnsResolver dnsResolver) {
+      this.dnsResolver = dnsResolver;
+      return this;
+    }
+
+    /** Defaults to a shared single daemon thread. */
+    Builder setExecutor(final Executor executor) {
+      this.executor = executor;
+      return this;
+    }
+
+    /** Defaults to SystemClock. */
+    Builder setClock(final Clock clock) {
+      this.clock = clock;
+      return this;
+    }
+
+    Builder setCacheDirectory(final Optional<Path> cacheDirectory) {
+      this.cacheDirectory = cacheDirectory;
+      return this;
+    }
+
+    /**
+     * Bounds the TTL of the SRV records so that a TTL of zero does not cause a lookup for every
+     * request, and a huge TTL does not pin a stale set of masters. Defaults to 10 seconds and 1
+     * hour.
+     */
+    Builder setTtlBounds(final long min, final long max, final TimeUnit unit) {
+      this.minTtlMillis = unit.toMillis(min);
+      this.maxTtlMillis = unit.toMillis(max);
+      return this;
+    }
+
+    CachingEndpointSupplier build() {
+      return new CachingEndpointSupplier(this);
+    }
+  }
+}
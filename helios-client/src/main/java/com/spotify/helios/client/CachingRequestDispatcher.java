@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.client;
+
+import com.google.common.base.Function;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import com.spotify.helios.common.Version;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.util.concurrent.Futures.transform;
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
+import static java.net.HttpURLConnection.HTTP_OK;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * A {@link RequestDispatcher} that keeps GET responses tagged with an ETag on disk.
+ *
+ * Cached responses are always revalidated with If-None-Match, so they are never stale. When the
+ * master replies 304 Not Modified the cached payload is returned in its place, which saves the
+ * master from reading the full state from ZooKeeper and the client from downloading it. Entries
+ * written by another version of the client are ignored, as they may not deserialize the same.
+ */
+class CachingRequestDispatcher implements RequestDispatcher {
+
+  private static final Logger log = LoggerFactory.getLogger(CachingRequestDispatcher.class);
+
+  private final RequestDispatcher delegate;
+  private final Path directory;
+
+  private CachingRequestDispatcher(final RequestDispatcher delegate, final Path directory) {
+    this.delegate = delegate;
+    this.directory = directory;
+  }
+
+  @Override
+  public ListenableFuture<Response> request(final URI uri,
+                                            final String method,
+                                            final byte[] entityBytes,
+                                            final Map<String, List<String>> headers) {
+    if (!"GET".equals(method)) {
+      return delegate.request(uri, method, entityBytes, headers);
+    }
+
+    final Path file = file(uri);
+    final String etag = readTag(file);
+    final Map<String, List<String>> conditionalHeaders;
+    if (etag == null) {
+      conditionalHeaders = headers;
+    } else {
+      conditionalHeaders = Maps.newHashMap(headers);
+      conditionalHeaders.put("If-None-Match", Collections.singletonList(etag));
+    }
+
+    return transform(delegate.request(uri, method, entityBytes, conditionalHeaders),
+                     new Function<Response, Response>() {
+                       @Override
+                       public Response apply(final Response response) {
+                         return handle(file, etag, response);
+                       }
+                     });
+  }
+
+  private Response handle(final Path file, final String etag, final Response response) {
+    if (response.status() == HTTP_NOT_MODIFIED && etag != null) {
+      final byte[] payload = readPayload(file);
+      if (payload != null) {
+        log.debug("{} {} not modified, using cached response", response.method(), response.uri());
+        return new Response(response.method(), response.uri(), HTTP_OK, payload,
+                            response.headers());
+      }
+    }
+    if (response.status() == HTTP_OK) {
+      final String tag = header(response, "ETag");
+      if (tag != null) {
+        write(file, tag, response.payload());
+      }
+    }
+    return response;
+  }
+
+  private Path file(final URI uri) {
+    final String key = uri.getRawPath() + "?" + uri.getRawQuery();
+    return directory.resolve(Hashing.sha1().hashString(key, UTF_8).toString());
+  }
+
+  private static String readTag(final Path file) {
+    try (final DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+      return readHeader(in);
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException e) {
+      log.debug("failed to read cached response {}", file, e);
+      return null;
+    }
+  }
+
+  private static byte[] readPayload(final Path file) {
+    try (final DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+      if (readHeader(in) == null) {
+        return null;
+      }
+      return ByteStreams.toByteArray(in);
+    } catch (IOException e) {
+      log.debug("failed to read cached response {}", file, e);
+      return null;
+    }
+  }
+
+  private static String readHeader(final DataInputStream in) throws IOException {
+    final String version = in.readUTF();
+    final String etag = in.readUTF();
+    return Version.POM_VERSION.equals(version) ? etag : null;
+  }
+
+  private void write(final Path file, final String etag, final byte[] payload) {
+    try {
+      Files.createDirectories(directory);
+      final Path tmp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+      try {
+        try (final OutputStream os = Files.newOutputStream(tmp);
+             final DataOutputStream out = new DataOutputStream(os)) {
+          out.writeUTF(Version.POM_VERSION);
+          out.writeUTF(etag);
+          out.write(payload);
+        }
+        Files.move(tmp, file, ATOMIC_MOVE, REPLACE_EXISTING);
+      } finally {
+        Files.deleteIfExists(tmp);
+      }
+    } catch (IOException e) {
+      log.debug("failed to write cached response {}", file, e);
+    }
+  }
+
+  private static String header(final Response response, final String name) {
+    for (final Map.Entry<String, List<String>> entry : response.headers().entrySet()) {
+      if (name.equalsIgnoreCase(entry.getKey()) && !entry.getValue().isEmpty()) {
+        return entry.getValue().get(0);
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public void close() throws IOException {
+    delegate.close();
+  }
+
+  static Builder forDispatcher(final RequestDispatcher delegate) {
+    return new Builder(delegate);
+  }
+
+  public static final class Builder {
+
+    private final RequestDispatcher delegate;
+    private Path directory;
+
+    private Builder(final RequestDispatcher delegate) {
+      this.delegate = delegate;
+    }
+
+    public Builder setDirectory(final Path directory) {
+      this.directory = directory;
+      return this;
+    }
+
+    public CachingRequestDispatcher build() {
+      return new CachingRequestDispatcher(delegate, directory);
+    }
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.client;
+
+import com.google.common.base.MoreObjects;
+
+import org.jetbrains.annotations.Nullable;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * What one cluster answered to a request made through a {@link FederatedHeliosClient}.
+ *
+ * If the cluster failed or didn't answer in time, the snapshot holds the error and, if there was
+ * one, the value the cluster last answered the same request with. Such a snapshot is stale, and
+ * {@link #getFetchedAt()} tells how old its value is.
+ */
+public class ClusterSnapshot<T> {
+
+  private final String cluster;
+  private final T value;
+  private final long fetchedAt;
+  private final Throwable error;
+
+  private ClusterSnapshot(final String cluster, @Nullable final T value, final long fetchedAt,
+                          @Nullable final Throwable error) {
+    this.cluster = checkNotNull(cluster, "cluster");
+    this.value = value;
+    this.fetchedAt = fetchedAt;
+    this.error = error;
+  }
+
+  static <T> ClusterSnapshot<T> of(final String cluster, @Nullable final T value,
+                                   final long fetchedAt) {
+    return new ClusterSnapshot<>(cluster, value, fetchedAt, null);
+  }
+
+  static <T> ClusterSnapshot<T> failed(final String cluster, final Throwable error) {
+    return new ClusterSnapshot<>(cluster, null, 0, checkNotNull(error, "error"));
+  }
+
+  /**
+   * Returns a stale copy of this snapshot, for when the cluster failed with the given error.
+   */
+  ClusterSnapshot<T> stale(final Throwable error) {
+    return new ClusterSnapshot<>(cluster, value, fetchedAt, checkNotNull(error, "error"));
+  }
+
+  public String getCluster() {
+    return cluster;
+  }
+
+  /**
+   * Returns what the cluster answered, or null if it has never answered the request. Also null
+   * if the cluster answered with nothing, e.g. for a deployment group that doesn't exist there.
+   */
+  @Nullable
+  public T getValue() {
+    return value;
+  }
+
+  /**
+   * Returns whether the cluster has ever answered the request.
+   */
+  public boolean hasValue() {
+    return fetchedAt > 0;
+  }
+
+  /**
+   * Returns when the value was fetched from the cluster, in milliseconds since the epoch, or 0 if
+   * the cluster has never answered the request.
+   */
+  public long getFetchedAt() {
+    return fetchedAt;
+  }
+
+  /**
+   * Returns why the cluster didn't answer this time, or null if it did.
+   */
+  @Nullable
+  public Throwable getError() {
+    return error;
+  }
+
+  /**
+   * Returns whether the value is not what the cluster answered this time.
+   */
+  public boolean isStale() {
+    return error != null;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("cluster", cluster)
+        .add("value", value)
+        .add("fetchedAt", fetchedAt)
+        .add("error", error)
+        .toString();
+  }
+}
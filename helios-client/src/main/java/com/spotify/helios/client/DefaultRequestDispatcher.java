@@ -18,6 +18,7 @@
 package com.spotify.helios.client;
 
 import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 
@@ -33,6 +34,7 @@ import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -80,26 +82,21 @@ class DefaultRequestDispatcher implements RequestDispatcher {
 
         final boolean gzip = isGzipCompressed(connection);
         final InputStream stream = gzip ? new GZIPInputStream(rawStream) : rawStream;
-        final ByteArrayOutputStream payload = new ByteArrayOutputStream();
-        if (stream != null) {
-          int n;
-          byte[] buffer = new byte[4096];
-          while ((n = stream.read(buffer, 0, buffer.length)) != -1) {
-            payload.write(buffer, 0, n);
-          }
-        }
+        final byte[] payload = (stream == null)
+                               ? new byte[0]
+                               : readPayload(stream, gzip ? -1 : connection.getContentLength());
 
         URI realUri = connection.getURL().toURI();
         if (log.isTraceEnabled()) {
           log.trace("rep: {} {} {} {} {} gzip:{}",
-                    method, realUri, status, payload.size(), decode(payload), gzip);
+                    method, realUri, status, payload.length, decode(payload), gzip);
         } else {
           log.debug("rep: {} {} {} {} gzip:{}",
-                    method, realUri, status, payload.size(), gzip);
+                    method, realUri, status, payload.length, gzip);
         }
 
         return new Response(
-            method, uri, status, payload.toByteArray(),
+            method, uri, status, payload,
             Collections.unmodifiableMap(Maps.newHashMap(connection.getHeaderFields())));
       }
 
@@ -118,8 +115,34 @@ class DefaultRequestDispatcher implements RequestDispatcher {
     });
   }
 
-  private String decode(final ByteArrayOutputStream payload) {
-    final byte[] bytes = payload.toByteArray();
+  /**
+   * Reads a response payload. When the length is known, the payload is read straight into an array
+   * of that size instead of being buffered and copied.
+   *
+   * @param length The expected length of the payload, or -1 if not known.
+   */
+  static byte[] readPayload(final InputStream stream, final int length) throws IOException {
+    if (length < 0) {
+      return ByteStreams.toByteArray(stream);
+    }
+    final byte[] payload = new byte[length];
+    final int n = ByteStreams.read(stream, payload, 0, length);
+    if (n < length) {
+      return Arrays.copyOf(payload, n);
+    }
+    final int next = stream.read();
+    if (next == -1) {
+      return payload;
+    }
+    // More than the declared length was sent
+    final ByteArrayOutputStream out = new ByteArrayOutputStream(length * 2);
+    out.write(payload);
+    out.write(next);
+    ByteStreams.copy(stream, out);
+    return out.toByteArray();
+  }
+
+  private String decode(final byte[] bytes) {
     try {
       return Json.asPrettyString(Json.read(bytes, new TypeReference<Map<String, Object>>() {
       }));
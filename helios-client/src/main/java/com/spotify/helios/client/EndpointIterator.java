@@ -17,12 +17,20 @@
 
 package com.spotify.helios.client;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Predicate;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
+
+import com.spotify.helios.common.Clock;
+import com.spotify.helios.common.SystemClock;
 
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Random;
 
@@ -34,17 +42,40 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * An {@link Iterator} of {@link Endpoint} that restarts when it reaches the end.
  *
  * The iterator will loop continuously around the provided elements, unless there are no elements
- * in the collection to begin with.
+ * in the collection to begin with. Callers can report requests to an endpoint with
+ * {@link #started(Endpoint)}, {@link #success(Endpoint, long)} and {@link #failure(Endpoint)}.
+ *
+ * Every endpoint has a circuit breaker. A failure opens it for a backoff period that grows with
+ * consecutive failures, after which a single trial request is let through. Among the endpoints
+ * whose circuit is closed, the ones with the lowest moving average latency are preferred, and
+ * among those that perform about equally well the one with the fewest requests in flight is picked,
+ * taking them in turn otherwise.
  */
 class EndpointIterator implements Iterator<Endpoint> {
 
-  private final List<Endpoint> endpoints;
-  private final int size;
+  // Weight of the most recent latency sample in the moving average
+  private static final double EWMA_ALPHA = 0.3;
+
+  // Endpoints whose latency is within this factor of the fastest one are considered equal
+  private static final double LATENCY_TOLERANCE = 1.5;
+
+  // Endpoints that are a few milliseconds apart are always considered equal
+  private static final double LATENCY_SLACK_MILLIS = 5;
+
+  private static final long MIN_FAILURE_BACKOFF_MILLIS = 1000;
+  private static final long MAX_FAILURE_BACKOFF_MILLIS = 60000;
+
+  private final Supplier<List<Endpoint>> endpointSupplier;
+  private final Clock clock;
+  private final Map<Endpoint, EndpointStats> stats = Maps.newHashMap();
+  private List<Endpoint> endpoints;
   private int cursor;
 
-  private EndpointIterator(final List<Endpoint> endpoints) {
-    this.endpoints = ImmutableList.copyOf(checkNotNull(endpoints));
-    size = this.endpoints.size();
+  private EndpointIterator(final Supplier<List<Endpoint>> endpointSupplier, final Clock clock) {
+    this.endpointSupplier = checkNotNull(endpointSupplier);
+    this.clock = checkNotNull(clock);
+    this.endpoints = ImmutableList.copyOf(checkNotNull(endpointSupplier.get()));
+    final int size = this.endpoints.size();
     // Set the cursor to a random location within the backing list.
     // TODO (dxia) It'd be nice to enforce the backing list to not be empty.
     // But this breaks an existing test.
@@ -52,21 +83,65 @@ class EndpointIterator implements Iterator<Endpoint> {
   }
 
   static EndpointIterator of(final List<Endpoint> endpoints) {
-    return new EndpointIterator(endpoints);
+    return new EndpointIterator(Suppliers.ofInstance(endpoints), new SystemClock());
+  }
+
+  /**
+   * Returns an iterator that picks up changes to the endpoints returned by the supplier. The
+   * supplier is consulted for every call to {@link #next()}, so it should be cheap, like a
+   * {@link CachingEndpointSupplier}.
+   */
+  static EndpointIterator of(final Supplier<List<Endpoint>> endpointSupplier) {
+    return new EndpointIterator(endpointSupplier, new SystemClock());
+  }
+
+  @VisibleForTesting
+  static EndpointIterator of(final List<Endpoint> endpoints, final Clock clock) {
+    return new EndpointIterator(Suppliers.ofInstance(endpoints), clock);
   }
 
   @Override
-  public boolean hasNext() {
-    return size > 0;
+  public synchronized boolean hasNext() {
+    return !currentEndpoints().isEmpty();
   }
 
   @Override
-  public Endpoint next() {
+  public synchronized Endpoint next() {
+    final List<Endpoint> endpoints = currentEndpoints();
+    final int size = endpoints.size();
     if (size == 0) {
       throw new NoSuchElementException();
     }
 
-    return cursor < size ? endpoints.get(cursor++) : endpoints.get(cursor = 0);
+    final long now = clock.now().getMillis();
+
+    // Find the lowest latency among available endpoints. Endpoints without a latency yet count as
+    // fast so that they get tried. If no endpoint is available there is nothing better to do than
+    // to go around in order.
+    double fastest = Double.MAX_VALUE;
+    for (final Endpoint endpoint : endpoints) {
+      final EndpointStats endpointStats = stats(endpoint);
+      if (endpointStats.isAvailable(now)) {
+        fastest = Math.min(fastest, endpointStats.latencyMillis);
+      }
+    }
+    final boolean noneAvailable = fastest == Double.MAX_VALUE;
+    final double threshold = fastest * LATENCY_TOLERANCE + LATENCY_SLACK_MILLIS;
+
+    int best = -1;
+    for (int i = 0; i < size; i++) {
+      final int index = (cursor + i) % size;
+      final EndpointStats endpointStats = stats(endpoints.get(index));
+      if (noneAvailable ||
+          (endpointStats.isAvailable(now) && endpointStats.latencyMillis <= threshold)) {
+        if (best == -1 || endpointStats.inFlight < stats(endpoints.get(best)).inFlight) {
+          best = index;
+        }
+      }
+    }
+
+    cursor = best + 1;
+    return endpoints.get(best);
   }
 
   @Override
@@ -74,11 +149,98 @@ class EndpointIterator implements Iterator<Endpoint> {
     throw new UnsupportedOperationException();
   }
 
+  /**
+   * Record that a request to an endpoint was started. Should be followed by a call to either
+   * {@link #success(Endpoint, long)} or {@link #failure(Endpoint)} when it completes.
+   * @param endpoint The endpoint.
+   */
+  synchronized void started(final Endpoint endpoint) {
+    stats(endpoint).started();
+  }
+
+  /**
+   * Record that a request to an endpoint succeeded.
+   * @param endpoint The endpoint.
+   * @param latencyMillis How long the request took.
+   */
+  synchronized void success(final Endpoint endpoint, final long latencyMillis) {
+    stats(endpoint).success(latencyMillis);
+  }
+
+  /**
+   * Record that a request to an endpoint failed.
+   * @param endpoint The endpoint.
+   */
+  synchronized void failure(final Endpoint endpoint) {
+    stats(endpoint).failure(clock.now().getMillis());
+  }
+
+  private EndpointStats stats(final Endpoint endpoint) {
+    EndpointStats endpointStats = stats.get(endpoint);
+    if (endpointStats == null) {
+      endpointStats = new EndpointStats();
+      stats.put(endpoint, endpointStats);
+    }
+    return endpointStats;
+  }
+
+  private List<Endpoint> currentEndpoints() {
+    final List<Endpoint> latest = endpointSupplier.get();
+    if (latest != endpoints && latest != null && !latest.equals(endpoints)) {
+      endpoints = ImmutableList.copyOf(latest);
+      stats.keySet().retainAll(endpoints);
+    }
+    return endpoints;
+  }
+
+  private static class EndpointStats {
+
+    private boolean measured;
+    private double latencyMillis;
+    private int inFlight;
+    private int consecutiveFailures;
+    private long openUntil;
+    private boolean trialInFlight;
+
+    void started() {
+      inFlight++;
+      if (consecutiveFailures > 0) {
+        trialInFlight = true;
+      }
+    }
+
+    void success(final long latencyMillis) {
+      completed();
+      this.latencyMillis = measured
+                           ? EWMA_ALPHA * latencyMillis + (1 - EWMA_ALPHA) * this.latencyMillis
+                           : latencyMillis;
+      measured = true;
+      consecutiveFailures = 0;
+    }
+
+    void failure(final long now) {
+      completed();
+      consecutiveFailures++;
+      final long backoff = MIN_FAILURE_BACKOFF_MILLIS << Math.min(consecutiveFailures - 1, 16);
+      openUntil = now + Math.min(backoff, MAX_FAILURE_BACKOFF_MILLIS);
+    }
+
+    boolean isAvailable(final long now) {
+      // A closed circuit, or a half open one that is not already busy with a trial request
+      return consecutiveFailures == 0 || (now >= openUntil && !trialInFlight);
+    }
+
+    private void completed() {
+      inFlight = Math.max(0, inFlight - 1);
+      trialInFlight = false;
+    }
+  }
+
   /**
    * @return true if any endpoints' scheme is HTTPS
    */
-  boolean hasHttps() {
-    return Iterables.any(endpoints, new Predicate<Endpoint>() {
+  synchronized boolean hasHttps() {
+    return Iterables.any(currentEndpoints(), new Predicate<Endpoint>() {
       @Override
       public boolean apply(@Nullable Endpoint endpoint) {
         return endpoint != null && endpoint.getUri() != null &&
@@ -101,6 +101,16 @@ public class Endpoints {
     return endpoints.build();
   }
 
+  /**
+   * Returns an {@link Endpoint} for a URI whose hostname has already been resolved.
+   * @param uri The URI.
+   * @param ip The IP address that the hostname in the URI resolves to.
+   * @return An Endpoint.
+   */
+  static Endpoint of(final URI uri, final InetAddress ip) {
+    return new DefaultEndpoint(uri, ip);
+  }
+
   private static class DefaultEndpoint implements Endpoint {
 
     private static final List<String> VALID_PROTOCOLS = ImmutableList.of("http", "https");
@@ -0,0 +1,371 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.client;
+
+import com.google.common.base.Function;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningScheduledExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import com.spotify.helios.common.Clock;
+import com.spotify.helios.common.SystemClock;
+import com.spotify.helios.common.descriptors.HostStatus;
+import com.spotify.helios.common.descriptors.Job;
+import com.spotify.helios.common.descriptors.JobId;
+import com.spotify.helios.common.descriptors.JobStatus;
+import com.spotify.helios.common.protocol.DeploymentGroupStatusResponse;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Reads from several Helios clusters at once, e.g. to find out where in all sites a job is
+ * running.
+ *
+ * Every request is sent to all clusters in parallel, and the response holds whatever each cluster
+ * answered, see {@link FederatedResponse}. A cluster that fails, or doesn't answer within the
+ * timeout, doesn't fail the request. Instead its last answer to the same request is used, marked
+ * as stale, if it's not older than the max staleness. A late answer is still kept for the next
+ * request.
+ *
+ * Closing the federated client closes the clients of all clusters.
+ */
+public class FederatedHeliosClient implements Closeable {
+
+  private static final Logger log = LoggerFactory.getLogger(FederatedHeliosClient.class);
+
+  private final Map<String, HeliosClient> clients;
+  private final ListeningScheduledExecutorService executor;
+  private final boolean shutDownExecutorOnClose;
+  private final long timeoutMillis;
+  private final Clock clock;
+  // The last answer of each cluster, by cluster and request
+  private final Cache<String, ClusterSnapshot<?>> snapshots;
+
+  private FederatedHeliosClient(final Map<String, HeliosClient> clients,
+                                final ListeningScheduledExecutorService executor,
+                                final boolean shutDownExecutorOnClose,
+                                final long timeoutMillis,
+                                final long maxStalenessMillis,
+                                final Clock clock) {
+    this.clients = clients;
+    this.executor = executor;
+    this.shutDownExecutorOnClose = shutDownExecutorOnClose;
+    this.timeoutMillis = timeoutMillis;
+    this.clock = clock;
+    this.snapshots = CacheBuilder.newBuilder()
+        .expireAfterWrite(maxStalenessMillis, MILLISECONDS)
+        .ticker(new Ticker() {
+          @Override
+          public long read() {
+            // Snapshots age by the same clock that timestamps them
+            return MILLISECONDS.toNanos(clock.now().getMillis());
+          }
+        })
+        .build();
+  }
+
+  /**
+   * Returns the names of the clusters, in the order they were added.
+   */
+  public Set<String> getClusters() {
+    return clients.keySet();
+  }
+
+  /**
+   * Returns the status of the given jobs in every cluster. Clusters leave out jobs they don't
+   * have.
+   */
+  public ListenableFuture<FederatedResponse<Map<JobId, JobStatus>>> jobStatuses(
+      final Set<JobId> jobs) {
+    return fanOut("jobStatuses " + new TreeSet<>(jobs),
+                  new Function<HeliosClient, ListenableFuture<Map<JobId, JobStatus>>>() {
+                    @Override
+                    public ListenableFuture<Map<JobId, JobStatus>> apply(
+                        final HeliosClient client) {
+                      return client.jobStatuses(jobs);
+                    }
+                  });
+  }
+
+  /**
+   * Returns the status of the jobs matching a query, as for {@link HeliosClient#jobs(String)}, in
+   * every cluster.
+   */
+  public ListenableFuture<FederatedResponse<Map<JobId, JobStatus>>> jobStatuses(
+      final String query) {
+    return fanOut("jobStatuses " + query,
+                  new Function<HeliosClient, ListenableFuture<Map<JobId, JobStatus>>>() {
+                    @Override
+                    public ListenableFuture<Map<JobId, JobStatus>> apply(
+                        final HeliosClient client) {
+                      return Futures.transform(
+                          client.jobs(query),
+                          new AsyncFunction<Map<JobId, Job>, Map<JobId, JobStatus>>() {
+                            @Override
+                            public ListenableFuture<Map<JobId, JobStatus>> apply(
+                                @NotNull final Map<JobId, Job> jobs) {
+                              if (jobs.isEmpty()) {
+                                return immediateFuture(Collections.<JobId, JobStatus>emptyMap());
+                              }
+                              return client.jobStatuses(ImmutableSet.copyOf(jobs.keySet()));
+                            }
+                          });
+                    }
+                  });
+  }
+
+  /**
+   * Returns the status of every host in every cluster.
+   */
+  public ListenableFuture<FederatedResponse<Map<String, HostStatus>>> hostStatuses() {
+    return fanOut("hostStatuses",
+                  new Function<HeliosClient, ListenableFuture<Map<String, HostStatus>>>() {
+                    @Override
+                    public ListenableFuture<Map<String, HostStatus>> apply(
+                        final HeliosClient client) {
+                      return Futures.transform(
+                          client.listHosts(),
+                          new AsyncFunction<List<String>, Map<String, HostStatus>>() {
+                            @Override
+                            public ListenableFuture<Map<String, HostStatus>> apply(
+                                @NotNull final List<String> hosts) {
+                              if (hosts.isEmpty()) {
+                                return immediateFuture(Collections.<String, HostStatus>emptyMap());
+                              }
+                              return client.hostStatuses(hosts);
+                            }
+                          });
+                    }
+                  });
+  }
+
+  /**
+   * Returns the status of a deployment group in every cluster. The value of a cluster without
+   * the deployment group is null.
+   */
+  public ListenableFuture<FederatedResponse<DeploymentGroupStatusResponse>> deploymentGroupStatus(
+      final String name) {
+    return fanOut("deploymentGroupStatus " + name,
+                  new Function<HeliosClient, ListenableFuture<DeploymentGroupStatusResponse>>() {
+                    @Override
+                    public ListenableFuture<DeploymentGroupStatusResponse> apply(
+                        final HeliosClient client) {
+                      return client.deploymentGroupStatus(name);
+                    }
+                  });
+  }
+
+  private <T> ListenableFuture<FederatedResponse<T>> fanOut(
+      final String request, final Function<HeliosClient, ListenableFuture<T>> function) {
+    final List<ListenableFuture<ClusterSnapshot<T>>> futures = Lists.newArrayList();
+    for (final Map.Entry<String, HeliosClient> entry : clients.entrySet()) {
+      futures.add(fetch(entry.getKey(), request, entry.getValue(), function));
+    }
+    // The snapshot futures never fail
+    return Futures.transform(
+        Futures.allAsList(futures),
+        new Function<List<ClusterSnapshot<T>>, FederatedResponse<T>>() {
+          @Override
+          public FederatedResponse<T> apply(final List<ClusterSnapshot<T>> snapshots) {
+            return new FederatedResponse<>(snapshots);
+          }
+        });
+  }
+
+  private <T> ListenableFuture<ClusterSnapshot<T>> fetch(
+      final String cluster, final String request, final HeliosClient client,
+      final Function<HeliosClient, ListenableFuture<T>> function) {
+    final String key = cluster + " " + request;
+    final SettableFuture<ClusterSnapshot<T>> future = SettableFuture.create();
+
+    ListenableFuture<T> response;
+    try {
+      response = function.apply(client);
+    } catch (Exception e) {
+      response = Futures.immediateFailedFuture(e);
+    }
+
+    Futures.addCallback(response, new FutureCallback<T>() {
+      @Override
+      public void onSuccess(final T result) {
+        final ClusterSnapshot<T> snapshot =
+            ClusterSnapshot.of(cluster, result, clock.now().getMillis());
+        snapshots.put(key, snapshot);
+        future.set(snapshot);
+      }
+
+      @Override
+      public void onFailure(@NotNull final Throwable t) {
+        log.debug("{} failed in {}", request, cluster, t);
+        future.set(FederatedHeliosClient.this.<T>fallback(key, cluster, t));
+      }
+    });
+
+    if (!future.isDone()) {
+      final ScheduledFuture<?> timeout = executor.schedule(new Runnable() {
+        @Override
+        public void run() {
+          if (!future.isDone()) {
+            log.debug("{} timed out in {}", request, cluster);
+            future.set(FederatedHeliosClient.this.<T>fallback(key, cluster, new TimeoutException(
+                cluster + " did not answer within " + timeoutMillis + " ms")));
+          }
+        }
+      }, timeoutMillis, MILLISECONDS);
+      future.addListener(new Runnable() {
+        @Override
+        public void run() {
+          timeout.cancel(false);
+        }
+      }, MoreExecutors.sameThreadExecutor());
+    }
+
+    return future;
+  }
+
+  private <T> ClusterSnapshot<T> fallback(final String key, final String cluster,
+                                          final Throwable error) {
+    @SuppressWarnings("unchecked")
+    final ClusterSnapshot<T> last = (ClusterSnapshot<T>) snapshots.getIfPresent(key);
+    return last == null ? ClusterSnapshot.<T>failed(cluster, error) : last.stale(error);
+  }
+
+  @Override
+  public void close() throws IOException {
+    IOException exception = null;
+    for (final HeliosClient client : clients.values()) {
+      try {
+        client.close();
+      } catch (IOException e) {
+        exception = e;
+      }
+    }
+    if (shutDownExecutorOnClose) {
+      executor.shutdownNow();
+    }
+    if (exception != null) {
+      throw exception;
+    }
+  }
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  public static class Builder {
+
+    private final ImmutableMap.Builder<String, HeliosClient> clients = ImmutableMap.builder();
+    private ListeningScheduledExecutorService executor;
+    private boolean shutDownExecutorOnClose = true;
+    private long timeoutMillis = 10000;
+    private long maxStalenessMillis = TimeUnit.MINUTES.toMillis(10);
+    private Clock clock = new SystemClock();
+
+    private Builder() {
+    }
+
+    /**
+     * Add a cluster. The federated client takes over the client, and closes it when closed.
+     */
+    public Builder addCluster(final String name, final HeliosClient client) {
+      clients.put(checkNotNull(name, "name"), checkNotNull(client, "client"));
+      return this;
+    }
+
+    /**
+     * Set the executor that the timeouts are scheduled on. Defaults to a single thread of its
+     * own.
+     */
+    public Builder setExecutorService(final ScheduledExecutorService executorService) {
+      this.executor = MoreExecutors.listeningDecorator(executorService);
+      return this;
+    }
+
+    public Builder setShutDownExecutorOnClose(final boolean shutDownExecutorOnClose) {
+      this.shutDownExecutorOnClose = shutDownExecutorOnClose;
+      return this;
+    }
+
+    /**
+     * Set how long to wait for each cluster to answer a request. Defaults to 10 seconds.
+     */
+    public Builder setTimeout(final long timeout, final TimeUnit unit) {
+      this.timeoutMillis = unit.toMillis(timeout);
+      return this;
+    }
+
+    /**
+     * Set how old the last answer of a cluster may be to be used when the cluster fails. Defaults
+     * to 10 minutes.
+     */
+    public Builder setMaxStaleness(final long maxStaleness, final TimeUnit unit) {
+      this.maxStalenessMillis = unit.toMillis(maxStaleness);
+      return this;
+    }
+
+    Builder setClock(final Clock clock) {
+      this.clock = clock;
+      return this;
+    }
+
+    public FederatedHeliosClient build() {
+      final Map<String, HeliosClient> clients = this.clients.build();
+      checkArgument(!clients.isEmpty(), "no clusters");
+      if (executor == null) {
+        executor = MoreExecutors.listeningDecorator(Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder()
+                .setNameFormat("helios-federation-%d")
+                .setDaemon(true)
+                .build()));
+      }
+      return new FederatedHeliosClient(clients, executor, shutDownExecutorOnClose,
+                                       timeoutMillis, maxStalenessMillis, clock);
+    }
+  }
+}
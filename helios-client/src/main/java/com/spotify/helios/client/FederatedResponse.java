@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.client;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The answers of every cluster of a {@link FederatedHeliosClient} to one request, by cluster name
+ * in the order the clusters were added.
+ */
+public class FederatedResponse<T> {
+
+  private final Map<String, ClusterSnapshot<T>> clusters;
+
+  FederatedResponse(final List<ClusterSnapshot<T>> snapshots) {
+    final ImmutableMap.Builder<String, ClusterSnapshot<T>> builder = ImmutableMap.builder();
+    for (final ClusterSnapshot<T> snapshot : snapshots) {
+      builder.put(snapshot.getCluster(), snapshot);
+    }
+    this.clusters = builder.build();
+  }
+
+  /**
+   * Returns the snapshot of every cluster, including those that failed.
+   */
+  public Map<String, ClusterSnapshot<T>> getClusters() {
+    return clusters;
+  }
+
+  /**
+   * Returns the values of the clusters that have ever answered the request, fresh or stale.
+   * Values that are null are left out.
+   */
+  public Map<String, T> getValues() {
+    final Map<String, T> values = Maps.newLinkedHashMap();
+    for (final ClusterSnapshot<T> snapshot : clusters.values()) {
+      if (snapshot.getValue() != null) {
+        values.put(snapshot.getCluster(), snapshot.getValue());
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Returns the errors of the clusters that didn't answer this time.
+   */
+  public Map<String, Throwable> getErrors() {
+    final Map<String, Throwable> errors = Maps.newLinkedHashMap();
+    for (final ClusterSnapshot<T> snapshot : clusters.values()) {
+      if (snapshot.getError() != null) {
+        errors.put(snapshot.getCluster(), snapshot.getError());
+      }
+    }
+    return errors;
+  }
+
+  /**
+   * Returns whether every cluster answered this time.
+   */
+  public boolean isComplete() {
+    for (final ClusterSnapshot<T> snapshot : clusters.values()) {
+      if (snapshot.isStale()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("clusters", clusters)
+        .toString();
+  }
+}
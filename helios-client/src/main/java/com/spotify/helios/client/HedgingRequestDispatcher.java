@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.client;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningScheduledExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * A {@link RequestDispatcher} that hedges GET requests.
+ *
+ * If a GET request has not completed by the time that 95% of recent requests had, the same
+ * request is sent again and whichever response arrives first is used. As the delegate picks a
+ * master per request, and the {@link EndpointIterator} avoids masters that are busy with requests
+ * in flight, the second request usually goes to a different master. This keeps one slow master
+ * from stalling a client until the HTTP timeout. Other methods are not idempotent and are passed
+ * straight to the delegate.
+ */
+class HedgingRequestDispatcher implements RequestDispatcher {
+
+  private static final Logger log = LoggerFactory.getLogger(HedgingRequestDispatcher.class);
+
+  // Until this many requests have completed the initial delay is used
+  private static final int MIN_SAMPLES = 20;
+
+  private final RequestDispatcher delegate;
+  private final ListeningScheduledExecutorService executorService;
+  private final double percentile;
+  private final long initialDelayMillis;
+  private final long minDelayMillis;
+  private final long[] samples;
+  private long sampleCount;
+
+  private HedgingRequestDispatcher(final RequestDispatcher delegate,
+                                   final ListeningScheduledExecutorService executorService,
+                                   final double percentile,
+                                   final long initialDelayMillis,
+                                   final long minDelayMillis,
+                                   final int window) {
+    this.delegate = delegate;
+    this.executorService = executorService;
+    this.percentile = percentile;
+    this.initialDelayMillis = initialDelayMillis;
+    this.minDelayMillis = minDelayMillis;
+    this.samples = new long[window];
+  }
+
+  @Override
+  public ListenableFuture<Response> request(final URI uri,
+                                            final String method,
+                                            final byte[] entityBytes,
+                                            final Map<String, List<String>> headers) {
+    if (!"GET".equals(method)) {
+      return delegate.request(uri, method, entityBytes, headers);
+    }
+
+    final SettableFuture<Response> future = SettableFuture.create();
+    final AtomicInteger pending = new AtomicInteger(1);
+
+    final ListenableFuture<Response> primary = attempt(future, pending, uri, method, entityBytes,
+                                                       headers);
+
+    final long delayMillis = hedgeDelayMillis();
+    final ScheduledFuture<?> hedge = executorService.schedule(new Runnable() {
+      @Override
+      public void run() {
+        if (future.isDone()) {
+          return;
+        }
+        log.debug("{} {} did not complete within {} ms, hedging", method, uri, delayMillis);
+        pending.incrementAndGet();
+        final ListenableFuture<Response> secondary =
+            attempt(future, pending, uri, method, entityBytes, headers);
+        cancelWhenDone(future, secondary);
+      }
+    }, delayMillis, MILLISECONDS);
+
+    cancelWhenDone(future, primary);
+    cancelWhenDone(future, hedge);
+    return future;
+  }
+
+  private ListenableFuture<Response> attempt(final SettableFuture<Response> future,
+                                             final AtomicInteger pending,
+                                             final URI uri,
+                                             final String method,
+                                             final byte[] entityBytes,
+                                             final Map<String, List<String>> headers) {
+    final long start = System.nanoTime();
+    final ListenableFuture<Response> attempt;
+    try {
+      attempt = delegate.request(uri, method, entityBytes, headers);
+    } catch (Exception e) {
+      failed(future, pending, e);
+      return Futures.immediateFailedFuture(e);
+    }
+
+    Futures.addCallback(attempt, new FutureCallback<Response>() {
+      @Override
+      public void onSuccess(final Response result) {
+        record(NANOSECONDS.toMillis(System.nanoTime() - start));
+        future.set(result);
+      }
+
+      @Override
+      public void onFailure(@NotNull final Throwable t) {
+        failed(future, pending, t);
+      }
+    });
+    return attempt;
+  }
+
+  private void failed(final SettableFuture<Response> future, final AtomicInteger pending,
+                      final Throwable t) {
+    // Only fail once no other attempt can succeed. If the hedge has not been sent yet it's
+    // cancelled, and retrying is left to the RetryingRequestDispatcher.
+    if (pending.decrementAndGet() == 0) {
+      future.setException(t);
+    }
+  }
+
+  private static void cancelWhenDone(final ListenableFuture<Response> future,
+                                     final Future<?> attempt) {
+    future.addListener(new Runnable() {
+      @Override
+      public void run() {
+        attempt.cancel(false);
+      }
+    }, MoreExecutors.sameThreadExecutor());
+  }
+
+  private synchronized void record(final long latencyMillis) {
+    samples[(int) (sampleCount % samples.length)] = latencyMillis;
+    sampleCount++;
+  }
+
+  synchronized long hedgeDelayMillis() {
+    if (sampleCount < MIN_SAMPLES) {
+      return initialDelayMillis;
+    }
+    final long[] sorted = Arrays.copyOf(samples, (int) Math.min(sampleCount, samples.length));
+    Arrays.sort(sorted);
+    final int index = (int) Math.ceil(percentile * sorted.length) - 1;
+    return Math.max(minDelayMillis, sorted[Math.max(0, index)]);
+  }
+
+  @Override
+  public void close() throws IOException {
+    delegate.close();
+  }
+
+  static Builder forDispatcher(final RequestDispatcher delegate) {
+    return new Builder(delegate);
+  }
+
+  public static final class Builder {
+
+    private final RequestDispatcher delegate;
+    private ListeningScheduledExecutorService executor;
+    private double percentile = 0.95;
+    private long initialDelayMillis = 1000;
+    private long minDelayMillis = 10;
+    private int window = 200;
+
+    private Builder(final RequestDispatcher delegate) {
+      this.delegate = delegate;
+    }
+
+    public Builder setExecutor(final ScheduledExecutorService executorService) {
+      this.executor = MoreExecutors.listeningDecorator(executorService);
+      return this;
+    }
+
+    /**
+     * Set the percentile of recent request latencies after which a request is hedged. Defaults to
+     * 0.95.
+     */
+    public Builder setPercentile(final double percentile) {
+      this.percentile = percentile;
+      return this;
+    }
+
+    /**
+     * Set how long to wait before hedging until enough requests have completed to compute the
+     * percentile. Defaults to 1 second.
+     */
+    public Builder setInitialDelay(final long delay, final TimeUnit unit) {
+      this.initialDelayMillis = unit.toMillis(delay);
+      return this;
+    }
+
+    /**
+     * Set the shortest time to wait before hedging, so that fast masters are not sent twice the
+     * requests. Defaults to 10 milliseconds.
+     */
+    public Builder setMinDelay(final long delay, final TimeUnit unit) {
+      this.minDelayMillis = unit.toMillis(delay);
+      return this;
+    }
+
+    /**
+     * Set the number of recent request latencies the percentile is computed from. Defaults to 200.
+     */
+    public Builder setWindow(final int window) {
+      this.window = window;
+      return this;
+    }
+
+    public HedgingRequestDispatcher build() {
+      return new HedgingRequestDispatcher(
+          delegate, executor, percentile, initialDelayMillis, minDelayMillis, window);
+    }
+  }
+}
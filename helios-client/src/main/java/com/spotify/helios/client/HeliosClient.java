@@ -35,15 +35,14 @@ import com.google.common.util.concurrent.ListeningScheduledExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
 
 import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.JavaType;
-import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.spotify.helios.common.HeliosException;
 import com.spotify.helios.common.Json;
-import com.spotify.helios.common.Resolver;
 import com.spotify.helios.common.Version;
 import com.spotify.helios.common.VersionCompatibility;
 import com.spotify.helios.common.descriptors.Deployment;
 import com.spotify.helios.common.descriptors.DeploymentGroup;
+import com.spotify.helios.common.descriptors.HostLiveness;
 import com.spotify.helios.common.descriptors.HostStatus;
 import com.spotify.helios.common.descriptors.Job;
 import com.spotify.helios.common.descriptors.JobId;
@@ -55,6 +54,8 @@ import com.spotify.helios.common.protocol.DeploymentGroupStatusResponse;
 import com.spotify.helios.common.protocol.HostDeregisterResponse;
 import com.spotify.helios.common.protocol.JobDeleteResponse;
 import com.spotify.helios.common.protocol.JobDeployResponse;
+import com.spotify.helios.common.protocol.JobPlacementRequest;
+import com.spotify.helios.common.protocol.JobPlacementResponse;
 import com.spotify.helios.common.protocol.JobUndeployResponse;
 import com.spotify.helios.common.protocol.RemoveDeploymentGroupResponse;
 import com.spotify.helios.common.protocol.RollingUpdateRequest;
@@ -215,15 +216,15 @@ public class HeliosClient implements Closeable {
   }
 
   private <T> ListenableFuture<T> get(final URI uri, final TypeReference<T> typeReference) {
-    return get(uri, Json.type(typeReference));
+    return get(uri, Json.reader(typeReference));
   }
 
   private <T> ListenableFuture<T> get(final URI uri, final Class<T> clazz) {
-    return get(uri, Json.type(clazz));
+    return get(uri, Json.reader(clazz));
   }
 
-  private <T> ListenableFuture<T> get(final URI uri, final JavaType javaType) {
-    return transform(request(uri, "GET"), new ConvertResponseToPojo<T>(javaType));
+  private <T> ListenableFuture<T> get(final URI uri, final ObjectReader reader) {
+    return transform(request(uri, "GET"), new ConvertResponseToPojo<T>(reader));
   }
 
   private ListenableFuture<Integer> put(final URI uri) {
@@ -246,6 +247,26 @@ public class HeliosClient implements Closeable {
                      ConvertResponseToPojo.create(JobDeployResponse.class, deserializeReturnCodes));
   }
 
+  public ListenableFuture<JobPlacementResponse> deploy(final JobId jobId,
+                                                       final JobPlacementRequest request) {
+    return deploy(jobId, request, "");
+  }
+
+  /**
+   * Deploys a job to hosts picked by the master, see {@link JobPlacementRequest}.
+   */
+  public ListenableFuture<JobPlacementResponse> deploy(final JobId jobId,
+                                                       final JobPlacementRequest request,
+                                                       final String token) {
+    return transform(request(uri(path("/jobs/%s/deploy", jobId),
+                                 ImmutableMap.of("token", token)),
+                             "POST", request),
+                     ConvertResponseToPojo.create(JobPlacementResponse.class,
+                                                  ImmutableSet.of(HTTP_OK, HTTP_NOT_FOUND,
+                                                                  HTTP_BAD_REQUEST,
+                                                                  HTTP_FORBIDDEN)));
+  }
+
   public ListenableFuture<SetGoalResponse> setGoal(final Deployment job, final String host) {
     return setGoal(job, host, "");
   }
@@ -290,12 +311,20 @@ public class HeliosClient implements Closeable {
   public ListenableFuture<Map<String, HostStatus>>
   hostStatuses(final List<String> hosts, final Map<String, String> queryParams) {
     final ConvertResponseToPojo<Map<String, HostStatus>> converter = ConvertResponseToPojo.create(
-        TypeFactory.defaultInstance().constructMapType(Map.class, String.class, HostStatus.class),
-        ImmutableSet.of(HTTP_OK));
+        new TypeReference<Map<String, HostStatus>>() {}, ImmutableSet.of(HTTP_OK));
 
     return transform(request(uri("/hosts/statuses", queryParams), "POST", hosts), converter);
   }
 
+  /**
+   * Returns whether each host's agent is up and when it was last heard from. Much cheaper for the
+   * master than {@link #hostStatuses(List)} when that's all that is needed. Fails with 503 Service
+   * Unavailable while a newly started master is still reading the liveness of the hosts.
+   */
+  public ListenableFuture<Map<String, HostLiveness>> hostLiveness() {
+    return get(uri("/hosts/liveness"), new TypeReference<Map<String, HostLiveness>>() {});
+  }
+
   public ListenableFuture<Integer> registerHost(final String host, final String id) {
     return put(uri(path("/hosts/%s", host), ImmutableMap.of("id", id)));
   }
@@ -335,6 +364,19 @@ public class HeliosClient implements Closeable {
                                                   ImmutableSet.of(HTTP_OK, HTTP_NOT_FOUND)));
   }
 
+  /**
+   * Deregisters several hosts at once. The master deregisters a few of them at a time, and the
+   * hosts whose deregistration failed can be retried.
+   */
+  public ListenableFuture<Map<String, HostDeregisterResponse>> deregisterHosts(
+      final List<String> hosts) {
+    final ConvertResponseToPojo<Map<String, HostDeregisterResponse>> converter =
+        ConvertResponseToPojo.create(new TypeReference<Map<String, HostDeregisterResponse>>() {},
+                                     ImmutableSet.of(HTTP_OK));
+
+    return transform(request(uri("/hosts/deregister"), "POST", hosts), converter);
+  }
+
   public ListenableFuture<List<String>> listHosts() {
     return get(uri("/hosts/"), new TypeReference<List<String>>() {
     });
@@ -401,8 +443,7 @@ public class HeliosClient implements Closeable {
 
   public ListenableFuture<Map<JobId, JobStatus>> jobStatuses(final Set<JobId> jobs) {
     final ConvertResponseToPojo<Map<JobId, JobStatus>> converter = ConvertResponseToPojo.create(
-        TypeFactory.defaultInstance().constructMapType(Map.class, JobId.class, JobStatus.class),
-        ImmutableSet.of(HTTP_OK));
+        new TypeReference<Map<JobId, JobStatus>>() {}, ImmutableSet.of(HTTP_OK));
 
     return transform(request(uri("/jobs/statuses"), "POST", jobs), converter);
   }
@@ -451,26 +492,27 @@ public class HeliosClient implements Closeable {
 
   private static final class ConvertResponseToPojo<T> implements AsyncFunction<Response, T> {
 
-    private final JavaType javaType;
+    private final ObjectReader reader;
     private final Set<Integer> decodeableStatusCodes;
 
-    private ConvertResponseToPojo(final JavaType javaType) {
-      this(javaType, ImmutableSet.of(HTTP_OK));
+    private ConvertResponseToPojo(final ObjectReader reader) {
+      this(reader, ImmutableSet.of(HTTP_OK));
     }
 
-    public ConvertResponseToPojo(final JavaType type, final Set<Integer> decodeableStatusCodes) {
-      this.javaType = type;
+    public ConvertResponseToPojo(final ObjectReader reader,
+                                 final Set<Integer> decodeableStatusCodes) {
+      this.reader = reader;
       this.decodeableStatusCodes = decodeableStatusCodes;
     }
 
-    public static <T> ConvertResponseToPojo<T> create(final JavaType type,
+    public static <T> ConvertResponseToPojo<T> create(final TypeReference<T> typeReference,
                                                       final Set<Integer> decodeableStatusCodes) {
-      return new ConvertResponseToPojo<>(type, decodeableStatusCodes);
+      return new ConvertResponseToPojo<>(Json.reader(typeReference), decodeableStatusCodes);
     }
 
     public static <T> ConvertResponseToPojo<T> create(final Class<T> clazz,
                                                       final Set<Integer> decodeableStatusCodes) {
-      return new ConvertResponseToPojo<>(Json.type(clazz), decodeableStatusCodes);
+      return new ConvertResponseToPojo<>(Json.reader(clazz), decodeableStatusCodes);
     }
 
     @Override
@@ -490,7 +532,7 @@ public class HeliosClient implements Closeable {
 
       final T result;
       try {
-        result = Json.read(reply.payload(), javaType);
+        result = reader.readValue(reply.payload());
       } catch (IOException e) {
         throw new HeliosException("bad reply: " + reply, e);
       }
@@ -515,6 +557,8 @@ public class HeliosClient implements Closeable {
     private boolean shutDownExecutorOnClose = true;
     private int httpTimeout = 10000;
     private long requestRetryTimeout = 60000;
+    private boolean hedgeRequests = false;
+    private Path cacheDirectory;
 
     private Builder() {
     }
@@ -525,7 +569,7 @@ public class HeliosClient implements Closeable {
     }
 
     public Builder setDomain(final String domain) {
-      return setEndpointSupplier(Endpoints.of(Resolver.supplier("helios", domain)));
+      return setEndpointSupplier(CachingEndpointSupplier.forDomain("helios", domain));
     }
 
     public Builder setEndpoints(final List<URI> endpoints) {
@@ -595,6 +639,27 @@ public class HeliosClient implements Closeable {
       return this;
     }
 
+    /**
+     * Can be used to enable hedging of GET requests: if a master is slower to respond than 95% of
+     * recent requests, the request is also sent to another master and the first response wins.
+     * This trades some extra load on the masters for lower tail latency. Defaults to being
+     * disabled.
+     */
+    public Builder setHedgeRequests(final boolean enabled) {
+      this.hedgeRequests = enabled;
+      return this;
+    }
+
+    /**
+     * Keep responses that the masters tag with an ETag, such as the lists of hosts and jobs, in
+     * this directory. Cached responses are revalidated on every request, so this only saves
+     * bandwidth and master work when nothing changed. Defaults to no caching.
+     */
+    public Builder setCacheDirectory(final Path cacheDirectory) {
+      this.cacheDirectory = cacheDirectory;
+      return this;
+    }
+
     public HeliosClient build() {
       return new HeliosClient(user, createDispatcher());
     }
@@ -610,9 +675,21 @@ public class HeliosClient implements Closeable {
         executorService = defaultExecutorService();
       }
 
-      final RequestDispatcher dispatcher = new DefaultRequestDispatcher(
+      RequestDispatcher dispatcher = new DefaultRequestDispatcher(
           createHttpConnector(sslHostnameVerification), executorService, shutDownExecutorOnClose);
 
+      if (hedgeRequests) {
+        dispatcher = HedgingRequestDispatcher.forDispatcher(dispatcher)
+            .setExecutor(executorService)
+            .build();
+      }
+
+      if (cacheDirectory != null) {
+        dispatcher = CachingRequestDispatcher.forDispatcher(dispatcher)
+            .setDirectory(cacheDirectory)
+            .build();
+      }
+
       return RetryingRequestDispatcher.forDispatcher(dispatcher)
           .setExecutor(executorService)
           .setRetryTimeout(requestRetryTimeout, TimeUnit.MILLISECONDS)
@@ -621,7 +698,11 @@ public class HeliosClient implements Closeable {
 
     private HttpConnector createHttpConnector(final boolean sslHostnameVerification) {
 
-      final EndpointIterator endpointIterator = EndpointIterator.of(endpointSupplier.get());
+      // Only a caching supplier is cheap enough to be consulted for every request, others are
+      // resolved once for the lifetime of the client.
+      final EndpointIterator endpointIterator = endpointSupplier instanceof CachingEndpointSupplier
+                                                ? EndpointIterator.of(endpointSupplier)
+                                                : EndpointIterator.of(endpointSupplier.get());
       if (!endpointIterator.hasNext()) {
         throw new IllegalStateException(
             "no endpoints found to connect to, check your configuration");
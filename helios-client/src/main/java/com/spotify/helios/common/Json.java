@@ -18,11 +18,16 @@
 package com.spotify.helios.common;
 
 import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.SerializableString;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.util.JsonGeneratorDelegate;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.MappingIterator;
@@ -34,8 +39,15 @@ import com.fasterxml.jackson.databind.type.TypeFactory;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.reflect.Type;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static com.fasterxml.jackson.databind.DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES;
 import static com.fasterxml.jackson.databind.MapperFeature.SORT_PROPERTIES_ALPHABETICALLY;
@@ -50,12 +62,25 @@ public class Json {
       .configure(WRITE_DATES_AS_TIMESTAMPS, false)
       .configure(FAIL_ON_UNKNOWN_PROPERTIES, false);
 
-  private static final ObjectWriter NORMALIZING_OBJECT_WRITER = new ObjectMapper()
+  private static final ObjectMapper NORMALIZING_OBJECT_MAPPER = new ObjectMapper()
       .setSerializationInclusion(JsonInclude.Include.NON_EMPTY)
       .configure(SORT_PROPERTIES_ALPHABETICALLY, true)
       .configure(ORDER_MAP_ENTRIES_BY_KEYS, true)
-      .configure(WRITE_DATES_AS_TIMESTAMPS, false)
-      .writer();
+      .configure(WRITE_DATES_AS_TIMESTAMPS, false);
+
+  private static final ObjectWriter NORMALIZING_OBJECT_WRITER = NORMALIZING_OBJECT_MAPPER.writer();
+
+  // Writes to streams owned by the caller, so they're left open.
+  private static final ObjectWriter STREAM_WRITER = OBJECT_MAPPER.writer()
+      .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+  /**
+   * Readers and writers by the type they are for. Resolving a type and looking up its root
+   * (de)serializer is done once per type instead of on every call, which matters most for generic
+   * types given as {@link TypeReference}s.
+   */
+  private static final ConcurrentMap<Type, ObjectReader> READERS = new ConcurrentHashMap<>();
+  private static final ConcurrentMap<Type, ObjectWriter> WRITERS = new ConcurrentHashMap<>();
 
   private static final ObjectWriter PRETTY_OBJECT_WRITER = new ObjectMapper()
       .configure(SORT_PROPERTIES_ALPHABETICALLY, true)
@@ -63,9 +88,6 @@ public class Json {
       .configure(WRITE_DATES_AS_TIMESTAMPS, false)
       .writerWithDefaultPrettyPrinter();
 
-  private static final TypeReference<Map<String, Object>> MAP_TYPE =
-      new TypeReference<Map<String, Object>>() {};
-
   /**
    * Serialize an object to json. Use when it is not know whether an object can be json
    * serializable.
@@ -180,36 +202,36 @@ public class Json {
   }
 
   public static <T> T read(final String content, final Class<T> clazz) throws IOException {
-    return OBJECT_MAPPER.readValue(content, clazz);
+    return reader(clazz).readValue(content);
   }
 
   public static <T> T read(final String content, final TypeReference<?> typeReference)
       throws IOException {
-    return OBJECT_MAPPER.readValue(content, typeReference);
+    return reader(typeReference).readValue(content);
   }
 
   public static <T> T read(final String content, final JavaType javaType)
       throws IOException {
-    return OBJECT_MAPPER.readValue(content, javaType);
+    return reader(javaType).readValue(content);
   }
 
   public static <T> T read(final byte[] bytes, final Class<T> clazz) throws IOException {
-    return OBJECT_MAPPER.readValue(bytes, clazz);
+    return reader(clazz).readValue(bytes);
   }
 
   public static <T> T read(final byte[] bytes, final TypeReference<?> typeReference)
       throws IOException {
-    return OBJECT_MAPPER.readValue(bytes, typeReference);
+    return reader(typeReference).readValue(bytes);
   }
 
   public static <T> T read(final byte[] bytes, final JavaType javaType)
       throws IOException {
-    return OBJECT_MAPPER.readValue(bytes, javaType);
+    return reader(javaType).readValue(bytes);
   }
 
   public static <T> T readUnchecked(final String content, final Class<T> clazz) {
     try {
-      return OBJECT_MAPPER.readValue(content, clazz);
+      return reader(clazz).readValue(content);
     } catch (IOException e) {
       throw Throwables.propagate(e);
     }
@@ -217,7 +239,7 @@ public class Json {
 
   public static <T> T readUnchecked(final String content, final TypeReference<?> typeReference) {
     try {
-      return OBJECT_MAPPER.readValue(content, typeReference);
+      return reader(typeReference).readValue(content);
     } catch (IOException e) {
       throw Throwables.propagate(e);
     }
@@ -225,7 +247,7 @@ public class Json {
 
   public static <T> T readUnchecked(final String content, final JavaType javaType) {
     try {
-      return OBJECT_MAPPER.readValue(content, javaType);
+      return reader(javaType).readValue(content);
     } catch (IOException e) {
       throw Throwables.propagate(e);
     }
@@ -233,7 +255,7 @@ public class Json {
 
   public static <T> T readUnchecked(final byte[] bytes, final Class<T> clazz) {
     try {
-      return OBJECT_MAPPER.readValue(bytes, clazz);
+      return reader(clazz).readValue(bytes);
     } catch (IOException e) {
       throw Throwables.propagate(e);
     }
@@ -241,7 +263,7 @@ public class Json {
 
   public static <T> T readUnchecked(final byte[] bytes, final TypeReference<?> typeReference) {
     try {
-      return OBJECT_MAPPER.readValue(bytes, typeReference);
+      return reader(typeReference).readValue(bytes);
     } catch (IOException e) {
       throw Throwables.propagate(e);
     }
@@ -249,12 +271,46 @@ public class Json {
 
   public static <T> T readUnchecked(final byte[] bytes, final JavaType javaType) {
     try {
-      return OBJECT_MAPPER.readValue(bytes, javaType);
+      return reader(javaType).readValue(bytes);
     } catch (IOException e) {
       throw Throwables.propagate(e);
     }
   }
 
+  /**
+   * Deserialize an object from a stream. The stream is closed when the object has been read.
+   */
+  public static <T> T read(final InputStream stream, final Class<T> clazz) throws IOException {
+    return reader(clazz).readValue(stream);
+  }
+
+  /**
+   * Deserialize an object from a stream. The stream is closed when the object has been read.
+   */
+  public static <T> T read(final InputStream stream, final TypeReference<?> typeReference)
+      throws IOException {
+    return reader(typeReference).readValue(stream);
+  }
+
+  /**
+   * Deserialize an object from a stream. The stream is closed when the object has been read.
+   */
+  public static <T> T read(final InputStream stream, final JavaType javaType)
+      throws IOException {
+    return reader(javaType).readValue(stream);
+  }
+
+  /**
+   * Serialize an object to json, directly into a stream. The stream is left open.
+   *
+   * @param stream The stream to write to.
+   * @param value The object to serialize.
+   * @throws IOException If the json cannot be generated or written.
+   */
+  public static void write(final OutputStream stream, final Object value) throws IOException {
+    STREAM_WRITER.writeValue(stream, value);
+  }
+
   public static MappingIterator<Map<String, Object>> readValues(
       final InputStream stream, final TypeReference<Map<String, Object>> typeReference)
       throws IOException {
@@ -325,14 +381,174 @@ public class Json {
     return OBJECT_MAPPER.writer();
   }
 
+  /**
+   * Returns a reader for a type. Readers are created once per type and reused.
+   */
+  public static ObjectReader reader(final Class<?> clazz) {
+    return reader((Type) clazz);
+  }
+
+  /**
+   * Returns a reader for a type. Readers are created once per type and reused, so the type
+   * reference can be created at the call site.
+   */
+  public static ObjectReader reader(final TypeReference<?> typeReference) {
+    return reader(typeReference.getType());
+  }
+
+  /**
+   * Returns a reader for a type. Readers are created once per type and reused.
+   */
+  public static ObjectReader reader(final JavaType javaType) {
+    return reader((Type) javaType);
+  }
+
+  private static ObjectReader reader(final Type type) {
+    final ObjectReader reader = READERS.get(type);
+    if (reader != null) {
+      return reader;
+    }
+    final ObjectReader created = OBJECT_MAPPER.readerFor(type(type));
+    final ObjectReader existing = READERS.putIfAbsent(type, created);
+    return existing == null ? created : existing;
+  }
+
+  /**
+   * Returns a writer for a type. Writers are created once per type and reused.
+   */
+  public static ObjectWriter writer(final Class<?> clazz) {
+    return writer((Type) clazz);
+  }
+
+  /**
+   * Returns a writer for a type. Writers are created once per type and reused, so the type
+   * reference can be created at the call site.
+   */
+  public static ObjectWriter writer(final TypeReference<?> typeReference) {
+    return writer(typeReference.getType());
+  }
+
+  private static ObjectWriter writer(final Type type) {
+    final ObjectWriter writer = WRITERS.get(type);
+    if (writer != null) {
+      return writer;
+    }
+    final ObjectWriter created = OBJECT_MAPPER.writerFor(type(type));
+    final ObjectWriter existing = WRITERS.putIfAbsent(type, created);
+    return existing == null ? created : existing;
+  }
+
+  /**
+   * Returns the SHA-1 digest of the normalized JSON of an object, with the fields of every JSON
+   * object in sorted order. This is the same digest as that of the normalized JSON of the object
+   * read back into a map, which is how it used to be computed.
+   *
+   * Jackson usually writes the fields in sorted order already, so the JSON is digested as it's
+   * written. Some fields aren't sorted, e.g. type ids and creator properties come first. If any
+   * are found out of order the object is serialized into a tree instead, which is digested with
+   * the fields sorted.
+   */
   public static byte[] sha1digest(final Object o) throws IOException {
-    final String json = NORMALIZING_OBJECT_WRITER.writeValueAsString(o);
-    final Map<String, Object> map = OBJECT_MAPPER.readValue(json, MAP_TYPE);
-    return sha1digest(map);
+    final MessageDigest digest = Hash.sha1();
+    try (final JsonGenerator generator = new SortedFieldsGenerator(
+        NORMALIZING_OBJECT_MAPPER.getFactory().createGenerator(digestStream(digest)))) {
+      NORMALIZING_OBJECT_WRITER.writeValue(generator, o);
+    } catch (UnsortedFieldsException e) {
+      digest.reset();
+      final JsonNode tree = NORMALIZING_OBJECT_MAPPER.valueToTree(o);
+      try (final JsonGenerator generator = NORMALIZING_OBJECT_MAPPER.getFactory()
+          .createGenerator(digestStream(digest))) {
+        writeSorted(generator, tree);
+      }
+    }
+    return digest.digest();
   }
 
   public static byte[] sha1digest(final Map<String, ?> o) throws IOException {
-    final byte[] bytes = NORMALIZING_OBJECT_WRITER.writeValueAsBytes(o);
-    return Hash.sha1digest(bytes);
+    final MessageDigest digest = Hash.sha1();
+    NORMALIZING_OBJECT_WRITER.writeValue(digestStream(digest), o);
+    return digest.digest();
+  }
+
+  private static OutputStream digestStream(final MessageDigest digest) {
+    return new DigestOutputStream(ByteStreams.nullOutputStream(), digest);
+  }
+
+  private static void writeSorted(final JsonGenerator generator, final JsonNode node)
+      throws IOException {
+    if (node.isObject()) {
+      final List<String> names = Lists.newArrayList(node.fieldNames());
+      Collections.sort(names);
+      generator.writeStartObject();
+      for (final String name : names) {
+        generator.writeFieldName(name);
+        writeSorted(generator, node.get(name));
+      }
+      generator.writeEndObject();
+    } else if (node.isArray()) {
+      generator.writeStartArray();
+      for (final JsonNode element : node) {
+        writeSorted(generator, element);
+      }
+      generator.writeEndArray();
+    } else {
+      generator.writeTree(node);
+    }
+  }
+
+  private static class UnsortedFieldsException extends IOException {
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+      // Thrown to abandon the fast path, never to be seen
+      return this;
+    }
+  }
+
+  /**
+   * Fails with {@link UnsortedFieldsException} when the fields of an object aren't written in
+   * sorted order.
+   */
+  private static class SortedFieldsGenerator extends JsonGeneratorDelegate {
+
+    // The last field name written in each enclosing object
+    private final List<String> names = Lists.newArrayList();
+
+    private SortedFieldsGenerator(final JsonGenerator delegate) {
+      super(delegate, false);
+    }
+
+    @Override
+    public void writeStartObject() throws IOException {
+      names.add(null);
+      super.writeStartObject();
+    }
+
+    @Override
+    public void writeEndObject() throws IOException {
+      names.remove(names.size() - 1);
+      super.writeEndObject();
+    }
+
+    @Override
+    public void writeFieldName(final String name) throws IOException {
+      checkSorted(name);
+      super.writeFieldName(name);
+    }
+
+    @Override
+    public void writeFieldName(final SerializableString name) throws IOException {
+      checkSorted(name.getValue());
+      super.writeFieldName(name);
+    }
+
+    private void checkSorted(final String name) throws UnsortedFieldsException {
+      final int last = names.size() - 1;
+      final String previous = names.get(last);
+      if (previous != null && previous.compareTo(name) >= 0) {
+        throw new UnsortedFieldsException();
+      }
+      names.set(last, name);
+    }
   }
 }
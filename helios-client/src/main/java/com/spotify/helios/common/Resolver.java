@@ -17,6 +17,7 @@
 
 package com.spotify.helios.common;
 
+import com.google.common.base.MoreObjects;
 import com.google.common.base.Optional;
 import com.google.common.base.Supplier;
 import com.google.common.base.Throwables;
@@ -53,20 +54,47 @@ public abstract class Resolver {
     return new Supplier<List<URI>>() {
       @Override
       public List<URI> get() {
-        // Try to get HTTPS SRV records first and fallback to HTTP
-        List<URI> uris = resolve(srvName, "https", domain, resolver);
-        if (uris.isEmpty()) {
-          uris = resolve(srvName, "http", domain, resolver);
-        }
-        return uris;
+        return resolve(srvName, domain, resolver).getUris();
       }
     };
   }
 
-  private static List<URI> resolve(final String srvName,
-                                   final String protocol,
-                                   final String domain,
-                                   final DnsSrvResolver resolver) {
+  /**
+   * Returns a {@link Supplier} of {@link Resolution}s, which unlike {@link #supplier(String,
+   * String)} also carries the TTL of the SRV records so that callers can cache the result.
+   * @param srvName The SRV name, e.g. "helios".
+   * @param domain The domain to look the SRV records up in.
+   * @return A Supplier of Resolutions.
+   */
+  public static Supplier<Resolution> resolutionSupplier(final String srvName,
+                                                        final String domain) {
+    return resolutionSupplier(srvName, domain, DEFAULT_RESOLVER);
+  }
+
+  static Supplier<Resolution> resolutionSupplier(final String srvName, final String domain,
+                                                 final DnsSrvResolver resolver) {
+    return new Supplier<Resolution>() {
+      @Override
+      public Resolution get() {
+        return resolve(srvName, domain, resolver);
+      }
+    };
+  }
+
+  private static Resolution resolve(final String srvName, final String domain,
+                                    final DnsSrvResolver resolver) {
+    // Try to get HTTPS SRV records first and fallback to HTTP
+    Resolution resolution = resolve(srvName, "https", domain, resolver);
+    if (resolution.getUris().isEmpty()) {
+      resolution = resolve(srvName, "http", domain, resolver);
+    }
+    return resolution;
+  }
+
+  private static Resolution resolve(final String srvName,
+                                    final String protocol,
+                                    final String domain,
+                                    final DnsSrvResolver resolver) {
     final String name;
     switch (protocol) {
       case "https":
@@ -83,11 +111,13 @@ public abstract class Resolver {
     final List<LookupResult> lookupResults = resolver.resolve(name);
 
     final ImmutableList.Builder<URI> endpoints = ImmutableList.builder();
+    long ttl = Long.MAX_VALUE;
     for (final LookupResult result : lookupResults) {
       endpoints.add(protocol(protocol, result.host(), result.port()));
+      ttl = Math.min(ttl, result.ttl());
     }
 
-    return endpoints.build();
+    return new Resolution(endpoints.build(), lookupResults.isEmpty() ? 0 : ttl);
   }
 
   private static URI protocol(final String protocol, final String host, final int port) {
@@ -107,4 +137,35 @@ public abstract class Resolver {
   private static String httpSrv(final String name, final String domain) {
     return format(HTTP_SRV_FORMAT, name, domain);
   }
+
+  /**
+   * The master URIs found through SRV lookup together with the lowest TTL, in seconds, of the
+   * records they were created from.
+   */
+  public static class Resolution {
+
+    private final List<URI> uris;
+    private final long ttlSeconds;
+
+    public Resolution(final List<URI> uris, final long ttlSeconds) {
+      this.uris = ImmutableList.copyOf(uris);
+      this.ttlSeconds = ttlSeconds;
+    }
+
+    public List<URI> getUris() {
+      return uris;
+    }
+
+    public long getTtlSeconds() {
+      return ttlSeconds;
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+          .add("uris", uris)
+          .add("ttlSeconds", ttlSeconds)
+          .toString();
+    }
+  }
 }
@@ -56,7 +56,9 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * </pre>
  */
 
-@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, include = JsonTypeInfo.As.PROPERTY, property = "type")
+// The type id is the type property itself, so it's written once and in sorted order
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, include = JsonTypeInfo.As.EXISTING_PROPERTY,
+    property = "type")
 @JsonSubTypes({
     @JsonSubTypes.Type(value = ExecHealthCheck.class, name = HealthCheck.EXEC),
     @JsonSubTypes.Type(value = HttpHealthCheck.class, name = HealthCheck.HTTP),
@@ -47,11 +47,15 @@ import com.fasterxml.jackson.annotation.JsonProperty;
  *   "memoryTotalBytes" : 33421123584,
  *   "osName" : "Linux",
  *   "osVersion" : "3.13.0-19-generic",
+ *   "statsTimestamp" : 1444910000000,
  *   "swapFreeBytes" : 10737414144,
  *   "swapTotalBytes" : 10737414144,
  *   "uname" : "Linux agenthostname 3.13.0-19-generic #40-Ubuntu SMP Mon Mar 24 02:36:06 UTC ..."
  * },
  * </pre>
+ *
+ * The agent only rewrites its host info when something other than the load average and free
+ * memory and swap changes, or every ten minutes. The statsTimestamp tells how old those are.
  */
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class HostInfo extends Descriptor {
@@ -70,6 +74,7 @@ public class HostInfo extends Descriptor {
   private final DockerVersion dockerVersion;
   private final String dockerHost;
   private final String dockerCertPath;
+  private final long statsTimestamp;
 
   /**
    * @param hostname The hostname of the agent.
@@ -86,6 +91,8 @@ public class HostInfo extends Descriptor {
    * @param dockerVersion Docker version.
    * @param dockerHost The docker host address.
    * @param dockerCertPath The docker certificate path.
+   * @param statsTimestamp When the load average and free memory and swap were read, in
+   *                       milliseconds since the epoch, or 0 if not known.
    */
   public HostInfo(@JsonProperty("hostname") final String hostname,
                   @JsonProperty("uname") final String uname,
@@ -100,7 +107,8 @@ public class HostInfo extends Descriptor {
                   @JsonProperty("swapFreeBytes") final long swapFreeBytes,
                   @JsonProperty("dockerVersion") final DockerVersion dockerVersion,
                   @JsonProperty("dockerHost") final String dockerHost,
-                  @JsonProperty("dockerCertPath") final String dockerCertPath) {
+                  @JsonProperty("dockerCertPath") final String dockerCertPath,
+                  @JsonProperty("statsTimestamp") final long statsTimestamp) {
     this.hostname = hostname;
     this.uname = uname;
     this.architecture = architecture;
@@ -115,6 +123,7 @@ public class HostInfo extends Descriptor {
     this.dockerVersion = dockerVersion;
     this.dockerHost = dockerHost;
     this.dockerCertPath = dockerCertPath;
+    this.statsTimestamp = statsTimestamp;
   }
 
   public HostInfo(final Builder builder) {
@@ -132,6 +141,7 @@ public class HostInfo extends Descriptor {
     this.dockerVersion = builder.dockerVersion;
     this.dockerHost = builder.dockerHost;
     this.dockerCertPath = builder.dockerCertPath;
+    this.statsTimestamp = builder.statsTimestamp;
   }
 
   public String getHostname() {
@@ -190,6 +200,10 @@ public class HostInfo extends Descriptor {
     return dockerCertPath;
   }
 
+  public long getStatsTimestamp() {
+    return statsTimestamp;
+  }
+
   public static Builder newBuilder() {
     return new Builder();
   }
@@ -210,6 +224,7 @@ public class HostInfo extends Descriptor {
     private DockerVersion dockerVersion;
     private String dockerHost;
     private String dockerCertPath;
+    private long statsTimestamp;
 
     public Builder setHostname(final String hostname) {
       this.hostname = hostname;
@@ -281,6 +296,11 @@ public class HostInfo extends Descriptor {
       return this;
     }
 
+    public Builder setStatsTimestamp(final long statsTimestamp) {
+      this.statsTimestamp = statsTimestamp;
+      return this;
+    }
+
     public HostInfo build() {
       return new HostInfo(this);
     }
@@ -303,6 +323,7 @@ public class HostInfo extends Descriptor {
         .add("dockerVersion", dockerVersion)
         .add("dockerHost", dockerHost)
         .add("dockerCertPath", dockerCertPath)
+        .add("statsTimestamp", statsTimestamp)
         .toString();
   }
 
@@ -335,6 +356,9 @@ public class HostInfo extends Descriptor {
     if (swapFreeBytes != hostInfo.swapFreeBytes) {
       return false;
     }
+    if (statsTimestamp != hostInfo.statsTimestamp) {
+      return false;
+    }
     if (hostname != null ? !hostname.equals(hostInfo.hostname) : hostInfo.hostname != null) {
       return false;
     }
@@ -383,6 +407,7 @@ public class HostInfo extends Descriptor {
     result = 31 * result + (dockerVersion != null ? dockerVersion.hashCode() : 0);
     result = 31 * result + (dockerHost != null ? dockerHost.hashCode() : 0);
     result = 31 * result + (dockerCertPath != null ? dockerCertPath.hashCode() : 0);
+    result = 31 * result + (int) (statsTimestamp ^ (statsTimestamp >>> 32));
     return result;
   }
 }
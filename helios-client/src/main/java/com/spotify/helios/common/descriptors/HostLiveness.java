@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.common.descriptors;
+
+import com.google.common.base.MoreObjects;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Whether a host's agent is up, and when it was last heard from. A much smaller summary of a host
+ * than {@link HostStatus}, that the master keeps for every host.
+ *
+ * A typical JSON representation might look like:
+ * <pre>
+ * {
+ *   "status" : "UP",
+ *   "startTime" : 1446223459832,
+ *   "lastSeen" : 1446479224183,
+ *   "version" : "0.8.532"
+ * }
+ * </pre>
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class HostLiveness extends Descriptor {
+
+  private final HostStatus.Status status;
+  private final Long startTime;
+  private final Long lastSeen;
+  private final String version;
+
+  /**
+   * @param status Whether the agent is up.
+   * @param startTime When the agent started, in milliseconds since the epoch. Null if the agent
+   *                  hasn't reported it.
+   * @param lastSeen When the agent last reported in, in milliseconds since the epoch. Null if the
+   *                 agent hasn't reported in.
+   * @param version The Helios version of the agent. Null if the agent hasn't reported it.
+   */
+  public HostLiveness(@JsonProperty("status") final HostStatus.Status status,
+                      @JsonProperty("startTime") @Nullable final Long startTime,
+                      @JsonProperty("lastSeen") @Nullable final Long lastSeen,
+                      @JsonProperty("version") @Nullable final String version) {
+    this.status = checkNotNull(status, "status");
+    this.startTime = startTime;
+    this.lastSeen = lastSeen;
+    this.version = version;
+  }
+
+  public HostStatus.Status getStatus() {
+    return status;
+  }
+
+  @Nullable
+  public Long getStartTime() {
+    return startTime;
+  }
+
+  @Nullable
+  public Long getLastSeen() {
+    return lastSeen;
+  }
+
+  @Nullable
+  public String getVersion() {
+    return version;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("status", status)
+        .add("startTime", startTime)
+        .add("lastSeen", lastSeen)
+        .add("version", version)
+        .toString();
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    final HostLiveness that = (HostLiveness) o;
+    return status == that.status
+           && Objects.equals(startTime, that.startTime)
+           && Objects.equals(lastSeen, that.lastSeen)
+           && Objects.equals(version, that.version);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(status, startTime, lastSeen, version);
+  }
+}
@@ -50,6 +50,11 @@ import static com.google.common.base.Preconditions.checkNotNull;
  *     "role" : "foo",
  *     "xyz" : "123"
  *   },
+ *   "resourceUsage" : {
+ *     "elva:0.0.4:9f64cf43353c55c36276b7df76b066584f9c49aa" : {
+ *       #... see the description of ResourceUsage
+ *     }
+ *   },
  *   "status" : "UP",
  *   "statuses" : {
  *     "elva:0.0.4:9f64cf43353c55c36276b7df76b066584f9c49aa" : {
@@ -81,6 +86,7 @@ public class HostStatus extends Descriptor {
   private final Map<JobId, TaskStatus> statuses;
   private final Map<String, String> environment;
   private final Map<String, String> labels;
+  private final Map<JobId, ResourceUsage> resourceUsage;
 
   /**
    * Constructor.
@@ -91,6 +97,7 @@ public class HostStatus extends Descriptor {
    * @param agentInfo The agent information.
    * @param environment The environment provided to the agent on it's command line.
    * @param labels The labels assigned to the agent.
+   * @param resourceUsage The resources used by the containers of the jobs on this host.
    */
   public HostStatus(@JsonProperty("jobs") final Map<JobId, Deployment> jobs,
                     @JsonProperty("statuses") final Map<JobId, TaskStatus> statuses,
@@ -98,7 +105,9 @@ public class HostStatus extends Descriptor {
                     @JsonProperty("hostInfo") final HostInfo hostInfo,
                     @JsonProperty("agentInfo") final AgentInfo agentInfo,
                     @JsonProperty("environment") final Map<String, String> environment,
-                    @JsonProperty("labels") final Map<String, String> labels) {
+                    @JsonProperty("labels") final Map<String, String> labels,
+                    @JsonProperty("resourceUsage") @Nullable
+                    final Map<JobId, ResourceUsage> resourceUsage) {
     this.status = checkNotNull(status, "status");
     this.jobs = checkNotNull(jobs, "jobs");
     this.statuses = checkNotNull(statuses, "statuses");
@@ -108,6 +117,8 @@ public class HostStatus extends Descriptor {
     this.agentInfo = agentInfo;
     this.environment = fromNullable(environment).or(Collections.<String, String>emptyMap());
     this.labels = fromNullable(labels).or(Collections.<String, String>emptyMap());
+    this.resourceUsage = fromNullable(resourceUsage)
+        .or(Collections.<JobId, ResourceUsage>emptyMap());
   }
 
   public Map<String, String> getEnvironment() {
@@ -140,6 +151,10 @@ public class HostStatus extends Descriptor {
     return statuses;
   }
 
+  public Map<JobId, ResourceUsage> getResourceUsage() {
+    return resourceUsage;
+  }
+
   public static Builder newBuilder() {
     return new Builder();
   }
@@ -153,6 +168,7 @@ public class HostStatus extends Descriptor {
     private AgentInfo agentInfo;
     private Map<String, String> environment;
     private Map<String, String> labels;
+    private Map<JobId, ResourceUsage> resourceUsage;
 
     public Builder setJobs(final Map<JobId, Deployment> jobs) {
       this.jobs = jobs;
@@ -189,8 +205,14 @@ public class HostStatus extends Descriptor {
       return this;
     }
 
+    public Builder setResourceUsage(final Map<JobId, ResourceUsage> resourceUsage) {
+      this.resourceUsage = resourceUsage;
+      return this;
+    }
+
     public HostStatus build() {
-      return new HostStatus(jobs, statuses, status, hostInfo, agentInfo, environment, labels);
+      return new HostStatus(jobs, statuses, status, hostInfo, agentInfo, environment, labels,
+                            resourceUsage);
     }
   }
 
@@ -226,6 +248,10 @@ public class HostStatus extends Descriptor {
     if (labels != null ? !labels.equals(that.labels) : that.labels != null) {
       return false;
     }
+    if (resourceUsage != null ? !resourceUsage.equals(that.resourceUsage)
+                              : that.resourceUsage != null) {
+      return false;
+    }
 
     return true;
   }
@@ -239,6 +265,7 @@ public class HostStatus extends Descriptor {
     result = 31 * result + (statuses != null ? statuses.hashCode() : 0);
     result = 31 * result + (environment != null ? environment.hashCode() : 0);
     result = 31 * result + (labels != null ? labels.hashCode() : 0);
+    result = 31 * result + (resourceUsage != null ? resourceUsage.hashCode() : 0);
     return result;
   }
 
@@ -252,6 +279,7 @@ public class HostStatus extends Descriptor {
            ", statuses=" + statuses +
            ", environment=" + stringMapToString(environment) +
            ", labels=" + stringMapToString(labels) +
+           ", resourceUsage=" + resourceUsage +
            '}';
   }
 
@@ -792,13 +792,13 @@ public class Job extends Descriptor implements Comparable<Job> {
         }
       }
 
-      final JobId id = new JobId(p.name, p.version, hash);
+      final JobId id = JobId.intern(new JobId(p.name, p.version, hash));
 
       return new Job(id, p);
     }
 
     public Job buildWithoutHash() {
-      final JobId id = new JobId(p.name, p.version);
+      final JobId id = JobId.intern(new JobId(p.name, p.version));
       return new Job(id, p);
     }
 
@@ -18,7 +18,11 @@
 package com.spotify.helios.common.descriptors;
 
 import com.google.common.base.Function;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ComparisonChain;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.google.common.collect.Ordering;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
@@ -49,10 +53,26 @@ import static com.google.common.base.Preconditions.checkNotNull;
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class JobId extends Descriptor implements Comparable<JobId> {
 
+  private static final Interner<JobId> INTERNER = Interners.newWeakInterner();
+
+  /**
+   * Parsed ids by their string form. Masters and agents parse the same znode names over and over,
+   * so a hit here avoids splitting the name and interning a new instance. Values are weak, so ids
+   * that are no longer referenced anywhere drop out.
+   */
+  private static final Cache<String, JobId> PARSED = CacheBuilder.newBuilder()
+      .weakValues()
+      .build();
+
   private final String name;
   private final String version;
   private final String hash;
 
+  // JobIds are used as map keys and turned into ZooKeeper paths all the time, so the string form
+  // and the hash code are computed once.
+  private final String id;
+  private final int hashCode;
+
   /**
    * Create a fully qualified job id with name, version and hash.
    *
@@ -66,6 +86,8 @@ public class JobId extends Descriptor implements Comparable<JobId> {
     this.name = name;
     this.version = version;
     this.hash = hash;
+    this.id = (hash == null) ? name + ":" + version : name + ":" + version + ":" + hash;
+    this.hashCode = hashCode(name, version, hash);
   }
 
   /**
@@ -76,38 +98,51 @@ public class JobId extends Descriptor implements Comparable<JobId> {
    */
   public JobId(final String name,
                final String version) {
+    this(name, version, null);
+  }
+
+  /**
+   * Private constructor for use by {@link #parse(String)}
+   *
+   * @param name The name of the job.
+   * @param b
+   */
+  private JobId(final String name, boolean b) {
+    checkArgument(!checkNotNull(name, "name is null").isEmpty(), "name is empty");
     this.name = name;
-    this.version = version;
+    this.version = null;
     this.hash = null;
+    this.id = name + ":" + null;
+    this.hashCode = hashCode(name, null, null);
   }
 
   /**
-   * Private constructor for use by jackson.
+   * Factory for use by jackson. Unlike {@link #parse(String)}, the version is required.
    *
    * @param id The ID of the job.
    */
   @JsonCreator
-  private JobId(final String id) {
-    final String[] parts = id.split(":");
-    if (parts.length != 2 && parts.length != 3) {
+  private static JobId fromJson(final String id) {
+    final JobId cached = PARSED.getIfPresent(id);
+    if (cached != null && cached.version != null) {
+      return cached;
+    }
+    final JobId jobId = split(id);
+    if (jobId == null || jobId.version == null) {
       throw new IllegalArgumentException("Invalid Job id: " + id);
     }
-    this.name = parts[0];
-    this.version = parts[1];
-    this.hash = (parts.length == 3) ? parts[2] : null;
+    return cache(id, jobId);
   }
 
   /**
-   * Private constructor for use by {@link #parse(String)}
+   * Returns the canonical instance of a job id. Equal ids that are interned are the same object,
+   * so the many copies of an id held by statuses, deployments and caches share one instance.
    *
-   * @param name The name of the job.
-   * @param b
+   * @param id A job id.
+   * @return The canonical instance equal to {@code id}.
    */
-  private JobId(final String name, boolean b) {
-    checkArgument(!checkNotNull(name, "name is null").isEmpty(), "name is empty");
-    this.name = name;
-    this.version = null;
-    this.hash = null;
+  public static JobId intern(final JobId id) {
+    return INTERNER.intern(id);
   }
 
   /**
@@ -140,6 +175,7 @@ public class JobId extends Descriptor implements Comparable<JobId> {
    *
    * This parsing method can be used when input is not know to be correct. I.e. when parsing a job
    * id supplied by the user in the cli or when parsing a request in the master rest interface.
+   * The returned job id is {@link #intern(JobId) interned}.
    * @see #fromString(String)
    *
    * @param id A string representation of the job ID.
@@ -147,27 +183,60 @@ public class JobId extends Descriptor implements Comparable<JobId> {
    * @throws JobIdParseException If the ID cannot be parsed.
    */
   public static JobId parse(final String id) throws JobIdParseException {
-    final String[] parts = id.split(":");
-    switch (parts.length) {
-      case 1:
-        return new JobId(parts[0], true);
-      case 2:
-        return new JobId(parts[0], parts[1]);
-      case 3:
-        return new JobId(parts[0], parts[1], parts[2]);
-      default:
-        throw new JobIdParseException("Invalid Job id: " + id);
+    final JobId cached = PARSED.getIfPresent(id);
+    if (cached != null) {
+      return cached;
+    }
+    final JobId jobId = split(id);
+    if (jobId == null) {
+      throw new JobIdParseException("Invalid Job id: " + id);
     }
+    return cache(id, jobId);
+  }
+
+  /**
+   * Splits a job id string on colons, with the same outcome as {@code id.split(":")} but without
+   * the regex and array allocations.
+   *
+   * @return The job id, or null if the string does not have one to three parts.
+   */
+  private static JobId split(final String id) {
+    // String.split drops trailing empty parts
+    int end = id.length();
+    while (end > 0 && id.charAt(end - 1) == ':') {
+      end--;
+    }
+    if (end == 0) {
+      // Nothing but colons splits into no parts at all, while the empty string is a single part.
+      return id.isEmpty() ? new JobId(id, true) : null;
+    }
+    final int first = id.indexOf(':');
+    if (first < 0 || first >= end) {
+      return new JobId(id.substring(0, end), true);
+    }
+    final int second = id.indexOf(':', first + 1);
+    if (second < 0 || second >= end) {
+      return new JobId(id.substring(0, first), id.substring(first + 1, end));
+    }
+    final int third = id.indexOf(':', second + 1);
+    if (third >= 0 && third < end) {
+      return null;
+    }
+    return new JobId(id.substring(0, first), id.substring(first + 1, second),
+                     id.substring(second + 1, end));
+  }
+
+  private static JobId cache(final String id, final JobId jobId) {
+    final JobId interned = INTERNER.intern(jobId);
+    // Key on the id's own string when they're equal, so the cache doesn't retain another copy.
+    PARSED.put(id.equals(interned.id) ? interned.id : id, interned);
+    return interned;
   }
 
   @Override
   @JsonValue
   public String toString() {
-    if (hash == null) {
-      return name + ":" + version;
-    } else {
-      return name + ":" + version + ":" + hash;
-    }
+    return id;
   }
 
   public String toShortString() {
@@ -201,6 +270,9 @@ public class JobId extends Descriptor implements Comparable<JobId> {
 
     final JobId jobId = (JobId) o;
 
+    if (hashCode != jobId.hashCode) {
+      return false;
+    }
     if (hash != null ? !hash.equals(jobId.hash) : jobId.hash != null) {
       return false;
     }
@@ -216,6 +288,10 @@ public class JobId extends Descriptor implements Comparable<JobId> {
 
   @Override
   public int hashCode() {
+    return hashCode;
+  }
+
+  private static int hashCode(final String name, final String version, final String hash) {
     int result = name != null ? name.hashCode() : 0;
     result = 31 * result + (version != null ? version.hashCode() : 0);
     result = 31 * result + (hash != null ? hash.hashCode() : 0);
@@ -261,11 +337,7 @@ public class JobId extends Descriptor implements Comparable<JobId> {
     }
 
     public JobId build() {
-      if (hash == null) {
-        return new JobId(name, version);
-      } else {
-        return new JobId(name, version, hash);
-      }
+      return intern(new JobId(name, version, hash));
     }
   }
 }
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2014 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.common.descriptors;
+
+import com.google.common.base.MoreObjects;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Objects;
+
+/**
+ * The resources a job's container used over the last sampling window of its agent, read from the
+ * container's cgroups. Rates are averages over the window.
+ *
+ * A typical JSON representation might look like:
+ * <pre>
+ * {
+ *   "windowSeconds" : 60,
+ *   "cpuCores" : 0.42,
+ *   "memoryBytes" : 1073741824,
+ *   "memoryMaxBytes" : 1181116006,
+ *   "networkRxBytesPerSecond" : 524288.0,
+ *   "networkTxBytesPerSecond" : 131072.0,
+ *   "blockReadBytesPerSecond" : 0.0,
+ *   "blockWriteBytesPerSecond" : 4096.0
+ * }
+ * </pre>
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ResourceUsage extends Descriptor {
+
+  private final int windowSeconds;
+  private final double cpuCores;
+  private final long memoryBytes;
+  private final long memoryMaxBytes;
+  private final double networkRxBytesPerSecond;
+  private final double networkTxBytesPerSecond;
+  private final double blockReadBytesPerSecond;
+  private final double blockWriteBytesPerSecond;
+
+  /**
+   * @param windowSeconds The length of the window the usage was sampled over.
+   * @param cpuCores The average number of CPU cores used.
+   * @param memoryBytes The memory used at the end of the window.
+   * @param memoryMaxBytes The most memory used at any sample in the window.
+   * @param networkRxBytesPerSecond Bytes received per second.
+   * @param networkTxBytesPerSecond Bytes sent per second.
+   * @param blockReadBytesPerSecond Bytes read from block devices per second.
+   * @param blockWriteBytesPerSecond Bytes written to block devices per second.
+   */
+  public ResourceUsage(
+      @JsonProperty("windowSeconds") final int windowSeconds,
+      @JsonProperty("cpuCores") final double cpuCores,
+      @JsonProperty("memoryBytes") final long memoryBytes,
+      @JsonProperty("memoryMaxBytes") final long memoryMaxBytes,
+      @JsonProperty("networkRxBytesPerSecond") final double networkRxBytesPerSecond,
+      @JsonProperty("networkTxBytesPerSecond") final double networkTxBytesPerSecond,
+      @JsonProperty("blockReadBytesPerSecond") final double blockReadBytesPerSecond,
+      @JsonProperty("blockWriteBytesPerSecond") final double blockWriteBytesPerSecond) {
+    this.windowSeconds = windowSeconds;
+    this.cpuCores = cpuCores;
+    this.memoryBytes = memoryBytes;
+    this.memoryMaxBytes = memoryMaxBytes;
+    this.networkRxBytesPerSecond = networkRxBytesPerSecond;
+    this.networkTxBytesPerSecond = networkTxBytesPerSecond;
+    this.blockReadBytesPerSecond = blockReadBytesPerSecond;
+    this.blockWriteBytesPerSecond = blockWriteBytesPerSecond;
+  }
+
+  public int getWindowSeconds() {
+    return windowSeconds;
+  }
+
+  public double getCpuCores() {
+    return cpuCores;
+  }
+
+  public long getMemoryBytes() {
+    return memoryBytes;
+  }
+
+  public long getMemoryMaxBytes() {
+    return memoryMaxBytes;
+  }
+
+  public double getNetworkRxBytesPerSecond() {
+    return networkRxBytesPerSecond;
+  }
+
+  public double getNetworkTxBytesPerSecond() {
+    return networkTxBytesPerSecond;
+  }
+
+  public double getBlockReadBytesPerSecond() {
+    return blockReadBytesPerSecond;
+  }
+
+  public double getBlockWriteBytesPerSecond() {
+    return blockWriteBytesPerSecond;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("windowSeconds", windowSeconds)
+        .add("cpuCores", cpuCores)
+        .add("memoryBytes", memoryBytes)
+        .add("memoryMaxBytes", memoryMaxBytes)
+        .add("networkRxBytesPerSecond", networkRxBytesPerSecond)
+        .add("networkTxBytesPerSecond", networkTxBytesPerSecond)
+        .add("blockReadBytesPerSecond", blockReadBytesPerSecond)
+        .add("blockWriteBytesPerSecond", blockWriteBytesPerSecond)
+        .toString();
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    final ResourceUsage that = (ResourceUsage) o;
+    return windowSeconds == that.windowSeconds
+           && Double.compare(cpuCores, that.cpuCores) == 0
+           && memoryBytes == that.memoryBytes
+           && memoryMaxBytes == that.memoryMaxBytes
+           && Double.compare(networkRxBytesPerSecond, that.networkRxBytesPerSecond) == 0
+           && Double.compare(networkTxBytesPerSecond, that.networkTxBytesPerSecond) == 0
+           && Double.compare(blockReadBytesPerSecond, that.blockReadBytesPerSecond) == 0
+           && Double.compare(blockWriteBytesPerSecond, that.blockWriteBytesPerSecond) == 0;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(windowSeconds, cpuCores, memoryBytes, memoryMaxBytes,
+                        networkRxBytesPerSecond, networkTxBytesPerSecond,
+                        blockReadBytesPerSecond, blockWriteBytesPerSecond);
+  }
+}
@@ -24,7 +24,7 @@ import com.spotify.helios.common.Json;
 
 public class HostDeregisterResponse {
 
-  public enum Status {OK, NOT_FOUND, JOBS_STILL_DEPLOYED}
+  public enum Status {OK, NOT_FOUND, JOBS_STILL_DEPLOYED, FAILED}
 
   private final Status status;
   private final String host;
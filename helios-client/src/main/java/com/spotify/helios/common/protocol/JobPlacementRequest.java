@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.common.protocol;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.spotify.helios.common.Json;
+import com.spotify.helios.common.descriptors.Goal;
+import com.spotify.helios.common.descriptors.HostSelector;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Asks the master to deploy a job to {@code count} hosts matching all of the host selectors,
+ * picked by the resources the job and the jobs already on the hosts declare. If a spread label is
+ * given, the hosts are spread across its values.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class JobPlacementRequest {
+
+  private final Goal goal;
+  private final int count;
+  private final List<HostSelector> hostSelectors;
+  private final String spreadLabel;
+
+  public JobPlacementRequest(@JsonProperty("goal") @Nullable final Goal goal,
+                             @JsonProperty("count") final int count,
+                             @JsonProperty("hostSelectors")
+                             @Nullable final List<HostSelector> hostSelectors,
+                             @JsonProperty("spreadLabel") @Nullable final String spreadLabel) {
+    checkArgument(count > 0, "count must be positive");
+    this.goal = goal == null ? Goal.START : goal;
+    this.count = count;
+    this.hostSelectors = hostSelectors == null
+                         ? ImmutableList.<HostSelector>of()
+                         : ImmutableList.copyOf(hostSelectors);
+    this.spreadLabel = spreadLabel;
+  }
+
+  public Goal getGoal() {
+    return goal;
+  }
+
+  public int getCount() {
+    return count;
+  }
+
+  public List<HostSelector> getHostSelectors() {
+    return hostSelectors;
+  }
+
+  public String getSpreadLabel() {
+    return spreadLabel;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("goal", goal)
+        .add("count", count)
+        .add("hostSelectors", hostSelectors)
+        .add("spreadLabel", spreadLabel)
+        .toString();
+  }
+
+  public String toJsonString() {
+    return Json.asStringUnchecked(this);
+  }
+}
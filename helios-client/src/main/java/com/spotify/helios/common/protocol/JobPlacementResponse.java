@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.common.protocol;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.spotify.helios.common.Json;
+import com.spotify.helios.common.descriptors.JobId;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+public class JobPlacementResponse {
+
+  public enum Status {
+    OK,
+    JOB_NOT_FOUND,
+    INVALID_ID,
+    INSUFFICIENT_CAPACITY,
+    FORBIDDEN
+  }
+
+  private final Status status;
+  private final JobId job;
+  private final List<String> hosts;
+
+  /**
+   * @param status The status of the placement.
+   * @param job The job that was placed.
+   * @param hosts The hosts the job was deployed to. Empty unless the status is OK, as a job that
+   *              can't be placed on enough hosts isn't deployed to any.
+   */
+  public JobPlacementResponse(@JsonProperty("status") final Status status,
+                              @JsonProperty("job") final JobId job,
+                              @JsonProperty("hosts") @Nullable final List<String> hosts) {
+    this.status = status;
+    this.job = job;
+    this.hosts = hosts == null ? ImmutableList.<String>of() : ImmutableList.copyOf(hosts);
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public JobId getJob() {
+    return job;
+  }
+
+  public List<String> getHosts() {
+    return hosts;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("status", status)
+        .add("job", job)
+        .add("hosts", hosts)
+        .toString();
+  }
+
+  public String toJsonString() {
+    return Json.asStringUnchecked(this);
+  }
+}
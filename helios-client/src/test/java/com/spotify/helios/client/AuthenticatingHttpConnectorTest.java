@@ -43,7 +43,9 @@ import javax.net.ssl.HttpsURLConnection;
 
 import static com.google.common.io.Resources.getResource;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.argThat;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
@@ -338,4 +340,49 @@ public class AuthenticatingHttpConnectorTest {
         returnedConnection, connection);
 
   }
+
+  @Test
+  public void testServerErrorIsRecordedAsFailure() throws Exception {
+    final EndpointIterator endpointIterator = mock(EndpointIterator.class);
+    final Endpoint endpoint = endpoints.get(0);
+    when(endpointIterator.next()).thenReturn(endpoint);
+    final AuthenticatingHttpConnector authConnector = new AuthenticatingHttpConnector(
+        USER, Optional.<AgentProxy>absent(), Optional.<ClientCertificatePath>absent(),
+        endpointIterator, connector, ImmutableList.<Identity>of());
+
+    final HttpsURLConnection connection = mock(HttpsURLConnection.class);
+    when(connector.connect(any(URI.class), eq(method), eq(entity), eq(headers)))
+        .thenReturn(connection);
+    when(connection.getResponseCode()).thenReturn(503);
+
+    authConnector.connect(new URI("https://helios/foo"), method, entity, headers);
+
+    verify(endpointIterator).started(endpoint);
+    verify(endpointIterator).failure(endpoint);
+    verify(endpointIterator, never()).success(eq(endpoint), anyLong());
+  }
+
+  @Test
+  public void testUnexpectedExceptionCompletesRequest() throws Exception {
+    final EndpointIterator endpointIterator = mock(EndpointIterator.class);
+    final Endpoint endpoint = endpoints.get(0);
+    when(endpointIterator.next()).thenReturn(endpoint);
+    final AuthenticatingHttpConnector authConnector = new AuthenticatingHttpConnector(
+        USER, Optional.<AgentProxy>absent(), Optional.<ClientCertificatePath>absent(),
+        endpointIterator, connector, ImmutableList.<Identity>of());
+
+    final IllegalStateException exception = new IllegalStateException();
+    when(connector.connect(any(URI.class), eq(method), eq(entity), eq(headers)))
+        .thenThrow(exception);
+
+    try {
+      authConnector.connect(new URI("https://helios/foo"), method, entity, headers);
+      fail();
+    } catch (IllegalStateException e) {
+      assertSame(exception, e);
+    }
+
+    verify(endpointIterator).started(endpoint);
+    verify(endpointIterator).failure(endpoint);
+  }
 }
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.client;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.common.net.InetAddresses;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import com.spotify.helios.common.Clock;
+import com.spotify.helios.common.Resolver.Resolution;
+
+import org.apache.http.conn.DnsResolver;
+import org.joda.time.Instant;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CachingEndpointSupplierTest {
+
+  @Rule
+  public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private static final InetAddress IP_A = InetAddresses.forString("1.2.3.4");
+  private static final InetAddress IP_B = InetAddresses.forString("2.3.4.5");
+
+  private static final URI URI_1 = URI.create("https://master1.example.com:443");
+  private static final URI URI_2 = URI.create("https://master2.example.com:443");
+
+  private final DnsResolver dnsResolver = mock(DnsResolver.class);
+  private final Clock clock = mock(Clock.class);
+
+  @SuppressWarnings("unchecked")
+  private final Supplier<Resolution> resolutionSupplier = mock(Supplier.class);
+
+  @Before
+  public void setup() throws Exception {
+    when(dnsResolver.resolve("master1.example.com")).thenReturn(new InetAddress[]{IP_A});
+    when(dnsResolver.resolve("master2.example.com")).thenReturn(new InetAddress[]{IP_B});
+    when(clock.now()).thenReturn(new Instant(0));
+  }
+
+  private CachingEndpointSupplier.Builder builder() {
+    return CachingEndpointSupplier.newBuilder("helios.example.com", resolutionSupplier)
+        .setDnsResolver(dnsResolver)
+        .setExecutor(MoreExecutors.sameThreadExecutor())
+        .setClock(clock)
+        .setTtlBounds(1, 3600, SECONDS);
+  }
+
+  @Test
+  public void testCachesUntilTtlExpires() throws Exception {
+    when(resolutionSupplier.get())
+        .thenReturn(new Resolution(ImmutableList.of(URI_1), 30))
+        .thenReturn(new Resolution(ImmutableList.of(URI_2), 30));
+
+    final CachingEndpointSupplier supplier = builder().build();
+
+    assertThat(supplier.get(), contains(Endpoints.of(URI_1, IP_A)));
+    when(clock.now()).thenReturn(new Instant(SECONDS.toMillis(29)));
+    assertThat(supplier.get(), contains(Endpoints.of(URI_1, IP_A)));
+    verify(resolutionSupplier, times(1)).get();
+
+    // The stale endpoints are returned while refreshing
+    when(clock.now()).thenReturn(new Instant(SECONDS.toMillis(30)));
+    assertThat(supplier.get(), contains(Endpoints.of(URI_1, IP_A)));
+    assertThat(supplier.get(), contains(Endpoints.of(URI_2, IP_B)));
+    verify(resolutionSupplier, times(2)).get();
+  }
+
+  @Test
+  public void testKeepsEndpointsWhenLookupFails() throws Exception {
+    when(resolutionSupplier.get())
+        .thenReturn(new Resolution(ImmutableList.of(URI_1), 30))
+        .thenThrow(new RuntimeException("DNS timeout"))
+        .thenReturn(new Resolution(Collections.<URI>emptyList(), 0));
+
+    final CachingEndpointSupplier supplier = builder().build();
+    assertThat(supplier.get(), contains(Endpoints.of(URI_1, IP_A)));
+
+    when(clock.now()).thenReturn(new Instant(SECONDS.toMillis(30)));
+    assertThat(supplier.get(), contains(Endpoints.of(URI_1, IP_A)));
+    when(clock.now()).thenReturn(new Instant(SECONDS.toMillis(60)));
+    assertThat(supplier.get(), contains(Endpoints.of(URI_1, IP_A)));
+    assertThat(supplier.get(), contains(Endpoints.of(URI_1, IP_A)));
+  }
+
+  @Test
+  public void testDiskCache() throws Exception {
+    final Path cacheDirectory = temporaryFolder.getRoot().toPath();
+    when(resolutionSupplier.get()).thenReturn(new Resolution(ImmutableList.of(URI_1), 30));
+
+    final List<Endpoint> first = builder()
+        .setCacheDirectory(Optional.of(cacheDirectory))
+        .build()
+        .get();
+    assertThat(first, contains(Endpoints.of(URI_1, IP_A)));
+
+    // A new process within the TTL does not need to resolve anything
+    final CachingEndpointSupplier fresh = builder()
+        .setCacheDirectory(Optional.of(cacheDirectory))
+        .build();
+    assertThat(fresh.get(), contains(Endpoints.of(URI_1, IP_A)));
+    verify(resolutionSupplier, times(1)).get();
+
+    // A new process after the TTL resolves again, but falls back to the stale entry on failure
+    when(clock.now()).thenReturn(new Instant(SECONDS.toMillis(31)));
+    when(resolutionSupplier.get()).thenThrow(new RuntimeException("DNS timeout"));
+    final CachingEndpointSupplier stale = builder()
+        .setCacheDirectory(Optional.of(cacheDirectory))
+        .build();
+    assertThat(stale.get(), contains(Endpoints.of(URI_1, IP_A)));
+    verify(resolutionSupplier, times(2)).get();
+  }
+
+  @Test
+  public void testNoEndpoints() throws Exception {
+    when(resolutionSupplier.get())
+        .thenReturn(new Resolution(Collections.<URI>emptyList(), 0));
+
+    final CachingEndpointSupplier supplier = builder().build();
+    assertThat(supplier.get(), empty());
+    assertThat(supplier.get(), empty());
+
+    // Keep trying as long as there is nothing to serve
+    verify(resolutionSupplier, times(2)).get();
+  }
+
+  @Test
+  public void testSharedPerDomainAndCacheDirectory() throws Exception {
+    final Optional<Path> a = Optional.of(temporaryFolder.newFolder("a").toPath());
+    final Optional<Path> b = Optional.of(temporaryFolder.newFolder("b").toPath());
+    final String domain = "shared.example.com";
+
+    final CachingEndpointSupplier supplier = CachingEndpointSupplier.forDomain("helios", domain, a);
+    assertSame(supplier, CachingEndpointSupplier.forDomain("helios", domain, a));
+    assertNotSame(supplier, CachingEndpointSupplier.forDomain("helios", domain, b));
+    assertNotSame(supplier, CachingEndpointSupplier.forDomain("helios", domain));
+    assertNotSame(supplier, CachingEndpointSupplier.forDomain("helios", "other.example.com", a));
+  }
+}
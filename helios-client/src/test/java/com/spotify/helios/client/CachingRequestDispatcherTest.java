@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.client;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Futures;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Matchers;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CachingRequestDispatcherTest {
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  private static final Map<String, List<String>> NO_HEADERS =
+      Collections.<String, List<String>>emptyMap();
+  private static final byte[] PAYLOAD = "[\"foo\",\"bar\"]".getBytes(UTF_8);
+
+  private final RequestDispatcher delegate = mock(RequestDispatcher.class);
+
+  private URI uri;
+  private CachingRequestDispatcher dispatcher;
+
+  @Before
+  public void setUp() throws Exception {
+    uri = new URI("http://example.com/hosts/");
+    dispatcher = CachingRequestDispatcher.forDispatcher(delegate)
+        .setDirectory(folder.getRoot().toPath().resolve("cache"))
+        .build();
+  }
+
+  private static Response response(final int status, final byte[] payload,
+                                   final Map<String, List<String>> headers) {
+    return new Response("GET", null, status, payload, headers);
+  }
+
+  @SuppressWarnings("unchecked")
+  private ArgumentCaptor<Map<String, List<String>>> headersCaptor() {
+    return (ArgumentCaptor<Map<String, List<String>>>) (ArgumentCaptor<?>)
+        ArgumentCaptor.forClass(Map.class);
+  }
+
+  @Test
+  public void testRevalidatesCachedResponse() throws Exception {
+    final Map<String, List<String>> etag = ImmutableMap.of("ETag", singletonList("\"1\""));
+    when(delegate.request(any(URI.class), anyString(), any(byte[].class),
+                          Matchers.<Map<String, List<String>>>any()))
+        .thenReturn(Futures.immediateFuture(response(200, PAYLOAD, etag)))
+        .thenReturn(Futures.immediateFuture(response(304, new byte[0], NO_HEADERS)));
+
+    final Response first = dispatcher.request(uri, "GET", new byte[0], NO_HEADERS).get();
+    final Response second = dispatcher.request(uri, "GET", new byte[0], NO_HEADERS).get();
+
+    assertArrayEquals(PAYLOAD, first.payload());
+    assertEquals(200, second.status());
+    assertArrayEquals(PAYLOAD, second.payload());
+
+    final ArgumentCaptor<Map<String, List<String>>> headers = headersCaptor();
+    verify(delegate, times(2)).request(any(URI.class), anyString(), any(byte[].class),
+                                       headers.capture());
+    assertFalse(headers.getAllValues().get(0).containsKey("If-None-Match"));
+    assertEquals(singletonList("\"1\""), headers.getAllValues().get(1).get("If-None-Match"));
+  }
+
+  @Test
+  public void testUntaggedResponsesAreNotCached() throws Exception {
+    when(delegate.request(any(URI.class), anyString(), any(byte[].class),
+                          Matchers.<Map<String, List<String>>>any()))
+        .thenReturn(Futures.immediateFuture(response(200, PAYLOAD, NO_HEADERS)));
+
+    dispatcher.request(uri, "GET", new byte[0], NO_HEADERS).get();
+    dispatcher.request(uri, "GET", new byte[0], NO_HEADERS).get();
+
+    final ArgumentCaptor<Map<String, List<String>>> headers = headersCaptor();
+    verify(delegate, times(2)).request(any(URI.class), anyString(), any(byte[].class),
+                                       headers.capture());
+    for (final Map<String, List<String>> h : headers.getAllValues()) {
+      assertFalse(h.containsKey("If-None-Match"));
+    }
+  }
+
+  @Test
+  public void testOtherMethodsAreNotCached() throws Exception {
+    final Map<String, List<String>> etag = ImmutableMap.of("ETag", singletonList("\"1\""));
+    when(delegate.request(any(URI.class), anyString(), any(byte[].class),
+                          Matchers.<Map<String, List<String>>>any()))
+        .thenReturn(Futures.immediateFuture(response(200, PAYLOAD, etag)));
+
+    dispatcher.request(uri, "POST", new byte[0], NO_HEADERS).get();
+
+    assertFalse(folder.getRoot().toPath().resolve("cache").toFile().exists());
+  }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.client;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+
+public class DefaultRequestDispatcherTest {
+
+  private static final byte[] PAYLOAD = "{\"foo\":\"bar\"}".getBytes(UTF_8);
+
+  @Test
+  public void testReadPayload() throws Exception {
+    // Unknown, exact, overstated and understated lengths
+    for (final int length : new int[]{-1, PAYLOAD.length, PAYLOAD.length + 5, 3, 0}) {
+      assertArrayEquals(String.valueOf(length), PAYLOAD,
+                        DefaultRequestDispatcher.readPayload(new ByteArrayInputStream(PAYLOAD),
+                                                             length));
+    }
+  }
+}
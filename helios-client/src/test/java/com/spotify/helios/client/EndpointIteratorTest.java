@@ -17,11 +17,15 @@
 
 package com.spotify.helios.client;
 
+import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
 import com.google.common.net.InetAddresses;
 
+import com.spotify.helios.common.Clock;
+
 import org.apache.http.conn.DnsResolver;
+import org.joda.time.Instant;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -34,8 +38,13 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
@@ -96,4 +105,75 @@ public class EndpointIteratorTest {
     exception.expect(NoSuchElementException.class);
     iterator.next();
   }
+
+  @Test
+  public void testPrefersFastEndpoints() throws Exception {
+    final EndpointIterator iterator = EndpointIterator.of(endpoints);
+    for (final Endpoint endpoint : endpoints) {
+      iterator.success(endpoint, endpoint.getIp().equals(IP_C) ? 10 : 100);
+    }
+
+    for (int i = 0; i < 10; i++) {
+      assertEquals(IP_C, iterator.next().getIp());
+    }
+  }
+
+  @Test
+  public void testSkipsFailedEndpoints() throws Exception {
+    final Clock clock = mock(Clock.class);
+    when(clock.now()).thenReturn(new Instant(0));
+
+    final EndpointIterator iterator = EndpointIterator.of(endpoints, clock);
+    for (final Endpoint endpoint : endpoints) {
+      iterator.success(endpoint, 10);
+    }
+    final Endpoint failed = iterator.next();
+    iterator.failure(failed);
+
+    final Set<InetAddress> ips = Sets.newHashSet();
+    for (int i = 0; i < 10; i++) {
+      ips.add(iterator.next().getIp());
+    }
+    assertThat(ips, not(hasItem(failed.getIp())));
+    assertEquals(3, ips.size());
+
+    // The failed endpoint gets another chance once it has backed off
+    when(clock.now()).thenReturn(new Instant(SECONDS.toMillis(1)));
+    ips.clear();
+    for (int i = 0; i < 10; i++) {
+      ips.add(iterator.next().getIp());
+    }
+    assertThat(ips, hasItem(failed.getIp()));
+  }
+
+  @Test
+  public void testAllEndpointsFailed() throws Exception {
+    final EndpointIterator iterator = EndpointIterator.of(endpoints);
+    for (final Endpoint endpoint : endpoints) {
+      iterator.failure(endpoint);
+    }
+
+    final Set<InetAddress> ips = Sets.newHashSet();
+    for (int i = 0; i < 4; i++) {
+      ips.add(iterator.next().getIp());
+    }
+    assertThat(ips, containsInAnyOrder(IP_A, IP_B, IP_C, IP_D));
+  }
+
+  @Test
+  public void testFollowsSupplier() throws Exception {
+    final List<Endpoint> updated = Endpoints.of(ImmutableList.of(uri2), RESOLVER);
+    final AtomicReference<List<Endpoint>> current = new AtomicReference<>(endpoints);
+    final EndpointIterator iterator = EndpointIterator.of(new Supplier<List<Endpoint>>() {
+      @Override
+      public List<Endpoint> get() {
+        return current.get();
+      }
+    });
+
+    current.set(updated);
+    for (int i = 0; i < 10; i++) {
+      assertEquals(uri2, iterator.next().getUri());
+    }
+  }
 }
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.client;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import com.spotify.helios.common.Clock;
+import com.spotify.helios.common.descriptors.JobId;
+import com.spotify.helios.common.descriptors.JobStatus;
+import com.spotify.helios.common.protocol.DeploymentGroupStatusResponse;
+
+import org.joda.time.Instant;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class FederatedHeliosClientTest {
+
+  private static final JobId JOB = JobId.fromString("foo:1");
+  private static final Set<JobId> JOBS = ImmutableSet.of(JOB);
+
+  private final HeliosClient lon = mock(HeliosClient.class);
+  private final HeliosClient ash = mock(HeliosClient.class);
+  private final Clock clock = mock(Clock.class);
+  private final Map<JobId, JobStatus> lonStatuses =
+      ImmutableMap.of(JOB, JobStatus.newBuilder().build());
+  private final Map<JobId, JobStatus> ashStatuses =
+      ImmutableMap.of(JOB, JobStatus.newBuilder().build());
+
+  private FederatedHeliosClient client;
+
+  @Before
+  public void setUp() throws Exception {
+    when(clock.now()).thenReturn(new Instant(1000));
+    client = FederatedHeliosClient.newBuilder()
+        .addCluster("lon", lon)
+        .addCluster("ash", ash)
+        .setTimeout(100, MILLISECONDS)
+        .setClock(clock)
+        .build();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    client.close();
+  }
+
+  @Test
+  public void testAllClustersAnswer() throws Exception {
+    when(lon.jobStatuses(JOBS)).thenReturn(immediateFuture(lonStatuses));
+    when(ash.jobStatuses(JOBS)).thenReturn(immediateFuture(ashStatuses));
+
+    final FederatedResponse<Map<JobId, JobStatus>> response =
+        client.jobStatuses(JOBS).get(10, SECONDS);
+
+    assertTrue(response.isComplete());
+    assertEquals(ImmutableMap.of("lon", lonStatuses, "ash", ashStatuses), response.getValues());
+    assertEquals(1000, response.getClusters().get("lon").getFetchedAt());
+  }
+
+  @Test
+  public void testPartialResults() throws Exception {
+    final IOException error = new IOException();
+    when(lon.jobStatuses(JOBS)).thenReturn(immediateFuture(lonStatuses));
+    when(ash.jobStatuses(JOBS))
+        .thenReturn(Futures.<Map<JobId, JobStatus>>immediateFailedFuture(error))
+        .thenReturn(SettableFuture.<Map<JobId, JobStatus>>create());
+
+    final FederatedResponse<Map<JobId, JobStatus>> failed =
+        client.jobStatuses(JOBS).get(10, SECONDS);
+
+    assertFalse(failed.isComplete());
+    assertEquals(ImmutableMap.of("lon", lonStatuses), failed.getValues());
+    assertSame(error, failed.getErrors().get("ash"));
+    assertFalse(failed.getClusters().get("ash").hasValue());
+
+    final FederatedResponse<Map<JobId, JobStatus>> timedOut =
+        client.jobStatuses(JOBS).get(10, SECONDS);
+
+    assertTrue(timedOut.getErrors().get("ash") instanceof TimeoutException);
+    assertEquals(ImmutableMap.of("lon", lonStatuses), timedOut.getValues());
+  }
+
+  @Test
+  public void testStaleSnapshotUsedWhenClusterFails() throws Exception {
+    final SettableFuture<Map<JobId, JobStatus>> slow = SettableFuture.create();
+    when(lon.jobStatuses(JOBS)).thenReturn(immediateFuture(lonStatuses));
+    when(ash.jobStatuses(JOBS))
+        .thenReturn(immediateFuture(ashStatuses))
+        .thenReturn(slow)
+        .thenReturn(Futures.<Map<JobId, JobStatus>>immediateFailedFuture(new IOException()));
+
+    client.jobStatuses(JOBS).get(10, SECONDS);
+
+    when(clock.now()).thenReturn(new Instant(2000));
+    final FederatedResponse<Map<JobId, JobStatus>> response =
+        client.jobStatuses(JOBS).get(10, SECONDS);
+
+    final ClusterSnapshot<Map<JobId, JobStatus>> snapshot = response.getClusters().get("ash");
+    assertTrue(snapshot.isStale());
+    assertSame(ashStatuses, snapshot.getValue());
+    assertEquals(1000, snapshot.getFetchedAt());
+    assertEquals(2000, response.getClusters().get("lon").getFetchedAt());
+
+    // An answer that arrives too late is still kept for the next request
+    final Map<JobId, JobStatus> late = ImmutableMap.of();
+    slow.set(late);
+    final FederatedResponse<Map<JobId, JobStatus>> next =
+        client.jobStatuses(JOBS).get(10, SECONDS);
+    assertSame(late, next.getClusters().get("ash").getValue());
+    assertEquals(2000, next.getClusters().get("ash").getFetchedAt());
+  }
+
+  @Test
+  public void testExpiredSnapshotNotUsed() throws Exception {
+    client.close();
+    client = FederatedHeliosClient.newBuilder()
+        .addCluster("lon", lon)
+        .addCluster("ash", ash)
+        .setTimeout(100, MILLISECONDS)
+        .setMaxStaleness(500, MILLISECONDS)
+        .setClock(clock)
+        .build();
+    final IOException error = new IOException();
+    when(lon.jobStatuses(JOBS)).thenReturn(immediateFuture(lonStatuses));
+    when(ash.jobStatuses(JOBS))
+        .thenReturn(immediateFuture(ashStatuses))
+        .thenReturn(Futures.<Map<JobId, JobStatus>>immediateFailedFuture(error));
+
+    client.jobStatuses(JOBS).get(10, SECONDS);
+
+    when(clock.now()).thenReturn(new Instant(2000));
+    final FederatedResponse<Map<JobId, JobStatus>> response =
+        client.jobStatuses(JOBS).get(10, SECONDS);
+
+    final ClusterSnapshot<Map<JobId, JobStatus>> snapshot = response.getClusters().get("ash");
+    // The last answer is too old to be used
+    assertFalse(snapshot.hasValue());
+    assertNull(snapshot.getValue());
+    assertSame(error, response.getErrors().get("ash"));
+    assertEquals(ImmutableMap.of("lon", lonStatuses), response.getValues());
+  }
+
+  @Test
+  public void testDeploymentGroupMissingInCluster() throws Exception {
+    final ListenableFuture<DeploymentGroupStatusResponse> missing = immediateFuture(null);
+    when(lon.deploymentGroupStatus("group")).thenReturn(missing);
+    when(ash.deploymentGroupStatus("group")).thenReturn(missing);
+
+    final FederatedResponse<?> response = client.deploymentGroupStatus("group").get(10, SECONDS);
+
+    assertTrue(response.isComplete());
+    assertTrue(response.getValues().isEmpty());
+    assertNull(response.getClusters().get("lon").getValue());
+    assertTrue(response.getClusters().get("lon").hasValue());
+  }
+
+  @Test
+  public void testCloseClosesClusters() throws Exception {
+    client.close();
+    verify(lon).close();
+    verify(ash).close();
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.client;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.Matchers;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class HedgingRequestDispatcherTest {
+
+  @Rule
+  public final ExpectedException exception = ExpectedException.none();
+
+  private static final Map<String, List<String>> NO_HEADERS =
+      Collections.<String, List<String>>emptyMap();
+
+  private final RequestDispatcher delegate = mock(RequestDispatcher.class);
+  private final Response response = mock(Response.class);
+
+  private URI uri;
+  private HedgingRequestDispatcher dispatcher;
+
+  @Before
+  public void setUp() throws Exception {
+    uri = new URI("http://example.com/jobs");
+    dispatcher = HedgingRequestDispatcher.forDispatcher(delegate)
+        .setExecutor(newSingleThreadScheduledExecutor())
+        .setInitialDelay(10, MILLISECONDS)
+        .build();
+  }
+
+  private void whenRequested(final String method, final ListenableFuture<Response> first,
+                             final ListenableFuture<Response> second) {
+    when(delegate.request(any(URI.class), Matchers.eq(method), any(byte[].class),
+                          Matchers.<Map<String, List<String>>>any()))
+        .thenReturn(first)
+        .thenReturn(second);
+  }
+
+  @Test
+  public void testSlowRequestIsHedged() throws Exception {
+    final SettableFuture<Response> slow = SettableFuture.create();
+    whenRequested("GET", slow, Futures.immediateFuture(response));
+
+    final ListenableFuture<Response> future = dispatcher.request(uri, "GET", new byte[0],
+                                                                 NO_HEADERS);
+
+    assertSame(response, future.get(10, SECONDS));
+    verify(delegate, times(2)).request(any(URI.class), anyString(), any(byte[].class),
+                                       Matchers.<Map<String, List<String>>>any());
+    // The slow request is abandoned. That happens in a listener of the returned future, which may
+    // still be running when get() returns.
+    final long deadline = System.nanoTime() + SECONDS.toNanos(10);
+    while (!slow.isCancelled() && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    assertTrue(slow.isCancelled());
+  }
+
+  @Test
+  public void testFastRequestIsNotHedged() throws Exception {
+    whenRequested("GET", Futures.immediateFuture(response), Futures.immediateFuture(response));
+
+    assertSame(response, dispatcher.request(uri, "GET", new byte[0], NO_HEADERS).get());
+    Thread.sleep(100);
+    verify(delegate, times(1)).request(any(URI.class), anyString(), any(byte[].class),
+                                       Matchers.<Map<String, List<String>>>any());
+  }
+
+  @Test
+  public void testOtherMethodsAreNotHedged() throws Exception {
+    final SettableFuture<Response> slow = SettableFuture.create();
+    whenRequested("POST", slow, Futures.immediateFuture(response));
+
+    final ListenableFuture<Response> future = dispatcher.request(uri, "POST", new byte[0],
+                                                                 NO_HEADERS);
+    Thread.sleep(100);
+    verify(delegate, times(1)).request(any(URI.class), anyString(), any(byte[].class),
+                                       Matchers.<Map<String, List<String>>>any());
+    slow.set(response);
+    assertSame(response, future.get());
+  }
+
+  @Test
+  public void testFailsWhenAllAttemptsFail() throws Exception {
+    final SettableFuture<Response> first = SettableFuture.create();
+    final SettableFuture<Response> second = SettableFuture.create();
+    whenRequested("GET", first, second);
+
+    final ListenableFuture<Response> future = dispatcher.request(uri, "GET", new byte[0],
+                                                                 NO_HEADERS);
+    verify(delegate, timeout(10000).times(2)).request(
+        any(URI.class), anyString(), any(byte[].class), Matchers.<Map<String, List<String>>>any());
+
+    // One failure is not enough while the other attempt may still succeed
+    first.setException(new RuntimeException("first"));
+    Thread.sleep(100);
+    assertTrue(!future.isDone());
+
+    second.setException(new RuntimeException("second"));
+    exception.expect(ExecutionException.class);
+    future.get();
+  }
+
+  @Test
+  public void testHedgeDelayFollowsPercentile() throws Exception {
+    final HedgingRequestDispatcher dispatcher = HedgingRequestDispatcher.forDispatcher(delegate)
+        .setExecutor(newSingleThreadScheduledExecutor())
+        .setInitialDelay(1, SECONDS)
+        .setMinDelay(0, MILLISECONDS)
+        .setWindow(100)
+        .build();
+    whenRequested("GET", Futures.immediateFuture(response), Futures.immediateFuture(response));
+
+    assertEquals(1000, dispatcher.hedgeDelayMillis());
+    for (int i = 0; i < 100; i++) {
+      dispatcher.request(uri, "GET", new byte[0], NO_HEADERS).get();
+    }
+    // All requests completed immediately
+    assertTrue(dispatcher.hedgeDelayMillis() < 1000);
+  }
+}
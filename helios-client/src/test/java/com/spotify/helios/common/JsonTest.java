@@ -17,17 +17,25 @@
 
 package com.spotify.helios.common;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.type.TypeReference;
+
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.security.MessageDigest;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 public class JsonTest {
 
@@ -87,6 +95,37 @@ public class JsonTest {
     assertArrayEquals(expectedDigest, digest);
   }
 
+  public static class Created {
+
+    private final String z;
+    private final String a;
+
+    @JsonCreator
+    public Created(@JsonProperty("z") final String z, @JsonProperty("a") final String a) {
+      this.z = z;
+      this.a = a;
+    }
+
+    @JsonProperty("a")
+    public String getA() {
+      return a;
+    }
+
+    @JsonProperty("z")
+    public String getZ() {
+      return z;
+    }
+  }
+
+  @Test
+  public void testObjectSha1SortsCreatorProperties() throws Exception {
+    final Map<String, Object> nested = Collections.<String, Object>singletonMap(
+        "created", new Created("last", "first"));
+    final byte[] expected = sha1.digest(
+        "{\"created\":{\"a\":\"first\",\"z\":\"last\"}}".getBytes(UTF_8));
+    assertArrayEquals(expected, Json.sha1digest((Object) nested));
+  }
+
   public static class SomePojo {
     public String foo;
   }
@@ -104,4 +143,27 @@ public class JsonTest {
                  "  \"foo\" : \"bar\"\n" +
                  "}", json);
   }
+
+  @Test
+  public void testReadersAreReused() throws Exception {
+    assertSame(Json.reader(new TypeReference<List<String>>() {}),
+               Json.reader(new TypeReference<List<String>>() {}));
+    assertSame(Json.reader(SomePojo.class), Json.reader(SomePojo.class));
+    assertEquals(Collections.singletonList("foo"),
+                 Json.read("[\"foo\"]", new TypeReference<List<String>>() {}));
+  }
+
+  @Test
+  public void testStreams() throws Exception {
+    final SomePojo pojo = new SomePojo();
+    pojo.foo = "bar";
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Json.write(out, pojo);
+    // The stream is left open
+    out.write(' ');
+
+    final SomePojo read = Json.read(new ByteArrayInputStream(out.toByteArray()), SomePojo.class);
+    assertEquals("bar", read.foo);
+  }
 }
@@ -88,4 +88,21 @@ public class ResolverTest {
     assertThat(uris.size(), equalTo(3));
     assertThat(uris, Matchers.containsInAnyOrder(expectedUris));
   }
+
+  @Test
+  public void testResolutionSupplierUsesLowestTtl() throws Exception {
+    final List<LookupResult> lookupResults = ImmutableList.of(
+        LookupResult.create("master1.example.com", 443, 1, 1, 300),
+        LookupResult.create("master2.example.com", 443, 1, 1, 60)
+    );
+
+    when(resolver.resolve("_helios._https.example.com")).thenReturn(lookupResults);
+
+    final Resolver.Resolution resolution =
+        Resolver.resolutionSupplier("helios", "example.com", resolver).get();
+
+    assertThat(resolution.getUris(), Matchers.contains(new URI("https://master1.example.com:443"),
+                                                       new URI("https://master2.example.com:443")));
+    assertThat(resolution.getTtlSeconds(), equalTo(60L));
+  }
 }
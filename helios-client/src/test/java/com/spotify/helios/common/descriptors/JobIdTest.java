@@ -24,6 +24,9 @@ import org.junit.Test;
 import java.io.IOException;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
 
 public class JobIdTest {
 
@@ -66,4 +69,56 @@ public class JobIdTest {
     final String json = Json.asStringUnchecked(jobId);
     assertEquals(expectedJson, json);
   }
+
+  @Test
+  public void testParseMatchesSplit() throws Exception {
+    final String[] ids = {
+        "foo", "foo:", "foo::", "foo:17", "foo:17:", "foo:17:deadbeef", "foo:17:deadbeef:",
+        ":17", "::deadbeef", "foo::deadbeef", ":", "::", "foo:17:dead:beef", "a:b:c:d:"
+    };
+    for (final String id : ids) {
+      final String[] parts = id.split(":");
+      JobId expected = null;
+      switch (parts.length) {
+        case 1:
+          expected = JobId.newBuilder().setName(parts[0]).build();
+          break;
+        case 2:
+          expected = new JobId(parts[0], parts[1]);
+          break;
+        case 3:
+          expected = new JobId(parts[0], parts[1], parts[2]);
+          break;
+        default:
+          break;
+      }
+      try {
+        final JobId parsed = JobId.parse(id);
+        assertEquals(id, expected, parsed);
+        assertEquals(id, expected.toString(), parsed.toString());
+        assertEquals(id, expected.hashCode(), parsed.hashCode());
+      } catch (JobIdParseException e) {
+        assertNull(id, expected);
+      }
+    }
+  }
+
+  @Test
+  public void testParseIsInterned() throws Exception {
+    final JobId built = JobId.newBuilder().setName("foo").setVersion("17").setHash("cafe").build();
+    assertSame(built, JobId.parse("foo:17:cafe"));
+    assertSame(built, JobId.parse("foo:17:cafe:"));
+    assertSame(built, Json.read("\"foo:17:cafe\"", JobId.class));
+    assertSame(built, JobId.intern(new JobId("foo", "17", "cafe")));
+  }
+
+  @Test
+  public void testJsonRequiresVersion() throws Exception {
+    JobId.parse("foo");
+    try {
+      Json.read("\"foo\"", JobId.class);
+      fail();
+    } catch (IOException ignored) {
+    }
+  }
 }
@@ -22,6 +22,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteStreams;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -31,6 +32,7 @@ import com.spotify.helios.common.Json;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -308,6 +310,18 @@ public class JobTest {
     assertThat(job.getVolumes(), hasEntry("/foo", "/bar"));
   }
 
+  /** Job ids must not change between versions, or the master won't recognize existing jobs. */
+  @Test
+  public void verifySha1IDsOfExistingJobs() throws IOException {
+    final List<Job> jobs;
+    try (final InputStream in = getClass().getResourceAsStream("/job-corpus.json")) {
+      jobs = Json.read(ByteStreams.toByteArray(in), new TypeReference<List<Job>>() {});
+    }
+    for (final Job job : jobs) {
+      assertEquals(job.getId(), job.toBuilder().build().getId());
+    }
+  }
+
   @Test
   public void verifySha1ID() throws IOException {
     final Map<String, Object> expectedConfig = map("command", asList("foo", "bar"),
@@ -19,6 +19,7 @@ package com.spotify.helios.agent;
 
 import com.spotify.docker.client.DockerHost;
 import com.spotify.helios.servicescommon.FastForwardConfig;
+import com.spotify.helios.servicescommon.PayloadFormat;
 
 import java.net.InetSocketAddress;
 import java.nio.file.Path;
@@ -60,12 +61,16 @@ public class AgentConfig extends Configuration {
   private List<String> kafkaBrokers;
   private Map<String, String> labels;
   private boolean zooKeeperEnableAcls;
+  private PayloadFormat zooKeeperPayloadFormat = PayloadFormat.JSON;
   private String zookeeperAclMasterUser;
   private String zooKeeperAclMasterDigest;
   private String zookeeperAclAgentUser;
   private String zooKeeperAclAgentPassword;
   private FastForwardConfig fastForwardConfig;
   private List<String> extraHosts;
+  private boolean compactTaskStatus;
+  private int resourceUsageIntervalSeconds;
+  private Path cgroupRoot;
 
   public boolean isInhibitMetrics() {
     return inhibitMetrics;
@@ -314,6 +319,15 @@ public class AgentConfig extends Configuration {
     return zooKeeperEnableAcls;
   }
 
+  public AgentConfig setZooKeeperPayloadFormat(final PayloadFormat zooKeeperPayloadFormat) {
+    this.zooKeeperPayloadFormat = zooKeeperPayloadFormat;
+    return this;
+  }
+
+  public PayloadFormat getZooKeeperPayloadFormat() {
+    return zooKeeperPayloadFormat;
+  }
+
   public AgentConfig setZooKeeperAclMasterDigest(final String zooKeeperAclMasterDigest) {
     this.zooKeeperAclMasterDigest = zooKeeperAclMasterDigest;
     return this;
@@ -367,4 +381,34 @@ public class AgentConfig extends Configuration {
     this.extraHosts = extraHosts;
     return this;
   }
+
+  public boolean isCompactTaskStatus() {
+    return compactTaskStatus;
+  }
+
+  public AgentConfig setCompactTaskStatus(final boolean compactTaskStatus) {
+    this.compactTaskStatus = compactTaskStatus;
+    return this;
+  }
+
+  /**
+   * The seconds between samples of container resource usage, or 0 to not sample it.
+   */
+  public int getResourceUsageIntervalSeconds() {
+    return resourceUsageIntervalSeconds;
+  }
+
+  public AgentConfig setResourceUsageIntervalSeconds(final int resourceUsageIntervalSeconds) {
+    this.resourceUsageIntervalSeconds = resourceUsageIntervalSeconds;
+    return this;
+  }
+
+  public Path getCgroupRoot() {
+    return cgroupRoot;
+  }
+
+  public AgentConfig setCgroupRoot(final Path cgroupRoot) {
+    this.cgroupRoot = cgroupRoot;
+    return this;
+  }
 }
@@ -17,6 +17,8 @@
 
 package com.spotify.helios.agent;
 
+import com.spotify.helios.common.Clock;
+import com.spotify.helios.common.SystemClock;
 import com.spotify.helios.common.Version;
 import com.spotify.helios.common.descriptors.AgentInfo;
 import com.spotify.helios.servicescommon.coordination.NodeUpdaterFactory;
@@ -33,27 +35,63 @@ import static java.util.Objects.requireNonNull;
 
 /**
  * Report various Agent runtime information via ZK so it can be visible to clients of Helios.
+ *
+ * Only the uptime changes while the agent runs, so after the first write the node is only
+ * rewritten when it's older than {@link #MAX_AGE_MINUTES}.
  */
 public class AgentInfoReporter extends SignalAwaitingService {
 
+  private static final long MAX_AGE_MINUTES = 10;
 
   private final RuntimeMXBean runtimeMXBean;
   private final ZooKeeperNodeUpdater nodeUpdater;
   private final int interval;
   private final TimeUnit timeUnit;
+  private final ReportThrottle<AgentInfo> throttle;
+
+  private AgentInfo significant;
 
   AgentInfoReporter(RuntimeMXBean runtimeMXBean, NodeUpdaterFactory nodeUpdaterFactory, String host,
                     int interval, TimeUnit timeUnit, CountDownLatch latch) {
+    this(runtimeMXBean, nodeUpdaterFactory, host, interval, timeUnit, latch, new SystemClock());
+  }
+
+  AgentInfoReporter(RuntimeMXBean runtimeMXBean, NodeUpdaterFactory nodeUpdaterFactory, String host,
+                    int interval, TimeUnit timeUnit, CountDownLatch latch, Clock clock) {
     super(latch);
     this.runtimeMXBean = requireNonNull(runtimeMXBean);
     this.nodeUpdater = nodeUpdaterFactory.create(Paths.statusHostAgentInfo(host));
     this.interval = interval;
     this.timeUnit = requireNonNull(timeUnit);
+    this.throttle = new ReportThrottle<>(clock, MAX_AGE_MINUTES, TimeUnit.MINUTES);
   }
 
   @Override
   protected void runOneIteration() {
-    final AgentInfo agentInfo = AgentInfo.newBuilder()
+    if (significant == null) {
+      significant = builder().build();
+    }
+    if (!throttle.shouldWrite(significant)) {
+      if (nodeUpdater.exists()) {
+        return;
+      }
+      // The node was removed, e.g. as the host was deregistered or ZooKeeper was reset
+      throttle.reset();
+    }
+
+    final AgentInfo agentInfo = builder()
+        .setUptime(runtimeMXBean.getUptime())
+        .build();
+
+    if (nodeUpdater.update(agentInfo.toJsonBytes())) {
+      throttle.written(significant);
+    } else {
+      throttle.reset();
+    }
+  }
+
+  private AgentInfo.Builder builder() {
+    return AgentInfo.newBuilder()
         .setName(runtimeMXBean.getName())
         .setVmName(runtimeMXBean.getVmName())
         .setVmVendor(runtimeMXBean.getVmVendor())
@@ -62,12 +100,8 @@ public class AgentInfoReporter extends SignalAwaitingService {
         .setSpecVendor(runtimeMXBean.getSpecVendor())
         .setSpecVersion(runtimeMXBean.getSpecVersion())
         .setInputArguments(runtimeMXBean.getInputArguments())
-        .setUptime(runtimeMXBean.getUptime())
         .setStartTime(runtimeMXBean.getStartTime())
-        .setVersion(Version.POM_VERSION)
-        .build();
-
-    nodeUpdater.update(agentInfo.toJsonBytes());
+        .setVersion(Version.POM_VERSION);
   }
 
   @Override
@@ -30,6 +30,7 @@ import net.sourceforge.argparse4j.inf.ArgumentParserException;
 import net.sourceforge.argparse4j.inf.Namespace;
 
 import java.net.InetSocketAddress;
+import java.nio.file.Paths;
 import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.List;
@@ -68,6 +69,9 @@ public class AgentParser extends ServiceParser {
   private Argument zkRegistrationTtlMinutesArg;
   private Argument zkAclMasterDigest;
   private Argument zkAclAgentPassword;
+  private Argument compactTaskStatusArg;
+  private Argument resourceUsageIntervalArg;
+  private Argument cgroupRootArg;
 
   public AgentParser(final String... args) throws ArgumentParserException {
     super("helios-agent", "Spotify Helios Agent", args);
@@ -121,6 +125,7 @@ public class AgentParser extends ServiceParser {
         .setZooKeeperClusterId(getZooKeeperClusterId())
         .setZooKeeperRegistrationTtlMinutes(options.getInt(zkRegistrationTtlMinutesArg.getDest()))
         .setZooKeeperEnableAcls(getZooKeeperEnableAcls())
+        .setZooKeeperPayloadFormat(getZooKeeperPayloadFormat())
         .setZookeeperAclMasterUser(getZooKeeperAclMasterUser())
         .setZooKeeperAclMasterDigest(options.getString(zkAclMasterDigest.getDest()))
         .setZookeeperAclAgentUser(getZooKeeperAclAgentUser())
@@ -142,7 +147,10 @@ public class AgentParser extends ServiceParser {
         .setNoHttp(options.getBoolean(noHttpArg.getDest()))
         .setKafkaBrokers(getKafkaBrokers())
         .setLabels(labels)
-        .setFfwdConfig(ffwdConfig(options));
+        .setFfwdConfig(ffwdConfig(options))
+        .setCompactTaskStatus(options.getBoolean(compactTaskStatusArg.getDest()))
+        .setResourceUsageIntervalSeconds(options.getInt(resourceUsageIntervalArg.getDest()))
+        .setCgroupRoot(Paths.get(options.getString(cgroupRootArg.getDest())));
 
     final String explicitId = options.getString(agentIdArg.getDest());
     if (explicitId != null) {
@@ -265,6 +273,22 @@ public class AgentParser extends ServiceParser {
         .help("ZooKeeper agent password (for ZooKeeper ACLs). If the "
               + ZK_AGENT_PASSWORD_ENVVAR
               + " environment variable is present this argument is ignored.");
+
+    compactTaskStatusArg = parser.addArgument("--compact-task-status")
+        .action(storeTrue())
+        .setDefault(false)
+        .help("Store task statuses and history in ZooKeeper with a reference to the job instead "
+              + "of the whole job. Only enable once all masters are upgraded to read them.");
+
+    resourceUsageIntervalArg = parser.addArgument("--resource-usage-interval")
+        .type(Integer.class)
+        .setDefault(10)
+        .help("Seconds between samples of the CPU, memory, network and block I/O used by each "
+              + "container, read from cgroupfs. 0 disables sampling.");
+
+    cgroupRootArg = parser.addArgument("--cgroup-root")
+        .setDefault("/sys/fs/cgroup")
+        .help("Where the cgroup hierarchies are mounted.");
   }
 
   public AgentConfig getAgentConfig() {
@@ -34,6 +34,7 @@ import com.spotify.helios.common.SystemClock;
 import com.spotify.helios.common.descriptors.JobId;
 import com.spotify.helios.master.metrics.HealthCheckGauge;
 import com.spotify.helios.serviceregistration.ServiceRegistrar;
+import com.spotify.helios.servicescommon.CompactTaskStatus;
 import com.spotify.helios.servicescommon.FastForwardConfig;
 import com.spotify.helios.servicescommon.KafkaClientProvider;
 import com.spotify.helios.servicescommon.ManagedStatsdReporter;
@@ -112,6 +113,7 @@ public class AgentService extends AbstractIdleService implements Managed {
   private final AgentInfoReporter agentInfoReporter;
   private final EnvironmentVariableReporter environmentVariableReporter;
   private final LabelReporter labelReporter;
+  private final ResourceUsageReporter resourceUsageReporter;
   private final FileChannel stateLockFile;
   private final FileLock stateLock;
   private final ZooKeeperAgentModel model;
@@ -218,9 +220,27 @@ public class AgentService extends AbstractIdleService implements Managed {
         zooKeeperClient, modelReporter);
     final KafkaClientProvider kafkaClientProvider = new KafkaClientProvider(
         config.getKafkaBrokers());
+    final PersistentAtomicReference<Map<JobId, Execution>> executions;
+    try {
+      executions = PersistentAtomicReference.create(stateDirectory.resolve("executions.json"),
+                                                    JOBID_EXECUTIONS_MAP,
+                                                    Suppliers.ofInstance(EMPTY_EXECUTIONS));
+    } catch (IOException e) {
+      throw Throwables.propagate(e);
+    }
+
+    // Compact task statuses of jobs that are no longer assigned to this agent are resolved from
+    // the executions that are still being wound down.
+    final CompactTaskStatus.JobResolver executionJobResolver = jobId -> {
+      final Execution execution = executions.get().get(jobId);
+      return execution == null ? null : execution.getJob();
+    };
+
     try {
       this.model = new ZooKeeperAgentModel(zkClientProvider, kafkaClientProvider,
-        config.getName(), stateDirectory);
+        config.getName(), stateDirectory, config.isCompactTaskStatus(),
+        config.getZooKeeperPayloadFormat(), executionJobResolver,
+        metrics.getSupervisorMetrics());
     } catch (IOException e) {
       throw Throwables.propagate(e);
     }
@@ -248,8 +268,8 @@ public class AgentService extends AbstractIdleService implements Managed {
       dockerClient = new PollingDockerClient(config.getDockerHost().uri(), dockerCertificates);
     }
 
-    final DockerClient monitoredDockerClient = MonitoredDockerClient.wrap(riemannFacade,
-                                                                          dockerClient);
+    final DockerClient monitoredDockerClient = MonitoredDockerClient.wrap(
+        riemannFacade, metrics.getSupervisorMetrics(), dockerClient);
 
     this.hostInfoReporter =
         new HostInfoReporter((OperatingSystemMXBean) getOperatingSystemMXBean(), nodeUpdaterFactory,
@@ -266,6 +286,15 @@ public class AgentService extends AbstractIdleService implements Managed {
     this.labelReporter = new LabelReporter(
         config.getName(), config.getLabels(), nodeUpdaterFactory, zkRegistrationSignal);
 
+    if (config.getResourceUsageIntervalSeconds() > 0) {
+      this.resourceUsageReporter = new ResourceUsageReporter(
+          model, new CgroupSampler(config.getCgroupRoot()), nodeUpdaterFactory, config.getName(),
+          metrics.getSupervisorMetrics(), config.getResourceUsageIntervalSeconds(),
+          TimeUnit.SECONDS, zkRegistrationSignal);
+    } else {
+      this.resourceUsageReporter = null;
+    }
+
     final String namespace = "helios-" + id;
 
     final List<ContainerDecorator> decorators = Lists.newArrayList();
@@ -298,15 +327,6 @@ public class AgentService extends AbstractIdleService implements Managed {
     final PortAllocator portAllocator = new PortAllocator(config.getPortRangeStart(),
                                                           config.getPortRangeEnd());
 
-    final PersistentAtomicReference<Map<JobId, Execution>> executions;
-    try {
-      executions = PersistentAtomicReference.create(stateDirectory.resolve("executions.json"),
-                                                    JOBID_EXECUTIONS_MAP,
-                                                    Suppliers.ofInstance(EMPTY_EXECUTIONS));
-    } catch (IOException e) {
-      throw Throwables.propagate(e);
-    }
-
     final Reaper reaper = new Reaper(dockerClient, namespace);
     this.agent = new Agent(model, supervisorFactory, reactorFactory, executions, portAllocator,
                            reaper);
@@ -418,6 +438,9 @@ public class AgentService extends AbstractIdleService implements Managed {
     agentInfoReporter.startAsync();
     environmentVariableReporter.startAsync();
     labelReporter.startAsync();
+    if (resourceUsageReporter != null) {
+      resourceUsageReporter.startAsync();
+    }
     metrics.start();
     if (server != null) {
       try {
@@ -446,6 +469,9 @@ public class AgentService extends AbstractIdleService implements Managed {
     agentInfoReporter.stopAsync().awaitTerminated();
     environmentVariableReporter.stopAsync().awaitTerminated();
     labelReporter.stopAsync().awaitTerminated();
+    if (resourceUsageReporter != null) {
+      resourceUsageReporter.stopAsync().awaitTerminated();
+    }
     agent.stopAsync().awaitTerminated();
 
     if (serviceRegistrar != null) {
@@ -123,6 +123,8 @@ public class AgentZooKeeperRegistrar implements ZooKeeperRegistrar {
       }
     }
 
+    ZooKeeperRegistrarUtil.cancelDeregistration(client, name);
+
     // Start the up node
     if (upNode == null) {
       final String upPath = Paths.statusHostUp(name);
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.agent;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.CharMatcher;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads the resource usage counters of Docker containers straight from cgroupfs, which is a few
+ * small reads per container rather than a stream from the Docker stats API.
+ *
+ * CPU and memory come from the container's cpuacct and memory cgroups, block I/O from its blkio
+ * cgroup and network traffic from the {@code net/dev} of one of its processes, which is in the
+ * container's network namespace. Both the cgroupfs driver layout ({@code docker/<id>}) and the
+ * systemd one ({@code system.slice/docker-<id>.scope}) are understood.
+ */
+class CgroupSampler {
+
+  private static final Logger log = LoggerFactory.getLogger(CgroupSampler.class);
+
+  private static final List<String> LAYOUTS = ImmutableList.of(
+      "docker/%s", "system.slice/docker-%s.scope");
+
+  private static final Splitter WHITESPACE =
+      Splitter.on(CharMatcher.WHITESPACE).omitEmptyStrings();
+
+  /**
+   * The cumulative counters of a container at one point in time.
+   */
+  static class Sample {
+
+    final long cpuNanos;
+    final long memoryBytes;
+    final long networkRxBytes;
+    final long networkTxBytes;
+    final long blockReadBytes;
+    final long blockWriteBytes;
+
+    Sample(final long cpuNanos, final long memoryBytes, final long networkRxBytes,
+           final long networkTxBytes, final long blockReadBytes, final long blockWriteBytes) {
+      this.cpuNanos = cpuNanos;
+      this.memoryBytes = memoryBytes;
+      this.networkRxBytes = networkRxBytes;
+      this.networkTxBytes = networkTxBytes;
+      this.blockReadBytes = blockReadBytes;
+      this.blockWriteBytes = blockWriteBytes;
+    }
+  }
+
+  private final Path cgroupRoot;
+  private final Path procRoot;
+
+  /** The cgroup of each container, relative to the root of a subsystem. */
+  private final Map<String, String> cgroups = Maps.newHashMap();
+
+  CgroupSampler(final Path cgroupRoot) {
+    this(cgroupRoot, cgroupRoot.getFileSystem().getPath("/proc"));
+  }
+
+  @VisibleForTesting
+  CgroupSampler(final Path cgroupRoot, final Path procRoot) {
+    this.cgroupRoot = requireNonNull(cgroupRoot, "cgroupRoot");
+    this.procRoot = requireNonNull(procRoot, "procRoot");
+  }
+
+  /**
+   * Samples the counters of a container.
+   *
+   * @return The sample, or null if the container has no cgroup, because it isn't running.
+   */
+  @Nullable
+  Sample sample(final String containerId) {
+    final String cgroup = cgroup(containerId);
+    if (cgroup == null) {
+      return null;
+    }
+    try {
+      final Path cpuacct = cgroupRoot.resolve("cpuacct").resolve(cgroup);
+      final long cpu = readLong(cpuacct.resolve("cpuacct.usage"));
+      final long memory = readLong(
+          cgroupRoot.resolve("memory").resolve(cgroup).resolve("memory.usage_in_bytes"));
+      final long[] blkio = blkio(
+          cgroupRoot.resolve("blkio").resolve(cgroup).resolve("blkio.throttle.io_service_bytes"));
+      final long[] network = network(cpuacct.resolve("cgroup.procs"));
+      return new Sample(cpu, memory, network[0], network[1], blkio[0], blkio[1]);
+    } catch (NoSuchFileException e) {
+      // The container went away between samples
+      cgroups.remove(containerId);
+      return null;
+    } catch (IOException | NumberFormatException e) {
+      log.debug("failed to sample cgroup of container {}", containerId, e);
+      return null;
+    }
+  }
+
+  /**
+   * Forgets the cgroup of a container that is gone.
+   */
+  void forget(final String containerId) {
+    cgroups.remove(containerId);
+  }
+
+  private String cgroup(final String containerId) {
+    final String cached = cgroups.get(containerId);
+    if (cached != null) {
+      return cached;
+    }
+    for (final String layout : LAYOUTS) {
+      final String cgroup = String.format(layout, containerId);
+      if (Files.isDirectory(cgroupRoot.resolve("cpuacct").resolve(cgroup))) {
+        cgroups.put(containerId, cgroup);
+        return cgroup;
+      }
+    }
+    return null;
+  }
+
+  private static long readLong(final Path path) throws IOException {
+    return Long.parseLong(new String(Files.readAllBytes(path), US_ASCII).trim());
+  }
+
+  /**
+   * Sums the bytes read and written over all devices, from lines like {@code 8:0 Read 4096}.
+   */
+  private static long[] blkio(final Path path) throws IOException {
+    final long[] bytes = new long[2];
+    for (final String line : Files.readAllLines(path, US_ASCII)) {
+      final List<String> fields = WHITESPACE.splitToList(line);
+      if (fields.size() != 3) {
+        continue;
+      }
+      if (fields.get(1).equals("Read")) {
+        bytes[0] += Long.parseLong(fields.get(2));
+      } else if (fields.get(1).equals("Write")) {
+        bytes[1] += Long.parseLong(fields.get(2));
+      }
+    }
+    return bytes;
+  }
+
+  /**
+   * Sums the bytes received and sent over all interfaces but loopback, as seen by the first
+   * process of the container.
+   */
+  private long[] network(final Path procs) throws IOException {
+    final long[] bytes = new long[2];
+    final List<String> pids = Files.readAllLines(procs, US_ASCII);
+    if (pids.isEmpty()) {
+      return bytes;
+    }
+    final Path netDev = procRoot.resolve(pids.get(0).trim()).resolve("net").resolve("dev");
+    for (final String line : Files.readAllLines(netDev, US_ASCII)) {
+      final int colon = line.indexOf(':');
+      if (colon < 0 || line.substring(0, colon).trim().equals("lo")) {
+        continue;
+      }
+      final List<String> fields = WHITESPACE.splitToList(line.substring(colon + 1));
+      if (fields.size() < 9) {
+        continue;
+      }
+      // Receive bytes is the first field, transmit bytes the ninth
+      bytes[0] += Long.parseLong(fields.get(0));
+      bytes[1] += Long.parseLong(fields.get(8));
+    }
+    return bytes;
+  }
+}
@@ -18,8 +18,10 @@
 package com.spotify.helios.agent;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
 
 import com.spotify.helios.servicescommon.RiemannFacade;
+import com.spotify.helios.servicescommon.statistics.LatencyPercentiles;
 import com.spotify.helios.servicescommon.statistics.MeterRates;
 import com.spotify.helios.servicescommon.statistics.SupervisorMetrics;
 import com.codahale.metrics.health.HealthCheck;
@@ -29,6 +31,7 @@ import io.dropwizard.lifecycle.Managed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -37,6 +40,10 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Health checker exposed by /healthcheck on the admin port (5804 by default).
+ *
+ * Docker is unhealthy if too many supervisor runs time out or throw, or if the 99th percentile
+ * latency of the Docker API calls that should be quick is too high. The latter tells a slow
+ * dockerd apart from slowness in Helios itself.
  */
 public class DockerHealthChecker extends HealthCheck implements Managed {
   private static final Logger log = LoggerFactory.getLogger(DockerHealthChecker.class);
@@ -45,6 +52,19 @@ public class DockerHealthChecker extends HealthCheck implements Managed {
   static final double FAILURE_LOW_WATERMARK = 0.4;
   @VisibleForTesting
   static final double FAILURE_HIGH_WATERMARK = 0.8;
+  @VisibleForTesting
+  static final double LATENCY_LOW_WATERMARK_MILLIS = 5000;
+  @VisibleForTesting
+  static final double LATENCY_HIGH_WATERMARK_MILLIS = 15000;
+  // With fewer samples, the 99th percentile is just the slowest call, and a single slow call would
+  // make docker unhealthy
+  @VisibleForTesting
+  static final int LATENCY_MIN_SAMPLES = 20;
+  // Calls that dockerd should answer quickly. Pulls, waits, stops and the like legitimately take
+  // long and are left out.
+  @VisibleForTesting
+  static final List<String> LATENCY_METHODS = ImmutableList.of(
+      "createContainer", "startContainer", "inspectContainer", "inspectImage", "listContainers");
 
   private final SupervisorMetrics metrics;
   private final ScheduledExecutorService scheduler;
@@ -79,6 +99,20 @@ public class DockerHealthChecker extends HealthCheck implements Managed {
         log.info("timeout ratio is {}, exception ratio is {}", timeoutRatio, exceptionRatio);
       }
 
+      String slowestMethod = null;
+      double slowestLatency = 0;
+      for (final String method : LATENCY_METHODS) {
+        final LatencyPercentiles latency = metrics.getDockerLatency(method);
+        if (latency != null && latency.getSamples() >= LATENCY_MIN_SAMPLES &&
+            latency.get99thPercentile() > slowestLatency) {
+          slowestMethod = method;
+          slowestLatency = latency.get99thPercentile();
+        }
+      }
+      if (slowestLatency > LATENCY_LOW_WATERMARK_MILLIS) {
+        log.info("99th percentile latency of docker {} is {} ms", slowestMethod, slowestLatency);
+      }
+
       final String origReason = reason;
 
       // Yay hysteresis!
@@ -88,8 +122,12 @@ public class DockerHealthChecker extends HealthCheck implements Managed {
       if (exceptionRatio > FAILURE_HIGH_WATERMARK) {
         reason = "supervisor run exception frequency is too high";
       }
+      if (slowestLatency > LATENCY_HIGH_WATERMARK_MILLIS) {
+        reason = "docker " + slowestMethod + " latency is too high";
+      }
 
-      if (timeoutRatio < FAILURE_LOW_WATERMARK && exceptionRatio < FAILURE_LOW_WATERMARK) {
+      if (timeoutRatio < FAILURE_LOW_WATERMARK && exceptionRatio < FAILURE_LOW_WATERMARK &&
+          slowestLatency < LATENCY_LOW_WATERMARK_MILLIS) {
         reason = null;
       }
 
@@ -22,6 +22,8 @@ import com.google.common.io.CharStreams;
 import com.spotify.docker.client.DockerClient;
 import com.spotify.docker.client.DockerException;
 import com.spotify.docker.client.DockerHost;
+import com.spotify.helios.common.Clock;
+import com.spotify.helios.common.SystemClock;
 import com.spotify.helios.common.descriptors.DockerVersion;
 import com.spotify.helios.common.descriptors.HostInfo;
 import com.spotify.helios.servicescommon.coordination.NodeUpdaterFactory;
@@ -42,9 +44,15 @@ import static java.util.Objects.requireNonNull;
 
 /**
  * Reports various bits of system information to ZK so it can be viewed via the the API.
+ *
+ * The node is only written when something other than the load average or free memory and swap
+ * changes, or when it's older than {@link #MAX_AGE_MINUTES}. Those are written along with the time
+ * they were read at, so clients can tell how old they are. The uname is read once and the Docker
+ * version is refreshed when the node expires or Docker couldn't be reached.
  */
 public class HostInfoReporter extends SignalAwaitingService {
 
+  private static final long MAX_AGE_MINUTES = 10;
 
   private final OperatingSystemMXBean operatingSystemMXBean;
   private final ZooKeeperNodeUpdater nodeUpdater;
@@ -52,10 +60,24 @@ public class HostInfoReporter extends SignalAwaitingService {
   private final TimeUnit timeUnit;
   private final DockerClient dockerClient;
   private final DockerHost dockerHost;
+  private final Clock clock;
+  private final ReportThrottle<HostInfo> throttle;
+
+  private String hostname;
+  private String uname;
+  private DockerVersion dockerVersion;
 
   HostInfoReporter(OperatingSystemMXBean operatingSystemMXBean,
                    NodeUpdaterFactory nodeUpdaterFactory, String host, DockerClient dockerClient,
                    DockerHost dockerHost, int interval, TimeUnit timeUnit, CountDownLatch latch) {
+    this(operatingSystemMXBean, nodeUpdaterFactory, host, dockerClient, dockerHost, interval,
+         timeUnit, latch, new SystemClock());
+  }
+
+  HostInfoReporter(OperatingSystemMXBean operatingSystemMXBean,
+                   NodeUpdaterFactory nodeUpdaterFactory, String host, DockerClient dockerClient,
+                   DockerHost dockerHost, int interval, TimeUnit timeUnit, CountDownLatch latch,
+                   Clock clock) {
 
     super(latch);
     this.operatingSystemMXBean = requireNonNull(operatingSystemMXBean, "operatingSystemMXBean");
@@ -65,31 +87,56 @@ public class HostInfoReporter extends SignalAwaitingService {
     this.dockerHost = requireNonNull(dockerHost, "dockerHost");
     this.interval = interval;
     this.timeUnit = requireNonNull(timeUnit, "timeUnit");
+    this.clock = requireNonNull(clock, "clock");
+    this.throttle = new ReportThrottle<>(clock, MAX_AGE_MINUTES, TimeUnit.MINUTES);
   }
 
   @Override
   protected void runOneIteration() throws InterruptedException {
-    final String hostname = exec("uname -n").trim();
-    final String uname = exec("uname -a").trim();
+    if (uname == null) {
+      hostname = exec("uname -n").trim();
+      uname = exec("uname -a").trim();
+    }
+    if (dockerVersion == null || throttle.isExpired()) {
+      dockerVersion = dockerVersion();
+    }
+
+    final HostInfo significant = builder().build();
+    if (!throttle.shouldWrite(significant)) {
+      if (nodeUpdater.exists()) {
+        return;
+      }
+      // The node was removed, e.g. as the host was deregistered or ZooKeeper was reset
+      throttle.reset();
+    }
+
+    final HostInfo hostInfo = builder()
+        .setLoadAvg(operatingSystemMXBean.getSystemLoadAverage())
+        .setMemoryFreeBytes(operatingSystemMXBean.getFreePhysicalMemorySize())
+        .setSwapFreeBytes(operatingSystemMXBean.getFreeSwapSpaceSize())
+        .setStatsTimestamp(clock.now().getMillis())
+        .build();
+
+    if (nodeUpdater.update(hostInfo.toJsonBytes())) {
+      throttle.written(significant);
+    } else {
+      throttle.reset();
+    }
+  }
 
-    final HostInfo hostInfo = HostInfo.newBuilder()
+  private HostInfo.Builder builder() {
+    return HostInfo.newBuilder()
         .setArchitecture(operatingSystemMXBean.getArch())
         .setCpus(Runtime.getRuntime().availableProcessors())
         .setHostname(hostname)
-        .setLoadAvg(operatingSystemMXBean.getSystemLoadAverage())
         .setOsName(operatingSystemMXBean.getName())
         .setOsVersion(operatingSystemMXBean.getVersion())
-        .setMemoryFreeBytes(operatingSystemMXBean.getFreePhysicalMemorySize())
         .setMemoryTotalBytes(operatingSystemMXBean.getTotalPhysicalMemorySize())
-        .setSwapFreeBytes(operatingSystemMXBean.getFreeSwapSpaceSize())
         .setSwapTotalBytes(operatingSystemMXBean.getTotalSwapSpaceSize())
         .setUname(uname)
-        .setDockerVersion(dockerVersion())
+        .setDockerVersion(dockerVersion)
         .setDockerHost(dockerHost())
-        .setDockerCertPath(dockerHost.dockerCertPath())
-        .build();
-
-    nodeUpdater.update(hostInfo.toJsonBytes());
+        .setDockerCertPath(dockerHost.dockerCertPath());
   }
 
   private DockerVersion dockerVersion() throws InterruptedException {
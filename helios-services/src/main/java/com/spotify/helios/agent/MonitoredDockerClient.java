@@ -21,6 +21,8 @@ import com.spotify.docker.client.DockerClient;
 import com.spotify.docker.client.DockerException;
 import com.spotify.docker.client.DockerTimeoutException;
 import com.spotify.helios.servicescommon.RiemannFacade;
+import com.spotify.helios.servicescommon.statistics.NoopSupervisorMetrics;
+import com.spotify.helios.servicescommon.statistics.SupervisorMetrics;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
@@ -31,6 +33,9 @@ import java.lang.reflect.Proxy;
  * A docker client proxy used to monitor docker operations.  It's abstract and doesn't implement
  * {@link DockerClient}, but don't let it fool you.  You call {@link #wrap} with the
  * {@link RiemannFacade} and the real {@link DockerClient} and you then use that.
+ *
+ * Errors are sent to Riemann, and the latency and number of calls in flight of every method are
+ * recorded in the {@link SupervisorMetrics}.
  */
 public abstract class MonitoredDockerClient {
 
@@ -38,26 +43,48 @@ public abstract class MonitoredDockerClient {
   }
 
   public static DockerClient wrap(RiemannFacade riemann, final DockerClient client) {
+    return wrap(riemann, new NoopSupervisorMetrics(), client);
+  }
+
+  public static DockerClient wrap(final RiemannFacade riemann, final SupervisorMetrics metrics,
+                                  final DockerClient client) {
     return (DockerClient) Proxy.newProxyInstance(
         MonitoredDockerClient.class.getClassLoader(),
         new Class[]{DockerClient.class},
-        new MonitoringInvocationHandler(riemann, client));
+        new MonitoringInvocationHandler(riemann, metrics, client));
   }
 
   private static class MonitoringInvocationHandler implements InvocationHandler {
 
     private final RiemannFacade riemann;
+    private final SupervisorMetrics metrics;
     private final DockerClient client;
 
-    public MonitoringInvocationHandler(final RiemannFacade riemann, final DockerClient client) {
+    public MonitoringInvocationHandler(final RiemannFacade riemann,
+                                       final SupervisorMetrics metrics,
+                                       final DockerClient client) {
       this.riemann = riemann;
-
+      this.metrics = metrics;
       this.client = client;
     }
 
     @Override
     public Object invoke(final Object proxy, final Method method, final Object[] args)
         throws Throwable {
+      if (method.getDeclaringClass() == Object.class) {
+        return invoke(method, args);
+      }
+      final String name = method.getName();
+      metrics.dockerCallStarted(name);
+      final long start = System.nanoTime();
+      try {
+        return invoke(method, args);
+      } finally {
+        metrics.dockerCallFinished(name, System.nanoTime() - start);
+      }
+    }
+
+    private Object invoke(final Method method, final Object[] args) throws Throwable {
       try {
         return method.invoke(client, args);
       } catch (InvocationTargetException e) {
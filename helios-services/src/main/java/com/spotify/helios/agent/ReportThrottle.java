@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.agent;
+
+import com.spotify.helios.common.Clock;
+
+import org.joda.time.Instant;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Decides when a reporter has to write its node: when the significant part of what it reports
+ * has changed, or when the last write is older than a max age. Volatile values, like the load
+ * average, are left out of the significant part and only refreshed by the max age writes.
+ * A node that is removed while the throttle is armed, e.g. because the host was deregistered or
+ * ZooKeeper was reset, has to be caught by the reporter, see {@link #reset()}.
+ *
+ * @param <T> The significant part of the report.
+ */
+class ReportThrottle<T> {
+
+  private final Clock clock;
+  private final long maxAgeMillis;
+
+  private T written;
+  private Instant writtenAt;
+
+  ReportThrottle(final Clock clock, final long maxAge, final TimeUnit timeUnit) {
+    this.clock = requireNonNull(clock, "clock");
+    this.maxAgeMillis = timeUnit.toMillis(maxAge);
+  }
+
+  /**
+   * Returns true if nothing has been written yet, or the last write is older than the max age.
+   */
+  boolean isExpired() {
+    return writtenAt == null || !clock.now().isBefore(writtenAt.plus(maxAgeMillis));
+  }
+
+  /**
+   * Returns true if {@code significant} differs from what was last written, or the last write has
+   * expired.
+   */
+  boolean shouldWrite(final T significant) {
+    return isExpired() || !Objects.equals(written, significant);
+  }
+
+  /**
+   * Records a successful write.
+   */
+  void written(final T significant) {
+    this.written = significant;
+    this.writtenAt = clock.now();
+  }
+
+  /**
+   * Forgets the last write, so that the next report is written whether it changed or not. Used
+   * when the node has been found missing, or a write failed.
+   */
+  void reset() {
+    this.written = null;
+    this.writtenAt = null;
+  }
+}
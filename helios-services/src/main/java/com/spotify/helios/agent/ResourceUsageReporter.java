@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.agent;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Maps;
+
+import com.spotify.helios.common.Json;
+import com.spotify.helios.common.descriptors.JobId;
+import com.spotify.helios.common.descriptors.ResourceUsage;
+import com.spotify.helios.common.descriptors.TaskStatus;
+import com.spotify.helios.servicescommon.coordination.NodeUpdaterFactory;
+import com.spotify.helios.servicescommon.coordination.Paths;
+import com.spotify.helios.servicescommon.coordination.ZooKeeperNodeUpdater;
+import com.spotify.helios.servicescommon.statistics.SupervisorMetrics;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.spotify.helios.common.descriptors.TaskStatus.State.RUNNING;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Samples the resource usage of the containers of the jobs running on this agent with a
+ * {@link CgroupSampler}, keeps the samples of the last {@link #WINDOW_SECONDS} in a
+ * {@link ResourceUsageWindow} per job, and once per window publishes the usage over it to ZK, so
+ * it shows up in the host status, and to the {@link SupervisorMetrics}.
+ *
+ * A pass reads a handful of small cgroupfs files per container and is timed in the supervisor
+ * metrics, so the cost of sampling can be watched as well.
+ */
+public class ResourceUsageReporter extends SignalAwaitingService {
+
+  static final int WINDOW_SECONDS = 60;
+
+  private static class Tracked {
+
+    private final String containerId;
+    private final ResourceUsageWindow window;
+
+    Tracked(final String containerId, final ResourceUsageWindow window) {
+      this.containerId = containerId;
+      this.window = window;
+    }
+  }
+
+  private final AgentModel model;
+  private final CgroupSampler sampler;
+  private final ZooKeeperNodeUpdater nodeUpdater;
+  private final SupervisorMetrics metrics;
+  private final int interval;
+  private final TimeUnit timeUnit;
+  private final int samplesPerWindow;
+  private final Map<JobId, Tracked> tracked = Maps.newHashMap();
+
+  private int samples;
+
+  ResourceUsageReporter(final AgentModel model, final CgroupSampler sampler,
+                        final NodeUpdaterFactory nodeUpdaterFactory, final String host,
+                        final SupervisorMetrics metrics, final int interval,
+                        final TimeUnit timeUnit, final CountDownLatch latch) {
+    super(latch);
+    this.model = requireNonNull(model, "model");
+    this.sampler = requireNonNull(sampler, "sampler");
+    this.nodeUpdater = nodeUpdaterFactory.create(
+        Paths.statusHostResourceUsage(requireNonNull(host, "host")));
+    this.metrics = requireNonNull(metrics, "metrics");
+    this.interval = interval;
+    this.timeUnit = requireNonNull(timeUnit, "timeUnit");
+    // A window spans WINDOW_SECONDS, so it holds one more sample than there are intervals in it
+    this.samplesPerWindow = (int) Math.max(
+        2, TimeUnit.SECONDS.toNanos(WINDOW_SECONDS) / timeUnit.toNanos(interval) + 1);
+  }
+
+  @Override
+  protected void runOneIteration() throws InterruptedException {
+    sample();
+    if (++samples % (samplesPerWindow - 1) == 0) {
+      report();
+    }
+  }
+
+  @VisibleForTesting
+  void sample() {
+    final long start = System.nanoTime();
+    final Map<JobId, TaskStatus> statuses = model.getTaskStatuses();
+
+    for (final Iterator<Map.Entry<JobId, Tracked>> it = tracked.entrySet().iterator();
+         it.hasNext(); ) {
+      final Map.Entry<JobId, Tracked> entry = it.next();
+      final TaskStatus status = statuses.get(entry.getKey());
+      if (status == null || status.getState() != RUNNING
+          || !entry.getValue().containerId.equals(status.getContainerId())) {
+        sampler.forget(entry.getValue().containerId);
+        it.remove();
+      }
+    }
+
+    for (final Map.Entry<JobId, TaskStatus> entry : statuses.entrySet()) {
+      final TaskStatus status = entry.getValue();
+      if (status.getState() != RUNNING || status.getContainerId() == null) {
+        continue;
+      }
+      final CgroupSampler.Sample sample = sampler.sample(status.getContainerId());
+      if (sample == null) {
+        continue;
+      }
+      Tracked job = tracked.get(entry.getKey());
+      if (job == null) {
+        job = new Tracked(status.getContainerId(), new ResourceUsageWindow(samplesPerWindow));
+        tracked.put(entry.getKey(), job);
+      }
+      job.window.add(System.nanoTime(), sample);
+    }
+
+    metrics.resourceUsageSampled(System.nanoTime() - start);
+  }
+
+  @VisibleForTesting
+  Map<JobId, ResourceUsage> usage() {
+    final Map<JobId, ResourceUsage> usage = Maps.newHashMap();
+    for (final Map.Entry<JobId, Tracked> entry : tracked.entrySet()) {
+      final ResourceUsage jobUsage = entry.getValue().window.usage();
+      if (jobUsage != null) {
+        usage.put(entry.getKey(), jobUsage);
+      }
+    }
+    return usage;
+  }
+
+  private void report() {
+    final Map<JobId, ResourceUsage> usage = usage();
+    metrics.resourceUsage(usage);
+    nodeUpdater.update(Json.asBytesUnchecked(usage));
+  }
+
+  @Override
+  protected ScheduledFuture<?> schedule(final Runnable runnable,
+                                        final ScheduledExecutorService executorService) {
+    return executorService.scheduleWithFixedDelay(runnable, 0, interval, timeUnit);
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.agent;
+
+import com.spotify.helios.common.descriptors.ResourceUsage;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * The last few {@link CgroupSampler.Sample}s of a container, kept in a ring of primitive arrays so
+ * a window costs the same few hundred bytes however long the container runs.
+ */
+class ResourceUsageWindow {
+
+  private final long[] nanos;
+  private final long[] cpu;
+  private final long[] memory;
+  private final long[] rx;
+  private final long[] tx;
+  private final long[] read;
+  private final long[] write;
+
+  private int next;
+  private int size;
+
+  ResourceUsageWindow(final int capacity) {
+    checkArgument(capacity >= 2, "a window needs at least two samples");
+    nanos = new long[capacity];
+    cpu = new long[capacity];
+    memory = new long[capacity];
+    rx = new long[capacity];
+    tx = new long[capacity];
+    read = new long[capacity];
+    write = new long[capacity];
+  }
+
+  void add(final long nanoTime, final CgroupSampler.Sample sample) {
+    nanos[next] = nanoTime;
+    cpu[next] = sample.cpuNanos;
+    memory[next] = sample.memoryBytes;
+    rx[next] = sample.networkRxBytes;
+    tx[next] = sample.networkTxBytes;
+    read[next] = sample.blockReadBytes;
+    write[next] = sample.blockWriteBytes;
+    next = (next + 1) % nanos.length;
+    size = Math.min(size + 1, nanos.length);
+  }
+
+  /**
+   * Returns the usage between the oldest and the newest sample, or null if there are fewer than
+   * two samples.
+   */
+  @Nullable
+  ResourceUsage usage() {
+    if (size < 2) {
+      return null;
+    }
+    final int newest = (next + nanos.length - 1) % nanos.length;
+    final int oldest = (next + nanos.length - size) % nanos.length;
+    final long elapsed = nanos[newest] - nanos[oldest];
+    if (elapsed <= 0) {
+      return null;
+    }
+    long memoryMax = 0;
+    for (int i = 0; i < size; i++) {
+      memoryMax = Math.max(memoryMax, memory[(oldest + i) % nanos.length]);
+    }
+    final double seconds = elapsed / (double) TimeUnit.SECONDS.toNanos(1);
+    return new ResourceUsage(
+        (int) Math.round(seconds),
+        delta(cpu, oldest, newest) / (double) elapsed,
+        memory[newest],
+        memoryMax,
+        delta(rx, oldest, newest) / seconds,
+        delta(tx, oldest, newest) / seconds,
+        delta(read, oldest, newest) / seconds,
+        delta(write, oldest, newest) / seconds);
+  }
+
+  private static long delta(final long[] counter, final int oldest, final int newest) {
+    // Counters only go backwards if they are reset, so count that as no usage
+    return Math.max(0, counter[newest] - counter[oldest]);
+  }
+}
@@ -18,12 +18,12 @@
 package com.spotify.helios.agent;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.base.Function;
 import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.AbstractIdleService;
 import com.google.common.util.concurrent.MoreExecutors;
 
@@ -31,31 +31,39 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.spotify.helios.common.descriptors.JobId;
 import com.spotify.helios.common.descriptors.TaskStatus;
 import com.spotify.helios.common.descriptors.TaskStatusEvent;
+import com.spotify.helios.servicescommon.CompactTaskStatus;
+import com.spotify.helios.servicescommon.PayloadFormat;
 import com.spotify.helios.servicescommon.PersistentAtomicReference;
 import com.spotify.helios.servicescommon.coordination.Paths;
 import com.spotify.helios.servicescommon.coordination.ZooKeeperClient;
+import com.spotify.helios.servicescommon.coordination.ZooKeeperOperation;
+import com.spotify.helios.servicescommon.coordination.ZooKeeperOperations;
 
 import org.apache.zookeeper.KeeperException;
 import org.apache.zookeeper.KeeperException.ConnectionLossException;
-import org.apache.zookeeper.KeeperException.NodeExistsException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.nio.channels.ClosedByInterruptException;
 import java.nio.file.Path;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
-import static com.google.common.base.Preconditions.checkState;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
@@ -70,7 +78,11 @@ import static java.util.concurrent.TimeUnit.SECONDS;
  *    should not block on ZK being in any particular state, and ideally not while a file write is
  *    occurring, as the file may get large if ZK has been away for a long time.
  * 2. We limit each job to max 30 events in memory (and in ZK for that matter)
- * 3. Maximum of 600 total events, so as not to consume all available memory.
+ * 3. Maximum of 600 total events, so as not to consume all available memory. When full, the job
+ *    with the most events queued loses its eldest event.
+ * 4. Every second, all queued events are written in multi-op transactions of up to 64 operations
+ *    each, which also trim each job's events in ZK. The events of each job in ZK are listed once,
+ *    and tracked locally from then on, so a backlog drains in a handful of round trips.
  */
 public class TaskHistoryWriter extends AbstractIdleService implements Runnable {
   private static final Logger log = LoggerFactory.getLogger(TaskHistoryWriter.class);
@@ -80,21 +92,58 @@ public class TaskHistoryWriter extends AbstractIdleService implements Runnable {
 
   private static final int MAX_QUEUE_SIZE = 30;
   private static final int MAX_TOTAL_SIZE = 600;
+  private static final int MAX_TRANSACTION_OPERATIONS = 64;
+  private static final int MAX_TRACKED_JOBS = 1000;
 
   private final ConcurrentMap<JobId, Deque<TaskStatusEvent>> items;
-  private final ScheduledExecutorService zkWriterExecutor =
-      MoreExecutors.getExitingScheduledExecutorService(
-          (ScheduledThreadPoolExecutor) Executors.newScheduledThreadPool(1), 0, SECONDS);
+  private final ScheduledExecutorService zkWriterExecutor;
+  private final boolean sharedExecutor;
   private final String hostname;
   private final AtomicInteger count;
   private final ZooKeeperClient client;
+  private final boolean compact;
+  private final PayloadFormat format;
   private final PersistentAtomicReference<ConcurrentMap<JobId, Deque<TaskStatusEvent>>>
       backingStore;
 
+  private ScheduledFuture<?> scheduledWrites;
+
+  // The timestamps of the events of each job in ZK, only touched by the writer thread
+  private final Map<JobId, NavigableSet<Long>> written = new WrittenTimestamps();
+
   public TaskHistoryWriter(final String hostname, final ZooKeeperClient client,
                                final Path backingFile) throws IOException, InterruptedException {
+    this(hostname, client, backingFile, false, PayloadFormat.JSON);
+  }
+
+  /**
+   * @param compact Write events to ZooKeeper in the {@link CompactTaskStatus} form.
+   * @param format The format events are written to ZooKeeper in.
+   */
+  public TaskHistoryWriter(final String hostname, final ZooKeeperClient client,
+                           final Path backingFile, final boolean compact,
+                           final PayloadFormat format)
+      throws IOException, InterruptedException {
+    this(hostname, client, backingFile, compact, format, null);
+  }
+
+  /**
+   * @param executor Writes events to ZooKeeper instead of a thread of this writer's own. It is
+   *                 not shut down with the writer. May be null.
+   */
+  public TaskHistoryWriter(final String hostname, final ZooKeeperClient client,
+                           final Path backingFile, final boolean compact,
+                           final PayloadFormat format, final ScheduledExecutorService executor)
+      throws IOException, InterruptedException {
+    this.sharedExecutor = executor != null;
+    this.zkWriterExecutor = sharedExecutor
+        ? executor
+        : MoreExecutors.getExitingScheduledExecutorService(
+            (ScheduledThreadPoolExecutor) Executors.newScheduledThreadPool(1), 0, SECONDS);
     this.hostname = hostname;
     this.client = client;
+    this.compact = compact;
+    this.format = format;
     this.backingStore = PersistentAtomicReference.create(backingFile,
         new TypeReference<ConcurrentMap<JobId, Deque<TaskStatusEvent>>>() {
         },
@@ -124,32 +173,44 @@ public class TaskHistoryWriter extends AbstractIdleService implements Runnable {
 
   @Override
   protected void startUp() throws Exception {
-    zkWriterExecutor.scheduleAtFixedRate(this, 1, 1, TimeUnit.SECONDS);
+    scheduledWrites = zkWriterExecutor.scheduleAtFixedRate(this, 1, 1, TimeUnit.SECONDS);
   }
 
   @Override
   protected void shutDown() throws Exception {
-    zkWriterExecutor.shutdownNow();
-    zkWriterExecutor.awaitTermination(1, TimeUnit.MINUTES);
+    if (sharedExecutor) {
+      scheduledWrites.cancel(true);
+    } else {
+      zkWriterExecutor.shutdownNow();
+      zkWriterExecutor.awaitTermination(1, TimeUnit.MINUTES);
+    }
   }
 
   private void add(TaskStatusEvent item) throws InterruptedException {
     // If too many "globally", toss them
     while (count.get() >= MAX_TOTAL_SIZE) {
-      getNext();
+      if (!evict()) {
+        break;
+      }
     }
 
     final JobId key = item.getStatus().getJob().getId();
-    final Deque<TaskStatusEvent> deque = getDeque(key);
-
-    synchronized (deque) {
-      // if too many in the particular deque, toss them
-      while (deque.size() >= MAX_QUEUE_SIZE) {
-        deque.remove();
-        count.decrementAndGet();
+    while (true) {
+      final Deque<TaskStatusEvent> deque = getDeque(key);
+      synchronized (deque) {
+        if (items.get(key) != deque) {
+          // The writer removed the deque after emptying it, get a new one
+          continue;
+        }
+        // if too many in the particular deque, toss them
+        while (deque.size() >= MAX_QUEUE_SIZE) {
+          deque.remove();
+          count.decrementAndGet();
+        }
+        deque.add(item);
+        count.incrementAndGet();
+        break;
       }
-      deque.add(item);
-      count.incrementAndGet();
     }
 
     try {
@@ -161,6 +222,34 @@ public class TaskHistoryWriter extends AbstractIdleService implements Runnable {
     }
   }
 
+  /**
+   * Makes room for a new event by tossing the eldest event of the job with the most events
+   * waiting to be written. A job flapping during a ZK outage thereby loses its own history first,
+   * rather than pushing out the few transitions of every other job.
+   *
+   * @return false if there was nothing to toss.
+   */
+  private boolean evict() {
+    Deque<TaskStatusEvent> fullest = null;
+    int fullestSize = 0;
+    for (final Deque<TaskStatusEvent> deque : items.values()) {
+      final int size = deque.size();
+      if (size > fullestSize) {
+        fullest = deque;
+        fullestSize = size;
+      }
+    }
+    if (fullest == null) {
+      return false;
+    }
+    synchronized (fullest) {
+      if (fullest.poll() != null) {
+        count.decrementAndGet();
+      }
+    }
+    return true;
+  }
+
   private Deque<TaskStatusEvent> getDeque(final JobId key) {
     synchronized (items) {
       final Deque<TaskStatusEvent> deque = items.get(key);
@@ -182,146 +271,187 @@ public class TaskHistoryWriter extends AbstractIdleService implements Runnable {
     add(new TaskStatusEvent(status, timestamp, hostname));
   }
 
-  private TaskStatusEvent getNext() {
-    // Some explanation: We first find the eldest event from amongst the queues (ok, they're
-    // deques, but we really use it as a put back queue), and only then to we try to get
-    // a lock on the relevant queue from whence we got the event.  Assuming that all worked
-    // *and* that the event we have wasn't rolled off due to max-size limitations, we then
-    // pull the item off the queue and return it.  We're basically doing optimistic concurrency,
-    // and skewing things so that adding to this should be cheap.
-
-    while (true) {
-      final TaskStatusEvent current = findEldestEvent();
+  public boolean isEmpty() {
+    return count.get() == 0;
+  }
 
-      // Didn't find anything that needed processing?
-      if (current == null) {
-        return null;
+  /**
+   * Removes events that have been written, or that no longer need to be, from their deque. Events
+   * stay queued while they're being written, so they survive a crash or a failed write.
+   */
+  private void done(final JobId jobId, final Collection<TaskStatusEvent> events) {
+    final Deque<TaskStatusEvent> deque = items.get(jobId);
+    if (deque == null) {
+      return;
+    }
+    synchronized (deque) {
+      for (final TaskStatusEvent event : events) {
+        if (deque.remove(event)) {
+          count.decrementAndGet();
+        }
+      }
+      // Safe because this is the *only* place we hold these two locks at the same time.
+      synchronized (items) {
+        if (deque.isEmpty()) {
+          items.remove(jobId, deque);
+        }
       }
+    }
+  }
 
-      final JobId id = current.getStatus().getJob().getId();
-      final Deque<TaskStatusEvent> deque = items.get(id);
-      if (deque == null) {
-        // shouldn't happen because we should be the only one pulling items off, but....
+  @Override
+  public void run() {
+    // Plan the writes of all queued events, job by job
+    final List<Write> writes = Lists.newArrayList();
+    for (final Map.Entry<JobId, Deque<TaskStatusEvent>> entry : items.entrySet()) {
+      final JobId jobId = entry.getKey();
+      final List<TaskStatusEvent> queued;
+      synchronized (entry.getValue()) {
+        queued = ImmutableList.copyOf(entry.getValue());
+      }
+      if (queued.isEmpty()) {
         continue;
       }
+      try {
+        plan(jobId, queued, writes);
+      } catch (KeeperException e) {
+        log.warn("Error reading task history of {} from zookeeper, will retry", jobId, e);
+        written.remove(jobId);
+        return;
+      }
+    }
 
-      synchronized (deque) {
-        if (!deque.peek().equals(current)) {
-          // item got rolled off, try again
-          continue;
+    // Write them in as few transactions as possible
+    for (final List<Write> batch : Lists.partition(writes, MAX_TRANSACTION_OPERATIONS)) {
+      final List<ZooKeeperOperation> operations = Lists.newArrayListWithCapacity(batch.size());
+      for (final Write write : batch) {
+        operations.add(write.operation);
+      }
+      try {
+        log.debug("writing {} task history operations to zookeeper", operations.size());
+        client.transaction(operations);
+      } catch (KeeperException e) {
+        if (e instanceof ConnectionLossException) {
+          log.warn("Connection lost while putting items into zookeeper, will retry");
+        } else {
+          // An event that is already there or an event trimmed by someone else. Either way, the
+          // jobs are re-read before the next attempt.
+          log.warn("Error putting items into zookeeper, will retry", e);
         }
+        for (final Write write : batch) {
+          written.remove(write.jobId);
+        }
+        return;
+      }
 
-        // Pull it off the queue and be paranoid.
-        final TaskStatusEvent newCurrent = deque.poll();
-        count.decrementAndGet();
-        checkState(current.equals(newCurrent), "current should equal newCurrent");
-        // Safe because this is the *only* place we hold these two locks at the same time.
-        synchronized (items) {
-          // Extra paranoia: curDeque should always == deque
-          final Deque<TaskStatusEvent> curDeque = items.get(id);
-          if (curDeque != null && curDeque.isEmpty()) {
-            items.remove(id);
+      for (final Write write : batch) {
+        final NavigableSet<Long> timestamps = written.get(write.jobId);
+        if (write.event == null) {
+          if (timestamps != null) {
+            timestamps.remove(write.timestamp);
+          }
+        } else {
+          if (timestamps != null) {
+            timestamps.add(write.timestamp);
           }
+          done(write.jobId, Collections.singleton(write.event));
         }
-        return current;
       }
     }
   }
 
-  public boolean isEmpty() {
-    return count.get() == 0;
-  }
-
-  private void putBack(TaskStatusEvent event) {
-    final JobId key = event.getStatus().getJob().getId();
-    final Deque<TaskStatusEvent> queue = getDeque(key);
-    synchronized (queue) {
-      if (queue.size() >= MAX_QUEUE_SIZE) {
-        // already full, just toss the event
-        return;
-      }
-      queue.push(event);
-      count.incrementAndGet();
+  /**
+   * Adds the operations that write the queued events of a job and trim the job's events in ZK to
+   * the {@link #MAX_NUMBER_STATUS_EVENTS_TO_RETAIN} most recent to {@code writes}. Events that are
+   * already in ZK, or that would be trimmed right away, are not written and done with at once.
+   */
+  private void plan(final JobId jobId, final List<TaskStatusEvent> queued,
+                    final List<Write> writes) throws KeeperException {
+    final NavigableSet<Long> timestamps = written(jobId);
+
+    final NavigableSet<Long> retained = Sets.newTreeSet(timestamps);
+    for (final TaskStatusEvent event : queued) {
+      retained.add(event.getTimestamp());
+    }
+    while (retained.size() > MAX_NUMBER_STATUS_EVENTS_TO_RETAIN) {
+      retained.pollFirst();
     }
-  }
 
-  private TaskStatusEvent findEldestEvent() {
-    // We don't lock anything because in the worst case, we just put things in out of order which
-    // while not perfect, won't cause any actual harm.  Out of order meaning between jobids, not
-    // within the same job id.  Whether this is the best strategy (as opposed to fullest deque)
-    // is arguable.
-    TaskStatusEvent current = null;
-    for (Deque<TaskStatusEvent> queue : items.values()) {
-      if (queue == null) {
-        continue;
+    final List<TaskStatusEvent> skipped = Lists.newArrayList();
+    final Set<Long> planned = Sets.newHashSet();
+    for (final TaskStatusEvent event : queued) {
+      final long timestamp = event.getTimestamp();
+      // Of several events with the same timestamp, only the first one is kept
+      if (timestamps.contains(timestamp) || !retained.contains(timestamp)
+          || !planned.add(timestamp)) {
+        skipped.add(event);
+      } else {
+        final String path = Paths.historyJobHostEventsTimestamp(jobId, hostname, timestamp);
+        writes.add(new Write(jobId, timestamp, event, ZooKeeperOperations.create(
+            path, CompactTaskStatus.encode(event.getStatus(), compact, format))));
       }
-      final TaskStatusEvent item = queue.peek();
-      if (current == null || (item.getTimestamp() < current.getTimestamp())) {
-        current = item;
+    }
+    for (final Long timestamp : timestamps) {
+      if (!retained.contains(timestamp)) {
+        final String path = Paths.historyJobHostEventsTimestamp(jobId, hostname, timestamp);
+        writes.add(new Write(jobId, timestamp, null, ZooKeeperOperations.delete(path)));
       }
     }
-    return current;
+    done(jobId, skipped);
   }
 
-  @Override
-  public void run() {
-    while (true) {
-      final TaskStatusEvent item = getNext();
-      if (item == null) {
-        return;
+  /**
+   * Returns the timestamps of the events of a job in ZK, reading them the first time the job is
+   * written to and tracking them locally from then on.
+   */
+  private NavigableSet<Long> written(final JobId jobId) throws KeeperException {
+    NavigableSet<Long> timestamps = written.get(jobId);
+    if (timestamps == null) {
+      final String path = Paths.historyJobHostEvents(jobId, hostname);
+      client.ensurePath(path);
+      timestamps = Sets.newTreeSet();
+      for (final String event : client.getChildren(path)) {
+        timestamps.add(Long.valueOf(event));
       }
+      written.put(jobId, timestamps);
+    }
+    return timestamps;
+  }
 
-      final JobId jobId = item.getStatus().getJob().getId();
-      final String historyPath = Paths.historyJobHostEventsTimestamp(
-          jobId, hostname, item.getTimestamp());
+  /**
+   * The timestamps written of the most recently written jobs, forgetting the least recently
+   * written ones beyond {@link #MAX_TRACKED_JOBS}.
+   */
+  private static class WrittenTimestamps extends LinkedHashMap<JobId, NavigableSet<Long>> {
 
-      try {
-        log.debug("writing queued item to zookeeper {} {}", item.getStatus().getJob().getId(),
-                  item.getTimestamp());
+    private static final long serialVersionUID = 1L;
 
-        client.ensurePath(historyPath, true);
-        client.createAndSetData(historyPath, item.getStatus().toJsonBytes());
+    WrittenTimestamps() {
+      super(16, 0.75f, true);
+    }
 
-        // See if too many
-        final List<String> events = client.getChildren(Paths.historyJobHostEvents(jobId, hostname));
-        if (events.size() > MAX_NUMBER_STATUS_EVENTS_TO_RETAIN) {
-          trimStatusEvents(events, jobId);
-        }
-      } catch (NodeExistsException e) {
-        // Ahh, the two generals problem...  We handle by doing nothing since the thing
-        // we wanted in, is in.
-        log.debug("item we wanted in is already there");
-      } catch (ConnectionLossException e) {
-        log.warn("Connection lost while putting item into zookeeper, will retry");
-        putBack(item);
-        break;
-      } catch (KeeperException e) {
-        log.error("Error putting item into zookeeper, will retry", e);
-        putBack(item);
-        break;
-      }
+    @Override
+    protected boolean removeEldestEntry(final Map.Entry<JobId, NavigableSet<Long>> eldest) {
+      return size() > MAX_TRACKED_JOBS;
     }
   }
 
-  private void trimStatusEvents(List<String> events, JobId jobId) {
-    // CleanupExecutor only has one thread so can assume no others are fiddling as we do this.
-    // All this to sort numerically instead of lexically....
-    final List<Long> eventsAsLongs = Lists.newArrayList(
-        Iterables.transform(events, new Function<String, Long>() {
-            @Override
-            public Long apply(String name) {
-              return Long.valueOf(name);
-            }
-    }));
-    Collections.sort(eventsAsLongs);
-
-    for (int i = 0; i < (eventsAsLongs.size() - MAX_NUMBER_STATUS_EVENTS_TO_RETAIN); i++) {
-      try {
-        client.delete(Paths.historyJobHostEventsTimestamp(jobId, hostname, eventsAsLongs.get(i)));
-      } catch (KeeperException e) {
-        log.warn("failure deleting overflow of status items - we're hoping a later"
-                 + " execution will fix", e);
-      }
+  private static class Write {
+
+    private final JobId jobId;
+    private final long timestamp;
+    private final TaskStatusEvent event;
+    private final ZooKeeperOperation operation;
+
+    /**
+     * @param event The event created by the operation, or null if it deletes an event.
+     */
+    Write(final JobId jobId, final long timestamp, final TaskStatusEvent event,
+          final ZooKeeperOperation operation) {
+      this.jobId = jobId;
+      this.timestamp = timestamp;
+      this.event = event;
+      this.operation = operation;
     }
   }
 }
@@ -22,18 +22,24 @@ import com.google.common.collect.Maps;
 import com.google.common.util.concurrent.AbstractIdleService;
 
 import com.spotify.helios.common.Json;
+import com.spotify.helios.common.descriptors.Job;
 import com.spotify.helios.common.descriptors.JobId;
 import com.spotify.helios.common.descriptors.Task;
 import com.spotify.helios.common.descriptors.TaskStatus;
 import com.spotify.helios.common.descriptors.TaskStatusEvent;
+import com.spotify.helios.servicescommon.CompactTaskStatus;
 import com.spotify.helios.servicescommon.KafkaClientProvider;
 import com.spotify.helios.servicescommon.KafkaRecord;
 import com.spotify.helios.servicescommon.KafkaSender;
+import com.spotify.helios.servicescommon.PayloadFormat;
+import com.spotify.helios.servicescommon.ReactorFactory;
 import com.spotify.helios.servicescommon.coordination.Paths;
 import com.spotify.helios.servicescommon.coordination.PersistentPathChildrenCache;
 import com.spotify.helios.servicescommon.coordination.ZooKeeperClient;
 import com.spotify.helios.servicescommon.coordination.ZooKeeperClientProvider;
 import com.spotify.helios.servicescommon.coordination.ZooKeeperUpdatingPersistentDirectory;
+import com.spotify.helios.servicescommon.statistics.NoopSupervisorMetrics;
+import com.spotify.helios.servicescommon.statistics.SupervisorMetrics;
 
 import org.apache.curator.framework.state.ConnectionState;
 import org.slf4j.Logger;
@@ -42,10 +48,12 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.spotify.helios.common.descriptors.Descriptor.parse;
 
 /**
  * The Helios Agent's view into ZooKeeper.
@@ -61,10 +69,20 @@ public class ZooKeeperAgentModel extends AbstractIdleService implements AgentMod
   private static final String TASK_HISTORY_FILENAME = "task-history.json";
   private static final String TASK_STATUS_FILENAME = "task-status.json";
 
+  /**
+   * How long task status updates are held back so that intermediate states, like PULLING_IMAGE
+   * followed closely by CREATING, are folded into a single write to ZooKeeper.
+   */
+  private static final long TASK_STATUS_COALESCE_MILLIS = 200;
+
   private final PersistentPathChildrenCache<Task> tasks;
   private final ZooKeeperUpdatingPersistentDirectory taskStatuses;
   private final TaskHistoryWriter historyWriter;
   private final KafkaSender kafkaSender;
+  private final boolean compactTaskStatus;
+  private final PayloadFormat payloadFormat;
+  private final CompactTaskStatus.JobResolver jobResolver;
+  private final ConcurrentMap<JobId, Job> jobs = Maps.newConcurrentMap();
 
   private final String agent;
   private final CopyOnWriteArrayList<AgentModel.Listener> listeners = new CopyOnWriteArrayList<>();
@@ -72,23 +90,78 @@ public class ZooKeeperAgentModel extends AbstractIdleService implements AgentMod
   public ZooKeeperAgentModel(final ZooKeeperClientProvider provider,
                              final KafkaClientProvider kafkaProvider, final String host,
                              final Path stateDirectory) throws IOException, InterruptedException {
+    this(provider, kafkaProvider, host, stateDirectory, false, PayloadFormat.JSON, null);
+  }
+
+  /**
+   * @param compactTaskStatus Write task statuses and history in the {@link CompactTaskStatus} form.
+   * @param payloadFormat The format task statuses and history are written to ZooKeeper in.
+   * @param jobResolver Looks up the jobs of compact task statuses read back from disk that are
+   *                    neither assigned to this agent nor have been written since it started.
+   *                    May be null.
+   */
+  public ZooKeeperAgentModel(final ZooKeeperClientProvider provider,
+                             final KafkaClientProvider kafkaProvider, final String host,
+                             final Path stateDirectory, final boolean compactTaskStatus,
+                             final PayloadFormat payloadFormat,
+                             final CompactTaskStatus.JobResolver jobResolver)
+      throws IOException, InterruptedException {
+    this(provider, kafkaProvider, host, stateDirectory, compactTaskStatus, payloadFormat,
+         jobResolver, new NoopSupervisorMetrics());
+  }
+
+  /**
+   * @param metrics Told how many task status updates each write to ZooKeeper folded.
+   */
+  public ZooKeeperAgentModel(final ZooKeeperClientProvider provider,
+                             final KafkaClientProvider kafkaProvider, final String host,
+                             final Path stateDirectory, final boolean compactTaskStatus,
+                             final PayloadFormat payloadFormat,
+                             final CompactTaskStatus.JobResolver jobResolver,
+                             final SupervisorMetrics metrics)
+      throws IOException, InterruptedException {
+    this(provider, kafkaProvider, host, stateDirectory, compactTaskStatus, payloadFormat,
+         jobResolver, metrics, null);
+  }
+
+  /**
+   * @param executor Keeps the tasks of this agent up to date and writes its task statuses and
+   *                 history to ZooKeeper, instead of threads of the model's own. Lets many models
+   *                 share a few threads. May be null.
+   */
+  public ZooKeeperAgentModel(final ZooKeeperClientProvider provider,
+                             final KafkaClientProvider kafkaProvider, final String host,
+                             final Path stateDirectory, final boolean compactTaskStatus,
+                             final PayloadFormat payloadFormat,
+                             final CompactTaskStatus.JobResolver jobResolver,
+                             final SupervisorMetrics metrics,
+                             final ScheduledExecutorService executor)
+      throws IOException, InterruptedException {
     // TODO(drewc): we're constructing too many heavyweight things in the ctor, these kinds of
     // things should be passed in/provider'd/etc.
     final ZooKeeperClient client = provider.get("ZooKeeperAgentModel_ctor");
     this.agent = checkNotNull(host);
     final Path taskConfigFile = stateDirectory.resolve(TASK_CONFIG_FILENAME);
+    final ReactorFactory reactorFactory = new ReactorFactory(executor);
 
     this.tasks = client.pathChildrenCache(Paths.configHostJobs(host), taskConfigFile,
-                                          Json.type(Task.class));
+                                          Json.type(Task.class), reactorFactory);
     tasks.addListener(new JobsListener());
     final Path taskStatusFile = stateDirectory.resolve(TASK_STATUS_FILENAME);
 
     this.taskStatuses = ZooKeeperUpdatingPersistentDirectory.create("agent-model-task-statuses",
                                                                     provider,
                                                                     taskStatusFile,
-                                                                    Paths.statusHostJobs(host));
+                                                                    Paths.statusHostJobs(host),
+                                                                    TASK_STATUS_COALESCE_MILLIS,
+                                                                    metrics::taskStatusesFlushed,
+                                                                    reactorFactory);
     this.historyWriter = new TaskHistoryWriter(
-        host, client, stateDirectory.resolve(TASK_HISTORY_FILENAME));
+        host, client, stateDirectory.resolve(TASK_HISTORY_FILENAME), compactTaskStatus,
+        payloadFormat, executor);
+    this.compactTaskStatus = compactTaskStatus;
+    this.payloadFormat = checkNotNull(payloadFormat);
+    this.jobResolver = jobResolver;
 
     this.kafkaSender = new KafkaSender(kafkaProvider.getDefaultProducer());
   }
@@ -109,7 +182,8 @@ public class ZooKeeperAgentModel extends AbstractIdleService implements AgentMod
 
   private JobId jobIdFromTaskPath(final String path) {
     final String prefix = Paths.configHostJobs(agent) + "/";
-    return JobId.fromString(path.replaceFirst(prefix, ""));
+    checkArgument(path.startsWith(prefix), "not a task path: %s", path);
+    return JobId.fromString(path.substring(prefix.length()));
   }
 
   /**
@@ -134,8 +208,10 @@ public class ZooKeeperAgentModel extends AbstractIdleService implements AgentMod
     for (Map.Entry<String, byte[]> entry : this.taskStatuses.entrySet()) {
       try {
         final JobId id = JobId.fromString(entry.getKey());
-        final TaskStatus status = Json.read(entry.getValue(), TaskStatus.class);
-        statuses.put(id, status);
+        final TaskStatus status = CompactTaskStatus.parse(entry.getValue(), resolver);
+        if (status != null) {
+          statuses.put(id, status);
+        }
       } catch (IOException e) {
         throw Throwables.propagate(e);
       }
@@ -150,7 +226,9 @@ public class ZooKeeperAgentModel extends AbstractIdleService implements AgentMod
   public void setTaskStatus(final JobId jobId, final TaskStatus status)
       throws InterruptedException {
     log.debug("setting task status: {}", status);
-    taskStatuses.put(jobId.toString(), status.toJsonBytes());
+    jobs.put(jobId, status.getJob());
+    taskStatuses.put(jobId.toString(),
+                     CompactTaskStatus.encode(status, compactTaskStatus, payloadFormat));
     try {
       historyWriter.saveHistoryItem(status);
     } catch (Exception e) {
@@ -173,7 +251,7 @@ public class ZooKeeperAgentModel extends AbstractIdleService implements AgentMod
       return null;
     }
     try {
-      return parse(data, TaskStatus.class);
+      return CompactTaskStatus.parse(data, resolver);
     } catch (IOException e) {
       throw Throwables.propagate(e);
     }
@@ -185,8 +263,28 @@ public class ZooKeeperAgentModel extends AbstractIdleService implements AgentMod
   @Override
   public void removeTaskStatus(final JobId jobId) throws InterruptedException {
     taskStatuses.remove(jobId.toString());
+    jobs.remove(jobId);
   }
 
+  /**
+   * Resolves the jobs of compact task statuses from those last written, the tasks assigned to this
+   * agent, and lastly the resolver passed in.
+   */
+  private final CompactTaskStatus.JobResolver resolver = new CompactTaskStatus.JobResolver() {
+    @Override
+    public Job resolve(final JobId jobId) {
+      final Job job = jobs.get(jobId);
+      if (job != null) {
+        return job;
+      }
+      final Task task = tasks.getNodes().get(Paths.configHostJob(agent, jobId));
+      if (task != null) {
+        return task.getJob();
+      }
+      return jobResolver == null ? null : jobResolver.resolve(jobId);
+    }
+  };
+
   /**
    * Add a listener that will be notified when tasks are changed.
    */
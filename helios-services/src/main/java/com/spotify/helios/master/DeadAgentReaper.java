@@ -17,17 +17,21 @@
 
 package com.spotify.helios.master;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+
 import com.spotify.helios.agent.InterruptingScheduledService;
 import com.spotify.helios.common.Clock;
 import com.spotify.helios.common.SystemClock;
-import com.spotify.helios.common.descriptors.AgentInfo;
+import com.spotify.helios.common.descriptors.HostLiveness;
 import com.spotify.helios.common.descriptors.HostStatus;
 
 import org.apache.commons.lang.time.DurationFormatUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -36,7 +40,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 
 /**
  * De-registers dead agents, where an agent that has been DOWN for more than X hours is considered
- * dead.
+ * dead. Which agents are DOWN, and since when, is read from a {@link HostLivenessTracker}.
  */
 public class DeadAgentReaper extends InterruptingScheduledService {
 
@@ -47,18 +51,22 @@ public class DeadAgentReaper extends InterruptingScheduledService {
   private static final Logger log = LoggerFactory.getLogger(DeadAgentReaper.class);
 
   private final MasterModel masterModel;
+  private final HostLivenessTracker hostLiveness;
   private final long timeoutMillis;
   private final Clock clock;
 
   public DeadAgentReaper(final MasterModel masterModel,
+                         final HostLivenessTracker hostLiveness,
                          final long timeoutHours) {
-    this(masterModel, timeoutHours, SYSTEM_CLOCK);
+    this(masterModel, hostLiveness, timeoutHours, SYSTEM_CLOCK);
   }
 
   DeadAgentReaper(final MasterModel masterModel,
+                  final HostLivenessTracker hostLiveness,
                   final long timeoutHours,
                   final Clock clock) {
     this.masterModel = masterModel;
+    this.hostLiveness = hostLiveness;
     checkArgument(timeoutHours > 0);
     this.timeoutMillis = TimeUnit.HOURS.toMillis(timeoutHours);
     this.clock = clock;
@@ -66,36 +74,49 @@ public class DeadAgentReaper extends InterruptingScheduledService {
 
   @Override
   protected void runOneIteration() {
+    if (!hostLiveness.isInitialized()) {
+      log.debug("Not reaping agents until the liveness of every host is known");
+      return;
+    }
     log.debug("Reaping agents");
-    final List<String> agents = masterModel.listHosts();
-    for (final String agent : agents) {
-      try {
-        final HostStatus hostStatus = masterModel.getHostStatus(agent);
-        if (hostStatus == null || hostStatus.getStatus() != HostStatus.Status.DOWN) {
-          // Host not found or host not DOWN -- nothing to do, move on to the next host
-          continue;
-        }
-
-        final AgentInfo agentInfo = hostStatus.getAgentInfo();
-        if (agentInfo == null) {
-          continue;
-        }
-
-        final long downSince = agentInfo.getStartTime() + agentInfo.getUptime();
-        final long downDurationMillis = clock.now().getMillis() - downSince;
-
-        if (downDurationMillis >= timeoutMillis) {
-          try {
-            log.info("Reaping dead agent '{}' (DOWN for {} hours)",
-                     agent, DurationFormatUtils.formatDurationHMS(downDurationMillis));
-            masterModel.deregisterHost(agent);
-          } catch (Exception e) {
-            log.warn("Failed to reap agent '{}'", agent, e);
-          }
-        }
-      } catch (Exception e) {
-        log.warn("Failed to determine if agent '{}' should be reaped", agent, e);
+    final Map<String, HostLiveness> hosts = hostLiveness.getHosts();
+
+    // Finish any deregistrations that were cut short, unless the agent has come back up since
+    final Set<String> dead = Sets.newLinkedHashSet();
+    for (final String agent : masterModel.listDeregisteringHosts()) {
+      final HostLiveness liveness = hosts.get(agent);
+      if (liveness != null && liveness.getStatus() != HostStatus.Status.DOWN) {
+        log.info("Not resuming deregistration of agent '{}' as it is {}",
+                 agent, liveness.getStatus());
+        continue;
+      }
+      dead.add(agent);
+    }
+
+    for (final Map.Entry<String, HostLiveness> entry : hosts.entrySet()) {
+      final String agent = entry.getKey();
+      final HostLiveness liveness = entry.getValue();
+      if (liveness.getStatus() != HostStatus.Status.DOWN || liveness.getLastSeen() == null) {
+        // Host not DOWN or never reported in -- nothing to do, move on to the next host
+        continue;
       }
+
+      final long downSince = liveness.getLastSeen();
+      final long downDurationMillis = clock.now().getMillis() - downSince;
+
+      if (downDurationMillis >= timeoutMillis) {
+        log.info("Reaping dead agent '{}' (DOWN for {} hours)",
+                 agent, DurationFormatUtils.formatDurationHMS(downDurationMillis));
+        dead.add(agent);
+      }
+    }
+
+    if (dead.isEmpty()) {
+      return;
+    }
+    final Map<String, Exception> failures = masterModel.deregisterHosts(ImmutableList.copyOf(dead));
+    for (final Map.Entry<String, Exception> failure : failures.entrySet()) {
+      log.warn("Failed to reap agent '{}'", failure.getKey(), failure.getValue());
     }
   }
 
@@ -30,7 +30,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
-import java.util.Map.Entry;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -42,6 +41,7 @@ import static java.util.concurrent.TimeUnit.SECONDS;
  * The ExpiredJobReaper periodically checks if any jobs in the cluster have expired.
  * For any job that is at or past its expiration date, it undeploys the job from
  * any deployed hosts, and then removes the job entirely from the cluster.
+ * Only the jobs the master model's index says have expired are looked at.
  */
 public class ExpiredJobReaper extends InterruptingScheduledService {
 
@@ -64,39 +64,48 @@ public class ExpiredJobReaper extends InterruptingScheduledService {
 
   @Override
   protected void runOneIteration() {
-    for (Entry<JobId, Job> entry : masterModel.getJobs().entrySet()) {
-      final JobId jobId = entry.getKey();
-      final Job job = entry.getValue();
+    final List<JobId> expired = masterModel.getExpiredJobs(clock.now().getMillis());
+    int reaped = 0;
 
-      if (job.getExpires() == null) {
+    for (final JobId jobId : expired) {
+      final Job job = masterModel.getJob(jobId);
+      if (job == null) {
+        // Removed since it was indexed
         continue;
-      } else if (job.getExpires().getTime() <= clock.now().getMillis()) {
-        final JobStatus status = masterModel.getJobStatus(jobId);
-        final List<String> hosts = ImmutableList.copyOf(status.getDeployments().keySet());
-
-        for (String host : hosts) {
-          try {
-            masterModel.undeployJob(host, jobId, job.getToken());
-          } catch (HostNotFoundException e) {
-            log.error("couldn't undeploy job {} from host {} when it hit deadline", jobId, host, e);
-          } catch (JobNotDeployedException e) {
-            log.debug("job {} was already undeployed when it hit deadline", jobId, e);
-          } catch (TokenVerificationException e) {
-            log.error("couldn't undeploy job {} from host {} because token verification failed",
-                      jobId, host, e);
-          }
-        }
+      }
 
+      final JobStatus status = masterModel.getJobStatus(jobId);
+      final List<String> hosts = status == null
+                                 ? ImmutableList.<String>of()
+                                 : ImmutableList.copyOf(status.getDeployments().keySet());
+
+      for (String host : hosts) {
         try {
-          masterModel.removeJob(jobId, job.getToken());
-        } catch (JobDoesNotExistException e) {
-          log.debug("job {} was already removed when it hit deadline", jobId, e);
-        } catch (JobStillDeployedException e) {
-          log.debug("job {} still deployed on some host(s) after expiry reap", jobId, e);
+          masterModel.undeployJob(host, jobId, job.getToken());
+        } catch (HostNotFoundException e) {
+          log.error("couldn't undeploy job {} from host {} when it hit deadline", jobId, host, e);
+        } catch (JobNotDeployedException e) {
+          log.debug("job {} was already undeployed when it hit deadline", jobId, e);
         } catch (TokenVerificationException e) {
-          log.error("couldn't remove job {} because token verification failed", jobId, e);
+          log.error("couldn't undeploy job {} from host {} because token verification failed",
+                    jobId, host, e);
         }
       }
+
+      try {
+        masterModel.removeJob(jobId, job.getToken());
+        reaped++;
+      } catch (JobDoesNotExistException e) {
+        log.debug("job {} was already removed when it hit deadline", jobId, e);
+      } catch (JobStillDeployedException e) {
+        log.debug("job {} still deployed on some host(s) after expiry reap", jobId, e);
+      } catch (TokenVerificationException e) {
+        log.error("couldn't remove job {} because token verification failed", jobId, e);
+      }
+    }
+
+    if (!expired.isEmpty()) {
+      log.info("scanned {} expired jobs, reaped {}", expired.size(), reaped);
     }
   }
 
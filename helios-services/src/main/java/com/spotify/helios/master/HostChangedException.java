@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.master;
+
+import com.spotify.helios.common.HeliosException;
+
+import static java.lang.String.format;
+
+/**
+ * Thrown when a job is deployed to a host at a version of its deployments that is no longer
+ * current, because other jobs were deployed to the host since the version was read.
+ */
+public class HostChangedException extends HeliosException {
+
+  private final String host;
+
+  public HostChangedException(final String host) {
+    super(format("Deployments on host %s changed", host));
+    this.host = host;
+  }
+
+  public String getHost() {
+    return host;
+  }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.master;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.AbstractIdleService;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import com.spotify.helios.common.Json;
+import com.spotify.helios.common.descriptors.AgentInfo;
+import com.spotify.helios.common.descriptors.HostLiveness;
+import com.spotify.helios.common.descriptors.HostStatus;
+import com.spotify.helios.servicescommon.coordination.Paths;
+import com.spotify.helios.servicescommon.coordination.ZooKeeperClient;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.NodeCache;
+import org.apache.curator.framework.recipes.cache.NodeCacheListener;
+import org.apache.curator.framework.recipes.cache.PathChildrenCache;
+import org.apache.curator.framework.recipes.cache.PathChildrenCacheEvent;
+import org.apache.curator.framework.recipes.cache.PathChildrenCacheListener;
+import org.apache.curator.utils.ZKPaths;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the {@link HostLiveness} of every registered host in memory, from watches on the hosts'
+ * up nodes and agent info, so that finding out which hosts are up or have been down for long
+ * doesn't take reading every host's full {@link HostStatus}.
+ *
+ * Once started, the tracker reads the up node and agent info of every host once in the background.
+ * After that, only the nodes that change are read again. Starting doesn't wait for the first
+ * reads, so that the master starts even if ZooKeeper is slow or unreachable. Until they are done,
+ * the liveness of every host is unknown: {@link #get(String)} returns null, and readers that need
+ * every host should check {@link #isInitialized()}.
+ */
+public class HostLivenessTracker extends AbstractIdleService {
+
+  private static final Logger log = LoggerFactory.getLogger(HostLivenessTracker.class);
+
+  private final CuratorFramework curator;
+  // All cache events are handled on this thread, so the caches of a host never race
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(
+      new ThreadFactoryBuilder().setNameFormat("host-liveness-%d").setDaemon(true).build());
+  private final PathChildrenCache hosts;
+  private final Map<String, HostCaches> caches = Maps.newHashMap();
+  private final ConcurrentMap<String, HostLiveness> table = Maps.newConcurrentMap();
+  private final CountDownLatch initialized = new CountDownLatch(1);
+
+  public HostLivenessTracker(final ZooKeeperClient client) {
+    this.curator = client.getCuratorFramework();
+    this.hosts = new PathChildrenCache(curator, Paths.configHosts(), false, false, executor);
+    hosts.getListenable().addListener(new HostsListener(), executor);
+  }
+
+  /**
+   * Returns whether the liveness of every host that was registered when the tracker started has
+   * been read.
+   */
+  public boolean isInitialized() {
+    return initialized.getCount() == 0;
+  }
+
+  /**
+   * Waits for the tracker to be initialized, see {@link #isInitialized()}.
+   * @return false if the timeout ran out first.
+   */
+  public boolean awaitInitialized(final long timeout, final TimeUnit unit)
+      throws InterruptedException {
+    return initialized.await(timeout, unit);
+  }
+
+  /**
+   * Returns the liveness of every registered host. Only complete once the tracker is initialized.
+   */
+  public Map<String, HostLiveness> getHosts() {
+    return ImmutableMap.copyOf(table);
+  }
+
+  /**
+   * Returns the liveness of a host, or null if it isn't registered or the tracker isn't
+   * initialized yet.
+   */
+  @Nullable
+  public HostLiveness get(final String host) {
+    return isInitialized() ? table.get(host) : null;
+  }
+
+  @Override
+  protected void startUp() throws Exception {
+    hosts.start(PathChildrenCache.StartMode.POST_INITIALIZED_EVENT);
+  }
+
+  @Override
+  protected void shutDown() throws Exception {
+    hosts.close();
+    executor.submit(() -> {
+      caches.values().forEach(HostCaches::close);
+      caches.clear();
+    }).get();
+    executor.shutdownNow();
+  }
+
+  private void added(final String host) {
+    if (caches.containsKey(host)) {
+      return;
+    }
+    final HostCaches hostCaches = new HostCaches(host);
+    caches.put(host, hostCaches);
+    try {
+      hostCaches.start();
+    } catch (Exception e) {
+      log.warn("failed to watch the liveness of {}", host, e);
+    }
+    update(host);
+  }
+
+  private void removed(final String host) {
+    final HostCaches hostCaches = caches.remove(host);
+    if (hostCaches != null) {
+      hostCaches.close();
+    }
+    table.remove(host);
+  }
+
+  private void update(final String host) {
+    final HostCaches hostCaches = caches.get(host);
+    if (hostCaches == null) {
+      return;
+    }
+    final boolean up = hostCaches.up.getCurrentData() != null;
+    final AgentInfo agentInfo = agentInfo(host, hostCaches.agentInfo.getCurrentData());
+    table.put(host, new HostLiveness(
+        up ? HostStatus.Status.UP : HostStatus.Status.DOWN,
+        agentInfo == null ? null : agentInfo.getStartTime(),
+        agentInfo == null ? null : agentInfo.getStartTime() + agentInfo.getUptime(),
+        agentInfo == null ? null : agentInfo.getVersion()));
+  }
+
+  private static AgentInfo agentInfo(final String host, final ChildData data) {
+    if (data == null || data.getData() == null) {
+      return null;
+    }
+    try {
+      return Json.read(data.getData(), AgentInfo.class);
+    } catch (IOException e) {
+      log.warn("failed to parse the agent info of {}", host, e);
+      return null;
+    }
+  }
+
+  private class HostsListener implements PathChildrenCacheListener {
+
+    @Override
+    public void childEvent(final CuratorFramework client, final PathChildrenCacheEvent event) {
+      switch (event.getType()) {
+        case CHILD_ADDED:
+          added(ZKPaths.getNodeFromPath(event.getData().getPath()));
+          break;
+        case CHILD_REMOVED:
+          removed(ZKPaths.getNodeFromPath(event.getData().getPath()));
+          break;
+        case INITIALIZED:
+          initialized.countDown();
+          log.info("tracking the liveness of {} hosts", table.size());
+          break;
+        default:
+          break;
+      }
+    }
+  }
+
+  /**
+   * The caches of the nodes of a host that its liveness is made from.
+   */
+  private class HostCaches implements NodeCacheListener {
+
+    private final String host;
+    private final NodeCache up;
+    private final NodeCache agentInfo;
+
+    HostCaches(final String host) {
+      this.host = host;
+      this.up = new NodeCache(curator, Paths.statusHostUp(host));
+      this.agentInfo = new NodeCache(curator, Paths.statusHostAgentInfo(host));
+    }
+
+    void start() throws Exception {
+      up.getListenable().addListener(this, executor);
+      agentInfo.getListenable().addListener(this, executor);
+      up.start(true);
+      agentInfo.start(true);
+    }
+
+    void close() {
+      try {
+        up.close();
+        agentInfo.close();
+      } catch (IOException e) {
+        log.warn("failed to stop watching the liveness of {}", host, e);
+      }
+    }
+
+    @Override
+    public void nodeChanged() {
+      update(host);
+    }
+  }
+}
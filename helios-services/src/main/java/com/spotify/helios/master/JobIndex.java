@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.master;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
+import com.google.common.collect.TreeMultimap;
+
+import com.spotify.helios.common.descriptors.Job;
+import com.spotify.helios.common.descriptors.JobId;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An in-memory index of jobs that lets the reapers find the jobs that are due without reading
+ * every job: the jobs that have an expiry time ordered by it, and all jobs ordered by their last
+ * known activity.
+ *
+ * The last known activity of a job starts out as its creation time and only ever moves forward.
+ * It is a lower bound: history written by agents and changes made through other masters are not
+ * seen until someone records them, so jobs found idle by the index still have to be checked.
+ */
+class JobIndex {
+
+  private final Map<JobId, Long> expiries = Maps.newHashMap();
+  private final TreeMultimap<Long, JobId> byExpiry = TreeMultimap.create();
+  private final Map<JobId, Long> activity = Maps.newHashMap();
+  private final TreeMultimap<Long, JobId> byActivity = TreeMultimap.create();
+
+  private String version;
+
+  /**
+   * Adds a job, unless it is indexed already.
+   */
+  synchronized void add(final Job job) {
+    final JobId jobId = job.getId();
+    if (activity.containsKey(jobId)) {
+      return;
+    }
+    final long created = job.getCreated() == null ? 0 : job.getCreated();
+    activity.put(jobId, created);
+    byActivity.put(created, jobId);
+    if (job.getExpires() != null) {
+      final long expires = job.getExpires().getTime();
+      expiries.put(jobId, expires);
+      byExpiry.put(expires, jobId);
+    }
+  }
+
+  synchronized void remove(final JobId jobId) {
+    final Long active = activity.remove(jobId);
+    if (active != null) {
+      byActivity.remove(active, jobId);
+    }
+    final Long expires = expiries.remove(jobId);
+    if (expires != null) {
+      byExpiry.remove(expires, jobId);
+    }
+  }
+
+  /**
+   * Records that a job was active at {@code time}, if that is later than its last known activity.
+   */
+  synchronized void touch(final JobId jobId, final long time) {
+    final Long active = activity.get(jobId);
+    if (active == null || active >= time) {
+      return;
+    }
+    byActivity.remove(active, jobId);
+    activity.put(jobId, time);
+    byActivity.put(time, jobId);
+  }
+
+  /**
+   * Returns the jobs that expire at or before {@code time}, soonest first.
+   */
+  synchronized List<JobId> expiredAt(final long time) {
+    return ImmutableList.copyOf(Iterables.concat(byExpiry.asMap().headMap(time, true).values()));
+  }
+
+  /**
+   * Returns the jobs whose last known activity was before {@code time}, least recently active
+   * first.
+   */
+  synchronized List<JobId> inactiveSince(final long time) {
+    return ImmutableList.copyOf(
+        Iterables.concat(byActivity.asMap().headMap(time, false).values()));
+  }
+
+  synchronized Set<JobId> jobs() {
+    return ImmutableSet.copyOf(activity.keySet());
+  }
+
+  /**
+   * The version of the jobs the index was last brought up to date with.
+   */
+  synchronized String version() {
+    return version;
+  }
+
+  synchronized void setVersion(final String version) {
+    this.version = version;
+  }
+}
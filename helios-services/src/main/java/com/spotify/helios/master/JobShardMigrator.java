@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.master;
+
+import com.google.common.collect.Lists;
+
+import com.spotify.helios.common.descriptors.JobId;
+import com.spotify.helios.servicescommon.coordination.CuratorClientFactoryImpl;
+import com.spotify.helios.servicescommon.coordination.DefaultZooKeeperClient;
+import com.spotify.helios.servicescommon.coordination.Paths;
+import com.spotify.helios.servicescommon.coordination.ZooKeeperClient;
+import com.spotify.helios.servicescommon.coordination.ZooKeeperOperation;
+
+import org.apache.curator.framework.AuthInfo;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.api.ACLProvider;
+import org.apache.curator.retry.ExponentialBackoffRetry;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.KeeperException.NoNodeException;
+import org.apache.zookeeper.KeeperException.NodeExistsException;
+import org.apache.zookeeper.KeeperException.NotEmptyException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.collect.Lists.reverse;
+import static com.spotify.helios.servicescommon.ZooKeeperAclProviders.digest;
+import static com.spotify.helios.servicescommon.ZooKeeperAclProviders.heliosAclProvider;
+import static com.spotify.helios.servicescommon.coordination.ZooKeeperOperations.create;
+import static com.spotify.helios.servicescommon.coordination.ZooKeeperOperations.delete;
+
+/**
+ * Moves jobs between the flat and the sharded layout of /config/jobs, see {@link Paths}.
+ *
+ * Each job is moved in a transaction of its own, and masters read jobs from both layouts, so
+ * jobs can be moved while masters are running. Start the masters with --zk-shard-jobs before
+ * moving jobs into shards, or they will keep creating new jobs in the flat layout.
+ */
+public class JobShardMigrator {
+
+  private static final Logger log = LoggerFactory.getLogger(JobShardMigrator.class);
+
+  private static final int MOVE_ATTEMPTS = 3;
+
+  public static void main(final String[] args) throws Exception {
+    if ((args.length != 3 && args.length != 7) ||
+        !(args[2].equals("sharded") || args[2].equals("flat"))) {
+      System.out.println("usage: <ZK connect string> <ZK cluster ID> <sharded|flat> " +
+                         "[<master user> <master password> <agent user> <agent password>]");
+      System.exit(-1);
+    }
+
+    ACLProvider aclProvider = null;
+    List<AuthInfo> authorization = null;
+    if (args.length == 7) {
+      aclProvider = heliosAclProvider(args[3], digest(args[3], args[4]),
+                                      args[5], digest(args[5], args[6]));
+      authorization = Lists.newArrayList(new AuthInfo(
+          "digest", String.format("%s:%s", args[3], args[4]).getBytes()));
+    }
+
+    final CuratorFramework curator = new CuratorClientFactoryImpl().newClient(
+        args[0],
+        (int) TimeUnit.SECONDS.toMillis(60),
+        (int) TimeUnit.SECONDS.toMillis(15),
+        new ExponentialBackoffRetry(1000, 3),
+        aclProvider,
+        authorization);
+
+    final ZooKeeperClient client = new DefaultZooKeeperClient(curator, args[1]);
+    try {
+      client.start();
+      final int failed = migrate(client, args[2].equals("sharded"));
+      if (failed > 0) {
+        System.out.println(failed + " jobs could not be moved, run again to retry them");
+        System.exit(1);
+      }
+    } finally {
+      client.close();
+    }
+  }
+
+  /**
+   * Moves every job that isn't in the given layout into it.
+   * @return The number of jobs that could not be moved.
+   */
+  static int migrate(final ZooKeeperClient client, final boolean sharded)
+      throws KeeperException {
+    final List<JobId> jobs = Lists.newArrayList();
+    final List<String> children = client.getChildren(Paths.configJobs());
+    if (sharded) {
+      for (final String child : children) {
+        if (!Paths.isConfigJobShard(child)) {
+          jobs.add(JobId.fromString(child));
+        }
+      }
+    } else {
+      final List<String> shards = Lists.newArrayList();
+      for (final String child : children) {
+        if (Paths.isConfigJobShard(child)) {
+          shards.add(Paths.configJobShard(child));
+        }
+      }
+      for (final List<String> ids : client.getChildren(shards).values()) {
+        for (final String id : ids) {
+          jobs.add(JobId.fromString(id));
+        }
+      }
+    }
+
+    log.info("moving {} jobs to the {} layout", jobs.size(), sharded ? "sharded" : "flat");
+    int failed = 0;
+    for (final JobId job : jobs) {
+      if (!move(client, job, sharded)) {
+        failed++;
+      }
+    }
+    log.info("moved {} jobs, {} failed", jobs.size() - failed, failed);
+    return failed;
+  }
+
+  /**
+   * Moves a job and everything below it, i.e. its creation node and the hosts it's deployed to,
+   * to the given layout in one transaction. Retried if the job changes while it is being moved.
+   * @return Whether the job was moved, or was gone already.
+   */
+  static boolean move(final ZooKeeperClient client, final JobId job, final boolean sharded)
+      throws KeeperException {
+    final String from = Paths.configJob(job, !sharded);
+    final String to = Paths.configJob(job, sharded);
+    if (sharded) {
+      client.ensurePath(Paths.configJobShard(job));
+    }
+
+    for (int attempt = 1; attempt <= MOVE_ATTEMPTS; attempt++) {
+      try {
+        final List<String> nodes = client.listRecursive(from);
+        final List<ZooKeeperOperation> operations = Lists.newArrayList();
+        for (final String node : nodes) {
+          operations.add(create(to + node.substring(from.length()), client.getData(node)));
+        }
+        for (final String node : reverse(nodes)) {
+          operations.add(delete(node));
+        }
+        client.transaction(operations);
+        log.debug("moved job {} to {}", job, to);
+        return true;
+      } catch (NoNodeException | NotEmptyException e) {
+        if (client.exists(from) == null) {
+          // Removed, or moved by someone else
+          return true;
+        }
+        // Deployed or undeployed while we were moving it, try again
+        log.debug("job {} changed while being moved, retrying", job);
+      } catch (NodeExistsException e) {
+        log.warn("job {} is in both layouts, leaving it", job);
+        return false;
+      }
+    }
+    log.warn("failed to move job {}", job);
+    return false;
+  }
+}
@@ -18,6 +18,7 @@
 package com.spotify.helios.master;
 
 import com.spotify.helios.servicescommon.FastForwardConfig;
+import com.spotify.helios.servicescommon.PayloadFormat;
 
 import java.net.InetSocketAddress;
 import java.nio.file.Path;
@@ -50,12 +51,15 @@ public class MasterConfig extends Configuration {
   private List<String> kafkaBrokers;
   private Path stateDirectory;
   private boolean zooKeeperEnableAcls;
+  private PayloadFormat zooKeeperPayloadFormat = PayloadFormat.JSON;
+  private boolean zooKeeperShardJobs;
   private String zookeeperAclAgentUser;
   private String zooKeeperAclAgentDigest;
   private String zookeeperAclMasterUser;
   private String zooKeeperAclMasterPassword;
   private long agentReapingTimeout;
   private long jobRetention;
+  private long slowRequestThreshold;
   private FastForwardConfig fastForwardConfig;
 
   public String getDomain() {
@@ -220,6 +224,24 @@ public class MasterConfig extends Configuration {
     return zooKeeperEnableAcls;
   }
 
+  public MasterConfig setZooKeeperPayloadFormat(final PayloadFormat zooKeeperPayloadFormat) {
+    this.zooKeeperPayloadFormat = zooKeeperPayloadFormat;
+    return this;
+  }
+
+  public PayloadFormat getZooKeeperPayloadFormat() {
+    return zooKeeperPayloadFormat;
+  }
+
+  public MasterConfig setZooKeeperShardJobs(final boolean zooKeeperShardJobs) {
+    this.zooKeeperShardJobs = zooKeeperShardJobs;
+    return this;
+  }
+
+  public boolean isZooKeeperShardJobs() {
+    return zooKeeperShardJobs;
+  }
+
   public MasterConfig setZooKeeperAclAgentDigest(final String zooKeeperAclAgentDigest) {
     this.zooKeeperAclAgentDigest = zooKeeperAclAgentDigest;
     return this;
@@ -274,6 +296,15 @@ public class MasterConfig extends Configuration {
     return jobRetention;
   }
 
+  public MasterConfig setSlowRequestThreshold(final long slowRequestThreshold) {
+    this.slowRequestThreshold = slowRequestThreshold;
+    return this;
+  }
+
+  public long getSlowRequestThreshold() {
+    return slowRequestThreshold;
+  }
+
   public FastForwardConfig getFfwdConfig() {
     return this.fastForwardConfig;
   }
@@ -26,6 +26,7 @@ import com.spotify.helios.common.descriptors.JobId;
 import com.spotify.helios.common.descriptors.JobStatus;
 import com.spotify.helios.common.descriptors.RolloutOptions;
 import com.spotify.helios.common.descriptors.TaskStatusEvent;
+import com.spotify.helios.servicescommon.VersionedValue;
 
 import java.util.List;
 import java.util.Map;
@@ -40,16 +41,65 @@ public interface MasterModel {
 
   void deregisterHost(String host) throws HostNotFoundException, HostStillInUseException;
 
+  /**
+   * Deregisters several hosts, a few at a time and at a limited rate of ZooKeeper operations.
+   * Returns why each of the hosts that couldn't be deregistered wasn't, by hostname.
+   */
+  Map<String, Exception> deregisterHosts(List<String> hosts);
+
+  /**
+   * Returns the hosts whose deregistration was started but hasn't finished, e.g. because the
+   * master doing it went away.
+   */
+  List<String> listDeregisteringHosts();
+
   List<String> listHosts();
 
+  /**
+   * Returns an opaque version that changes whenever a host is registered or deregistered.
+   */
+  String getHostsVersion();
+
   HostStatus getHostStatus(String host);
 
+  /**
+   * Returns what matters for placing jobs on each host: whether it's up, its host info, labels and
+   * deployed jobs. Much cheaper than {@link #getHostStatus(String)}, as the statuses of the tasks
+   * on the hosts aren't read, and every host is read at once. Each status is versioned by the
+   * deployments on its host, for {@link #deployJob(String, Deployment, String, int)}.
+   */
+  Map<String, VersionedValue<HostStatus>> getHostPlacementStatuses();
+
   void addJob(Job job) throws JobExistsException;
 
   Job getJob(JobId jobId);
 
   Map<JobId, Job> getJobs();
 
+  /**
+   * Returns an opaque version that changes whenever a job is created or removed.
+   */
+  String getJobsVersion();
+
+  /**
+   * Returns the ids of the jobs that expire at or before {@code time}, in milliseconds since the
+   * epoch, soonest first.
+   */
+  List<JobId> getExpiredJobs(long time);
+
+  /**
+   * Returns the ids of the jobs with no known activity since {@code time}, in milliseconds since
+   * the epoch, least recently active first. The known activity of a job is its creation, its
+   * deployments and undeployments through this master, and whatever has been passed to
+   * {@link #recordJobActivity(JobId, long)}, so the jobs returned may not really be idle.
+   */
+  List<JobId> getInactiveJobs(long time);
+
+  /**
+   * Records that a job was seen active at {@code time}, e.g. deployed or with history from then.
+   */
+  void recordJobActivity(JobId jobId, long time);
+
   JobStatus getJobStatus(JobId jobId);
 
   Job removeJob(JobId jobId)
@@ -74,6 +124,19 @@ public interface MasterModel {
              JobPortAllocationConflictException,
              TokenVerificationException;
 
+  /**
+   * Deploys a job to a host if no other job was deployed there since the deployments on the host
+   * were at {@code version}, as reported by {@link #getHostPlacementStatuses()}. Otherwise the
+   * job isn't deployed and a {@link HostChangedException} is thrown.
+   */
+  void deployJob(String host, Deployment job, String token, int version)
+      throws HostNotFoundException,
+             JobAlreadyDeployedException,
+             JobDoesNotExistException,
+             JobPortAllocationConflictException,
+             TokenVerificationException,
+             HostChangedException;
+
   Deployment getDeployment(String host, JobId jobId);
 
   Deployment undeployJob(String host, JobId jobId)
@@ -27,6 +27,8 @@ import net.sourceforge.argparse4j.inf.Namespace;
 import java.net.InetSocketAddress;
 import java.util.concurrent.TimeUnit;
 
+import static net.sourceforge.argparse4j.impl.Arguments.storeTrue;
+
 /**
  * Parses command-line arguments to produce the {@link MasterConfig}.
  */
@@ -42,6 +44,8 @@ public class MasterParser extends ServiceParser {
   private Argument zkAclMasterPassword;
   private Argument agentReapingTimeout;
   private Argument jobRetention;
+  private Argument zkShardJobs;
+  private Argument slowRequestThreshold;
 
   public MasterParser(final String... args) throws ArgumentParserException {
     super("helios-master", "Spotify Helios Master", args);
@@ -63,6 +67,8 @@ public class MasterParser extends ServiceParser {
         .setZooKeeperClusterId(getZooKeeperClusterId())
         .setNoZooKeeperMasterRegistration(getNoZooKeeperRegistration())
         .setZooKeeperEnableAcls(getZooKeeperEnableAcls())
+        .setZooKeeperPayloadFormat(getZooKeeperPayloadFormat())
+        .setZooKeeperShardJobs(options.getBoolean(zkShardJobs.getDest()))
         .setZookeeperAclAgentUser(getZooKeeperAclAgentUser())
         .setZooKeeperAclAgentDigest(options.getString(zkAclAgentDigest.getDest()))
         .setZookeeperAclMasterUser(getZooKeeperAclMasterUser())
@@ -81,6 +87,7 @@ public class MasterParser extends ServiceParser {
         .setStateDirectory(getStateDirectory())
         .setAgentReapingTimeout(options.getLong(agentReapingTimeout.getDest()))
         .setJobRetention(options.getLong(jobRetention.getDest()))
+        .setSlowRequestThreshold(options.getLong(slowRequestThreshold.getDest()))
         .setFfwdConfig(ffwdConfig(options));
 
     this.masterConfig = config;
@@ -117,6 +124,19 @@ public class MasterParser extends ServiceParser {
         .help("In days. Jobs not deployed anywhere and with a job history showing they were last " +
               "used before the specified retention time will be removed. " +
               "This is disabled by default by setting it to a sentinel value of -1.");
+
+    zkShardJobs = parser.addArgument("--zk-shard-jobs")
+        .action(storeTrue())
+        .setDefault(false)
+        .help("Create new jobs in shards of /config/jobs instead of directly in it. " +
+              "Jobs are read from both layouts either way. " +
+              "Existing jobs can be moved with JobShardMigrator.");
+
+    slowRequestThreshold = parser.addArgument("--slow-request-threshold")
+        .type(Long.class)
+        .setDefault(5000L)
+        .help("In milliseconds. API requests that take longer are logged with a breakdown of " +
+              "their ZooKeeper operations. To disable, set to 0.");
   }
 
   public MasterConfig getMasterConfig() {
@@ -31,6 +31,7 @@ import com.spotify.helios.common.HeliosRuntimeException;
 import com.spotify.helios.master.http.VersionResponseFilter;
 import com.spotify.helios.master.metrics.HealthCheckGauge;
 import com.spotify.helios.master.metrics.ReportingResourceMethodDispatchAdapter;
+import com.spotify.helios.master.metrics.RequestTracingFilter;
 import com.spotify.helios.master.resources.DeploymentGroupResource;
 import com.spotify.helios.master.resources.HistoryResource;
 import com.spotify.helios.master.resources.HostsResource;
@@ -120,6 +121,7 @@ public class MasterService extends AbstractIdleService {
   private final CuratorClientFactory curatorClientFactory;
   private final RollingUpdateService rollingUpdateService;
   private final Map<String, String> environmentVariables;
+  private final HostLivenessTracker hostLiveness;
   private final Optional<DeadAgentReaper> agentReaper;
   private final Optional<OldJobReaper> oldJobReaper;
 
@@ -199,7 +201,9 @@ public class MasterService extends AbstractIdleService {
     final KafkaSender kafkaSender = new KafkaSender(kafkaClientProvider.getDefaultProducer());
 
     final ZooKeeperMasterModel model =
-        new ZooKeeperMasterModel(zkClientProvider, config.getName(), kafkaSender);
+        new ZooKeeperMasterModel(zkClientProvider, config.getName(), kafkaSender,
+                                 config.getZooKeeperPayloadFormat(),
+                                 config.isZooKeeperShardJobs());
 
     final ZooKeeperHealthChecker zooKeeperHealthChecker = new ZooKeeperHealthChecker(
         zooKeeperClient, Paths.statusMasters(), riemannFacade, TimeUnit.MINUTES, 2);
@@ -228,9 +232,13 @@ public class MasterService extends AbstractIdleService {
     final ReactorFactory reactorFactory = new ReactorFactory();
     this.rollingUpdateService = new RollingUpdateService(model, reactorFactory);
 
+    // Keep track of which hosts are up without reading their full statuses
+    this.hostLiveness = new HostLivenessTracker(zooKeeperClient);
+
     // Set up agent reaper (de-registering hosts that have been DOWN for more than X hours)
     if (config.getAgentReapingTimeout() > 0) {
-      this.agentReaper = Optional.of(new DeadAgentReaper(model, config.getAgentReapingTimeout()));
+      this.agentReaper = Optional.of(new DeadAgentReaper(model, hostLiveness,
+                                                         config.getAgentReapingTimeout()));
     } else {
       log.info("Reaping of dead agents disabled");
       this.agentReaper = Optional.empty();
@@ -245,6 +253,10 @@ public class MasterService extends AbstractIdleService {
     }
 
     // Set up http server
+    environment.servlets()
+        .addFilter("RequestTracingFilter", new RequestTracingFilter(
+            metrics.getMasterMetrics(), config.getSlowRequestThreshold()))
+        .addMappingForUrlPatterns(EnumSet.of(DispatcherType.REQUEST), true, "/*");
     environment.servlets()
         .addFilter("VersionResponseFilter", new VersionResponseFilter(metrics.getMasterMetrics()))
         .addMappingForUrlPatterns(EnumSet.of(DispatcherType.REQUEST), true, "/*");
@@ -252,7 +264,7 @@ public class MasterService extends AbstractIdleService {
         new ReportingResourceMethodDispatchAdapter(metrics.getMasterMetrics()));
     environment.jersey().register(new JobsResource(model, metrics.getMasterMetrics()));
     environment.jersey().register(new HistoryResource(model, metrics.getMasterMetrics()));
-    environment.jersey().register(new HostsResource(model));
+    environment.jersey().register(new HostsResource(model, hostLiveness));
     environment.jersey().register(new MastersResource(model));
     environment.jersey().register(new VersionResource());
     environment.jersey().register(new UserProvider());
@@ -321,6 +333,8 @@ public class MasterService extends AbstractIdleService {
     }
     expiredJobReaper.startAsync().awaitRunning();
     rollingUpdateService.startAsync().awaitRunning();
+    // Doesn't wait for the liveness of the hosts to be read, see HostLivenessTracker
+    hostLiveness.startAsync().awaitRunning();
 
     agentReaper.ifPresent(reaper -> reaper.startAsync().awaitRunning());
     oldJobReaper.ifPresent(reaper -> reaper.startAsync().awaitRunning());
@@ -347,6 +361,7 @@ public class MasterService extends AbstractIdleService {
 
     agentReaper.ifPresent(reaper -> reaper.stopAsync().awaitTerminated());
     oldJobReaper.ifPresent(reaper -> reaper.stopAsync().awaitTerminated());
+    hostLiveness.stopAsync().awaitTerminated();
 
     rollingUpdateService.stopAsync().awaitTerminated();
     expiredJobReaper.stopAsync().awaitTerminated();
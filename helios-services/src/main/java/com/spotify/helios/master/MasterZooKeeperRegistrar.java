@@ -67,6 +67,7 @@ public class MasterZooKeeperRegistrar implements ZooKeeperRegistrar {
   public boolean tryToRegister(final ZooKeeperClient client) throws KeeperException {
 
     client.ensurePath(Paths.configHosts());
+    client.ensurePath(Paths.configDeregisteringHosts());
     client.ensurePath(Paths.configJobs());
     client.ensurePath(Paths.configJobRefs());
     client.ensurePath(Paths.statusHosts());
@@ -17,6 +17,8 @@
 
 package com.spotify.helios.master;
 
+import com.google.common.collect.Lists;
+
 import com.spotify.helios.agent.InterruptingScheduledService;
 import com.spotify.helios.common.Clock;
 import com.spotify.helios.common.SystemClock;
@@ -31,6 +33,7 @@ import org.joda.time.format.DateTimeFormatter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ScheduledExecutorService;
@@ -40,13 +43,14 @@ import java.util.concurrent.TimeUnit;
 import static com.google.common.base.Preconditions.checkArgument;
 
 /**
- * Removes old jobs that haven't been deployed for a while.
+ * Removes old jobs that haven't been deployed for a while. Only the jobs the master model's index
+ * has seen no activity of within the retention time are looked at, so it can run often.
  */
 public class OldJobReaper extends InterruptingScheduledService {
 
   private static final Clock SYSTEM_CLOCK = new SystemClock();
   private static final long INTERVAL = 1;
-  private static final TimeUnit INTERVAL_TIME_UNIT = TimeUnit.DAYS;
+  private static final TimeUnit INTERVAL_TIME_UNIT = TimeUnit.HOURS;
   private static final DateTimeFormatter DATE_FORMATTER =
       DateTimeFormat.forPattern("YYYY-MM-dd HH:mm:ss");
 
@@ -75,25 +79,33 @@ public class OldJobReaper extends InterruptingScheduledService {
   protected void runOneIteration() {
     log.debug("Reaping old jobs.");
 
-    final Map<JobId, Job> jobs = masterModel.getJobs();
-    for (final Map.Entry<JobId, Job> jobEntry : jobs.entrySet()) {
-      final JobId jobId = jobEntry.getKey();
+    final long now = clock.now().getMillis();
+    final List<JobId> candidates = masterModel.getInactiveJobs(now - retentionMillis);
+    final List<JobId> reaped = Lists.newArrayList();
 
+    for (final JobId jobId : candidates) {
       try {
+        final Job job = masterModel.getJob(jobId);
+        if (job == null) {
+          // Removed since it was indexed
+          continue;
+        }
         final JobStatus jobStatus = masterModel.getJobStatus(jobId);
-        final Map<String, Deployment> deployments = jobStatus.getDeployments();
-        final List<TaskStatusEvent> events = masterModel.getJobHistory(jobId);
+        final Map<String, Deployment> deployments = jobStatus == null
+                                                    ? Collections.<String, Deployment>emptyMap()
+                                                    : jobStatus.getDeployments();
 
         boolean reap;
 
         if (deployments.isEmpty()) {
+          final List<TaskStatusEvent> events = masterModel.getJobHistory(jobId);
           if (events.isEmpty()) {
-            final Long created = jobEntry.getValue().getCreated();
+            final Long created = job.getCreated();
             if (created == null) {
               log.info("Marked job '{}' for reaping (not deployed, no history, no creation date)",
                        jobId);
               reap = true;
-            } else if ((clock.now().getMillis() - created) > retentionMillis) {
+            } else if ((now - created) > retentionMillis) {
               log.info("Marked job '{}' for reaping (not deployed, no history, creation date "
                        + "of {} before retention time of {} days)",
                        jobId, DATE_FORMATTER.print(created), retentionDays);
@@ -109,7 +121,7 @@ public class OldJobReaper extends InterruptingScheduledService {
             final TaskStatusEvent event = events.get(events.size() - 1);
             final String eventDate = DATE_FORMATTER.print(event.getTimestamp());
             // Calculate the amount of time in milliseconds that has elapsed since the last event
-            final long unusedDurationMillis = clock.now().getMillis() - event.getTimestamp();
+            final long unusedDurationMillis = now - event.getTimestamp();
 
             // A job not deployed, with history, and last used too long ago should BE reaped
             // A job not deployed, with history, and last used recently should NOT BE reaped
@@ -122,18 +134,22 @@ public class OldJobReaper extends InterruptingScheduledService {
               log.info("NOT reaping job '{}' (not deployed, has history whose last event "
                        + "on {} was after the retention time of {} days)",
                        jobId, eventDate, retentionDays);
+              // Don't look at it again until the retention time has passed since that event
+              masterModel.recordJobActivity(jobId, event.getTimestamp());
               reap = false;
             }
           }
         } else {
           // A job that's deployed should NOT BE reaped regardless of its history or creation date
           log.info("NOT reaping job '{}' (it is deployed)", jobId);
+          masterModel.recordJobActivity(jobId, now);
           reap = false;
         }
 
         if (reap) {
           try {
-            masterModel.removeJob(jobId, jobEntry.getValue().getToken());
+            masterModel.removeJob(jobId, job.getToken());
+            reaped.add(jobId);
           } catch (Exception e) {
             log.warn("Failed to reap old job '{}'", jobId, e);
           }
@@ -142,6 +158,9 @@ public class OldJobReaper extends InterruptingScheduledService {
         log.warn("Failed to determine if job '{}' should be reaped", jobId, e);
       }
     }
+
+    log.info("Scanned {} jobs inactive for {} days, reaped {}: {}",
+             candidates.size(), retentionDays, reaped.size(), reaped);
   }
 
   @Override
@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.master;
+
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import com.spotify.helios.common.descriptors.Deployment;
+import com.spotify.helios.common.descriptors.HostInfo;
+import com.spotify.helios.common.descriptors.HostStatus;
+import com.spotify.helios.common.descriptors.Job;
+import com.spotify.helios.common.descriptors.JobId;
+import com.spotify.helios.common.descriptors.Resources;
+
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Picks hosts for a job by bin-packing it against the {@link Resources} declared by the jobs
+ * already deployed on each host.
+ *
+ * A host's capacity is its total memory and 1024 CPU shares per CPU, as reported in its
+ * {@link HostInfo}. A job fits on a host if its declared memory and CPU shares, added to those of
+ * the jobs deployed there, stay within that capacity. Jobs that don't declare a resource count as
+ * using none of it. Among the hosts the job fits on, the one it fills up the most is picked first,
+ * so large hosts are kept free for large jobs. Hosts that already run another version of the job
+ * come after those that don't.
+ *
+ * A spread label can be given to place the job evenly across the values of a host label, like a
+ * rack or a site, before filling up any single value.
+ */
+public class PlacementEngine {
+
+  private static final Logger log = LoggerFactory.getLogger(PlacementEngine.class);
+
+  public static final long CPU_SHARES_PER_CPU = 1024;
+
+  private final Function<JobId, Job> jobs;
+  private final Map<JobId, Job> resolved = Maps.newHashMap();
+
+  /**
+   * @param jobs Looks up the jobs deployed on the candidate hosts, returning null for jobs that
+   *             no longer exist. Each job is only looked up once per engine.
+   */
+  public PlacementEngine(final Function<JobId, Job> jobs) {
+    this.jobs = checkNotNull(jobs, "jobs");
+  }
+
+  /**
+   * Returns the hosts {@code job} fits on, best placement first. Hosts that are not up, that
+   * haven't reported their {@link HostInfo} or that already run the job are left out.
+   *
+   * @param job The job to place.
+   * @param hosts The candidate hosts and their statuses.
+   * @param spreadLabel The host label to spread the job across, or null.
+   * @return The hosts to deploy the job to, in order of preference.
+   */
+  public List<String> place(final Job job, final Map<String, HostStatus> hosts,
+                            @Nullable final String spreadLabel) {
+    final List<Candidate> fitting = Lists.newArrayList();
+    for (final Candidate candidate : candidates(job, hosts, Predicates.<Deployment>alwaysFalse())) {
+      if (candidate.status.getStatus() == HostStatus.Status.UP
+          && !candidate.status.getJobs().containsKey(job.getId())
+          && candidate.fits()) {
+        fitting.add(candidate);
+      }
+    }
+    Collections.sort(fitting, BEST_FIT);
+    return spreadLabel == null ? names(fitting) : spread(fitting, spreadLabel);
+  }
+
+  /**
+   * Orders hosts that {@code job} is rolled out to so the hosts it fits on come first, best
+   * placement first, followed by the hosts it would overpack. Unlike {@link #place} no host is
+   * left out, since a deployment group is deployed to every host it matches.
+   *
+   * @param job The job to place.
+   * @param hosts The hosts of the deployment group and their statuses.
+   * @param replaced The deployments the job replaces, which don't count towards the resources in
+   *                 use on a host.
+   * @return The hosts, in rollout order.
+   */
+  public List<String> order(final Job job, final Map<String, HostStatus> hosts,
+                            final Predicate<Deployment> replaced) {
+    final List<Candidate> fitting = Lists.newArrayList();
+    for (final Candidate candidate : candidates(job, hosts, replaced)) {
+      if (candidate.fits()) {
+        fitting.add(candidate);
+      }
+    }
+    Collections.sort(fitting, BEST_FIT);
+    final List<String> ordered = names(fitting);
+    final List<String> overpacked = Lists.newArrayList(hosts.keySet());
+    overpacked.removeAll(ordered);
+    if (!overpacked.isEmpty()) {
+      log.warn("job {} does not fit on hosts {}", job.getId(), overpacked);
+    }
+    return ImmutableList.<String>builder().addAll(ordered).addAll(overpacked).build();
+  }
+
+  private List<Candidate> candidates(final Job job, final Map<String, HostStatus> hosts,
+                                     final Predicate<Deployment> replaced) {
+    final List<Candidate> candidates = Lists.newArrayList();
+    for (final Map.Entry<String, HostStatus> entry : hosts.entrySet()) {
+      final HostStatus status = entry.getValue();
+      if (status == null) {
+        continue;
+      }
+      final Candidate candidate = new Candidate(entry.getKey(), status, job);
+      for (final Map.Entry<JobId, Deployment> deployed : status.getJobs().entrySet()) {
+        if (deployed.getKey().equals(job.getId()) || replaced.apply(deployed.getValue())) {
+          continue;
+        }
+        final Job other = resolve(deployed.getKey());
+        if (other == null) {
+          continue;
+        }
+        candidate.memory += memory(other);
+        candidate.cpuShares += cpuShares(other);
+        if (other.getId().getName().equals(job.getId().getName())) {
+          candidate.sameName = true;
+        }
+      }
+      candidates.add(candidate);
+    }
+    return candidates;
+  }
+
+  private Job resolve(final JobId id) {
+    if (!resolved.containsKey(id)) {
+      resolved.put(id, jobs.apply(id));
+    }
+    return resolved.get(id);
+  }
+
+  /**
+   * Takes the best remaining host of each label value in turn, starting with the value whose best
+   * host is the best overall. Hosts without the label share a value of their own.
+   */
+  private static List<String> spread(final List<Candidate> ranked, final String label) {
+    final Map<String, Deque<Candidate>> byValue = Maps.newLinkedHashMap();
+    for (final Candidate candidate : ranked) {
+      final String value = Objects.toString(candidate.status.getLabels().get(label), "");
+      Deque<Candidate> group = byValue.get(value);
+      if (group == null) {
+        group = new ArrayDeque<>();
+        byValue.put(value, group);
+      }
+      group.add(candidate);
+    }
+
+    final ImmutableList.Builder<String> spread = ImmutableList.builder();
+    final List<Deque<Candidate>> groups = Lists.newArrayList(byValue.values());
+    while (!groups.isEmpty()) {
+      for (final Iterator<Deque<Candidate>> it = groups.iterator(); it.hasNext(); ) {
+        final Deque<Candidate> group = it.next();
+        spread.add(group.remove().host);
+        if (group.isEmpty()) {
+          it.remove();
+        }
+      }
+    }
+    return spread.build();
+  }
+
+  private static List<String> names(final List<Candidate> candidates) {
+    final List<String> names = Lists.newArrayListWithCapacity(candidates.size());
+    for (final Candidate candidate : candidates) {
+      names.add(candidate.host);
+    }
+    return names;
+  }
+
+  private static long memory(final Job job) {
+    final Resources resources = job.getResources();
+    return resources == null || resources.getMemory() == null ? 0 : resources.getMemory();
+  }
+
+  private static long cpuShares(final Job job) {
+    final Resources resources = job.getResources();
+    return resources == null || resources.getCpuShares() == null ? 0 : resources.getCpuShares();
+  }
+
+  /**
+   * Hosts without another version of the job first, then the least memory left after placing the
+   * job, then the least CPU shares left. Ties keep the order the hosts were given in.
+   */
+  private static final Comparator<Candidate> BEST_FIT = new Comparator<Candidate>() {
+    @Override
+    public int compare(final Candidate a, final Candidate b) {
+      if (a.sameName != b.sameName) {
+        return a.sameName ? 1 : -1;
+      }
+      final int memory = Long.compare(a.freeMemory(), b.freeMemory());
+      if (memory != 0) {
+        return memory;
+      }
+      return Long.compare(a.freeCpuShares(), b.freeCpuShares());
+    }
+  };
+
+  private static class Candidate {
+
+    private final String host;
+    private final HostStatus status;
+    private final long memoryTotal;
+    private final long cpuSharesTotal;
+
+    private long memory;
+    private long cpuShares;
+    private boolean sameName;
+
+    Candidate(final String host, final HostStatus status, final Job job) {
+      final HostInfo info = status.getHostInfo();
+      this.host = host;
+      this.status = status;
+      this.memoryTotal = info == null ? -1 : info.getMemoryTotalBytes();
+      this.cpuSharesTotal = info == null ? -1 : info.getCpus() * CPU_SHARES_PER_CPU;
+      this.memory = memory(job);
+      this.cpuShares = cpuShares(job);
+    }
+
+    long freeMemory() {
+      return memoryTotal - memory;
+    }
+
+    long freeCpuShares() {
+      return cpuSharesTotal - cpuShares;
+    }
+
+    boolean fits() {
+      return memoryTotal >= 0 && freeMemory() >= 0 && freeCpuShares() >= 0;
+    }
+  }
+}
@@ -24,11 +24,17 @@ import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Ordering;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonMappingException;
@@ -46,6 +52,7 @@ import com.spotify.helios.common.descriptors.Job;
 import com.spotify.helios.common.descriptors.JobId;
 import com.spotify.helios.common.descriptors.JobStatus;
 import com.spotify.helios.common.descriptors.PortMapping;
+import com.spotify.helios.common.descriptors.ResourceUsage;
 import com.spotify.helios.common.descriptors.RolloutOptions;
 import com.spotify.helios.common.descriptors.RolloutTask;
 import com.spotify.helios.common.descriptors.Task;
@@ -59,8 +66,10 @@ import com.spotify.helios.rollingupdate.RollingUpdateError;
 import com.spotify.helios.rollingupdate.RollingUpdateOp;
 import com.spotify.helios.rollingupdate.RollingUpdateOpFactory;
 import com.spotify.helios.rollingupdate.RolloutPlanner;
+import com.spotify.helios.servicescommon.CompactTaskStatus;
 import com.spotify.helios.servicescommon.KafkaRecord;
 import com.spotify.helios.servicescommon.KafkaSender;
+import com.spotify.helios.servicescommon.PayloadFormat;
 import com.spotify.helios.servicescommon.VersionedValue;
 import com.spotify.helios.servicescommon.ZooKeeperRegistrarUtil;
 import com.spotify.helios.servicescommon.coordination.Node;
@@ -70,6 +79,7 @@ import com.spotify.helios.servicescommon.coordination.ZooKeeperClientProvider;
 import com.spotify.helios.servicescommon.coordination.ZooKeeperOperation;
 
 import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.KeeperException.BadVersionException;
 import org.apache.zookeeper.KeeperException.NoNodeException;
 import org.apache.zookeeper.KeeperException.NodeExistsException;
 import org.apache.zookeeper.KeeperException.NotEmptyException;
@@ -85,7 +95,12 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static com.google.common.base.Optional.fromNullable;
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -93,7 +108,6 @@ import static com.google.common.base.Strings.isNullOrEmpty;
 import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Lists.reverse;
 import static com.spotify.helios.common.descriptors.DeploymentGroupStatus.State.FAILED;
-import static com.spotify.helios.common.descriptors.Descriptor.parse;
 import static com.spotify.helios.common.descriptors.HostStatus.Status.DOWN;
 import static com.spotify.helios.common.descriptors.HostStatus.Status.UP;
 import static com.spotify.helios.rollingupdate.DeploymentGroupEventFactory.RollingUpdateReason.HOSTS_CHANGED;
@@ -137,10 +151,16 @@ public class ZooKeeperMasterModel implements MasterModel {
   public static final TypeReference<Map<String, String>>
       STRING_MAP_TYPE =
       new TypeReference<Map<String, String>>() {};
+  public static final TypeReference<Map<JobId, ResourceUsage>>
+      RESOURCE_USAGE_TYPE =
+      new TypeReference<Map<JobId, ResourceUsage>>() {};
   public static final TypeReference<List<String>>
       STRING_LIST_TYPE =
       new TypeReference<List<String>>() {};
 
+  private static final int DEREGISTER_CONCURRENCY = 4;
+  private static final int DEREGISTER_OPERATIONS_PER_SECOND = 1000;
+
   private static final String DEPLOYMENT_GROUP_EVENTS_KAFKA_TOPIC = "HeliosDeploymentGroupEvents";
   private static final DeploymentGroupEventFactory DEPLOYMENT_GROUP_EVENT_FACTORY =
       new DeploymentGroupEventFactory();
@@ -148,6 +168,18 @@ public class ZooKeeperMasterModel implements MasterModel {
   private final ZooKeeperClientProvider provider;
   private final String name;
   private final KafkaSender kafkaSender;
+  private final PayloadFormat payloadFormat;
+  private final boolean shardJobs;
+
+  // Jobs are immutable, so the jobs compact task statuses refer to can be cached for good.
+  private final Cache<JobId, Job> resolvedJobs = CacheBuilder.newBuilder()
+      .maximumSize(10000)
+      .build();
+
+  private final JobIndex jobIndex = new JobIndex();
+
+  private final RateLimiter deregisterRateLimiter =
+      RateLimiter.create(DEREGISTER_OPERATIONS_PER_SECOND);
 
   /**
    * Constructor
@@ -158,9 +190,44 @@ public class ZooKeeperMasterModel implements MasterModel {
   public ZooKeeperMasterModel(final ZooKeeperClientProvider provider,
                               final String name,
                               final KafkaSender kafkaSender) {
+    this(provider, name, kafkaSender, PayloadFormat.JSON);
+  }
+
+  /**
+   * Constructor
+   * @param provider         {@link ZooKeeperClientProvider}
+   * @param name             The hostname of the machine running the {@link MasterModel}
+   * @param kafkaSender      {@link KafkaSender}
+   * @param payloadFormat    The {@link PayloadFormat} jobs, tasks, deployment groups and their
+   *                         hosts, statuses and rollout tasks are written in
+   */
+  public ZooKeeperMasterModel(final ZooKeeperClientProvider provider,
+                              final String name,
+                              final KafkaSender kafkaSender,
+                              final PayloadFormat payloadFormat) {
+    this(provider, name, kafkaSender, payloadFormat, false);
+  }
+
+  /**
+   * Constructor
+   * @param provider         {@link ZooKeeperClientProvider}
+   * @param name             The hostname of the machine running the {@link MasterModel}
+   * @param kafkaSender      {@link KafkaSender}
+   * @param payloadFormat    The {@link PayloadFormat} jobs, tasks, deployment groups and their
+   *                         hosts, statuses and rollout tasks are written in
+   * @param shardJobs        Whether new jobs are created in the sharded layout of /config/jobs,
+   *                         see {@link Paths}. Jobs are read from both layouts either way.
+   */
+  public ZooKeeperMasterModel(final ZooKeeperClientProvider provider,
+                              final String name,
+                              final KafkaSender kafkaSender,
+                              final PayloadFormat payloadFormat,
+                              final boolean shardJobs) {
     this.provider = Preconditions.checkNotNull(provider);
     this.name = Preconditions.checkNotNull(name);
     this.kafkaSender = Preconditions.checkNotNull(kafkaSender);
+    this.payloadFormat = Preconditions.checkNotNull(payloadFormat);
+    this.shardJobs = shardJobs;
   }
 
   /**
@@ -173,6 +240,7 @@ public class ZooKeeperMasterModel implements MasterModel {
     final ZooKeeperClient client = provider.get("registerHost");
     try {
       ZooKeeperRegistrarUtil.registerHost(client, Paths.configHostId(host), host, id);
+      ZooKeeperRegistrarUtil.cancelDeregistration(client, host);
     } catch (Exception e) {
       throw new HeliosRuntimeException("registering host " + host + " failed", e);
     }
@@ -193,6 +261,11 @@ public class ZooKeeperMasterModel implements MasterModel {
     }
   }
 
+  @Override
+  public String getHostsVersion() {
+    return childrenVersion("getHostsVersion", Paths.configHosts());
+  }
+
   /**
    * Returns a list of the host names of the currently running masters.
    */
@@ -224,6 +297,52 @@ public class ZooKeeperMasterModel implements MasterModel {
     ZooKeeperRegistrarUtil.deregisterHost(client, host);
   }
 
+  /**
+   * Deregisters hosts {@value #DEREGISTER_CONCURRENCY} at a time. All bulk deregistrations
+   * through this master share a limit of {@value #DEREGISTER_OPERATIONS_PER_SECOND} deletes a
+   * second, so that cleaning up after many dead hosts doesn't swamp ZooKeeper.
+   */
+  @Override
+  public Map<String, Exception> deregisterHosts(final List<String> hosts) {
+    final Map<String, Exception> failures = Maps.newLinkedHashMap();
+    if (hosts.isEmpty()) {
+      return failures;
+    }
+    final ZooKeeperClient client = provider.get("deregisterHosts");
+    final ExecutorService executor = Executors.newFixedThreadPool(
+        Math.min(DEREGISTER_CONCURRENCY, hosts.size()),
+        new ThreadFactoryBuilder().setNameFormat("deregister-hosts-%d").setDaemon(true).build());
+    try {
+      final Map<String, Future<?>> futures = Maps.newLinkedHashMap();
+      for (final String host : ImmutableSet.copyOf(hosts)) {
+        futures.put(host, executor.submit(() -> {
+          ZooKeeperRegistrarUtil.deregisterHost(client, host, deregisterRateLimiter);
+          return null;
+        }));
+      }
+      for (final Map.Entry<String, Future<?>> entry : futures.entrySet()) {
+        try {
+          entry.getValue().get();
+        } catch (ExecutionException e) {
+          final Throwable cause = e.getCause();
+          failures.put(entry.getKey(), cause instanceof Exception ? (Exception) cause : e);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          failures.put(entry.getKey(), e);
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    return failures;
+  }
+
+  @Override
+  public List<String> listDeregisteringHosts() {
+    final ZooKeeperClient client = provider.get("listDeregisteringHosts");
+    return ZooKeeperRegistrarUtil.listDeregisteringHosts(client);
+  }
+
   /**
    * Adds a job into the configuration.
    */
@@ -232,21 +351,28 @@ public class ZooKeeperMasterModel implements MasterModel {
     log.info("adding job: {}", job);
     final JobId id = job.getId();
     final UUID operationId = UUID.randomUUID();
-    final String creationPath = Paths.configJobCreation(id, operationId);
+    final String creationPath = Paths.configJobCreation(id, operationId, shardJobs);
     final ZooKeeperClient client = provider.get("addJob");
     try {
       try {
         client.ensurePath(Paths.historyJob(id));
-        client.transaction(create(Paths.configJob(id), job),
+        if (shardJobs) {
+          client.ensurePath(Paths.configJobShard(id));
+        }
+        // The job ref is the same in both layouts, so a job can't be created in both
+        client.transaction(create(Paths.configJob(id, shardJobs),
+                                  payloadFormat.encodeUnchecked(job)),
                            create(Paths.configJobRefShort(id), id),
-                           create(Paths.configJobHosts(id)),
+                           create(Paths.configJobHosts(id, shardJobs)),
                            create(creationPath),
                            // Touch the jobs root node so that its version is bumped on every job
                            // change down the tree. Effectively, make it that version == cVersion.
                            set(Paths.configJobs(), UUID.randomUUID().toString().getBytes()));
+        jobIndex.add(job);
       } catch (final NodeExistsException e) {
         if (client.exists(creationPath) != null) {
           // The job was created, we're done here
+          jobIndex.add(job);
           return;
         }
         throw new JobExistsException(id.toString());
@@ -306,8 +432,10 @@ public class ZooKeeperMasterModel implements MasterModel {
         try {
           byte[] data = client.getData(Paths.historyJobHostEventsTimestamp(
               jobId, h, Long.valueOf(event)));
-          final TaskStatus status = Json.read(data, TaskStatus.class);
-          jsEvents.add(new TaskStatusEvent(status, Long.valueOf(event), h));
+          final TaskStatus status = CompactTaskStatus.parse(data, jobResolver(client));
+          if (status != null) {
+            jsEvents.add(new TaskStatusEvent(status, Long.valueOf(event), h));
+          }
         } catch (NoNodeException e) { // ignore, it went away before we read it
         } catch (KeeperException | IOException e) {
           throw Throwables.propagate(e);
@@ -345,10 +473,11 @@ public class ZooKeeperMasterModel implements MasterModel {
         client.ensurePath(Paths.configDeploymentGroups());
         client.ensurePath(Paths.statusDeploymentGroups());
         client.transaction(
-            create(Paths.configDeploymentGroup(deploymentGroup.getName()), deploymentGroup),
+            create(Paths.configDeploymentGroup(deploymentGroup.getName()),
+                   payloadFormat.encodeUnchecked(deploymentGroup)),
             create(Paths.statusDeploymentGroup(deploymentGroup.getName())),
             create(Paths.statusDeploymentGroupHosts(deploymentGroup.getName()),
-                   Json.asBytesUnchecked(emptyList()))
+                   payloadFormat.encodeUnchecked(emptyList()))
         );
       } catch (final NodeExistsException e) {
         throw new DeploymentGroupExistsException(deploymentGroup.getName());
@@ -370,7 +499,7 @@ public class ZooKeeperMasterModel implements MasterModel {
       throws DeploymentGroupDoesNotExistException {
     try {
       final byte[] data = client.getData(Paths.configDeploymentGroup(name));
-      return Json.read(data, DeploymentGroup.class);
+      return PayloadFormat.read(data, DeploymentGroup.class);
     } catch (NoNodeException e) {
       throw new DeploymentGroupDoesNotExistException(name);
     } catch (KeeperException | IOException e) {
@@ -446,7 +575,7 @@ public class ZooKeeperMasterModel implements MasterModel {
         // exist. If it doesn't, then the DG was (likely) deleted.
         final Node node = client.getNode(Paths.statusDeploymentGroupHosts(groupName));
         version = Optional.of(node.getStat().getVersion());
-        curHosts = Json.read(node.getBytes(), new TypeReference<List<String>>() {});
+        curHosts = PayloadFormat.read(node.getBytes(), STRING_LIST_TYPE);
       } catch (JsonMappingException e) {
         curHosts = Collections.emptyList();
       } catch (NoNodeException e) {
@@ -457,7 +586,7 @@ public class ZooKeeperMasterModel implements MasterModel {
       if (!version.isPresent() || !hosts.equals(curHosts)) {
         // Node not present or hosts have changed
         final List<ZooKeeperOperation> ops = Lists.newArrayList();
-        ops.add(set(Paths.statusDeploymentGroupHosts(groupName), Json.asBytes(hosts)));
+        ops.add(set(Paths.statusDeploymentGroupHosts(groupName), payloadFormat.encode(hosts)));
 
         final DeploymentGroup deploymentGroup = getDeploymentGroup(groupName);
         ImmutableList<Map<String, Object>> events = ImmutableList.of();
@@ -508,7 +637,8 @@ public class ZooKeeperMasterModel implements MasterModel {
     final List<ZooKeeperOperation> operations = Lists.newArrayList();
     final ZooKeeperClient client = provider.get("rollingUpdate");
 
-    operations.add(set(Paths.configDeploymentGroup(updated.getName()), updated));
+    operations.add(set(Paths.configDeploymentGroup(updated.getName()),
+                       payloadFormat.encodeUnchecked(updated)));
 
     try {
       final RollingUpdateOp op = getInitRollingUpdateOps(updated, MANUAL, client);
@@ -550,7 +680,8 @@ public class ZooKeeperMasterModel implements MasterModel {
     }
 
     final RolloutPlanner rolloutPlanner = DefaultRolloutPlanner.of(deploymentGroup);
-    final List<RolloutTask> rolloutTasks = rolloutPlanner.plan(hostsAndStatuses);
+    final List<RolloutTask> rolloutTasks =
+        rolloutPlanner.plan(placementOrder(deploymentGroup, hostsAndStatuses));
     final DeploymentGroupTasks tasks = DeploymentGroupTasks.newBuilder()
         .setRolloutTasks(rolloutTasks)
         .setTaskIndex(0)
@@ -558,10 +689,32 @@ public class ZooKeeperMasterModel implements MasterModel {
         .build();
 
     final RollingUpdateOpFactory opFactory = new RollingUpdateOpFactory(
-        tasks, DEPLOYMENT_GROUP_EVENT_FACTORY);
+        tasks, DEPLOYMENT_GROUP_EVENT_FACTORY, payloadFormat);
     return opFactory.start(deploymentGroup, reason, zooKeeperClient);
   }
 
+  /**
+   * Orders the hosts of a deployment group so the hosts its job fits on, given the resources of
+   * the jobs already deployed there, are rolled out to first. The group's current deployments
+   * don't count, since the rollout replaces them.
+   */
+  private Map<String, HostStatus> placementOrder(final DeploymentGroup deploymentGroup,
+                                                 final Map<String, HostStatus> hostsAndStatuses) {
+    final Job job = deploymentGroup.getJobId() == null ? null : getJob(deploymentGroup.getJobId());
+    if (job == null) {
+      return hostsAndStatuses;
+    }
+    final PlacementEngine engine = new PlacementEngine(this::getJob);
+    final List<String> order = engine.order(
+        job, hostsAndStatuses,
+        deployment -> deploymentGroup.getName().equals(deployment.getDeploymentGroupName()));
+    final Map<String, HostStatus> ordered = Maps.newLinkedHashMap();
+    for (final String host : order) {
+      ordered.put(host, hostsAndStatuses.get(host));
+    }
+    return ordered;
+  }
+
   private Map<String, VersionedValue<DeploymentGroupTasks>> getDeploymentGroupTasks(
       final ZooKeeperClient client) {
     final String folder = Paths.statusDeploymentGroupTasks();
@@ -584,7 +737,7 @@ public class ZooKeeperMasterModel implements MasterModel {
             // This can happen because of ensurePath creates an empty node
             log.debug("Ignoring empty deployment group tasks {}", name);
           } else {
-            final DeploymentGroupTasks val = parse(data, DeploymentGroupTasks.class);
+            final DeploymentGroupTasks val = PayloadFormat.read(data, DeploymentGroupTasks.class);
             ret.put(name, VersionedValue.of(val, version));
           }
         } catch (NoNodeException e) {
@@ -638,7 +791,7 @@ public class ZooKeeperMasterModel implements MasterModel {
 
       try {
         final RollingUpdateOpFactory opFactory = new RollingUpdateOpFactory(
-            tasks, DEPLOYMENT_GROUP_EVENT_FACTORY);
+            tasks, DEPLOYMENT_GROUP_EVENT_FACTORY, payloadFormat);
         final RolloutTask task = tasks.getRolloutTasks().get(tasks.getTaskIndex());
         final RollingUpdateOp op = processRollingUpdateTask(
             client, opFactory, task, tasks.getDeploymentGroup());
@@ -885,7 +1038,7 @@ public class ZooKeeperMasterModel implements MasterModel {
       // That the set() is first in the list of operations is important because of the
       // kludgy error checking we do below to disambiguate "doesn't exist" failures from the race
       // condition mentioned below.
-      operations.add(set(statusPath, status));
+      operations.add(set(statusPath, payloadFormat.encodeUnchecked(status)));
 
       final Stat tasksStat = client.exists(tasksPath);
       if (tasksStat != null) {
@@ -938,7 +1091,7 @@ public class ZooKeeperMasterModel implements MasterModel {
         final String path = Paths.configDeploymentGroup(name);
         try {
           final byte[] data = client.getData(path);
-          final DeploymentGroup descriptor = parse(data, DeploymentGroup.class);
+          final DeploymentGroup descriptor = PayloadFormat.read(data, DeploymentGroup.class);
           descriptors.put(descriptor.getName(), descriptor);
         } catch (NoNodeException e) {
           // Ignore, the deployment group was deleted before we had a chance to read it.
@@ -970,7 +1123,7 @@ public class ZooKeeperMasterModel implements MasterModel {
         return null;
       }
 
-      return Json.read(bytes, DeploymentGroupStatus.class);
+      return PayloadFormat.read(bytes, DeploymentGroupStatus.class);
     } catch (NoNodeException e) {
       return null;
     } catch (KeeperException | IOException e) {
@@ -993,7 +1146,7 @@ public class ZooKeeperMasterModel implements MasterModel {
       final byte[] data = client.getData(Paths.statusDeploymentGroupHosts(name));
 
       if (data.length > 0) {
-        return Json.read(data, STRING_LIST_TYPE);
+        return PayloadFormat.read(data, STRING_LIST_TYPE);
       }
     } catch (NoNodeException e) {
       // not fatal
@@ -1017,10 +1170,14 @@ public class ZooKeeperMasterModel implements MasterModel {
 
 
   private Job getJob(final ZooKeeperClient client, final JobId id) {
-    final String path = Paths.configJob(id);
     try {
-      final byte[] data = client.getData(path);
-      return Json.read(data, Job.class);
+      byte[] data;
+      try {
+        data = client.getData(Paths.configJob(id, shardJobs));
+      } catch (NoNodeException e) {
+        data = client.getData(Paths.configJob(id, !shardJobs));
+      }
+      return PayloadFormat.read(data, Job.class);
     } catch (NoNodeException e) {
       // Return null to indicate that the job does not exist
       return null;
@@ -1029,28 +1186,96 @@ public class ZooKeeperMasterModel implements MasterModel {
     }
   }
 
+  /**
+   * Returns whether a job is kept in the sharded layout of /config/jobs. Jobs that don't exist
+   * are taken to be in the layout new jobs are created in.
+   */
+  private boolean isJobSharded(final ZooKeeperClient client, final JobId id)
+      throws KeeperException {
+    if (client.exists(Paths.configJob(id, shardJobs)) != null) {
+      return shardJobs;
+    }
+    return client.exists(Paths.configJob(id, !shardJobs)) != null ? !shardJobs : shardJobs;
+  }
+
+  /**
+   * Lists the jobs in both layouts of /config/jobs, along with whether each is sharded. The
+   * shards are listed all at once.
+   */
+  private Map<JobId, Boolean> listJobs(final ZooKeeperClient client) throws KeeperException {
+    final Map<JobId, Boolean> jobs = Maps.newHashMap();
+    final List<String> children;
+    try {
+      children = client.getChildren(Paths.configJobs());
+    } catch (NoNodeException e) {
+      return jobs;
+    }
+    final List<String> shards = Lists.newArrayList();
+    for (final String child : children) {
+      if (Paths.isConfigJobShard(child)) {
+        shards.add(Paths.configJobShard(child));
+      } else {
+        jobs.put(JobId.fromString(child), false);
+      }
+    }
+    for (final List<String> ids : client.getChildren(shards).values()) {
+      for (final String id : ids) {
+        jobs.put(JobId.fromString(id), true);
+      }
+    }
+    return jobs;
+  }
+
+  /**
+   * Jobs are immutable, so the set of job ids fully determines {@link #getJobs()}. The data of
+   * /config/jobs is rewritten whenever a job is added or removed, which covers sharded jobs whose
+   * changes don't show in the children of /config/jobs itself.
+   */
+  @Override
+  public String getJobsVersion() {
+    try {
+      final Stat stat = provider.get("getJobsVersion").exists(Paths.configJobs());
+      return stat == null
+             ? "0"
+             : Long.toHexString(stat.getCtime()) + "-"
+               + Long.toHexString(Math.max(stat.getPzxid(), stat.getMzxid()));
+    } catch (KeeperException e) {
+      throw new HeliosRuntimeException("getting version of " + Paths.configJobs() + " failed", e);
+    }
+  }
+
+  /**
+   * Returns a version of the children of a node, or "0" if it doesn't exist. The zxid of the last
+   * change to the children is combined with the creation time of the node, as zxids alone are
+   * likely to repeat across clusters, e.g. when a test cluster is recreated on the same address.
+   */
+  private String childrenVersion(final String tag, final String path) {
+    try {
+      final Stat stat = provider.get(tag).exists(path);
+      return stat == null
+             ? "0"
+             : Long.toHexString(stat.getCtime()) + "-" + Long.toHexString(stat.getPzxid());
+    } catch (KeeperException e) {
+      throw new HeliosRuntimeException("getting version of " + path + " failed", e);
+    }
+  }
+
   /**
    * Returns a {@link Map} of {@link JobId} to {@link Job} objects for all of the jobs known.
    */
   @Override
   public Map<JobId, Job> getJobs() {
     log.debug("getting jobs");
-    final String folder = Paths.configJobs();
     final ZooKeeperClient client = provider.get("getJobs");
     try {
-      final List<String> ids;
-      try {
-        ids = client.getChildren(folder);
-      } catch (NoNodeException e) {
-        return Maps.newHashMap();
-      }
+      final Map<JobId, Boolean> jobs = listJobs(client);
       final Map<JobId, Job> descriptors = Maps.newHashMap();
-      for (final String id : ids) {
-        final JobId jobId = JobId.fromString(id);
-        final String path = Paths.configJob(jobId);
+      for (final Map.Entry<JobId, Boolean> entry : jobs.entrySet()) {
+        final JobId jobId = entry.getKey();
+        final String path = Paths.configJob(jobId, entry.getValue());
         try {
           final byte[] data = client.getData(path);
-          final Job descriptor = parse(data, Job.class);
+          final Job descriptor = PayloadFormat.read(data, Job.class);
           descriptors.put(descriptor.getId(), descriptor);
         } catch (NoNodeException e) {
           // Ignore, the job was deleted before we had a chance to read it.
@@ -1063,6 +1288,54 @@ public class ZooKeeperMasterModel implements MasterModel {
     }
   }
 
+  @Override
+  public List<JobId> getExpiredJobs(final long time) {
+    syncJobIndex();
+    return jobIndex.expiredAt(time);
+  }
+
+  @Override
+  public List<JobId> getInactiveJobs(final long time) {
+    syncJobIndex();
+    return jobIndex.inactiveSince(time);
+  }
+
+  @Override
+  public void recordJobActivity(final JobId jobId, final long time) {
+    jobIndex.touch(jobId, time);
+  }
+
+  /**
+   * Brings the job index up to date with jobs created and removed through other masters. Only the
+   * jobs the index doesn't know about yet are read, so apart from the first call this is cheap.
+   */
+  private void syncJobIndex() {
+    // Read the version before the jobs so that a concurrent change is picked up next time
+    final String version = getJobsVersion();
+    if (version.equals(jobIndex.version())) {
+      return;
+    }
+    final ZooKeeperClient client = provider.get("syncJobIndex");
+    final Set<JobId> jobIds;
+    try {
+      jobIds = listJobs(client).keySet();
+    } catch (KeeperException e) {
+      throw new HeliosRuntimeException("listing jobs failed", e);
+    }
+
+    final Set<JobId> indexed = jobIndex.jobs();
+    for (final JobId jobId : Sets.difference(jobIds, indexed)) {
+      final Job job = getJob(client, jobId);
+      if (job != null) {
+        jobIndex.add(job);
+      }
+    }
+    for (final JobId jobId : Sets.difference(indexed, jobIds)) {
+      jobIndex.remove(jobId);
+    }
+    jobIndex.setVersion(version);
+  }
+
   /**
    * Returns the current job status as a {@link JobStatus} object.
    */
@@ -1107,7 +1380,7 @@ public class ZooKeeperMasterModel implements MasterModel {
       throws JobDoesNotExistException {
     final List<String> hosts;
     try {
-      hosts = client.getChildren(Paths.configJobHosts(jobId));
+      hosts = client.getChildren(Paths.configJobHosts(jobId, isJobSharded(client, jobId)));
     } catch (NoNodeException e) {
       throw new JobDoesNotExistException(jobId);
     } catch (KeeperException e) {
@@ -1142,17 +1415,19 @@ public class ZooKeeperMasterModel implements MasterModel {
     // TODO (dano): handle retry failures
     try {
       final ImmutableList.Builder<ZooKeeperOperation> operations = ImmutableList.builder();
-      final UUID jobCreationOperationId = getJobCreation(client, id);
+      final boolean sharded = isJobSharded(client, id);
+      final UUID jobCreationOperationId = getJobCreation(client, id, sharded);
       if (jobCreationOperationId != null) {
-        operations.add(delete(Paths.configJobCreation(id, jobCreationOperationId)));
+        operations.add(delete(Paths.configJobCreation(id, jobCreationOperationId, sharded)));
       }
-      operations.add(delete(Paths.configJobHosts(id)),
+      operations.add(delete(Paths.configJobHosts(id, sharded)),
                      delete(Paths.configJobRefShort(id)),
-                     delete(Paths.configJob(id)),
+                     delete(Paths.configJob(id, sharded)),
                      // Touch the jobs root node so that its version is bumped on every job
                      // change down the tree. Effectively, make it that version == cVersion.
                      set(Paths.configJobs(), UUID.randomUUID().toString().getBytes()));
       client.transaction(operations.build());
+      jobIndex.remove(id);
     } catch (final NoNodeException e) {
       throw new JobDoesNotExistException(id);
     } catch (final NotEmptyException e) {
@@ -1173,9 +1448,10 @@ public class ZooKeeperMasterModel implements MasterModel {
     return job;
   }
 
-  private UUID getJobCreation(final ZooKeeperClient client, final JobId id)
+  private UUID getJobCreation(final ZooKeeperClient client, final JobId id,
+                              final boolean sharded)
       throws KeeperException {
-    final String parent = Paths.configHostJobCreationParent(id);
+    final String parent = Paths.configJob(id, sharded);
     final List<String> children = client.getChildren(parent);
     for (final String child : children) {
       if (Paths.isConfigJobCreation(child)) {
@@ -1205,13 +1481,30 @@ public class ZooKeeperMasterModel implements MasterModel {
       throws JobDoesNotExistException, JobAlreadyDeployedException, HostNotFoundException,
              JobPortAllocationConflictException, TokenVerificationException {
     final ZooKeeperClient client = provider.get("deployJob");
-    deployJobRetry(client, host, deployment, 0, token);
+    try {
+      deployJobRetry(client, host, deployment, 0, token, Optional.<Integer>absent());
+    } catch (HostChangedException e) {
+      // Only thrown for deployments at a version
+      throw Throwables.propagate(e);
+    }
+  }
+
+  @Override
+  public void deployJob(final String host, final Deployment deployment, final String token,
+                        final int version)
+      throws JobDoesNotExistException, JobAlreadyDeployedException, HostNotFoundException,
+             JobPortAllocationConflictException, TokenVerificationException,
+             HostChangedException {
+    final ZooKeeperClient client = provider.get("deployJob");
+    deployJobRetry(client, host, deployment, 0, token, Optional.of(version));
   }
 
   private void deployJobRetry(final ZooKeeperClient client, final String host,
-                              final Deployment deployment, int count, final String token)
+                              final Deployment deployment, int count, final String token,
+                              final Optional<Integer> version)
       throws JobDoesNotExistException, JobAlreadyDeployedException, HostNotFoundException,
-             JobPortAllocationConflictException, TokenVerificationException {
+             JobPortAllocationConflictException, TokenVerificationException,
+             HostChangedException {
     if (count == 3) {
       throw new HeliosRuntimeException("3 failures (possibly concurrent modifications) while " +
                                        "deploying. Giving up.");
@@ -1227,7 +1520,13 @@ public class ZooKeeperMasterModel implements MasterModel {
     verifyToken(token, job);
 
     final UUID operationId = UUID.randomUUID();
-    final String jobPath = Paths.configJob(id);
+    final boolean sharded;
+    try {
+      sharded = isJobSharded(client, id);
+    } catch (KeeperException e) {
+      throw new HeliosRuntimeException("locating job " + id + " failed", e);
+    }
+    final String jobPath = Paths.configJob(id, sharded);
 
     try {
       Paths.configHostJob(host, id);
@@ -1251,7 +1550,11 @@ public class ZooKeeperMasterModel implements MasterModel {
     final List<ZooKeeperOperation> operations = Lists.newArrayList(
         check(jobPath),
         create(portNodes),
-        create(Paths.configJobHost(id, host)));
+        create(Paths.configJobHost(id, host, sharded)));
+    if (version.isPresent()) {
+      operations.add(check(Paths.configHostJobs(host), version.get()));
+    }
+    operations.add(touchHostJobs(host));
 
     // Attempt to read a task here.
     try {
@@ -1259,7 +1562,7 @@ public class ZooKeeperMasterModel implements MasterModel {
       // if we get here the node exists already
       throw new JobAlreadyDeployedException(host, id);
     } catch (NoNodeException e) {
-      operations.add(create(taskPath, task));
+      operations.add(create(taskPath, payloadFormat.encodeUnchecked(task)));
       operations.add(create(taskCreationPath));
     } catch (KeeperException e) {
       throw new HeliosRuntimeException("reading existing task description failed", e);
@@ -1268,6 +1571,7 @@ public class ZooKeeperMasterModel implements MasterModel {
     // TODO (dano): Failure handling is racy wrt agent and job modifications.
     try {
       client.transaction(operations);
+      jobIndex.touch(id, System.currentTimeMillis());
       log.info("deployed {}: {} (retry={})", deployment, host, count);
     } catch (NoNodeException e) {
       // Either the job, the host or the task went away
@@ -1275,12 +1579,15 @@ public class ZooKeeperMasterModel implements MasterModel {
       assertHostExists(client, host);
       // If the job and host still exists, we likely tried to redeploy a job that had an UNDEPLOY
       // goal and lost the race with the agent removing the task before we could set it. Retry.
-      deployJobRetry(client, host, deployment, count + 1, token);
+      deployJobRetry(client, host, deployment, count + 1, token, version);
+    } catch (BadVersionException e) {
+      throw new HostChangedException(host);
     } catch (NodeExistsException e) {
       // Check for conflict due to transaction retry
       try {
         if (client.exists(taskCreationPath) != null) {
           // Our creation operation node existed, we're done here
+          jobIndex.touch(id, System.currentTimeMillis());
           return;
         }
       } catch (KeeperException ex) {
@@ -1310,8 +1617,8 @@ public class ZooKeeperMasterModel implements MasterModel {
   private void assertJobExists(final ZooKeeperClient client, final JobId id)
       throws JobDoesNotExistException {
     try {
-      final String path = Paths.configJob(id);
-      if (client.stat(path) == null) {
+      if (client.stat(Paths.configJob(id, true)) == null
+          && client.stat(Paths.configJob(id, false)) == null) {
         throw new JobDoesNotExistException(id);
       }
     } catch (KeeperException e) {
@@ -1367,7 +1674,7 @@ public class ZooKeeperMasterModel implements MasterModel {
                                existingDeployment.getDeployerMaster(),
                                existingDeployment.getDeploymentGroupName());
     try {
-      client.setData(path, task.toJsonBytes());
+      client.setData(path, payloadFormat.encodeUnchecked(task));
     } catch (Exception e) {
       throw new HeliosRuntimeException("updating deployment " + deployment +
                                        " on host " + host + " failed", e);
@@ -1405,7 +1712,7 @@ public class ZooKeeperMasterModel implements MasterModel {
     final ZooKeeperClient client = provider.get("getDeployment");
     try {
       final byte[] data = client.getData(path);
-      final Task task = parse(data, Task.class);
+      final Task task = PayloadFormat.read(data, Task.class);
       return Deployment.of(jobId, task.getGoal(), task.getDeployerUser(), task.getDeployerMaster(),
                            task.getDeploymentGroupName());
     } catch (KeeperException.NoNodeException e) {
@@ -1440,6 +1747,7 @@ public class ZooKeeperMasterModel implements MasterModel {
     final Map<JobId, TaskStatus> statuses = getTaskStatuses(client, host);
     final Map<String, String> environment = getEnvironment(client, host);
     final Map<String, String> labels = getLabels(client, host);
+    final Map<JobId, ResourceUsage> resourceUsage = getResourceUsage(client, host);
 
     return HostStatus.newBuilder()
         .setJobs(tasks)
@@ -1449,14 +1757,82 @@ public class ZooKeeperMasterModel implements MasterModel {
         .setStatus(up ? UP : DOWN)
         .setEnvironment(environment)
         .setLabels(labels)
+        .setResourceUsage(resourceUsage)
         .build();
   }
 
+  @Override
+  public Map<String, VersionedValue<HostStatus>> getHostPlacementStatuses() {
+    final ZooKeeperClient client = provider.get("getHostPlacementStatuses");
+    try {
+      final List<String> hosts = client.getChildren(Paths.configHosts());
+
+      // The versions are read before the deployments, so a job deployed in between makes a
+      // deployment at the version read here fail rather than overpack the host.
+      final Map<String, Node> versions = client.getNodes(
+          Lists.transform(hosts, Paths::configHostJobs));
+      final Map<String, List<String>> jobIds = client.getChildren(versions.keySet());
+
+      final List<String> paths = Lists.newArrayList();
+      for (final String host : hosts) {
+        final List<String> ids = jobIds.get(Paths.configHostJobs(host));
+        if (ids == null) {
+          continue;
+        }
+        for (final String jobId : ids) {
+          paths.add(Paths.configHostJob(host, JobId.fromString(jobId)));
+        }
+        paths.add(Paths.statusHostInfo(host));
+        paths.add(Paths.statusHostLabels(host));
+        paths.add(Paths.statusHostUp(host));
+      }
+      final Map<String, Node> nodes = client.getNodes(paths);
+
+      final Map<String, VersionedValue<HostStatus>> statuses = Maps.newLinkedHashMap();
+      for (final String host : hosts) {
+        final Node version = versions.get(Paths.configHostJobs(host));
+        final List<String> ids = jobIds.get(Paths.configHostJobs(host));
+        if (version == null || ids == null) {
+          // The host is being registered or deregistered
+          continue;
+        }
+
+        final Map<JobId, Deployment> jobs = Maps.newHashMap();
+        for (final String jobIdString : ids) {
+          final JobId jobId = JobId.fromString(jobIdString);
+          final Node node = nodes.get(Paths.configHostJob(host, jobId));
+          if (node != null) {
+            final Task task = PayloadFormat.read(node.getBytes(), Task.class);
+            jobs.put(jobId, Deployment.of(jobId, task.getGoal(), task.getDeployerUser(),
+                                          task.getDeployerMaster(),
+                                          task.getDeploymentGroupName()));
+          }
+        }
+        final Node hostInfo = nodes.get(Paths.statusHostInfo(host));
+        final Node labels = nodes.get(Paths.statusHostLabels(host));
+
+        final HostStatus status = HostStatus.newBuilder()
+            .setJobs(jobs)
+            .setStatuses(EMPTY_STATUSES)
+            .setHostInfo(hostInfo == null
+                          ? null : PayloadFormat.read(hostInfo.getBytes(), HOST_INFO_TYPE))
+            .setStatus(nodes.containsKey(Paths.statusHostUp(host)) ? UP : DOWN)
+            .setLabels(labels == null
+                       ? null : PayloadFormat.read(labels.getBytes(), STRING_MAP_TYPE))
+            .build();
+        statuses.put(host, VersionedValue.of(status, version.getStat().getVersion()));
+      }
+      return statuses;
+    } catch (KeeperException | IOException e) {
+      throw new HeliosRuntimeException("getting host placement statuses failed", e);
+    }
+  }
+
   private <T> T tryGetEntity(final ZooKeeperClient client, String path, TypeReference<T> type,
                              String name) {
     try {
       final byte[] data = client.getData(path);
-      return Json.read(data, type);
+      return PayloadFormat.read(data, type);
     } catch (NoNodeException e) {
       return null;
     } catch (KeeperException | IOException e) {
@@ -1472,6 +1848,12 @@ public class ZooKeeperMasterModel implements MasterModel {
     return tryGetEntity(client, Paths.statusHostLabels(host), STRING_MAP_TYPE, "labels");
   }
 
+  private Map<JobId, ResourceUsage> getResourceUsage(final ZooKeeperClient client,
+                                                     final String host) {
+    return tryGetEntity(client, Paths.statusHostResourceUsage(host), RESOURCE_USAGE_TYPE,
+                        "resource usage");
+  }
+
   private AgentInfo getAgentInfo(final ZooKeeperClient client, final String host) {
     return tryGetEntity(client, Paths.statusHostAgentInfo(host), AGENT_INFO_TYPE, "agent info");
   }
@@ -1535,7 +1917,7 @@ public class ZooKeeperMasterModel implements MasterModel {
     final String containerPath = Paths.statusHostJob(host, jobId);
     try {
       final byte[] data = client.getData(containerPath);
-      return parse(data, TaskStatus.class);
+      return CompactTaskStatus.parse(data, jobResolver(client));
     } catch (NoNodeException ignored) {
       return null;
     } catch (KeeperException | IOException e) {
@@ -1544,6 +1926,22 @@ public class ZooKeeperMasterModel implements MasterModel {
     }
   }
 
+  private CompactTaskStatus.JobResolver jobResolver(final ZooKeeperClient client) {
+    return new CompactTaskStatus.JobResolver() {
+      @Override
+      public Job resolve(final JobId jobId) {
+        Job job = resolvedJobs.getIfPresent(jobId);
+        if (job == null) {
+          job = getJob(client, jobId);
+          if (job != null) {
+            resolvedJobs.put(jobId, job);
+          }
+        }
+        return job;
+      }
+    };
+  }
+
   private Map<JobId, Deployment> getTasks(final ZooKeeperClient client, final String host) {
     final Map<JobId, Deployment> jobs = Maps.newHashMap();
     try {
@@ -1560,7 +1958,7 @@ public class ZooKeeperMasterModel implements MasterModel {
         final String containerPath = Paths.configHostJob(host, jobId);
         try {
           final byte[] data = client.getData(containerPath);
-          final Task task = parse(data, Task.class);
+          final Task task = PayloadFormat.read(data, Task.class);
           jobs.put(jobId, Deployment.of(jobId, task.getGoal(), task.getDeployerUser(),
                                         task.getDeployerMaster(), task.getDeploymentGroupName()));
         } catch (KeeperException.NoNodeException ignored) {
@@ -1607,7 +2005,7 @@ public class ZooKeeperMasterModel implements MasterModel {
     try {
       // use listRecursive to remove both job node and its child creation node
       final List<String> nodes = newArrayList(reverse(client.listRecursive(configHostJobPath)));
-      nodes.add(Paths.configJobHost(jobId, host));
+      nodes.add(Paths.configJobHost(jobId, host, isJobSharded(client, jobId)));
 
       final List<Integer> staticPorts = staticPorts(job);
       for (int port : staticPorts) {
@@ -1615,6 +2013,7 @@ public class ZooKeeperMasterModel implements MasterModel {
       }
 
       client.transaction(delete(nodes));
+      jobIndex.touch(jobId, System.currentTimeMillis());
 
     } catch (NoNodeException e) {
       // This method is racy since it's possible someone undeployed the job after we called
@@ -1646,7 +2045,7 @@ public class ZooKeeperMasterModel implements MasterModel {
     try {
       // use listRecursive to remove both job node and its child creation node
       final List<String> nodes = newArrayList(reverse(client.listRecursive(configHostJobPath)));
-      nodes.add(Paths.configJobHost(jobId, host));
+      nodes.add(Paths.configJobHost(jobId, host, isJobSharded(client, jobId)));
 
       final List<Integer> staticPorts = staticPorts(job);
       for (int port : staticPorts) {
@@ -1681,7 +2080,13 @@ public class ZooKeeperMasterModel implements MasterModel {
     verifyToken(token, job);
 
     final UUID operationId = UUID.randomUUID();
-    final String jobPath = Paths.configJob(id);
+    final boolean sharded;
+    try {
+      sharded = isJobSharded(client, id);
+    } catch (KeeperException e) {
+      throw new HeliosRuntimeException("locating job " + id + " failed", e);
+    }
+    final String jobPath = Paths.configJob(id, sharded);
     final String taskPath = Paths.configHostJob(host, id);
     final String taskCreationPath = Paths.configHostJobCreation(host, id, operationId);
 
@@ -1698,7 +2103,8 @@ public class ZooKeeperMasterModel implements MasterModel {
     final List<ZooKeeperOperation> operations = Lists.newArrayList(
         check(jobPath),
         create(portNodes),
-        create(Paths.configJobHost(id, host)));
+        create(Paths.configJobHost(id, host, sharded)),
+        touchHostJobs(host));
 
     // Attempt to read a task here.
     try {
@@ -1712,7 +2118,7 @@ public class ZooKeeperMasterModel implements MasterModel {
       for (final int port : staticPorts) {
         checkForPortConflicts(client, host, port, id);
       }
-      operations.add(create(taskPath, task));
+      operations.add(create(taskPath, payloadFormat.encodeUnchecked(task)));
       operations.add(create(taskCreationPath));
     } catch (KeeperException e) {
       throw new HeliosRuntimeException("reading existing task description failed", e);
@@ -1721,6 +2127,14 @@ public class ZooKeeperMasterModel implements MasterModel {
     return ImmutableList.copyOf(operations);
   }
 
+  /**
+   * Bumps the version of the deployments on a host, which {@link #getHostPlacementStatuses()}
+   * reports, so placements made at an older version fail.
+   */
+  private static ZooKeeperOperation touchHostJobs(final String host) {
+    return set(Paths.configHostJobs(host), new byte[0]);
+  }
+
   private static void verifyToken(final String token, final Job job)
       throws TokenVerificationException {
     checkNotNull(token, "token");
@@ -1738,7 +2152,7 @@ public class ZooKeeperMasterModel implements MasterModel {
         return;
       }
       final byte[] b = client.getData(path);
-      final JobId existingJobId = parse(b, JobId.class);
+      final JobId existingJobId = PayloadFormat.read(b, JobId.class);
       throw new JobPortAllocationConflictException(jobId, existingJobId, host, port);
     } catch (KeeperException | IOException ex) {
       throw new HeliosRuntimeException("checking port allocations failed", ex);
@@ -22,6 +22,7 @@ import javax.ws.rs.WebApplicationException;
 import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
 import static javax.ws.rs.core.Response.Status.NOT_FOUND;
 import static javax.ws.rs.core.Response.Status.FORBIDDEN;
+import static javax.ws.rs.core.Response.Status.SERVICE_UNAVAILABLE;
 import static javax.ws.rs.core.Response.status;
 
 /**
@@ -52,4 +53,8 @@ public class Responses {
   public static WebApplicationException forbidden() {
     return new WebApplicationException(FORBIDDEN);
   }
+
+  public static WebApplicationException serviceUnavailable() {
+    return new WebApplicationException(SERVICE_UNAVAILABLE);
+  }
 }
@@ -20,6 +20,7 @@ package com.spotify.helios.master.metrics;
 import com.google.common.collect.Maps;
 
 import com.spotify.helios.servicescommon.statistics.MasterMetrics;
+import com.spotify.helios.servicescommon.statistics.RequestTrace;
 import com.sun.jersey.api.core.HttpContext;
 import com.sun.jersey.api.model.AbstractResourceMethod;
 import com.sun.jersey.spi.dispatch.RequestDispatcher;
@@ -28,6 +29,8 @@ import java.util.concurrent.ConcurrentMap;
 
 import javax.ws.rs.WebApplicationException;
 
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
 public class ReportingResourceMethodDispatcher implements RequestDispatcher {
 
   private final RequestDispatcher dispatcher;
@@ -44,6 +47,7 @@ public class ReportingResourceMethodDispatcher implements RequestDispatcher {
   public void dispatch(final Object resource, final HttpContext context) {
     final AbstractResourceMethod resourceMethod = context.getUriInfo().getMatchedMethod();
     final String key = getKey(resourceMethod);
+    final long start = System.nanoTime();
     try {
       dispatcher.dispatch(resource, context);
       metrics.success(key);
@@ -60,6 +64,11 @@ public class ReportingResourceMethodDispatcher implements RequestDispatcher {
     } catch (Exception e) {
       metrics.failure(key);
       throw e;
+    } finally {
+      final RequestTrace trace = RequestTrace.current();
+      if (trace != null) {
+        trace.handled(key, System.nanoTime() - start, NANOSECONDS);
+      }
     }
   }
 
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.master.metrics;
+
+import com.spotify.helios.servicescommon.statistics.MasterMetrics;
+import com.spotify.helios.servicescommon.statistics.RequestTrace;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Traces every API request, see {@link RequestTrace}, and reports the trace to
+ * {@link MasterMetrics} once the response has been written. Requests slower than the threshold are
+ * logged with their ZooKeeper operations.
+ *
+ * The resource method that handled the request is filled in by the
+ * {@link ReportingResourceMethodDispatcher}, so requests that never reach a resource aren't
+ * reported.
+ */
+public class RequestTracingFilter implements Filter {
+
+  private static final Logger log = LoggerFactory.getLogger(RequestTracingFilter.class);
+
+  private final MasterMetrics metrics;
+  private final long slowRequestNanos;
+
+  /**
+   * @param metrics Where to report the traces.
+   * @param slowRequestMillis Requests that take at least this long are logged. Zero or less to
+   *                          log no requests.
+   */
+  public RequestTracingFilter(final MasterMetrics metrics, final long slowRequestMillis) {
+    this.metrics = metrics;
+    this.slowRequestNanos = slowRequestMillis > 0 ? MILLISECONDS.toNanos(slowRequestMillis)
+                                                  : Long.MAX_VALUE;
+  }
+
+  @Override
+  public void doFilter(final ServletRequest request, final ServletResponse response,
+                       final FilterChain chain) throws IOException, ServletException {
+    final RequestTrace trace = RequestTrace.start();
+    try {
+      chain.doFilter(request, response);
+    } finally {
+      trace.finish();
+      if (trace.getEndpoint() != null) {
+        metrics.requestTrace(trace);
+        if (trace.getTotalNanos() >= slowRequestNanos) {
+          log.warn("slow request: {}", trace);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void init(final FilterConfig filterConfig) throws ServletException {}
+
+  @Override
+  public void destroy() {}
+}
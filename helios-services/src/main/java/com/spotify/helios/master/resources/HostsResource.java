@@ -23,6 +23,7 @@ import com.google.common.collect.Maps;
 import com.codahale.metrics.annotation.ExceptionMetered;
 import com.codahale.metrics.annotation.Timed;
 import com.spotify.helios.common.descriptors.Deployment;
+import com.spotify.helios.common.descriptors.HostLiveness;
 import com.spotify.helios.common.descriptors.HostStatus;
 import com.spotify.helios.common.descriptors.JobId;
 import com.spotify.helios.common.protocol.HostDeregisterResponse;
@@ -30,6 +31,7 @@ import com.spotify.helios.common.protocol.HostRegisterResponse;
 import com.spotify.helios.common.protocol.JobDeployResponse;
 import com.spotify.helios.common.protocol.JobUndeployResponse;
 import com.spotify.helios.common.protocol.SetGoalResponse;
+import com.spotify.helios.master.HostLivenessTracker;
 import com.spotify.helios.master.HostNotFoundException;
 import com.spotify.helios.master.HostStillInUseException;
 import com.spotify.helios.master.JobAlreadyDeployedException;
@@ -56,6 +58,9 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
@@ -68,6 +73,7 @@ import static com.spotify.helios.common.protocol.JobUndeployResponse.Status.OK;
 import static com.spotify.helios.master.http.Responses.badRequest;
 import static com.spotify.helios.master.http.Responses.forbidden;
 import static com.spotify.helios.master.http.Responses.notFound;
+import static com.spotify.helios.master.http.Responses.serviceUnavailable;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 
 @Path("/hosts")
@@ -75,21 +81,50 @@ public class HostsResource {
   private static final Logger log = LoggerFactory.getLogger(HostsResource.class);
 
   private final MasterModel model;
+  private final HostLivenessTracker hostLiveness;
 
-  public HostsResource(final MasterModel model) {
+  public HostsResource(final MasterModel model, final HostLivenessTracker hostLiveness) {
     this.model = model;
+    this.hostLiveness = hostLiveness;
   }
 
   /**
-   * Returns the list of hostnames of known hosts/agents.
+   * Returns the list of hostnames of known hosts/agents. The response is tagged with an ETag so
+   * that clients holding a cached copy can revalidate it with If-None-Match.
    * @return The list of hostnames.
    */
   @GET
   @Produces(APPLICATION_JSON)
   @Timed
   @ExceptionMetered
-  public List<String> list() {
-    return model.listHosts();
+  public Response list(@Context final Request request) {
+    // Read the version before the hosts so that a concurrent change results in a stale tag
+    // rather than a stale list.
+    final EntityTag tag = new EntityTag(model.getHostsVersion());
+    final Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+    if (notModified != null) {
+      return notModified.build();
+    }
+    final List<String> hosts = model.listHosts();
+    return Response.ok(hosts).tag(tag).build();
+  }
+
+  /**
+   * Returns whether each known host is up, and when it was last heard from. Much cheaper than
+   * asking for the statuses of all hosts. Unavailable until the master has read the liveness of
+   * every host after starting.
+   * @return The liveness of each host, by hostname.
+   */
+  @GET
+  @Path("/liveness")
+  @Produces(APPLICATION_JSON)
+  @Timed
+  @ExceptionMetered
+  public Map<String, HostLiveness> liveness() {
+    if (!hostLiveness.isInitialized()) {
+      throw serviceUnavailable();
+    }
+    return hostLiveness.getHosts();
   }
 
   /**
@@ -140,6 +175,38 @@ public class HostsResource {
     }
   }
 
+  /**
+   * Deregisters several hosts from the cluster. Hosts are deregistered a few at a time, and a
+   * deregistration that fails part way is picked up again when the host is next deregistered.
+   * @param hosts The hosts to deregister.
+   * @return The result for each host.
+   */
+  @POST
+  @Path("/deregister")
+  @Produces(APPLICATION_JSON)
+  @Timed
+  @ExceptionMetered
+  public Map<String, HostDeregisterResponse> deregister(final List<String> hosts) {
+    final Map<String, Exception> failures = model.deregisterHosts(hosts);
+    final Map<String, HostDeregisterResponse> responses = Maps.newLinkedHashMap();
+    for (final String host : hosts) {
+      final Exception failure = failures.get(host);
+      final HostDeregisterResponse.Status status;
+      if (failure == null) {
+        status = HostDeregisterResponse.Status.OK;
+      } else if (failure instanceof HostNotFoundException) {
+        status = HostDeregisterResponse.Status.NOT_FOUND;
+      } else if (failure instanceof HostStillInUseException) {
+        status = HostDeregisterResponse.Status.JOBS_STILL_DEPLOYED;
+      } else {
+        log.warn("failed to deregister host {}", host, failure);
+        status = HostDeregisterResponse.Status.FAILED;
+      }
+      responses.put(host, new HostDeregisterResponse(status, host));
+    }
+    return responses;
+  }
+
   /**
    * Returns various status information about the host.
    * @param host The host id.
@@ -154,6 +221,9 @@ public class HostsResource {
   public Optional<HostStatus> hostStatus(
       @PathParam("id") final String host,
       @QueryParam("status") @DefaultValue("") final String statusFilter) {
+    if (!mayHaveStatus(host, statusFilter)) {
+      return Optional.absent();
+    }
     final HostStatus status = model.getHostStatus(host);
     if (status != null &&
         (isNullOrEmpty(statusFilter) || statusFilter.equals(status.getStatus().toString()))) {
@@ -179,6 +249,9 @@ public class HostsResource {
       @QueryParam("status") @DefaultValue("") final String statusFilter) {
     final Map<String, HostStatus> statuses = Maps.newHashMap();
     for (final String current : hosts) {
+      if (!mayHaveStatus(current, statusFilter)) {
+        continue;
+      }
       final HostStatus status = model.getHostStatus(current);
       if (status != null) {
         if (isNullOrEmpty(statusFilter) || statusFilter.equals(status.getStatus().toString())) {
@@ -189,6 +262,18 @@ public class HostsResource {
     return statuses;
   }
 
+  /**
+   * Returns false if the liveness of the host shows it can't match the status filter, so that its
+   * full status doesn't have to be read. Hosts the tracker doesn't know about yet may match.
+   */
+  private boolean mayHaveStatus(final String host, final String statusFilter) {
+    if (isNullOrEmpty(statusFilter)) {
+      return true;
+    }
+    final HostLiveness liveness = hostLiveness.get(host);
+    return liveness == null || statusFilter.equals(liveness.getStatus().toString());
+  }
+
   /**
    * Sets the deployment of the job identified by its {@link JobId} on the host named by
    * {@code host} to {@code deployment}.
@@ -17,25 +17,40 @@
 
 package com.spotify.helios.master.resources;
 
+import com.google.common.base.Function;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 import com.codahale.metrics.annotation.ExceptionMetered;
 import com.codahale.metrics.annotation.Timed;
 import com.spotify.helios.common.Clock;
+import com.spotify.helios.common.HeliosRuntimeException;
 import com.spotify.helios.common.SystemClock;
 import com.spotify.helios.common.JobValidator;
+import com.spotify.helios.common.descriptors.Deployment;
+import com.spotify.helios.common.descriptors.HostStatus;
 import com.spotify.helios.common.descriptors.Job;
 import com.spotify.helios.common.descriptors.JobId;
 import com.spotify.helios.common.descriptors.JobStatus;
 import com.spotify.helios.common.protocol.CreateJobResponse;
 import com.spotify.helios.common.protocol.JobDeleteResponse;
+import com.spotify.helios.common.protocol.JobPlacementRequest;
+import com.spotify.helios.common.protocol.JobPlacementResponse;
+import com.spotify.helios.master.HostChangedException;
+import com.spotify.helios.master.HostNotFoundException;
+import com.spotify.helios.master.JobAlreadyDeployedException;
 import com.spotify.helios.master.JobDoesNotExistException;
 import com.spotify.helios.master.JobExistsException;
+import com.spotify.helios.master.JobNotDeployedException;
+import com.spotify.helios.master.JobPortAllocationConflictException;
 import com.spotify.helios.master.JobStillDeployedException;
 import com.spotify.helios.master.MasterModel;
+import com.spotify.helios.master.PlacementEngine;
 import com.spotify.helios.master.TokenVerificationException;
+import com.spotify.helios.rollingupdate.RollingUpdateService.HostMatcher;
+import com.spotify.helios.servicescommon.VersionedValue;
 import com.spotify.helios.servicescommon.statistics.MasterMetrics;
 import com.sun.jersey.api.core.InjectParam;
 
@@ -43,6 +58,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -56,6 +72,11 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.GenericEntity;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
 
 import static com.spotify.helios.common.protocol.CreateJobResponse.Status.INVALID_JOB_DEFINITION;
 import static com.spotify.helios.common.protocol.CreateJobResponse.Status.JOB_ALREADY_EXISTS;
@@ -71,6 +92,8 @@ public class JobsResource {
 
   private static final JobValidator JOB_VALIDATOR = new JobValidator();
 
+  private static final int MAX_PLACEMENT_ATTEMPTS = 3;
+
   private final MasterModel model;
   private final MasterMetrics metrics;
   private Clock clock = new SystemClock();
@@ -83,6 +106,8 @@ public class JobsResource {
   /**
    * Returns a {@link Map} of job id to job definition for all jobs known.  If the query
    * parameter {@code q} is specified it will only return jobs whose job id contains the string.
+   * The response is tagged with an ETag so that clients holding a cached copy can revalidate it
+   * with If-None-Match.
    *
    * @param q The query string.
    * @return A map of Job IDs to Jobs.
@@ -91,24 +116,32 @@ public class JobsResource {
   @Produces(APPLICATION_JSON)
   @Timed
   @ExceptionMetered
-  public Map<JobId, Job> list(@QueryParam("q") @DefaultValue("") final String q) {
-    final Map<JobId, Job> allJobs = model.getJobs();
+  public Response list(@QueryParam("q") @DefaultValue("") final String q,
+                       @Context final Request request) {
+    // Read the version before the jobs so that a concurrent change results in a stale tag
+    // rather than a stale list.
+    final EntityTag tag = new EntityTag(model.getJobsVersion());
+    final Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+    if (notModified != null) {
+      return notModified.build();
+    }
+    final Map<JobId, Job> jobs = filter(model.getJobs(), q);
+    metrics.jobsInJobList(jobs.size());
+    return Response.ok(new GenericEntity<Map<JobId, Job>>(jobs) {}).tag(tag).build();
+  }
 
+  private static Map<JobId, Job> filter(final Map<JobId, Job> allJobs, final String q) {
     // Return all jobs if the query string is empty
     if (q.isEmpty()) {
-      metrics.jobsInJobList(allJobs.size());
       return allJobs;
     }
 
-    // Filter jobs
     final Map<JobId, Job> filteredJobs = Maps.newHashMap();
     for (Entry<JobId, Job> entry : allJobs.entrySet()) {
       if (entry.getKey().toString().contains(q)) {
         filteredJobs.put(entry.getKey(), entry.getValue());
       }
     }
-
-    metrics.jobsInJobList(filteredJobs.size());
     return filteredJobs;
   }
 
@@ -215,6 +248,149 @@ public class JobsResource {
     return Optional.fromNullable(model.getJobStatus(id));
   }
   
+  /**
+   * Deploys the job with the given id to as many hosts as the request asks for, picked among the
+   * hosts that are up and match all of its host selectors by a {@link PlacementEngine}. Hosts
+   * that can't be deployed to, because of a port conflict or because they went away, are skipped
+   * in favor of the next best host.
+   *
+   * The job is placed on all the hosts or on none of them. If there isn't room for it on enough
+   * hosts nothing is deployed, and if deploying falls short, the deployments made so far are
+   * undone before INSUFFICIENT_CAPACITY is returned.
+   *
+   * Each deployment only goes through if no other job was deployed to the host since it was
+   * placed, so concurrent placements and rolling updates can't overpack a host. If one was, the
+   * deployments made so far are undone and the job is placed again.
+   *
+   * @param id The job ID.
+   * @param request The number of hosts, the host selectors and the optional spread label.
+   * @param username The user deploying the job.
+   * @param token The optional authorization token.
+   * @return The response, listing the hosts the job was deployed to.
+   */
+  @Path("{id}/deploy")
+  @POST
+  @Produces(APPLICATION_JSON)
+  @Timed
+  @ExceptionMetered
+  public JobPlacementResponse deploy(@PathParam("id") @Valid final JobId id,
+                                     @Valid final JobPlacementRequest request,
+                                     @RequestUser final String username,
+                                     @QueryParam("token") @DefaultValue("") final String token) {
+    if (!id.isFullyQualified()) {
+      throw badRequest(new JobPlacementResponse(JobPlacementResponse.Status.INVALID_ID, id, null));
+    }
+    final Job job = model.getJob(id);
+    if (job == null) {
+      throw notFound(new JobPlacementResponse(JobPlacementResponse.Status.JOB_NOT_FOUND, id,
+                                              null));
+    }
+
+    HostChangedException conflict = null;
+    for (int attempt = 0; attempt < MAX_PLACEMENT_ATTEMPTS; attempt++) {
+      try {
+        return place(job, request, username, token);
+      } catch (HostChangedException e) {
+        log.info("jobs were deployed to host {} while placing job {}, placing it again",
+                 e.getHost(), id);
+        conflict = e;
+      }
+    }
+    throw new HeliosRuntimeException(MAX_PLACEMENT_ATTEMPTS + " concurrent modifications while "
+                                     + "placing job " + id + ". Giving up.", conflict);
+  }
+
+  /**
+   * Places a job once, at the versions of the deployments on the hosts it reads.
+   *
+   * @throws HostChangedException If other jobs were deployed to one of the picked hosts. The
+   *                              deployments made so far are undone.
+   */
+  private JobPlacementResponse place(final Job job, final JobPlacementRequest request,
+                                     final String username, final String token)
+      throws HostChangedException {
+    final JobId id = job.getId();
+    final Map<String, HostStatus> hosts = Maps.newLinkedHashMap();
+    final Map<String, Integer> versions = Maps.newHashMap();
+    for (final Map.Entry<String, VersionedValue<HostStatus>> entry :
+        model.getHostPlacementStatuses().entrySet()) {
+      final HostStatus status = entry.getValue().value();
+      if (HostMatcher.matches(request.getHostSelectors(), status.getLabels())) {
+        hosts.put(entry.getKey(), status);
+        versions.put(entry.getKey(), entry.getValue().version());
+      }
+    }
+
+    final PlacementEngine engine = new PlacementEngine(new Function<JobId, Job>() {
+      @Override
+      public Job apply(final JobId jobId) {
+        return model.getJob(jobId);
+      }
+    });
+    final List<String> candidates = engine.place(job, hosts, request.getSpreadLabel());
+    if (candidates.size() < request.getCount()) {
+      log.warn("only found room for job {} on {} of {} hosts: {}",
+               id, candidates.size(), request.getCount(), candidates);
+      throw badRequest(new JobPlacementResponse(
+          JobPlacementResponse.Status.INSUFFICIENT_CAPACITY, id, null));
+    }
+
+    final Deployment deployment = Deployment.of(id, request.getGoal(), username);
+    final List<String> deployed = Lists.newArrayList();
+    boolean placed = false;
+    try {
+      for (final String host : candidates) {
+        if (deployed.size() == request.getCount()) {
+          break;
+        }
+        try {
+          model.deployJob(host, deployment, token, versions.get(host));
+          deployed.add(host);
+        } catch (JobAlreadyDeployedException | HostNotFoundException
+            | JobPortAllocationConflictException e) {
+          log.info("not placing job {} on host {}: {}", id, host, e.toString());
+        } catch (JobDoesNotExistException e) {
+          throw notFound(new JobPlacementResponse(JobPlacementResponse.Status.JOB_NOT_FOUND, id,
+                                                  null));
+        } catch (TokenVerificationException e) {
+          throw forbidden(new JobPlacementResponse(JobPlacementResponse.Status.FORBIDDEN, id,
+                                                   null));
+        }
+      }
+
+      if (deployed.size() < request.getCount()) {
+        log.warn("could only deploy job {} to {} of {} hosts, rolling back: {}",
+                 id, deployed.size(), request.getCount(), deployed);
+        throw badRequest(new JobPlacementResponse(
+            JobPlacementResponse.Status.INSUFFICIENT_CAPACITY, id, null));
+      }
+      placed = true;
+    } finally {
+      if (!placed) {
+        undeploy(id, deployed, token);
+      }
+    }
+
+    log.info("placed job {} on hosts {}", id, deployed);
+    return new JobPlacementResponse(JobPlacementResponse.Status.OK, id, deployed);
+  }
+
+  /**
+   * Undoes the deployments of a placement that fell short or raced with other deployments. Failures
+   * are logged, as the placement has failed already.
+   */
+  private void undeploy(final JobId id, final List<String> hosts, final String token) {
+    for (final String host : hosts) {
+      try {
+        model.undeployJob(host, id, token);
+      } catch (HostNotFoundException | JobNotDeployedException e) {
+        log.debug("job {} is no longer deployed to host {}", id, host);
+      } catch (TokenVerificationException | RuntimeException e) {
+        log.error("failed to undeploy job {} from host {} after failing to place it", id, host, e);
+      }
+    }
+  }
+
   @Path("/statuses")
   @POST
   @Produces(APPLICATION_JSON)
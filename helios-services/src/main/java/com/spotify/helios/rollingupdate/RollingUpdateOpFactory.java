@@ -25,6 +25,7 @@ import com.spotify.helios.common.descriptors.DeploymentGroupStatus;
 import com.spotify.helios.common.descriptors.DeploymentGroupTasks;
 import com.spotify.helios.common.descriptors.RolloutTask;
 import com.spotify.helios.rollingupdate.DeploymentGroupEventFactory.RollingUpdateReason;
+import com.spotify.helios.servicescommon.PayloadFormat;
 import com.spotify.helios.servicescommon.coordination.Paths;
 import com.spotify.helios.servicescommon.coordination.ZooKeeperClient;
 import com.spotify.helios.servicescommon.coordination.ZooKeeperOperation;
@@ -49,12 +50,24 @@ public class RollingUpdateOpFactory {
   private final DeploymentGroupTasks tasks;
   private final DeploymentGroup deploymentGroup;
   private final DeploymentGroupEventFactory eventFactory;
+  private final PayloadFormat payloadFormat;
 
   public RollingUpdateOpFactory(final DeploymentGroupTasks tasks,
                                 final DeploymentGroupEventFactory eventFactory) {
+    this(tasks, eventFactory, PayloadFormat.JSON);
+  }
+
+  /**
+   * @param payloadFormat The {@link PayloadFormat} deployment group statuses and rollout tasks are
+   *                      written in
+   */
+  public RollingUpdateOpFactory(final DeploymentGroupTasks tasks,
+                                final DeploymentGroupEventFactory eventFactory,
+                                final PayloadFormat payloadFormat) {
     this.tasks = tasks;
     this.deploymentGroup = tasks.getDeploymentGroup();
     this.eventFactory = eventFactory;
+    this.payloadFormat = payloadFormat;
   }
 
   public RollingUpdateOp start(final DeploymentGroup deploymentGroup,
@@ -94,13 +107,15 @@ public class RollingUpdateOpFactory {
       status = DeploymentGroupStatus.newBuilder()
           .setState(ROLLING_OUT)
           .build();
-      ops.add(set(Paths.statusDeploymentGroupTasks(deploymentGroup.getName()), tasks));
+      ops.add(set(Paths.statusDeploymentGroupTasks(deploymentGroup.getName()),
+                  payloadFormat.encodeUnchecked(tasks)));
     }
 
     // NOTE: If the DG was removed this set() cause the transaction to fail, because removing
     // the DG removes this node. It's *important* that there's an operation that causes the
     // transaction to fail if the DG was removed or we'll end up with inconsistent state.
-    ops.add(set(Paths.statusDeploymentGroup(deploymentGroup.getName()), status));
+    ops.add(set(Paths.statusDeploymentGroup(deploymentGroup.getName()),
+                payloadFormat.encodeUnchecked(status)));
 
     return new RollingUpdateOp(ImmutableList.copyOf(ops), ImmutableList.copyOf(events));
   }
@@ -124,15 +139,16 @@ public class RollingUpdateOpFactory {
       // We are done -> delete tasks & update status
       ops.add(delete(Paths.statusDeploymentGroupTasks(deploymentGroup.getName())));
       ops.add(set(Paths.statusDeploymentGroup(deploymentGroup.getName()),
-                  status));
+                  payloadFormat.encodeUnchecked(status)));
 
       // Emit an event signalling that we're DONE!
       events.add(eventFactory.rollingUpdateDone(deploymentGroup));
     } else {
       ops.add(
-          set(Paths.statusDeploymentGroupTasks(deploymentGroup.getName()), tasks.toBuilder()
-              .setTaskIndex(tasks.getTaskIndex() + 1)
-              .build()));
+          set(Paths.statusDeploymentGroupTasks(deploymentGroup.getName()),
+              payloadFormat.encodeUnchecked(tasks.toBuilder()
+                                                .setTaskIndex(tasks.getTaskIndex() + 1)
+                                                .build())));
 
       // Only emit an event if the task resulted in taking in action. If there are no ZK operations
       // the task was effectively a no-op.
@@ -168,7 +184,8 @@ public class RollingUpdateOpFactory {
 
     // Delete tasks, set state to FAILED
     operations.add(delete(Paths.statusDeploymentGroupTasks(deploymentGroup.getName())));
-    operations.add(set(Paths.statusDeploymentGroup(deploymentGroup.getName()), status));
+    operations.add(set(Paths.statusDeploymentGroup(deploymentGroup.getName()),
+                       payloadFormat.encodeUnchecked(status)));
 
     final RolloutTask task = tasks.getRolloutTasks().get(tasks.getTaskIndex());
 
@@ -24,6 +24,7 @@ import com.google.common.collect.Maps;
 import com.google.common.util.concurrent.AbstractIdleService;
 
 import com.spotify.helios.common.descriptors.DeploymentGroup;
+import com.spotify.helios.common.descriptors.HostSelector;
 import com.spotify.helios.common.descriptors.HostStatus;
 import com.spotify.helios.master.MasterModel;
 import com.spotify.helios.servicescommon.Reactor;
@@ -157,13 +158,7 @@ public class RollingUpdateService extends AbstractIdleService {
         final String host = entry.getKey();
         final Map<String, String> hostLabels = entry.getValue();
 
-        // every hostSelector in the group has to have a match in this host.
-        // a match meaning the host has a label for that key and the value matches
-        final boolean match = deploymentGroup.getHostSelectors().stream()
-            .allMatch(selector -> hostLabels.containsKey(selector.getLabel())
-                                  && selector.matches(hostLabels.get(selector.getLabel())));
-
-        if (match) {
+        if (matches(deploymentGroup.getHostSelectors(), hostLabels)) {
           matchingHosts.add(host);
         }
       }
@@ -171,5 +166,16 @@ public class RollingUpdateService extends AbstractIdleService {
       Collections.sort(matchingHosts, new AlphaNumericComparator(Locale.ENGLISH));
       return ImmutableList.copyOf(matchingHosts);
     }
+
+    /**
+     * Returns true if every host selector has a match in the labels of a host, a match meaning
+     * the host has a label for that key and the value matches.
+     */
+    public static boolean matches(final List<HostSelector> selectors,
+                                  final Map<String, String> hostLabels) {
+      return selectors.stream()
+          .allMatch(selector -> hostLabels.containsKey(selector.getLabel())
+                                && selector.matches(hostLabels.get(selector.getLabel())));
+    }
   }
 }
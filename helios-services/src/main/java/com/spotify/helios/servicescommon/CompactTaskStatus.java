@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.servicescommon;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.spotify.helios.common.Json;
+import com.spotify.helios.common.descriptors.Goal;
+import com.spotify.helios.common.descriptors.Job;
+import com.spotify.helios.common.descriptors.JobId;
+import com.spotify.helios.common.descriptors.PortMapping;
+import com.spotify.helios.common.descriptors.TaskStatus;
+import com.spotify.helios.common.descriptors.ThrottleState;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * The form task statuses are stored in ZooKeeper.
+ *
+ * A {@link TaskStatus} embeds its whole {@link Job}, so every state transition an agent writes
+ * repeats the job's command, env, ports, registration and metadata. The compact form only carries
+ * the {@link JobId} next to the fields that change over the life of a task, and readers look the
+ * job up with a {@link JobResolver}. Jobs are immutable, so the resolved job is always the one the
+ * task was running.
+ *
+ * Both forms can be read, so statuses written by older agents, or by agents that don't have the
+ * compact form enabled, keep working. A typical JSON representation might be:
+ * <pre>
+ * {
+ *   "version" : 1,
+ *   "jobId" : "foo:1:4b2bdd0c0c5d5cbb41c2d2fd1c2f1c5e1a4e4c8e",
+ *   "containerId" : "e890d827e802934a29c97d7e9e3c96a55ca049e519ab0c28be8020621a0a3750",
+ *   "env" : {
+ *     "SYSLOG_HOST_PORT" : "10.99.0.1:514"
+ *   },
+ *   "goal" : "START",
+ *   "ports" : { #... see the definition of TaskStatus },
+ *   "state" : "RUNNING",
+ *   "throttled" : "NO",
+ *   "containerError" : ""
+ * }
+ * </pre>
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class CompactTaskStatus {
+
+  public static final int VERSION = 1;
+
+  /**
+   * Looks up the job a compact task status refers to.
+   */
+  public interface JobResolver {
+
+    /**
+     * Returns the job with the given id, or null if it does not exist.
+     */
+    @Nullable
+    Job resolve(JobId jobId);
+  }
+
+  private final Integer version;
+  private final Job job;
+  private final JobId jobId;
+  private final Goal goal;
+  private final TaskStatus.State state;
+  private final String containerId;
+  private final ThrottleState throttled;
+  private final Map<String, PortMapping> ports;
+  private final Map<String, String> env;
+  private final String containerError;
+
+  public CompactTaskStatus(
+      @Nullable @JsonProperty("version") final Integer version,
+      @Nullable @JsonProperty("job") final Job job,
+      @Nullable @JsonProperty("jobId") final JobId jobId,
+      @Nullable @JsonProperty("goal") final Goal goal,
+      @JsonProperty("state") final TaskStatus.State state,
+      @Nullable @JsonProperty("containerId") final String containerId,
+      @Nullable @JsonProperty("throttled") final ThrottleState throttled,
+      @Nullable @JsonProperty("ports") final Map<String, PortMapping> ports,
+      @Nullable @JsonProperty("env") final Map<String, String> env,
+      @Nullable @JsonProperty("containerError") final String containerError) {
+    this.version = version;
+    this.job = job;
+    this.jobId = jobId;
+    this.goal = goal;
+    this.state = state;
+    this.containerId = containerId;
+    this.throttled = throttled;
+    this.ports = ports;
+    this.env = env;
+    this.containerError = containerError;
+  }
+
+  private CompactTaskStatus(final TaskStatus status) {
+    this(VERSION, null, status.getJob().getId(), status.getGoal(), status.getState(),
+         status.getContainerId(), status.getThrottled(), status.getPorts(), status.getEnv(),
+         status.getContainerError());
+  }
+
+  @JsonProperty("version")
+  public Integer getVersion() {
+    return version;
+  }
+
+  @JsonProperty("jobId")
+  public JobId getJobId() {
+    return jobId;
+  }
+
+  @JsonProperty("goal")
+  public Goal getGoal() {
+    return goal;
+  }
+
+  @JsonProperty("state")
+  public TaskStatus.State getState() {
+    return state;
+  }
+
+  @JsonProperty("containerId")
+  public String getContainerId() {
+    return containerId;
+  }
+
+  @JsonProperty("throttled")
+  public ThrottleState getThrottled() {
+    return throttled;
+  }
+
+  @JsonProperty("ports")
+  public Map<String, PortMapping> getPorts() {
+    return ports;
+  }
+
+  @JsonProperty("env")
+  public Map<String, String> getEnv() {
+    return env;
+  }
+
+  @JsonProperty("containerError")
+  public String getContainerError() {
+    return containerError;
+  }
+
+  /**
+   * Serializes a task status in the compact form.
+   */
+  public static byte[] toJsonBytes(final TaskStatus status) {
+    return Json.asBytesUnchecked(new CompactTaskStatus(status));
+  }
+
+  /**
+   * Serializes a task status in the compact form if {@code compact} is true, and in the full form
+   * otherwise, stored in the given {@link PayloadFormat}.
+   */
+  public static byte[] encode(final TaskStatus status, final boolean compact,
+                              final PayloadFormat format) {
+    return format.encodeUnchecked(compact ? new CompactTaskStatus(status) : status);
+  }
+
+  /**
+   * Reads a task status stored in either form, in any {@link PayloadFormat}.
+   *
+   * @param data The serialized task status.
+   * @param resolver Used to look up the job of a status stored in the compact form.
+   * @return The task status, or null if its job could not be resolved.
+   * @throws IOException If the data could not be parsed or was written by a newer version.
+   */
+  @Nullable
+  public static TaskStatus parse(final byte[] data, final JobResolver resolver)
+      throws IOException {
+    final CompactTaskStatus stored = PayloadFormat.read(data, CompactTaskStatus.class);
+    final Job job;
+    if (stored.job != null) {
+      job = stored.job;
+    } else if (stored.version == null || stored.version > VERSION) {
+      throw new IOException("unsupported task status version: " + stored.version);
+    } else if (stored.jobId == null) {
+      throw new IOException("task status has neither job nor job id");
+    } else {
+      job = resolver.resolve(stored.jobId);
+      if (job == null) {
+        return null;
+      }
+    }
+    return new TaskStatus(job, stored.goal, stored.state, stored.containerId, stored.throttled,
+                          stored.ports, stored.env, stored.containerError);
+  }
+}
@@ -38,6 +38,7 @@ public class DefaultReactor extends InterruptingExecutionThreadService implement
   private final String name;
   private final Callback callback;
   private final long timeoutMillis;
+  private final long coalesceMillis;
 
   /**
    * Create a reactor that calls the provided callback with the specified timeout interval.
@@ -48,10 +49,27 @@ public class DefaultReactor extends InterruptingExecutionThreadService implement
    *                      there has been no updates.
    */
   public DefaultReactor(final String name, final Callback callback, final long timeoutMillis) {
+    this(name, callback, timeoutMillis, 0);
+  }
+
+  /**
+   * Create a reactor that calls the provided callback with the specified timeout interval, and
+   * lets updates coalesce for a while before calling it.
+   *
+   * @param name           The reactor name.
+   * @param callback       The callback to call.
+   * @param timeoutMillis  The timeout in millis after which the callback should be called even if
+   *                       there has been no updates.
+   * @param coalesceMillis How long to wait after an update for more updates before calling the
+   *                       callback.
+   */
+  public DefaultReactor(final String name, final Callback callback, final long timeoutMillis,
+                        final long coalesceMillis) {
     super("Reactor(" + name + ")");
     this.name = name;
     this.callback = callback;
     this.timeoutMillis = timeoutMillis;
+    this.coalesceMillis = coalesceMillis;
   }
 
   /**
@@ -90,6 +108,10 @@ public class DefaultReactor extends InterruptingExecutionThreadService implement
         } else {
           timeout = !semaphore.tryAcquire(timeoutMillis, MILLISECONDS);
         }
+        if (!timeout && coalesceMillis > 0) {
+          // Let the rest of a burst of updates land before calling back
+          Thread.sleep(coalesceMillis);
+        }
       } catch (InterruptedException e) {
         continue;
       }
@@ -18,10 +18,14 @@
 package com.spotify.helios.servicescommon;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.spotify.helios.servicescommon.statistics.RequestTrace;
 
 import static com.codahale.metrics.MetricRegistry.name;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 /**
  * Tracks API requests to the master to be tracked by the yammer metrics stuff.
@@ -36,6 +40,11 @@ public class MasterRequestMetrics {
   private final Meter failureMeter;
   private final Meter userErrorMeter;
 
+  private final Timer latency;
+  private final Timer zooKeeperLatency;
+  private final Timer serializationLatency;
+  private final Histogram zooKeeperOperations;
+
   public MasterRequestMetrics(String group, String type, String requestName,
                               final MetricRegistry registry) {
     final String prefix = name(group, type, requestName);
@@ -47,6 +56,11 @@ public class MasterRequestMetrics {
     successMeter = registry.meter(prefix + "_meter_success");
     failureMeter = registry.meter(prefix + "_meter_failures");
     userErrorMeter = registry.meter(prefix + "_meter_usererror");
+
+    latency = registry.timer(prefix + "_latency");
+    zooKeeperLatency = registry.timer(prefix + "_latency_zookeeper");
+    serializationLatency = registry.timer(prefix + "_latency_serialization");
+    zooKeeperOperations = registry.histogram(prefix + "_zookeeper_operations");
   }
 
   public void success() {
@@ -64,6 +78,13 @@ public class MasterRequestMetrics {
     userErrorMeter.mark();
   }
 
+  public void trace(final RequestTrace trace) {
+    latency.update(trace.getTotalNanos(), NANOSECONDS);
+    zooKeeperLatency.update(trace.getZooKeeperNanos(), NANOSECONDS);
+    serializationLatency.update(trace.getSerializationNanos(), NANOSECONDS);
+    zooKeeperOperations.update(trace.getZooKeeperOperations());
+  }
+
   public Counter getSuccessCounter() {
     return successCounter;
   }
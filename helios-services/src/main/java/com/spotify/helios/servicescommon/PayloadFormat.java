@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.servicescommon;
+
+import com.google.common.base.Throwables;
+import com.google.common.io.ByteStreams;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.spotify.helios.common.Json;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The formats payloads can be stored in ZooKeeper in.
+ *
+ * JSON payloads are stored as is. Payloads in any other format start with a header of the
+ * {@link #MAGIC} byte, which can't start a JSON document, followed by the id of the format. The
+ * static read methods accept payloads in every format, so the write format can be switched once all
+ * readers are upgraded, and switched back without rewriting what's already stored.
+ */
+public enum PayloadFormat {
+
+  /**
+   * Plain JSON.
+   */
+  JSON(0) {
+    @Override
+    byte[] fromJson(final byte[] json) {
+      return json;
+    }
+
+    @Override
+    InputStream toJson(final byte[] data, final int offset, final int length) {
+      return new ByteArrayInputStream(data, offset, length);
+    }
+  },
+
+  /**
+   * Deflate compressed JSON. A payload that doesn't get smaller when compressed is stored as plain
+   * JSON instead.
+   */
+  DEFLATE(1) {
+    @Override
+    byte[] fromJson(final byte[] json) {
+      final ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 2);
+      out.write(MAGIC);
+      out.write(id);
+      final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+      try (final DeflaterOutputStream deflated = new DeflaterOutputStream(out, deflater)) {
+        deflated.write(json);
+      } catch (IOException e) {
+        // ByteArrayOutputStream doesn't throw
+        throw Throwables.propagate(e);
+      } finally {
+        deflater.end();
+      }
+      return out.size() < json.length ? out.toByteArray() : json;
+    }
+
+    @Override
+    InputStream toJson(final byte[] data, final int offset, final int length) {
+      return new InflaterInputStream(new ByteArrayInputStream(data, offset, length));
+    }
+  };
+
+  /**
+   * The first byte of payloads that aren't plain JSON. JSON text never starts with a NUL.
+   */
+  public static final byte MAGIC = 0;
+
+  private static final int HEADER_SIZE = 2;
+
+  final byte id;
+
+  PayloadFormat(final int id) {
+    this.id = (byte) id;
+  }
+
+  abstract byte[] fromJson(byte[] json);
+
+  abstract InputStream toJson(byte[] data, int offset, int length);
+
+  /**
+   * Serializes a value in this format.
+   */
+  public byte[] encode(final Object value) throws JsonProcessingException {
+    return fromJson(Json.asBytes(value));
+  }
+
+  /**
+   * Serializes a value in this format, wrapping {@link JsonProcessingException}s in
+   * {@link RuntimeException}s.
+   */
+  public byte[] encodeUnchecked(final Object value) {
+    return fromJson(Json.asBytesUnchecked(value));
+  }
+
+  /**
+   * Returns the format a payload is stored in.
+   *
+   * @throws IOException If the payload was stored in a format this version doesn't know.
+   */
+  public static PayloadFormat of(final byte[] data) throws IOException {
+    if (data.length == 0 || data[0] != MAGIC) {
+      return JSON;
+    }
+    if (data.length < HEADER_SIZE) {
+      throw new IOException("truncated payload header");
+    }
+    for (final PayloadFormat format : values()) {
+      if (format != JSON && format.id == data[1]) {
+        return format;
+      }
+    }
+    throw new IOException("unknown payload format: " + data[1]);
+  }
+
+  /**
+   * Returns a payload stored in any format as JSON.
+   */
+  public static byte[] toJson(final byte[] data) throws IOException {
+    final PayloadFormat format = of(data);
+    if (format == JSON) {
+      return data;
+    }
+    try (final InputStream in = format.toJson(data, HEADER_SIZE, data.length - HEADER_SIZE)) {
+      return ByteStreams.toByteArray(in);
+    }
+  }
+
+  public static <T> T read(final byte[] data, final Class<T> clazz) throws IOException {
+    return Json.read(toJson(data), clazz);
+  }
+
+  public static <T> T read(final byte[] data, final TypeReference<?> typeReference)
+      throws IOException {
+    return Json.read(toJson(data), typeReference);
+  }
+
+  public static <T> T read(final byte[] data, final JavaType javaType) throws IOException {
+    return Json.read(toJson(data), javaType);
+  }
+}
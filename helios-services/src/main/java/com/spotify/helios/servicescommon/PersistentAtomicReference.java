@@ -96,7 +96,7 @@ public class PersistentAtomicReference<T> {
   private void set0(final T newValue) throws IOException {
     log.debug("set: ({}) {}", filename, newValue);
     synchronized (sync) {
-      final String json = Json.asPrettyStringUnchecked(newValue);
+      final String json = Json.asStringUnchecked(newValue);
       log.debug("write: ({}) {}", tempfilename, json);
       Files.write(tempfilename, json.getBytes(UTF_8));
       log.debug("move: {} -> {}", tempfilename, filename);
@@ -17,11 +17,39 @@
 
 package com.spotify.helios.servicescommon;
 
+import java.util.concurrent.ScheduledExecutorService;
+
 import static com.spotify.helios.servicescommon.Reactor.Callback;
 
 public class ReactorFactory {
 
+  private final ScheduledExecutorService executor;
+
+  public ReactorFactory() {
+    this(null);
+  }
+
+  /**
+   * @param executor Runs the callbacks of all created reactors instead of a thread per reactor.
+   *                 May be null.
+   */
+  public ReactorFactory(final ScheduledExecutorService executor) {
+    this.executor = executor;
+  }
+
   public Reactor create(final String name, final Callback callback, final long timeout) {
-    return new DefaultReactor(name, callback, timeout);
+    return create(name, callback, timeout, 0);
+  }
+
+  /**
+   * @param coalesceMillis How long the reactor waits after an update for more updates before
+   *                       calling the callback.
+   */
+  public Reactor create(final String name, final Callback callback, final long timeout,
+                        final long coalesceMillis) {
+    if (executor != null) {
+      return new ScheduledReactor(name, callback, timeout, coalesceMillis, executor);
+    }
+    return new DefaultReactor(name, callback, timeout, coalesceMillis);
   }
 }
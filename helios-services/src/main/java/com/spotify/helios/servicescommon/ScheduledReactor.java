@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.servicescommon;
+
+import com.google.common.util.concurrent.AbstractIdleService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.InterruptedIOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * A reactor like {@link DefaultReactor} that calls its callback on a shared executor instead of a
+ * thread of its own, so that many reactors can be run on a handful of threads. Updates are
+ * collapsed the same way, and the callback is never called concurrently with itself.
+ */
+public class ScheduledReactor extends AbstractIdleService implements Reactor {
+
+  private static final Logger log = LoggerFactory.getLogger(ScheduledReactor.class);
+
+  private final String name;
+  private final Callback callback;
+  private final long timeoutMillis;
+  private final long coalesceMillis;
+  private final ScheduledExecutorService executor;
+
+  private final Object lock = new Object() {};
+
+  // All guarded by lock
+  private boolean signalled;
+  private boolean started;
+  private boolean pending;  // A run is scheduled or in progress
+  private boolean stopped;
+  private Thread worker;
+  private ScheduledFuture<?> timeout;
+
+  /**
+   * @param name           The reactor name.
+   * @param callback       The callback to call.
+   * @param timeoutMillis  The timeout in millis after which the callback should be called even if
+   *                       there has been no updates, or 0 for no timeout.
+   * @param coalesceMillis How long to wait after an update for more updates before calling the
+   *                       callback.
+   * @param executor       The executor to call the callback on.
+   */
+  public ScheduledReactor(final String name, final Callback callback, final long timeoutMillis,
+                          final long coalesceMillis, final ScheduledExecutorService executor) {
+    this.name = name;
+    this.callback = callback;
+    this.timeoutMillis = timeoutMillis;
+    this.coalesceMillis = coalesceMillis;
+    this.executor = executor;
+  }
+
+  @Override
+  public void signal() {
+    synchronized (lock) {
+      signalled = true;
+      if (started && !stopped && !pending) {
+        submit();
+      }
+    }
+  }
+
+  @Override
+  public Runnable signalRunnable() {
+    return new Runnable() {
+      @Override
+      public void run() {
+        signal();
+      }
+    };
+  }
+
+  @Override
+  protected void startUp() throws Exception {
+    synchronized (lock) {
+      started = true;
+      if (signalled) {
+        submit();
+      } else {
+        scheduleTimeout();
+      }
+    }
+  }
+
+  @Override
+  protected void shutDown() throws Exception {
+    synchronized (lock) {
+      stopped = true;
+      if (timeout != null) {
+        timeout.cancel(false);
+      }
+      if (worker != null) {
+        worker.interrupt();
+      }
+      while (worker != null) {
+        lock.wait();
+      }
+    }
+  }
+
+  @Override
+  protected String serviceName() {
+    return "Reactor(" + name + ")";
+  }
+
+  private void submit() {
+    if (timeout != null) {
+      timeout.cancel(false);
+      timeout = null;
+    }
+    pending = true;
+    // Updates arriving in the meantime are folded into this run
+    executor.schedule(new Run(false), coalesceMillis, MILLISECONDS);
+  }
+
+  private void scheduleTimeout() {
+    if (timeoutMillis > 0) {
+      timeout = executor.schedule(new Run(true), timeoutMillis, MILLISECONDS);
+    }
+  }
+
+  private class Run implements Runnable {
+
+    private final boolean timedOut;
+
+    Run(final boolean timedOut) {
+      this.timedOut = timedOut;
+    }
+
+    @Override
+    public void run() {
+      synchronized (lock) {
+        if (stopped) {
+          return;
+        }
+        if (timedOut) {
+          if (pending) {
+            // Beaten by a signal
+            return;
+          }
+          pending = true;
+          timeout = null;
+        }
+        signalled = false;
+        worker = Thread.currentThread();
+      }
+
+      try {
+        callback.run(timedOut);
+      } catch (InterruptedException e) {
+        log.debug("reactor interrupted: {}", name);
+      } catch (Exception e) {
+        if (e.getCause() instanceof ClosedByInterruptException ||
+            e.getCause() instanceof InterruptedIOException ||
+            e.getCause() instanceof InterruptedException) {
+          log.debug("reactor interrupted: {}", name);
+        } else {
+          log.error("reactor runner threw exception: {}", name, e);
+        }
+      } finally {
+        synchronized (lock) {
+          worker = null;
+          pending = false;
+          if (stopped) {
+            lock.notifyAll();
+          } else if (signalled) {
+            submit();
+          } else {
+            scheduleTimeout();
+          }
+        }
+      }
+    }
+  }
+}
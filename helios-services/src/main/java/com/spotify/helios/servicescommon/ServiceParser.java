@@ -69,6 +69,7 @@ public class ServiceParser {
   private final Argument zooKeeperEnableAcls;
   private final Argument zooKeeperAclMasterUser;
   private final Argument zooKeeperAclAgentUser;
+  private final Argument zooKeeperPayloadFormatArg;
   private final Argument noMetricsArg;
   private final Argument statsdHostPortArg;
   private final Argument riemannHostPortArg;
@@ -146,6 +147,12 @@ public class ServiceParser {
         .setDefault("helios-agent")
         .help("zookeeper ACL username used for agents.");
 
+    zooKeeperPayloadFormatArg = parser.addArgument("--zk-payload-format")
+        .choices("json", "deflate")
+        .setDefault("json")
+        .help("Format to write jobs, tasks and task statuses to zookeeper in. All formats are "
+              + "read, so only switch format once all masters and agents are upgraded.");
+
     noMetricsArg = parser.addArgument("--no-metrics")
         .setDefault(SUPPRESS)
         .action(storeTrue())
@@ -298,6 +305,11 @@ public class ServiceParser {
     return options.getString(zooKeeperAclAgentUser.getDest());
   }
 
+  public PayloadFormat getZooKeeperPayloadFormat() {
+    return PayloadFormat.valueOf(
+        options.getString(zooKeeperPayloadFormatArg.getDest()).toUpperCase());
+  }
+
   public List<String> getKafkaBrokers() {
     final List<String> kafkaBrokers = options.getList(kafkaArg.getDest());
     return kafkaBrokers.isEmpty() ? null : kafkaBrokers;
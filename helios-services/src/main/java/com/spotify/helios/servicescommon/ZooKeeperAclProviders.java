@@ -86,6 +86,7 @@ public class ZooKeeperAclProviders {
         .rule(Paths.statusHostAgentInfo(PATH_COMPONENT_WILDCARD), WRITE, agentId)
         .rule(Paths.statusHostInfo(PATH_COMPONENT_WILDCARD), WRITE, agentId)
         .rule(Paths.statusHostLabels(PATH_COMPONENT_WILDCARD), WRITE, agentId)
+        .rule(Paths.statusHostResourceUsage(PATH_COMPONENT_WILDCARD), WRITE, agentId)
         .rule(Paths.statusHostEnvVars(PATH_COMPONENT_WILDCARD), WRITE, agentId)
         .rule(Paths.statusHostUp(PATH_COMPONENT_WILDCARD), WRITE, agentId)
         // Grant agents CREATE permissions to the entire /history/jobs tree
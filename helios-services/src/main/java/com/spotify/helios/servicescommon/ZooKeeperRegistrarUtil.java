@@ -20,14 +20,15 @@ package com.spotify.helios.servicescommon;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.RateLimiter;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.spotify.helios.common.HeliosRuntimeException;
-import com.spotify.helios.common.Json;
 import com.spotify.helios.common.descriptors.AgentInfo;
 import com.spotify.helios.common.descriptors.Deployment;
 import com.spotify.helios.common.descriptors.HostInfo;
 import com.spotify.helios.common.descriptors.HostStatus;
+import com.spotify.helios.common.descriptors.Job;
 import com.spotify.helios.common.descriptors.JobId;
 import com.spotify.helios.common.descriptors.Task;
 import com.spotify.helios.common.descriptors.TaskStatus;
@@ -39,6 +40,7 @@ import com.spotify.helios.servicescommon.coordination.ZooKeeperOperation;
 
 import org.apache.zookeeper.KeeperException;
 import org.apache.zookeeper.KeeperException.NoNodeException;
+import org.apache.zookeeper.KeeperException.NodeExistsException;
 import org.apache.zookeeper.data.Stat;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
@@ -51,7 +53,6 @@ import java.util.Map;
 import static com.google.common.base.Charsets.UTF_8;
 import static com.google.common.base.Optional.fromNullable;
 import static com.google.common.collect.Lists.reverse;
-import static com.spotify.helios.common.descriptors.Descriptor.parse;
 import static com.spotify.helios.common.descriptors.HostStatus.Status.UP;
 import static com.spotify.helios.common.descriptors.HostStatus.Status.DOWN;
 import static com.spotify.helios.servicescommon.coordination.ZooKeeperOperations.check;
@@ -64,6 +65,8 @@ public class ZooKeeperRegistrarUtil {
   private static final Logger log = LoggerFactory.getLogger(ZooKeeperRegistrarUtil.class);
 
   private static final Map<JobId, TaskStatus> EMPTY_STATUSES = emptyMap();
+  private static final int DEREGISTER_TRANSACTION_OPERATIONS = 128;
+  private static final TypeReference<Job> JOB_TYPE = new TypeReference<Job>() {};
   private static final TypeReference<HostInfo> HOST_INFO_TYPE = new TypeReference<HostInfo>() {};
   private static final TypeReference<AgentInfo> AGENT_INFO_TYPE = new TypeReference<AgentInfo>() {};
   private static final TypeReference<Map<String, String>> STRING_MAP_TYPE =
@@ -134,61 +137,70 @@ public class ZooKeeperRegistrarUtil {
 
   public static void deregisterHost(final ZooKeeperClient client, final String host)
       throws HostNotFoundException, HostStillInUseException {
+    deregisterHost(client, host, null);
+  }
+
+  /**
+   * Deregisters a host in a sequence of transactions of at most
+   * {@value #DEREGISTER_TRANSACTION_OPERATIONS} operations each, so that hosts with a lot of
+   * history can be deregistered without going over jute.maxbuffer.
+   *
+   * A tombstone is left in {@link Paths#configDeregisteringHosts()} before anything is deleted,
+   * and removed in the same transaction as the host itself. A deregistration that was cut short
+   * can be resumed by deregistering the host again, see {@link #listDeregisteringHosts}.
+   * @param client ZooKeeperClient
+   * @param host Host
+   * @param rateLimiter A permit is acquired for every node deleted, or null to not limit the rate.
+   * @throws HostNotFoundException If the host doesn't exist.
+   */
+  public static void deregisterHost(final ZooKeeperClient client, final String host,
+                                    @Nullable final RateLimiter rateLimiter)
+      throws HostNotFoundException, HostStillInUseException {
     log.info("deregistering host: {}", host);
 
-    // TODO (dano): handle retry failures
+    final String tombstone = Paths.configDeregisteringHost(host);
     try {
-      final List<ZooKeeperOperation> operations = Lists.newArrayList();
-
       if (client.exists(Paths.configHost(host)) == null) {
+        // Clean up after a deregistration that had already finished, if there was one
+        safeDelete(client, tombstone);
         throw new HostNotFoundException("host [" + host + "] does not exist");
       }
 
-      // Remove all jobs deployed to this host
-      final List<String> jobs = safeGetChildren(client, Paths.configHostJobs(host));
+      client.ensurePath(tombstone, true);
+      try {
+        client.create(tombstone);
+      } catch (NodeExistsException e) {
+        log.info("resuming deregistration of host: {}", host);
+      }
 
+      final Deleter deleter = new Deleter(client, rateLimiter);
+
+      // Remove all jobs deployed to this host, and their history. The config node of a
+      // deployment goes last, as it's what a resumed deregistration finds the jobs by.
+      final List<String> jobs = safeGetChildren(client, Paths.configHostJobs(host));
       for (final String jobString : jobs) {
         final JobId job = JobId.fromString(jobString);
-        final String hostJobPath = Paths.configHostJob(host, job);
-
-        final List<String> nodes = safeListRecursive(client, hostJobPath);
-        for (final String node : reverse(nodes)) {
-          operations.add(delete(node));
-        }
-        if (client.exists(Paths.configJobHost(job, host)) != null) {
-          operations.add(delete(Paths.configJobHost(job, host)));
-        }
-        // Clean out the history for each job
-        final List<String> history = safeListRecursive(client, Paths.historyJobHost(job, host));
-        for (final String s : reverse(history)) {
-          operations.add(delete(s));
+        deleter.deleteTree(Paths.historyJobHost(job, host));
+        // The job may be in either layout of /config/jobs
+        deleter.deleteTree(Paths.configJobHost(job, host, false));
+        if (job.isFullyQualified()) {
+          deleter.deleteTree(Paths.configJobHost(job, host, true));
         }
+        deleter.deleteTree(Paths.configHostJob(host, job));
       }
 
-      operations.add(delete(Paths.configHostJobs(host)));
+      // Remove the host status and port allocations
+      deleter.deleteTree(Paths.statusHost(host));
+      deleter.deleteTree(Paths.configHostPorts(host));
+      deleter.flush();
 
-      // Remove the host status
-      final List<String> nodes = safeListRecursive(client, Paths.statusHost(host));
-      for (final String node : reverse(nodes)) {
+      // Remove what is left of the host config, i.e. the jobs node, host id and config root,
+      // together with the tombstone
+      final List<ZooKeeperOperation> operations = Lists.newArrayList();
+      for (final String node : reverse(safeListRecursive(client, Paths.configHost(host)))) {
         operations.add(delete(node));
       }
-
-      // Remove port allocations
-      final List<String> ports = safeGetChildren(client, Paths.configHostPorts(host));
-      for (final String port : ports) {
-        operations.add(delete(Paths.configHostPort(host, Integer.valueOf(port))));
-      }
-      operations.add(delete(Paths.configHostPorts(host)));
-
-      // Remove host id
-      final String idPath = Paths.configHostId(host);
-      if (client.exists(idPath) != null) {
-        operations.add(delete(idPath));
-      }
-
-      // Remove host config root
-      operations.add(delete(Paths.configHost(host)));
-
+      operations.add(delete(tombstone));
       client.transaction(operations);
     } catch (NoNodeException e) {
       throw new HostNotFoundException(host);
@@ -197,6 +209,74 @@ public class ZooKeeperRegistrarUtil {
     }
   }
 
+  /**
+   * Returns the hosts whose deregistration was started but hasn't finished.
+   */
+  public static List<String> listDeregisteringHosts(final ZooKeeperClient client) {
+    return safeGetChildren(client, Paths.configDeregisteringHosts());
+  }
+
+  /**
+   * Calls off a deregistration of the host that was cut short, if there is one, by removing its
+   * tombstone. For when the host is registered again, so that it isn't deregistered once more.
+   */
+  public static void cancelDeregistration(final ZooKeeperClient client, final String host)
+      throws KeeperException {
+    final String tombstone = Paths.configDeregisteringHost(host);
+    if (client.exists(tombstone) != null) {
+      log.info("host {} registered again, calling off its deregistration", host);
+      safeDelete(client, tombstone);
+    }
+  }
+
+  /**
+   * Deletes subtrees in transactions of at most {@value #DEREGISTER_TRANSACTION_OPERATIONS}
+   * operations. Nodes are deleted children first, in the order the subtrees are given.
+   */
+  private static class Deleter {
+
+    private final ZooKeeperClient client;
+    private final RateLimiter rateLimiter;
+    private final List<String> pending = Lists.newArrayList();
+
+    Deleter(final ZooKeeperClient client, @Nullable final RateLimiter rateLimiter) {
+      this.client = client;
+      this.rateLimiter = rateLimiter;
+    }
+
+    void deleteTree(final String path) throws KeeperException {
+      for (final String node : reverse(safeListRecursive(client, path))) {
+        pending.add(node);
+        if (pending.size() >= DEREGISTER_TRANSACTION_OPERATIONS) {
+          flush();
+        }
+      }
+    }
+
+    void flush() throws KeeperException {
+      if (pending.isEmpty()) {
+        return;
+      }
+      if (rateLimiter != null) {
+        rateLimiter.acquire(pending.size());
+      }
+      final List<ZooKeeperOperation> operations = Lists.newArrayList();
+      for (final String node : pending) {
+        operations.add(delete(node));
+      }
+      try {
+        client.transaction(operations);
+      } catch (NoNodeException e) {
+        // Someone else deleted some of the nodes, e.g. an agent pruning its history. Delete the
+        // rest one by one.
+        for (final String node : pending) {
+          safeDelete(client, node);
+        }
+      }
+      pending.clear();
+    }
+  }
+
   private static List<JobId> listHostJobs(final ZooKeeperClient client, final String host) {
     final List<String> jobIdStrings;
     final String folder = Paths.statusHostJobs(host);
@@ -222,6 +302,15 @@ public class ZooKeeperRegistrarUtil {
     }
   }
 
+  private static void safeDelete(final ZooKeeperClient client, final String path)
+      throws KeeperException {
+    try {
+      client.delete(path);
+    } catch (NoNodeException ignore) {
+      // Already gone
+    }
+  }
+
   private static List<String> safeListRecursive(final ZooKeeperClient client, final String path)
       throws KeeperException {
     try {
@@ -309,7 +398,14 @@ public class ZooKeeperRegistrarUtil {
     final String containerPath = Paths.statusHostJob(host, jobId);
     try {
       final byte[] data = client.getData(containerPath);
-      return parse(data, TaskStatus.class);
+      return CompactTaskStatus.parse(data, new CompactTaskStatus.JobResolver() {
+        @Override
+        public Job resolve(final JobId id) {
+          final Job job = tryGetEntity(client, Paths.configJob(id, false), JOB_TYPE, "job");
+          return job != null ? job
+                             : tryGetEntity(client, Paths.configJob(id, true), JOB_TYPE, "job");
+        }
+      });
     } catch (NoNodeException ignored) {
       return null;
     } catch (KeeperException | IOException e) {
@@ -322,7 +418,7 @@ public class ZooKeeperRegistrarUtil {
                                     TypeReference<T> type, String name) {
     try {
       final byte[] data = client.getData(path);
-      return Json.read(data, type);
+      return PayloadFormat.read(data, type);
     } catch (NoNodeException e) {
       return null;
     } catch (KeeperException | IOException e) {
@@ -346,7 +442,7 @@ public class ZooKeeperRegistrarUtil {
         final String containerPath = Paths.configHostJob(host, jobId);
         try {
           final byte[] data = client.getData(containerPath);
-          final Task task = parse(data, Task.class);
+          final Task task = PayloadFormat.read(data, Task.class);
           jobs.put(jobId, Deployment.of(jobId, task.getGoal()));
         } catch (KeeperException.NoNodeException ignored) {
           log.debug("deployment config node disappeared: {}", jobIdString);
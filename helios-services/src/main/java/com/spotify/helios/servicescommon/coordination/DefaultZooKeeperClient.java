@@ -17,9 +17,14 @@
 
 package com.spotify.helios.servicescommon.coordination;
 
+import com.google.common.collect.Maps;
+
 import com.fasterxml.jackson.databind.JavaType;
+import com.spotify.helios.servicescommon.ReactorFactory;
 
 import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.api.BackgroundCallback;
+import org.apache.curator.framework.api.CuratorEvent;
 import org.apache.curator.framework.api.transaction.CuratorTransactionFinal;
 import org.apache.curator.framework.api.transaction.CuratorTransactionResult;
 import org.apache.curator.framework.imps.CuratorFrameworkState;
@@ -31,6 +36,7 @@ import org.apache.curator.utils.PathUtils;
 import org.apache.curator.utils.ZKPaths;
 import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.KeeperException.NodeExistsException;
 import org.apache.zookeeper.WatchedEvent;
 import org.apache.zookeeper.Watcher;
 import org.apache.zookeeper.ZooKeeper;
@@ -45,9 +51,13 @@ import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Deque;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Pattern;
 
+import static com.google.common.base.Charsets.UTF_8;
 import static com.google.common.base.Strings.emptyToNull;
 import static com.google.common.base.Throwables.propagate;
 import static com.google.common.base.Throwables.propagateIfInstanceOf;
@@ -61,6 +71,24 @@ public class DefaultZooKeeperClient implements ZooKeeperClient {
 
   private static final Logger log = LoggerFactory.getLogger(DefaultZooKeeperClient.class);
 
+  /**
+   * The most background requests {@link #listRecursive(String)}, {@link #getChildren(Collection)}
+   * and {@link #getNodes(Collection)} have in flight at once.
+   */
+  private static final int MAX_OUTSTANDING_REQUESTS = 32;
+
+  /**
+   * The most bytes of operations {@link #deleteRecursive(String)} puts in one transaction. Half of
+   * jute.maxbuffer, the largest request ZooKeeper accepts, to leave room for the rest of the
+   * request.
+   */
+  private static final int MAX_TRANSACTION_SIZE = Integer.getInteger("jute.maxbuffer", 0xfffff) / 2;
+
+  /**
+   * A generous estimate of the size of a delete operation in a transaction, besides its path.
+   */
+  private static final int DELETE_OPERATION_OVERHEAD = 32;
+
   private final CuratorFramework client;
   private final String clusterId;
   private final AtomicBoolean clusterIdExists;
@@ -128,7 +156,11 @@ public class DefaultZooKeeperClient implements ZooKeeperClient {
     for (int i = 0; i < end; i++) {
       current += "/" + parts[i];
       if (exists(current) == null) {
-        create(current);
+        try {
+          create(current);
+        } catch (NodeExistsException ignored) {
+          // Created concurrently by someone else
+        }
       }
     }
   }
@@ -233,43 +265,170 @@ public class DefaultZooKeeperClient implements ZooKeeperClient {
   @Override
   public void deleteRecursive(final String path) throws KeeperException {
     assertClusterIdFlagTrue();
-    try {
-      final List<String> nodes = listRecursive(path);
-      if (nodes.isEmpty()) {
-        return;
+    final List<String> nodes = listRecursive(path);
+    final List<ZooKeeperOperation> operations = newArrayList();
+    int size = 0;
+    for (final String node : reverse(nodes)) {
+      final int operationSize = DELETE_OPERATION_OVERHEAD + node.getBytes(UTF_8).length;
+      if (size + operationSize > MAX_TRANSACTION_SIZE && !operations.isEmpty()) {
+        transaction(operations);
+        operations.clear();
+        size = 0;
       }
-      final CuratorTransactionFinal t = client.inTransaction().check().forPath(path).and();
-      for (final String node : reverse(nodes))  {
-        t.delete().forPath(node).and();
+      operations.add(new Delete(node));
+      size += operationSize;
+    }
+    transaction(operations);
+  }
+
+  @Override
+  public List<String> listRecursive(final String path) throws KeeperException {
+    assertClusterIdFlagTrue();
+    final List<String> tree = newArrayList(path);
+    final BackgroundRequests requests = children();
+    requests.add(path);
+
+    try {
+      while (!requests.isDone()) {
+        final CuratorEvent event = requests.next();
+        final String node = (String) event.getContext();
+        final KeeperException.Code code = KeeperException.Code.get(event.getResultCode());
+        if (code != KeeperException.Code.OK) {
+          throw KeeperException.create(code, node);
+        }
+
+        for (final String child : event.getChildren()) {
+          final String childPath = node.replaceAll("/$", "") + "/" + child;
+          requests.add(childPath);
+          tree.add(childPath);
+        }
       }
-      t.commit();
     } catch (Exception e) {
-      propagateIfInstanceOf(e, KeeperException.class);
-      throw propagate(e);
+      throw propagateKeeperException(e);
     }
+
+    return tree;
   }
 
   @Override
-  public List<String> listRecursive(final String path) throws KeeperException {
+  public Map<String, List<String>> getChildren(final Collection<String> paths)
+      throws KeeperException {
     assertClusterIdFlagTrue();
-    final Deque<String> queue = newLinkedList();
-    final List<String> tree = newArrayList();
+    final Map<String, List<String>> children = Maps.newHashMap();
+    final BackgroundRequests requests = children();
+    for (final String path : paths) {
+      requests.add(path);
+    }
 
-    queue.add(path);
-    tree.add(path);
+    try {
+      while (!requests.isDone()) {
+        final CuratorEvent event = requests.next();
+        final String node = (String) event.getContext();
+        final KeeperException.Code code = KeeperException.Code.get(event.getResultCode());
+        if (code == KeeperException.Code.NONODE) {
+          continue;
+        }
+        if (code != KeeperException.Code.OK) {
+          throw KeeperException.create(code, node);
+        }
+        children.put(node, event.getChildren());
+      }
+    } catch (Exception e) {
+      throw propagateKeeperException(e);
+    }
 
-    while (!queue.isEmpty()) {
-      final String node = queue.pollFirst();
-      final List<String> children = getChildren(node);
+    return children;
+  }
 
-      for (final String child : children) {
-        final String childPath = node.replaceAll("/$", "") + "/" + child;
-        queue.add(childPath);
-        tree.add(childPath);
+  private static RuntimeException propagateKeeperException(final Exception e)
+      throws KeeperException {
+    propagateIfInstanceOf(e, KeeperException.class);
+    if (e instanceof InterruptedException) {
+      Thread.currentThread().interrupt();
+    }
+    throw propagate(e);
+  }
+
+  @Override
+  public Map<String, Node> getNodes(final Collection<String> paths) throws KeeperException {
+    assertClusterIdFlagTrue();
+    final Map<String, Node> nodes = Maps.newHashMap();
+    final BackgroundRequests requests = new BackgroundRequests(
+        (path, callback) -> client.getData().inBackground(callback, path).forPath(path));
+    for (final String path : paths) {
+      requests.add(path);
+    }
+
+    try {
+      while (!requests.isDone()) {
+        final CuratorEvent event = requests.next();
+        final String node = (String) event.getContext();
+        final KeeperException.Code code = KeeperException.Code.get(event.getResultCode());
+        if (code == KeeperException.Code.NONODE) {
+          continue;
+        }
+        if (code != KeeperException.Code.OK) {
+          throw KeeperException.create(code, node);
+        }
+        nodes.put(node, new Node(node, event.getData(), event.getStat()));
       }
+    } catch (Exception e) {
+      throw propagateKeeperException(e);
     }
 
-    return tree;
+    return nodes;
+  }
+
+  private BackgroundRequests children() {
+    return new BackgroundRequests(
+        (path, callback) -> client.getChildren().inBackground(callback, path).forPath(path));
+  }
+
+  /**
+   * Sends a background request for a node.
+   */
+  private interface Request {
+
+    void send(String path, BackgroundCallback callback) throws Exception;
+  }
+
+  /**
+   * Sends requests for nodes in the background, with at most {@link #MAX_OUTSTANDING_REQUESTS}
+   * requests in flight at once.
+   */
+  private static class BackgroundRequests {
+
+    private final Request request;
+    private final Deque<String> queue = newLinkedList();
+    private final BlockingQueue<CuratorEvent> results = new LinkedBlockingQueue<>();
+    private final BackgroundCallback callback = (curator, event) -> results.add(event);
+    private int outstanding;
+
+    BackgroundRequests(final Request request) {
+      this.request = request;
+    }
+
+    void add(final String path) {
+      queue.add(path);
+    }
+
+    boolean isDone() {
+      return queue.isEmpty() && outstanding == 0;
+    }
+
+    /**
+     * Sends as many of the queued requests as there is room for and waits for the next response.
+     * The path of the node the response is for is its context.
+     */
+    CuratorEvent next() throws Exception {
+      while (!queue.isEmpty() && outstanding < MAX_OUTSTANDING_REQUESTS) {
+        request.send(queue.pollFirst(), callback);
+        outstanding++;
+      }
+      final CuratorEvent event = results.take();
+      outstanding--;
+      return event;
+    }
   }
 
   @Override
@@ -360,6 +519,16 @@ public class DefaultZooKeeperClient implements ZooKeeperClient {
     return new PersistentPathChildrenCache<T>(client, path, clusterId, snapshotFile, valueType);
   }
 
+  @Override
+  public <T> PersistentPathChildrenCache<T> pathChildrenCache(final String path,
+                                                              final Path snapshotFile,
+                                                              final JavaType valueType,
+                                                              final ReactorFactory reactorFactory)
+      throws IOException, InterruptedException {
+    return new PersistentPathChildrenCache<T>(client, path, clusterId, snapshotFile, valueType,
+                                              reactorFactory);
+  }
+
   @Override
   public Collection<CuratorTransactionResult> transaction(final List<ZooKeeperOperation> operations)
       throws KeeperException {
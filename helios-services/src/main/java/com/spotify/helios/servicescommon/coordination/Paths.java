@@ -21,6 +21,18 @@ import com.spotify.helios.common.descriptors.JobId;
 
 import java.util.UUID;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * The paths of everything Helios keeps in ZooKeeper.
+ *
+ * Jobs can be kept in one of two layouts. In the flat layout, each job is a child of
+ * /config/jobs. In the sharded layout, each job is in a shard of /config/jobs named by the first
+ * {@value #JOB_SHARD_DIGITS} hex digits of its hash, e.g. /config/jobs/3f/foo:1:3f07a1..., so
+ * that no single directory grows with the number of jobs. Methods that take a {@code sharded}
+ * flag say which layout to use; the others use the flat layout. Shards are told apart from jobs
+ * by not having a ':' in their name.
+ */
 public class Paths {
 
   private static final String UP = "up";
@@ -37,14 +49,18 @@ public class Paths {
   private static final String PORTS = "ports";
   private static final String ENVIRONMENT = "environment";
   private static final String LABELS = "labels";
+  private static final String RESOURCE_USAGE = "resourceusage";
   private static final String ID = "id";
   private static final String DEPLOYMENT_GROUPS = "deployment-groups";
   private static final String DEPLOYMENT_GROUP_TASKS = "deployment-group-tasks";
+  private static final String DEREGISTERING = "deregistering";
 
   private static final PathFactory CONFIG_ID = new PathFactory("/", CONFIG, ID);
   private static final PathFactory CONFIG_JOBS = new PathFactory("/", CONFIG, JOBS);
   private static final PathFactory CONFIG_JOBREFS = new PathFactory("/", CONFIG, JOBREFS);
   private static final PathFactory CONFIG_HOSTS = new PathFactory("/", CONFIG, HOSTS);
+  private static final PathFactory CONFIG_DEREGISTERING = new PathFactory(
+      "/", CONFIG, DEREGISTERING);
   private static final PathFactory CONFIG_DEPLOYMENT_GROUPS = new PathFactory(
       "/", CONFIG, DEPLOYMENT_GROUPS);
 
@@ -57,6 +73,7 @@ public class Paths {
 
   private static final PathFactory HISTORY_JOBS = new PathFactory("/", HISTORY, JOBS);
   private static final String CREATION_PREFIX = "creation-";
+  private static final int JOB_SHARD_DIGITS = 2;
 
   public static String configHosts() {
     return CONFIG_HOSTS.path();
@@ -74,6 +91,27 @@ public class Paths {
     return CONFIG_JOBS.path(id.toString());
   }
 
+  public static String configJob(final JobId id, final boolean sharded) {
+    return sharded ? CONFIG_JOBS.path(jobShard(id), id.toString()) : configJob(id);
+  }
+
+  public static String configJobShard(final JobId id) {
+    return configJobShard(jobShard(id));
+  }
+
+  public static String configJobShard(final String shard) {
+    return CONFIG_JOBS.path(shard);
+  }
+
+  public static boolean isConfigJobShard(final String child) {
+    return child.indexOf(':') < 0;
+  }
+
+  private static String jobShard(final JobId id) {
+    checkArgument(id.isFullyQualified(), "job id is not fully qualified: %s", id);
+    return id.getHash().substring(0, JOB_SHARD_DIGITS);
+  }
+
   public static String configDeploymentGroups() {
     return CONFIG_DEPLOYMENT_GROUPS.path();
   }
@@ -99,6 +137,13 @@ public class Paths {
     return CONFIG_JOBS.path(id.toString(), name);
   }
 
+  public static String configJobCreation(final JobId id, final UUID operationId,
+                                         final boolean sharded) {
+    final String name = CREATION_PREFIX + operationId;
+    return sharded ? CONFIG_JOBS.path(jobShard(id), id.toString(), name)
+                   : configJobCreation(id, operationId);
+  }
+
   public static String configJobRefShort(final JobId id) {
     return CONFIG_JOBREFS.path(id.getName() + ":" + id.getVersion());
   }
@@ -107,14 +152,33 @@ public class Paths {
     return CONFIG_JOBS.path(jobId.toString(), HOSTS);
   }
 
+  public static String configJobHosts(final JobId jobId, final boolean sharded) {
+    return sharded ? CONFIG_JOBS.path(jobShard(jobId), jobId.toString(), HOSTS)
+                   : configJobHosts(jobId);
+  }
+
   public static String configJobHost(final JobId jobId, final String host) {
     return CONFIG_JOBS.path(jobId.toString(), HOSTS, host);
   }
 
+  public static String configJobHost(final JobId jobId, final String host,
+                                     final boolean sharded) {
+    return sharded ? CONFIG_JOBS.path(jobShard(jobId), jobId.toString(), HOSTS, host)
+                   : configJobHost(jobId, host);
+  }
+
   public static String configHost(final String host) {
     return CONFIG_HOSTS.path(host);
   }
 
+  public static String configDeregisteringHosts() {
+    return CONFIG_DEREGISTERING.path();
+  }
+
+  public static String configDeregisteringHost(final String host) {
+    return CONFIG_DEREGISTERING.path(host);
+  }
+
   public static String configHostId(final String host) {
     return CONFIG_HOSTS.path(host, ID);
   }
@@ -196,6 +260,10 @@ public class Paths {
     return STATUS_HOSTS.path(host, LABELS);
   }
 
+  public static String statusHostResourceUsage(final String host) {
+    return STATUS_HOSTS.path(host, RESOURCE_USAGE);
+  }
+
   public static String statusDeploymentGroups() {
     return STATUS_DEPLOYMENT_GROUPS.path();
   }
@@ -30,9 +30,10 @@ import com.spotify.helios.agent.BoundedRandomExponentialBackoff;
 import com.spotify.helios.agent.RetryIntervalPolicy;
 import com.spotify.helios.agent.RetryScheduler;
 import com.spotify.helios.common.Json;
-import com.spotify.helios.servicescommon.DefaultReactor;
+import com.spotify.helios.servicescommon.PayloadFormat;
 import com.spotify.helios.servicescommon.PersistentAtomicReference;
 import com.spotify.helios.servicescommon.Reactor;
+import com.spotify.helios.servicescommon.ReactorFactory;
 
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.api.CuratorWatcher;
@@ -92,6 +93,16 @@ public class PersistentPathChildrenCache<T> extends AbstractIdleService {
                                      final String clusterId, final Path snapshotFile,
                                      final JavaType valueType)
       throws IOException, InterruptedException {
+    this(curator, path, clusterId, snapshotFile, valueType, new ReactorFactory());
+  }
+
+  /**
+   * @param reactorFactory Creates the reactor that keeps the view up to date.
+   */
+  public PersistentPathChildrenCache(final CuratorFramework curator, final String path,
+                                     final String clusterId, final Path snapshotFile,
+                                     final JavaType valueType, final ReactorFactory reactorFactory)
+      throws IOException, InterruptedException {
     this.curator = curator;
     this.path = path;
     this.clusterId = clusterId;
@@ -102,7 +113,7 @@ public class PersistentPathChildrenCache<T> extends AbstractIdleService {
     final Supplier<Map<String, T>> empty = Suppliers.ofInstance(Collections.<String, T>emptyMap());
 
     this.snapshot = PersistentAtomicReference.create(snapshotFile, mapType, empty);
-    this.reactor = new DefaultReactor("zk-ppcc:" + path, new Update(), REFRESH_INTERVAL_MILLIS);
+    this.reactor = reactorFactory.create("zk-ppcc:" + path, new Update(), REFRESH_INTERVAL_MILLIS);
     curator.getConnectionStateListenable().addListener(new ConnectionListener());
   }
 
@@ -201,7 +212,7 @@ public class PersistentPathChildrenCache<T> extends AbstractIdleService {
         final byte[] bytes = curator.getData()
             .usingWatcher(dataWatcher)
             .forPath(node);
-        value = Json.read(bytes, valueType);
+        value = PayloadFormat.read(bytes, valueType);
       } catch (KeeperException e) {
         throw e;
       } catch (Exception e) {
@@ -243,13 +254,13 @@ public class PersistentPathChildrenCache<T> extends AbstractIdleService {
         final byte[] bytes = curator.getData()
             .usingWatcher(dataWatcher)
             .forPath(node);
-        final String json = new String(bytes, UTF_8);
-        log.debug("child: {}={}", node, json);
         final T value;
         try {
-          value = Json.read(bytes, valueType);
+          final byte[] json = PayloadFormat.toJson(bytes);
+          log.debug("child: {}={}", node, new String(json, UTF_8));
+          value = Json.read(json, valueType);
         } catch (IOException e) {
-          log.warn("failed to parse node: {}: {}", node, json, e);
+          log.warn("failed to parse node: {}: {}", node, new String(bytes, UTF_8), e);
           // Treat parse failure as absence
           continue;
         }
@@ -18,6 +18,7 @@
 package com.spotify.helios.servicescommon.coordination;
 
 import com.fasterxml.jackson.databind.JavaType;
+import com.spotify.helios.servicescommon.ReactorFactory;
 
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.api.transaction.CuratorTransactionResult;
@@ -34,6 +35,7 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * This class instruments ZooKeeper calls by timing them and reporting exceptions.
@@ -79,6 +81,16 @@ public class ReportingZooKeeperClient implements ZooKeeperClient {
     return reporter.time(tag, "getChildren", () -> client.getChildren(path));
   }
 
+  @Override
+  public Map<String, List<String>> getChildren(Collection<String> paths) throws KeeperException {
+    return reporter.time(tag, "getChildrenMany", () -> client.getChildren(paths));
+  }
+
+  @Override
+  public Map<String, Node> getNodes(Collection<String> paths) throws KeeperException {
+    return reporter.time(tag, "getNodes", () -> client.getNodes(paths));
+  }
+
   @Override
   public void delete(String path) throws KeeperException {
     reporter.time(tag, "delete", () -> {
@@ -144,6 +156,14 @@ public class ReportingZooKeeperClient implements ZooKeeperClient {
     return client.pathChildrenCache(path, snapshotFile, valueType);
   }
 
+  @Override
+  public <T> PersistentPathChildrenCache<T> pathChildrenCache(String path, Path snapshotFile,
+                                                              final JavaType valueType,
+                                                              final ReactorFactory reactorFactory)
+      throws IOException, InterruptedException {
+    return client.pathChildrenCache(path, snapshotFile, valueType, reactorFactory);
+  }
+
   @Override
   public Collection<CuratorTransactionResult> transaction(List<ZooKeeperOperation> operations)
       throws KeeperException {
@@ -18,6 +18,7 @@
 package com.spotify.helios.servicescommon.coordination;
 
 import com.fasterxml.jackson.databind.JavaType;
+import com.spotify.helios.servicescommon.ReactorFactory;
 
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.api.transaction.CuratorTransactionResult;
@@ -34,6 +35,7 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Exists because the Curator library makes things ununit-testable without this. Also it avoids
@@ -49,6 +51,18 @@ public interface ZooKeeperClient {
 
   List<String> getChildren(String path) throws KeeperException;
 
+  /**
+   * Gets the children of several nodes, with several requests in flight at once. Nodes that don't
+   * exist are left out of the result.
+   */
+  Map<String, List<String>> getChildren(Collection<String> paths) throws KeeperException;
+
+  /**
+   * Gets the data and stat of several nodes, with several requests in flight at once. Nodes that
+   * don't exist are left out of the result.
+   */
+  Map<String, Node> getNodes(Collection<String> paths) throws KeeperException;
+
   void delete(String path) throws KeeperException;
 
   void setData(String path, byte[] bytes) throws KeeperException;
@@ -59,8 +73,18 @@ public interface ZooKeeperClient {
 
   Stat stat(String path) throws KeeperException;
 
+  /**
+   * Deletes a node and everything below it, children first, in as many transactions as it takes
+   * to keep each one well within ZooKeeper's request size limit. The deletion is therefore not
+   * atomic: if it fails part way, what is left of the tree can be deleted by calling this again.
+   */
   void deleteRecursive(String path) throws KeeperException;
 
+  /**
+   * Lists a node and everything below it. Every node comes after its parent. The children of
+   * several nodes are requested at once, so the listing takes about one round trip per level of
+   * the tree rather than one per node.
+   */
   List<String> listRecursive(String path) throws KeeperException;
 
   void create(String path) throws KeeperException;
@@ -69,6 +93,14 @@ public interface ZooKeeperClient {
                                                        final JavaType valueType)
       throws IOException, InterruptedException;
 
+  /**
+   * @param reactorFactory Creates the reactor that keeps the cache up to date.
+   */
+  <T> PersistentPathChildrenCache<T> pathChildrenCache(String path, Path snapshotFile,
+                                                       JavaType valueType,
+                                                       ReactorFactory reactorFactory)
+      throws IOException, InterruptedException;
+
   Collection<CuratorTransactionResult> transaction(List<ZooKeeperOperation> operations)
       throws KeeperException;
 
@@ -25,6 +25,7 @@ import com.codahale.metrics.Clock;
 import com.spotify.helios.servicescommon.NoOpRiemannClient;
 import com.spotify.helios.servicescommon.RiemannFacade;
 import com.spotify.helios.servicescommon.statistics.NoopZooKeeperMetrics;
+import com.spotify.helios.servicescommon.statistics.RequestTrace;
 import com.spotify.helios.servicescommon.statistics.ZooKeeperMetrics;
 
 import org.apache.zookeeper.KeeperException;
@@ -85,7 +86,12 @@ public class ZooKeeperModelReporter {
     } catch (Exception e) {
       throw Throwables.propagate(e);
     } finally {
-      metrics.updateTimer(name, clock.getTick() - startTime, TimeUnit.NANOSECONDS);
+      final long duration = clock.getTick() - startTime;
+      metrics.updateTimer(name, duration, TimeUnit.NANOSECONDS);
+      final RequestTrace trace = RequestTrace.current();
+      if (trace != null) {
+        trace.zooKeeperOperation(name, duration, TimeUnit.NANOSECONDS);
+      }
     }
   }
 
@@ -17,7 +17,6 @@
 
 package com.spotify.helios.servicescommon.coordination;
 
-import org.apache.curator.utils.ZKPaths;
 import org.apache.zookeeper.KeeperException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,17 +38,18 @@ public class ZooKeeperNodeUpdater implements NodeUpdater {
 
   @Override
   public boolean update(final byte[] bytes) {
-    final String parent = ZKPaths.getPathAndNode(path).getPath();
     try {
-      if (zooKeeperClient.stat(parent) == null) {
-        return false;
-      }
-      if (zooKeeperClient.stat(path) == null) {
-        zooKeeperClient.createAndSetData(path, bytes);
-      } else {
+      try {
+        // The node usually exists, so try to overwrite it before anything else
         zooKeeperClient.setData(path, bytes);
+      } catch (KeeperException.NoNodeException e) {
+        // Fails with NoNode if the parent is gone too, e.g. as the host was deregistered
+        zooKeeperClient.createAndSetData(path, bytes);
       }
       return true;
+    } catch (KeeperException.NoNodeException e) {
+      log.debug("parent of node is missing, not updating: {}", path);
+      return false;
     } catch (KeeperException.NodeExistsException ignore) {
       // Conflict due to curator retry or losing a race. We're done here.
       return true;
@@ -61,4 +61,18 @@ public class ZooKeeperNodeUpdater implements NodeUpdater {
       return false;
     }
   }
+
+  /**
+   * Returns false if the node is missing, e.g. because it was removed by someone else since it
+   * was last updated. Returns true if it can't be told, so that a caller doesn't rewrite the node
+   * just because ZooKeeper is unavailable.
+   */
+  public boolean exists() {
+    try {
+      return zooKeeperClient.exists(path) != null;
+    } catch (KeeperException e) {
+      log.debug("failed to check if node exists: {}", path, e);
+      return true;
+    }
+  }
 }
@@ -23,6 +23,7 @@ import com.google.common.base.Suppliers;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import com.google.common.collect.MapDifference;
 import com.google.common.collect.Maps;
 import com.google.common.util.concurrent.AbstractIdleService;
@@ -30,9 +31,9 @@ import com.google.common.util.concurrent.AbstractIdleService;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.spotify.helios.agent.BoundedRandomExponentialBackoff;
 import com.spotify.helios.agent.RetryScheduler;
-import com.spotify.helios.servicescommon.DefaultReactor;
 import com.spotify.helios.servicescommon.PersistentAtomicReference;
 import com.spotify.helios.servicescommon.Reactor;
+import com.spotify.helios.servicescommon.ReactorFactory;
 
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.state.ConnectionState;
@@ -63,6 +64,11 @@ import static org.apache.zookeeper.KeeperException.NodeExistsException;
  * ZooKeeper, retrying forever until successful. Note that ZooKeeper is only written to and never
  * read from, so this is not a distributed map. Multiple changes to the same key are folded and only
  * the last value is written to ZooKeeper.
+ *
+ * Every modification is written to the state file before it returns, so that nothing is lost if
+ * the process dies. Only the ZooKeeper write is coalesced: after a change, the directory waits for
+ * the coalescing window to let a burst of changes land, then writes all changed nodes to ZooKeeper
+ * in a single multi-op transaction.
  */
 public class ZooKeeperUpdatingPersistentDirectory extends AbstractIdleService {
 
@@ -71,6 +77,12 @@ public class ZooKeeperUpdatingPersistentDirectory extends AbstractIdleService {
 
   private static final long RETRY_INTERVAL_MILLIS = 5000;
 
+  /**
+   * The most operations written to ZooKeeper in one transaction, to stay well clear of the maximum
+   * request size.
+   */
+  private static final int MAX_TRANSACTION_OPERATIONS = 64;
+
   private static final Map<String, byte[]> EMPTY_ENTRIES = Collections.emptyMap();
   private static final TypeReference<Map<String, byte[]>> ENTRIES_TYPE =
       new TypeReference<Map<String, byte[]>>() {};
@@ -92,12 +104,29 @@ public class ZooKeeperUpdatingPersistentDirectory extends AbstractIdleService {
   private final String path;
   private final Reactor reactor;
   private final PersistentAtomicReference<Map<String, byte[]>> entries;
+  private final FlushListener flushListener;
 
   private final Object lock = new Object() {};
 
+  private int changes;
+
   private Map<String, byte[]> remote = Maps.newHashMap();
   private volatile boolean initialized;
 
+  /**
+   * Told how many puts and removes each write to ZooKeeper folded into how many node writes.
+   */
+  public interface FlushListener {
+
+    void flushed(int changes, int writes);
+  }
+
+  private static final FlushListener NOOP_FLUSH_LISTENER = new FlushListener() {
+    @Override
+    public void flushed(final int changes, final int writes) {
+    }
+  };
+
   private final ConnectionStateListener connectionStateListener = new ConnectionStateListener() {
     @Override
     public void stateChanged(final CuratorFramework client, final ConnectionState newState) {
@@ -121,13 +150,18 @@ public class ZooKeeperUpdatingPersistentDirectory extends AbstractIdleService {
   private ZooKeeperUpdatingPersistentDirectory(final String name,
                                                final ZooKeeperClientProvider provider,
                                                final Path stateFile,
-                                               final String path)
+                                               final String path,
+                                               final long coalesceMillis,
+                                               final FlushListener flushListener,
+                                               final ReactorFactory reactorFactory)
       throws IOException, InterruptedException {
     this.provider = provider;
     this.path = path;
     this.entries = PersistentAtomicReference.create(stateFile, ENTRIES_TYPE,
                                                     Suppliers.ofInstance(EMPTY_ENTRIES));
-    this.reactor = new DefaultReactor(name, new Update(), RETRY_INTERVAL_MILLIS);
+    this.flushListener = Preconditions.checkNotNull(flushListener, "flushListener");
+    this.reactor = reactorFactory.create(name, new Update(), RETRY_INTERVAL_MILLIS,
+                                         coalesceMillis);
   }
 
   public byte[] put(final String key, final byte[] value) throws InterruptedException {
@@ -142,6 +176,7 @@ public class ZooKeeperUpdatingPersistentDirectory extends AbstractIdleService {
       } catch (IOException e) {
         throw Throwables.propagate(e);
       }
+      changes++;
     }
     reactor.signal();
     return prev;
@@ -166,6 +201,7 @@ public class ZooKeeperUpdatingPersistentDirectory extends AbstractIdleService {
       } catch (IOException e) {
         throw Throwables.propagate(e);
       }
+      changes++;
     }
     reactor.signal();
     return value;
@@ -200,7 +236,37 @@ public class ZooKeeperUpdatingPersistentDirectory extends AbstractIdleService {
                                                             final Path stateFile,
                                                             final String path)
       throws IOException, InterruptedException {
-    return new ZooKeeperUpdatingPersistentDirectory(name, client, stateFile, path);
+    return create(name, client, stateFile, path, 0, NOOP_FLUSH_LISTENER);
+  }
+
+  /**
+   * @param coalesceMillis How long to wait after a change for more changes before writing.
+   * @param flushListener Told about every write to ZooKeeper.
+   */
+  public static ZooKeeperUpdatingPersistentDirectory create(final String name,
+                                                            final ZooKeeperClientProvider client,
+                                                            final Path stateFile,
+                                                            final String path,
+                                                            final long coalesceMillis,
+                                                            final FlushListener flushListener)
+      throws IOException, InterruptedException {
+    return create(name, client, stateFile, path, coalesceMillis, flushListener,
+                  new ReactorFactory());
+  }
+
+  /**
+   * @param reactorFactory Creates the reactor that writes changes to ZooKeeper.
+   */
+  public static ZooKeeperUpdatingPersistentDirectory create(final String name,
+                                                            final ZooKeeperClientProvider client,
+                                                            final Path stateFile,
+                                                            final String path,
+                                                            final long coalesceMillis,
+                                                            final FlushListener flushListener,
+                                                            final ReactorFactory reactorFactory)
+      throws IOException, InterruptedException {
+    return new ZooKeeperUpdatingPersistentDirectory(name, client, stateFile, path, coalesceMillis,
+                                                    flushListener, reactorFactory);
   }
 
 
@@ -220,11 +286,12 @@ public class ZooKeeperUpdatingPersistentDirectory extends AbstractIdleService {
             log.warn("parent does not exist: {}", path);
             return;
           }
+          int synced = 0;
           if (!initialized) {
-            syncChecked();
+            synced = syncChecked();
             initialized = true;
           }
-          incrementalUpdate();
+          incrementalUpdate(synced);
           return;
         } catch (KeeperException e) {
           final long backoff = retryScheduler.nextMillis();
@@ -245,15 +312,23 @@ public class ZooKeeperUpdatingPersistentDirectory extends AbstractIdleService {
       return state().ordinal() < STOPPING.ordinal();
     }
 
-    private void incrementalUpdate() throws KeeperException {
+    /**
+     * @param synced The number of nodes written by a preceding resync.
+     */
+    private void incrementalUpdate(final int synced) throws KeeperException {
+      // The changes are only counted as flushed once written, so that the changes of a failed
+      // write are reported with the retry that writes them
+      final int folded;
+      synchronized (lock) {
+        folded = changes;
+      }
       final MapDifference<String, byte[]> difference = Maps.difference(entries.get(), remote,
                                                                        BYTE_ARRAY_EQUIVALENCE);
       if (difference.areEqual()) {
+        flushed(folded, synced);
         return;
       }
 
-      final Map<String, byte[]> newRemote = Maps.newHashMap(remote);
-
       final Map<String, byte[]> create = difference.entriesOnlyOnLeft();
       final Map<String, ValueDifference<byte[]>> update = difference.entriesDiffering();
       final Map<String, byte[]> delete = difference.entriesOnlyOnRight();
@@ -262,53 +337,60 @@ public class ZooKeeperUpdatingPersistentDirectory extends AbstractIdleService {
       log.debug("update: {}", update.keySet());
       log.debug("delete: {}", delete.keySet());
 
+      // The value of each node after the write, null for deleted nodes
+      final List<Map.Entry<String, byte[]>> writes = Lists.newArrayList();
+      final List<ZooKeeperOperation> operations = Lists.newArrayList();
       for (final Map.Entry<String, byte[]> entry : create.entrySet()) {
-        write(entry.getKey(), entry.getValue());
-        newRemote.put(entry.getKey(), entry.getValue());
+        operations.add(ZooKeeperOperations.create(
+            ZKPaths.makePath(path, entry.getKey()), entry.getValue()));
+        writes.add(Maps.immutableEntry(entry.getKey(), entry.getValue()));
       }
-
       for (final Map.Entry<String, ValueDifference<byte[]>> entry : update.entrySet()) {
-        write(entry.getKey(), entry.getValue().leftValue());
-        newRemote.put(entry.getKey(), entry.getValue().leftValue());
+        operations.add(ZooKeeperOperations.set(
+            ZKPaths.makePath(path, entry.getKey()), entry.getValue().leftValue()));
+        writes.add(Maps.immutableEntry(entry.getKey(), entry.getValue().leftValue()));
+      }
+      for (final String node : delete.keySet()) {
+        operations.add(ZooKeeperOperations.delete(ZKPaths.makePath(path, node)));
+        writes.add(Maps.<String, byte[]>immutableEntry(node, null));
       }
 
-      for (final Map.Entry<String, byte[]> entry : delete.entrySet()) {
-        delete(entry.getKey());
-        newRemote.remove(entry.getKey());
+      // A failed transaction throws and the caller resyncs, so the nodes written by the
+      // transactions that did succeed are recorded as we go.
+      final ZooKeeperClient client = client("write");
+      for (int i = 0; i < operations.size(); i += MAX_TRANSACTION_OPERATIONS) {
+        final int end = Math.min(operations.size(), i + MAX_TRANSACTION_OPERATIONS);
+        client.transaction(operations.subList(i, end));
+        for (final Map.Entry<String, byte[]> write : writes.subList(i, end)) {
+          if (write.getValue() == null) {
+            remote.remove(write.getKey());
+          } else {
+            remote.put(write.getKey(), write.getValue());
+          }
+        }
       }
+      flushed(folded, synced + operations.size());
+    }
 
-      remote = newRemote;
+    private void flushed(final int folded, final int writes) {
+      synchronized (lock) {
+        changes -= folded;
+      }
+      flushListener.flushed(folded, writes);
     }
 
     private boolean parentExists() throws KeeperException {
       return client("parentExists").exists(path) != null;
       }
 
-    private void delete(final String node) throws KeeperException {
-      final ZooKeeperClient client = client("delete");
-      final String nodePath = ZKPaths.makePath(path, node);
-        if (client.stat(nodePath) != null) {
-          log.debug("deleting node: {}", nodePath);
-          client.delete(nodePath);
-        }
-    }
-
-    private void write(final String node, final byte[] data) throws KeeperException {
-      final ZooKeeperClient client = client("write");
-      final String nodePath = ZKPaths.makePath(path, node);
-        if (client.stat(nodePath) != null) {
-          log.debug("setting node: {}", nodePath);
-          client.setData(nodePath, data);
-        } else {
-          log.debug("creating node: {}", nodePath);
-          client.createAndSetData(nodePath, data);
-        }
-    }
-
-    private void syncChecked() throws KeeperException {
+    /**
+     * @return The number of nodes written.
+     */
+    private int syncChecked() throws KeeperException {
       final ZooKeeperClient client = client("sync");
       final List<String> nodes = client.getChildren(path);
       final Map<String, byte[]> snapshot = entries.get();
+      int written = 0;
 
       // Get new remote state
       remote = Maps.newHashMap();
@@ -328,10 +410,12 @@ public class ZooKeeperUpdatingPersistentDirectory extends AbstractIdleService {
           log.debug("sync: creating node {}", nodePath);
           client.createAndSetData(nodePath, localData);
           remote.put(node, localData);
+          written++;
         } else if (!Arrays.equals(remoteData, localData)) {
           log.debug("sync: updating node {}", nodePath);
           client.setData(nodePath, localData);
           remote.put(node, localData);
+          written++;
         }
       }
 
@@ -343,8 +427,10 @@ public class ZooKeeperUpdatingPersistentDirectory extends AbstractIdleService {
           log.debug("sync: deleting node {}", nodePath);
           client.delete(nodePath);
           remote.remove(node);
+          written++;
         }
       }
+      return written;
     }
   }
 }
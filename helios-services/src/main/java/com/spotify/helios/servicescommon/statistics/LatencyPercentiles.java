@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.servicescommon.statistics;
+
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Percentiles of the recent samples of a {@link Timer}, in milliseconds.
+ */
+public class LatencyPercentiles {
+  private final int samples;
+  private final double median;
+  private final double percentile99;
+
+  public LatencyPercentiles(Timer timer) {
+    this(timer.getSnapshot());
+  }
+
+  private LatencyPercentiles(Snapshot snapshot) {
+    this(snapshot.size(), nanosToMillis(snapshot.getMedian()),
+         nanosToMillis(snapshot.get99thPercentile()));
+  }
+
+  public LatencyPercentiles(int samples, double median, double percentile99) {
+    this.samples = samples;
+    this.median = median;
+    this.percentile99 = percentile99;
+  }
+
+  private static double nanosToMillis(double nanos) {
+    return nanos / MILLISECONDS.toNanos(1);
+  }
+
+  /**
+   * Returns the number of recent samples the percentiles are computed from.
+   */
+  public int getSamples() {
+    return samples;
+  }
+
+  public double getMedian() {
+    return median;
+  }
+
+  public double get99thPercentile() {
+    return percentile99;
+  }
+}
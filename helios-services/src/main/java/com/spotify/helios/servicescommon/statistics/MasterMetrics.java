@@ -25,6 +25,8 @@ public interface MasterMetrics {
 
   void badRequest(String name);
 
+  void requestTrace(RequestTrace trace);
+
   void clientVersion(String version);
 
   void jobsInJobList(int count);
@@ -61,6 +61,11 @@ public class MasterMetricsImpl implements MasterMetrics {
     request(name).userError();
   }
 
+  @Override
+  public void requestTrace(final RequestTrace trace) {
+    request(trace.getEndpoint()).trace(trace);
+  }
+
   private MasterRequestMetrics request(final String name) {
     MasterRequestMetrics m = requestMetrics.get(name);
     if (m == null) {
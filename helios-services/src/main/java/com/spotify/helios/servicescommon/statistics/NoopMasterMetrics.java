@@ -28,6 +28,9 @@ public class NoopMasterMetrics implements MasterMetrics {
   @Override
   public void badRequest(final String name) {}
 
+  @Override
+  public void requestTrace(final RequestTrace trace) {}
+
   @Override
   public void clientVersion(final String version) {}
 
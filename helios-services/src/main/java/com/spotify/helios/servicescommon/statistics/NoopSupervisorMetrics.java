@@ -17,6 +17,10 @@
 
 package com.spotify.helios.servicescommon.statistics;
 
+import com.spotify.helios.common.descriptors.JobId;
+import com.spotify.helios.common.descriptors.ResourceUsage;
+
+import java.util.Map;
 
 public class NoopSupervisorMetrics implements SupervisorMetrics {
 
@@ -56,6 +60,21 @@ public class NoopSupervisorMetrics implements SupervisorMetrics {
   @Override
   public void dockerTimeout() {}
 
+  @Override
+  public void dockerCallStarted(final String method) {}
+
+  @Override
+  public void dockerCallFinished(final String method, final long durationNanos) {}
+
+  @Override
+  public void resourceUsageSampled(final long durationNanos) {}
+
+  @Override
+  public void resourceUsage(final Map<JobId, ResourceUsage> usage) {}
+
+  @Override
+  public void taskStatusesFlushed(final int updates, final int writes) {}
+
   @Override
   public void supervisorRun() {}
 
@@ -73,4 +92,9 @@ public class NoopSupervisorMetrics implements SupervisorMetrics {
   public MeterRates getSupervisorRunRates() {
     return new MeterRates(0, 0, 0);
   }
+
+  @Override
+  public LatencyPercentiles getDockerLatency(final String method) {
+    return new LatencyPercentiles(0, 0, 0);
+  }
 }
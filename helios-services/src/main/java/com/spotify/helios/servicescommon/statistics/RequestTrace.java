@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.servicescommon.statistics;
+
+import com.google.common.collect.Maps;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Where the time of one API request went: in ZooKeeper operations, in the rest of the resource
+ * method, and outside of it, mostly writing the response.
+ *
+ * A trace belongs to the thread that handles the request, so that code far from the resource,
+ * like the {@link com.spotify.helios.servicescommon.coordination.ZooKeeperModelReporter}, can add
+ * to it through {@link #current()} without it being passed around. ZooKeeper operations made on
+ * other threads on behalf of the request aren't counted.
+ *
+ * The time a request waited for a Jetty thread isn't part of the trace, as it's over before the
+ * request can be told apart. The length of that queue is reported by Jetty's thread pool metrics.
+ */
+public class RequestTrace {
+
+  private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+
+  private final long startNanos;
+  private final Map<String, Operations> operations = Maps.newTreeMap();
+  private String endpoint;
+  private long handlerNanos;
+  private long zooKeeperNanos;
+  private int zooKeeperOperations;
+  private long totalNanos;
+
+  private RequestTrace() {
+    this.startNanos = System.nanoTime();
+  }
+
+  /**
+   * Starts tracing a request on the current thread.
+   */
+  public static RequestTrace start() {
+    final RequestTrace trace = new RequestTrace();
+    CURRENT.set(trace);
+    return trace;
+  }
+
+  /**
+   * Returns the trace of the request being handled by the current thread, if any.
+   */
+  @Nullable
+  public static RequestTrace current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Stops tracing the request.
+   */
+  public void finish() {
+    totalNanos = System.nanoTime() - startNanos;
+    if (CURRENT.get() == this) {
+      CURRENT.remove();
+    }
+  }
+
+  /**
+   * Records the resource method that handled the request, and how long it took, including its
+   * ZooKeeper operations.
+   */
+  public void handled(final String endpoint, final long duration, final TimeUnit unit) {
+    this.endpoint = endpoint;
+    this.handlerNanos = unit.toNanos(duration);
+  }
+
+  public void zooKeeperOperation(final String name, final long duration, final TimeUnit unit) {
+    final long nanos = unit.toNanos(duration);
+    Operations ops = operations.get(name);
+    if (ops == null) {
+      ops = new Operations();
+      operations.put(name, ops);
+    }
+    ops.count++;
+    ops.nanos += nanos;
+    zooKeeperOperations++;
+    zooKeeperNanos += nanos;
+  }
+
+  /**
+   * Returns the resource method that handled the request, or null if the request wasn't handled
+   * by a resource, e.g. because it was rejected by a filter.
+   */
+  @Nullable
+  public String getEndpoint() {
+    return endpoint;
+  }
+
+  public long getHandlerNanos() {
+    return handlerNanos;
+  }
+
+  public long getZooKeeperNanos() {
+    return zooKeeperNanos;
+  }
+
+  public int getZooKeeperOperations() {
+    return zooKeeperOperations;
+  }
+
+  /**
+   * Returns the time spent outside the resource method, i.e. mostly serializing and writing the
+   * response. As it's the total time less the time in the resource method, it also includes the
+   * time in servlet filters and in Jersey before the resource method was called, e.g. routing the
+   * request and reading its entity.
+   */
+  public long getSerializationNanos() {
+    return Math.max(0, totalNanos - handlerNanos);
+  }
+
+  /**
+   * Returns the time from when the request started being traced until it finished.
+   */
+  public long getTotalNanos() {
+    return totalNanos;
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder builder = new StringBuilder()
+        .append(endpoint)
+        .append(" took ").append(NANOSECONDS.toMillis(totalNanos)).append(" ms")
+        .append(" (zookeeper ").append(NANOSECONDS.toMillis(zooKeeperNanos)).append(" ms")
+        .append(" in ").append(zooKeeperOperations).append(" operations")
+        .append(", serialization ").append(NANOSECONDS.toMillis(getSerializationNanos()))
+        .append(" ms)");
+    String separator = ": ";
+    for (final Map.Entry<String, Operations> entry : operations.entrySet()) {
+      builder.append(separator)
+          .append(entry.getKey()).append(" x").append(entry.getValue().count)
+          .append(" ").append(NANOSECONDS.toMillis(entry.getValue().nanos)).append(" ms");
+      separator = ", ";
+    }
+    return builder.toString();
+  }
+
+  private static class Operations {
+    int count;
+    long nanos;
+  }
+}
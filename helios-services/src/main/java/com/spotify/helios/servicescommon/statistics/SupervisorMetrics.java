@@ -17,6 +17,11 @@
 
 package com.spotify.helios.servicescommon.statistics;
 
+import com.spotify.helios.common.descriptors.JobId;
+import com.spotify.helios.common.descriptors.ResourceUsage;
+
+import java.util.Map;
+
 public interface SupervisorMetrics {
 
   void supervisorStarted();
@@ -41,10 +46,42 @@ public interface SupervisorMetrics {
 
   void dockerTimeout();
 
+  /**
+   * Records that a call to a method of the Docker API started, see {@link #dockerCallFinished}.
+   */
+  void dockerCallStarted(String method);
+
+  /**
+   * Records that a call to a method of the Docker API finished, successfully or not.
+   */
+  void dockerCallFinished(String method, long durationNanos);
+
   void supervisorRun();
 
+  /**
+   * Records how long one pass of sampling the resource usage of all containers took.
+   */
+  void resourceUsageSampled(long durationNanos);
+
+  /**
+   * Publishes the latest resource usage of the containers of each job, replacing what was
+   * published before.
+   */
+  void resourceUsage(Map<JobId, ResourceUsage> usage);
+
+  /**
+   * Records that a write of task statuses to ZooKeeper folded {@code updates} status updates into
+   * {@code writes} node writes.
+   */
+  void taskStatusesFlushed(int updates, int writes);
+
   MeterRates getDockerTimeoutRates();
   MeterRates getContainersThrewExceptionRates();
   MeterRates getSupervisorRunRates();
 
+  /**
+   * Returns the latency of the recent calls to a method of the Docker API.
+   */
+  LatencyPercentiles getDockerLatency(String method);
+
 }
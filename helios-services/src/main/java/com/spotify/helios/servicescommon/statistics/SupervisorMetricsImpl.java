@@ -17,13 +17,37 @@
 
 package com.spotify.helios.servicescommon.statistics;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import com.codahale.metrics.Clock;
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.codahale.metrics.SlidingTimeWindowReservoir;
+import com.codahale.metrics.Timer;
+import com.spotify.helios.common.descriptors.JobId;
+import com.spotify.helios.common.descriptors.ResourceUsage;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.ToDoubleFunction;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 public class SupervisorMetricsImpl implements SupervisorMetrics {
   private static final String TYPE = "agent_supervisor";
 
+  // How long a Docker call's latency counts towards its percentiles
+  private static final long DOCKER_LATENCY_WINDOW_MINUTES = 5;
+
   private final RequestMetrics imagePull;
 
   private final Counter containerStartedCounter;
@@ -36,6 +60,8 @@ public class SupervisorMetricsImpl implements SupervisorMetrics {
   private final Counter supervisorStoppedCounter;
   private final Counter supervisorRunCounter;
   private final Counter dockerTimeoutCounter;
+  private final Counter taskStatusUpdateCounter;
+  private final Counter taskStatusWriteCounter;
 
   private final Meter containerStartedMeter;
   private final Meter containersExitedMeter;
@@ -48,11 +74,25 @@ public class SupervisorMetricsImpl implements SupervisorMetrics {
   private final Meter supervisorStoppedMeter;
   private final Meter supervisorRunMeter;
 
+  private final Timer resourceUsageSampleTimer;
+
+  private final MetricRegistry registry;
+  private final Clock clock;
+  private final String prefix;
+  private final ConcurrentMap<String, Timer> dockerLatencies = Maps.newConcurrentMap();
+  private final Set<JobId> resourceUsageJobs = Sets.newHashSet();
+  private volatile Map<JobId, ResourceUsage> resourceUsage = ImmutableMap.of();
 
   public SupervisorMetricsImpl(final String group,
                                final MetricRegistry registry) {
+    this(group, registry, Clock.defaultClock());
+  }
 
-    final String prefix = MetricRegistry.name(group, TYPE) + ".";
+  @VisibleForTesting
+  SupervisorMetricsImpl(final String group, final MetricRegistry registry, final Clock clock) {
+    this.registry = registry;
+    this.clock = clock;
+    this.prefix = MetricRegistry.name(group, TYPE) + ".";
 
     containerStartedCounter = registry.counter(prefix + "container_started_counter");
     containersExitedCounter = registry.counter(prefix + "containers_exited_counter");
@@ -65,6 +105,8 @@ public class SupervisorMetricsImpl implements SupervisorMetrics {
     supervisorStoppedCounter = registry.counter(prefix + "supervisor_stopped_counter");
     supervisorRunCounter = registry.counter(prefix + "supervisor_run_counter");
     dockerTimeoutCounter = registry.counter(prefix + "docker_timeout_counter");
+    taskStatusUpdateCounter = registry.counter(prefix + "task_status_update_counter");
+    taskStatusWriteCounter = registry.counter(prefix + "task_status_write_counter");
 
     containerStartedMeter = registry.meter(prefix + "container_started_meter");
     containersExitedMeter = registry.meter(prefix + "containers_exited_meter");
@@ -77,6 +119,16 @@ public class SupervisorMetricsImpl implements SupervisorMetrics {
     supervisorRunMeter = registry.meter(prefix + "supervisor_run_meter");
     dockerTimeoutMeter = registry.meter(prefix + "docker_timeout_meter");
 
+    resourceUsageSampleTimer = registry.timer(prefix + "resource_usage_sample_timer");
+
+    // Node writes per task status update since the agent started, below 1 when updates coalesce
+    registry.register(prefix + "task_status_write_amplification", new RatioGauge() {
+      @Override
+      protected Ratio getRatio() {
+        return Ratio.of(taskStatusWriteCounter.getCount(), taskStatusUpdateCounter.getCount());
+      }
+    });
+
     imagePull = new RequestMetrics(group, TYPE, "image_pull", registry);
   }
 
@@ -144,6 +196,40 @@ public class SupervisorMetricsImpl implements SupervisorMetrics {
     dockerTimeoutMeter.mark();
   }
 
+  /**
+   * Docker API calls are tracked per method, in a counter of calls in flight named
+   * {@code docker_in_flight.<method>} and a timer named {@code docker_latency.<method>}.
+   *
+   * The timers only keep the calls of the last {@value #DOCKER_LATENCY_WINDOW_MINUTES} minutes, so
+   * that slow calls age out even if no more calls are made.
+   */
+  @Override
+  public void dockerCallStarted(final String method) {
+    registry.counter(dockerName("docker_in_flight", method)).inc();
+  }
+
+  @Override
+  public void dockerCallFinished(final String method, final long durationNanos) {
+    registry.counter(dockerName("docker_in_flight", method)).dec();
+    dockerLatency(method).update(durationNanos, NANOSECONDS);
+  }
+
+  @Override
+  public LatencyPercentiles getDockerLatency(final String method) {
+    return new LatencyPercentiles(dockerLatency(method));
+  }
+
+  private Timer dockerLatency(final String method) {
+    return dockerLatencies.computeIfAbsent(method, m -> registry.register(
+        dockerName("docker_latency", m),
+        new Timer(new SlidingTimeWindowReservoir(DOCKER_LATENCY_WINDOW_MINUTES, MINUTES, clock),
+                  clock)));
+  }
+
+  private String dockerName(final String metric, final String method) {
+    return prefix + metric + "." + method;
+  }
+
   @Override
   public MeterRates getDockerTimeoutRates() {
     return new MeterRates(dockerTimeoutMeter);
@@ -164,4 +250,58 @@ public class SupervisorMetricsImpl implements SupervisorMetrics {
   public MeterRates getSupervisorRunRates() {
     return new MeterRates(supervisorRunMeter);
   }
+
+  @Override
+  public void resourceUsageSampled(final long durationNanos) {
+    resourceUsageSampleTimer.update(durationNanos, NANOSECONDS);
+  }
+
+  @Override
+  public void taskStatusesFlushed(final int updates, final int writes) {
+    taskStatusUpdateCounter.inc(updates);
+    taskStatusWriteCounter.inc(writes);
+  }
+
+  /**
+   * Registers a set of gauges per job, named {@code container_resource_usage.<job>.<resource>},
+   * the first time the job is published, and removes them once it no longer is.
+   */
+  @Override
+  public synchronized void resourceUsage(final Map<JobId, ResourceUsage> usage) {
+    resourceUsage = ImmutableMap.copyOf(usage);
+    for (final JobId jobId : ImmutableSet.copyOf(Sets.difference(resourceUsageJobs,
+                                                                 usage.keySet()))) {
+      final String name = resourceUsageName(jobId);
+      registry.removeMatching((metricName, metric) -> metricName.startsWith(name + "."));
+      resourceUsageJobs.remove(jobId);
+    }
+    for (final JobId jobId : usage.keySet()) {
+      if (resourceUsageJobs.add(jobId)) {
+        resourceUsageGauge(jobId, "cpu_cores", ResourceUsage::getCpuCores);
+        resourceUsageGauge(jobId, "memory_bytes", ResourceUsage::getMemoryBytes);
+        resourceUsageGauge(jobId, "memory_max_bytes", ResourceUsage::getMemoryMaxBytes);
+        resourceUsageGauge(jobId, "network_rx_bytes_per_second",
+                           ResourceUsage::getNetworkRxBytesPerSecond);
+        resourceUsageGauge(jobId, "network_tx_bytes_per_second",
+                           ResourceUsage::getNetworkTxBytesPerSecond);
+        resourceUsageGauge(jobId, "block_read_bytes_per_second",
+                           ResourceUsage::getBlockReadBytesPerSecond);
+        resourceUsageGauge(jobId, "block_write_bytes_per_second",
+                           ResourceUsage::getBlockWriteBytesPerSecond);
+      }
+    }
+  }
+
+  private String resourceUsageName(final JobId jobId) {
+    return prefix + "container_resource_usage." + jobId;
+  }
+
+  private void resourceUsageGauge(final JobId jobId, final String resource,
+                                  final ToDoubleFunction<ResourceUsage> value) {
+    registry.register(MetricRegistry.name(resourceUsageName(jobId), resource),
+                      (Gauge<Double>) () -> {
+                        final ResourceUsage usage = resourceUsage.get(jobId);
+                        return usage == null ? 0 : value.applyAsDouble(usage);
+                      });
+  }
 }
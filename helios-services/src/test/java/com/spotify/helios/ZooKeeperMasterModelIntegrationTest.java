@@ -18,22 +18,27 @@
 package com.spotify.helios;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 
 import com.spotify.helios.common.HeliosException;
 import com.spotify.helios.common.descriptors.Deployment;
 import com.spotify.helios.common.descriptors.DeploymentGroup;
 import com.spotify.helios.common.descriptors.Goal;
 import com.spotify.helios.common.descriptors.HostSelector;
+import com.spotify.helios.common.descriptors.HostStatus;
 import com.spotify.helios.common.descriptors.Job;
 import com.spotify.helios.common.descriptors.JobId;
 import com.spotify.helios.master.DeploymentGroupDoesNotExistException;
 import com.spotify.helios.master.DeploymentGroupExistsException;
+import com.spotify.helios.master.HostChangedException;
 import com.spotify.helios.master.HostNotFoundException;
 import com.spotify.helios.master.JobDoesNotExistException;
 import com.spotify.helios.master.JobNotDeployedException;
 import com.spotify.helios.master.JobStillDeployedException;
 import com.spotify.helios.master.ZooKeeperMasterModel;
 import com.spotify.helios.servicescommon.KafkaSender;
+import com.spotify.helios.servicescommon.PayloadFormat;
+import com.spotify.helios.servicescommon.VersionedValue;
 import com.spotify.helios.servicescommon.coordination.DefaultZooKeeperClient;
 import com.spotify.helios.servicescommon.coordination.Paths;
 import com.spotify.helios.servicescommon.coordination.ZooKeeperClient;
@@ -51,13 +56,19 @@ import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
@@ -129,6 +140,83 @@ public class ZooKeeperMasterModelIntegrationTest {
     assertThat(model.listHosts(), contains(secondHost));
   }
 
+  @Test
+  public void testListVersions() throws Exception {
+    final String hosts = model.getHostsVersion();
+    final String jobs = model.getJobsVersion();
+
+    // Unchanged lists keep their versions
+    assertEquals(hosts, model.getHostsVersion());
+    assertEquals(jobs, model.getJobsVersion());
+
+    model.registerHost(HOST, "foo");
+    final String registered = model.getHostsVersion();
+    assertThat(registered, not(equalTo(hosts)));
+    assertEquals(jobs, model.getJobsVersion());
+
+    model.addJob(JOB);
+    final String added = model.getJobsVersion();
+    assertThat(added, not(equalTo(jobs)));
+    assertEquals(registered, model.getHostsVersion());
+
+    model.removeJob(JOB_ID);
+    assertThat(model.getJobsVersion(), not(equalTo(added)));
+
+    model.deregisterHost(HOST);
+    assertThat(model.getHostsVersion(), not(equalTo(registered)));
+  }
+
+  @Test
+  public void testBulkDeregistration() throws Exception {
+    model.registerHost("host1", "foo");
+    model.registerHost("host2", "bar");
+    model.registerHost("host3", "baz");
+
+    final Map<String, Exception> failures =
+        model.deregisterHosts(asList("host1", "host2", "missing"));
+
+    assertEquals(failures.toString(), 1, failures.size());
+    assertTrue(failures.get("missing") instanceof HostNotFoundException);
+    assertThat(model.listHosts(), contains("host3"));
+    assertThat(model.listDeregisteringHosts(), empty());
+  }
+
+  @Test
+  public void testShardedJobs() throws Exception {
+    final ZooKeeperMasterModel sharded = new ZooKeeperMasterModel(
+        new ZooKeeperClientProvider(client, ZooKeeperModelReporter.noop()),
+        getClass().getName(), mock(KafkaSender.class), PayloadFormat.JSON, true);
+    final Job shardedJob = JOB.toBuilder().setVersion("SHARDED").build();
+
+    model.addJob(JOB);
+    sharded.addJob(shardedJob);
+    assertNotNull(client.exists(Paths.configJob(JOB_ID, false)));
+    assertNotNull(client.exists(Paths.configJob(shardedJob.getId(), true)));
+
+    // Both models see the jobs in both layouts
+    final String version = model.getJobsVersion();
+    assertEquals(version, sharded.getJobsVersion());
+    assertEquals(ImmutableSet.of(JOB_ID, shardedJob.getId()), model.getJobs().keySet());
+    assertEquals(ImmutableSet.of(JOB_ID, shardedJob.getId()), sharded.getJobs().keySet());
+    assertEquals(shardedJob, model.getJob(shardedJob.getId()));
+    assertEquals(JOB, sharded.getJob(JOB_ID));
+
+    // ... and can deploy, undeploy and remove them
+    model.registerHost(HOST, "foo");
+    model.deployJob(HOST, Deployment.newBuilder()
+        .setJobId(shardedJob.getId())
+        .setGoal(Goal.START)
+        .build());
+    assertNotNull(client.exists(Paths.configJobHost(shardedJob.getId(), HOST, true)));
+    assertEquals(ImmutableSet.of(HOST),
+                 model.getJobStatus(shardedJob.getId()).getDeployments().keySet());
+    model.undeployJob(HOST, shardedJob.getId());
+    model.removeJob(shardedJob.getId());
+    assertNull(client.exists(Paths.configJob(shardedJob.getId(), true)));
+    assertEquals(ImmutableSet.of(JOB_ID), sharded.getJobs().keySet());
+    assertThat(model.getJobsVersion(), not(equalTo(version)));
+  }
+
   @Test
   public void testJobCreation() throws Exception {
     assertThat(model.getJobs().entrySet(), empty());
@@ -170,6 +258,33 @@ public class ZooKeeperMasterModelIntegrationTest {
     assertNull(model.getJobs().get(JOB_ID));
   }
 
+  @Test
+  public void testJobIndex() throws Exception {
+    final Job expiring = JOB.toBuilder()
+        .setVersion("EXPIRING")
+        .setCreated(1000L)
+        .setExpires(new Date(2000))
+        .build();
+    model.addJob(expiring);
+
+    // Jobs created and removed through other masters are picked up too
+    final ZooKeeperMasterModel other = new ZooKeeperMasterModel(
+        new ZooKeeperClientProvider(client, ZooKeeperModelReporter.noop()), "other",
+        mock(KafkaSender.class));
+    final Job job = JOB.toBuilder().setCreated(1500L).build();
+    other.addJob(job);
+
+    assertEquals(singletonList(expiring.getId()), model.getExpiredJobs(2000));
+    assertEquals(asList(expiring.getId(), job.getId()), model.getInactiveJobs(3000));
+
+    model.registerHost(HOST, "foo");
+    model.deployJob(HOST, Deployment.of(job.getId(), Goal.START));
+    assertEquals(singletonList(expiring.getId()), model.getInactiveJobs(3000));
+
+    other.removeJob(expiring.getId());
+    assertEquals(emptyList(), model.getExpiredJobs(2000));
+  }
+
   @Test
   public void testDeploy() throws Exception {
     try {
@@ -209,6 +324,31 @@ public class ZooKeeperMasterModelIntegrationTest {
     }
   }
 
+  @Test
+  public void testDeployAtHostVersion() throws Exception {
+    final Job other = JOB.toBuilder().setName("OTHER").build();
+    model.addJob(JOB);
+    model.addJob(other);
+    model.registerHost(HOST, "foo");
+
+    final int version = model.getHostPlacementStatuses().get(HOST).version();
+    model.deployJob(HOST, Deployment.of(other.getId(), Goal.START));
+    final VersionedValue<HostStatus> status = model.getHostPlacementStatuses().get(HOST);
+    assertEquals(ImmutableSet.of(other.getId()), status.value().getJobs().keySet());
+
+    // The deployment of the other job makes a deployment at the version read before it fail
+    try {
+      model.deployJob(HOST, Deployment.of(JOB_ID, Goal.START), Job.EMPTY_TOKEN, version);
+      fail("should throw");
+    } catch (HostChangedException e) {
+      assertEquals(HOST, e.getHost());
+    }
+    assertNull(model.getDeployment(HOST, JOB_ID));
+
+    model.deployJob(HOST, Deployment.of(JOB_ID, Goal.START), Job.EMPTY_TOKEN, status.version());
+    assertNotNull(model.getDeployment(HOST, JOB_ID));
+  }
+
   @Test
   public void testHostRegistration() throws Exception {
     model.registerHost(HOST, "foo");
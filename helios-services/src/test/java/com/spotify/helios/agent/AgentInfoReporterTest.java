@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.agent;
+
+import com.google.common.collect.ImmutableList;
+
+import com.spotify.helios.common.Clock;
+import com.spotify.helios.servicescommon.coordination.NodeUpdaterFactory;
+import com.spotify.helios.servicescommon.coordination.ZooKeeperNodeUpdater;
+
+import org.joda.time.Instant;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.RuntimeMXBean;
+import java.util.concurrent.CountDownLatch;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AgentInfoReporterTest {
+
+  private final RuntimeMXBean runtimeMXBean = mock(RuntimeMXBean.class);
+  private final NodeUpdaterFactory nodeUpdaterFactory = mock(NodeUpdaterFactory.class);
+  private final ZooKeeperNodeUpdater nodeUpdater = mock(ZooKeeperNodeUpdater.class);
+  private final Clock clock = mock(Clock.class);
+
+  private AgentInfoReporter reporter;
+
+  @Before
+  public void setUp() throws Exception {
+    when(nodeUpdaterFactory.create(anyString())).thenReturn(nodeUpdater);
+    when(nodeUpdater.exists()).thenReturn(true);
+    when(runtimeMXBean.getName()).thenReturn("1234@agent");
+    when(runtimeMXBean.getInputArguments()).thenReturn(ImmutableList.of("-Xmx1g"));
+    when(clock.now()).thenReturn(new Instant(0));
+    reporter = new AgentInfoReporter(runtimeMXBean, nodeUpdaterFactory, "agent", 1, MINUTES,
+                                     new CountDownLatch(0), clock);
+  }
+
+  @Test
+  public void testUptimeAloneIsNotWritten() throws Exception {
+    when(nodeUpdater.update(any(byte[].class))).thenReturn(true);
+    when(runtimeMXBean.getUptime()).thenReturn(1000L, 2000L);
+
+    reporter.runOneIteration();
+    when(clock.now()).thenReturn(new Instant(MINUTES.toMillis(1)));
+    reporter.runOneIteration();
+
+    verify(nodeUpdater, times(1)).update(any(byte[].class));
+  }
+
+  @Test
+  public void testRewrittenWhenExpired() throws Exception {
+    when(nodeUpdater.update(any(byte[].class))).thenReturn(true);
+
+    reporter.runOneIteration();
+    when(clock.now()).thenReturn(new Instant(MINUTES.toMillis(10)));
+    reporter.runOneIteration();
+
+    verify(nodeUpdater, times(2)).update(any(byte[].class));
+  }
+
+  @Test
+  public void testRetriedWhenWriteFails() throws Exception {
+    when(nodeUpdater.update(any(byte[].class))).thenReturn(false, true);
+
+    reporter.runOneIteration();
+    reporter.runOneIteration();
+    reporter.runOneIteration();
+
+    verify(nodeUpdater, times(2)).update(any(byte[].class));
+  }
+
+  @Test
+  public void testRewrittenWhenNodeRemoved() throws Exception {
+    when(nodeUpdater.update(any(byte[].class))).thenReturn(true);
+
+    reporter.runOneIteration();
+    reporter.runOneIteration();
+    verify(nodeUpdater, times(1)).update(any(byte[].class));
+
+    // E.g. the host was deregistered and registered again
+    when(nodeUpdater.exists()).thenReturn(false);
+    reporter.runOneIteration();
+    verify(nodeUpdater, times(2)).update(any(byte[].class));
+  }
+}
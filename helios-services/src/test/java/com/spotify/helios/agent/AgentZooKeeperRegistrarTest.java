@@ -96,6 +96,19 @@ public class AgentZooKeeperRegistrarTest {
 
     // no need to re-write the id path
     verify(client, never()).createAndSetData(idPath, hostId.getBytes());
+    verify(client, never()).delete(Paths.configDeregisteringHost(agentName));
+  }
+
+  @Test
+  public void alreadyRegistered_DeregistrationCutShort() throws Exception {
+    final String tombstone = Paths.configDeregisteringHost(agentName);
+    when(client.exists(tombstone)).thenReturn(new Stat());
+
+    final boolean success = registrar.tryToRegister(client);
+    assertTrue(success);
+
+    // the agent is back, so the reaper mustn't finish deregistering it
+    verify(client).delete(tombstone);
   }
 
   @Test
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.agent;
+
+import com.spotify.helios.common.descriptors.ResourceUsage;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class CgroupSamplerTest {
+
+  private static final String CONTAINER = "e890d827e802";
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  private Path cgroups;
+  private Path proc;
+  private CgroupSampler sampler;
+
+  @Before
+  public void setUp() throws Exception {
+    cgroups = folder.newFolder("cgroup").toPath();
+    proc = folder.newFolder("proc").toPath();
+    sampler = new CgroupSampler(cgroups, proc);
+  }
+
+  private void write(final Path path, final String content) throws IOException {
+    Files.createDirectories(path.getParent());
+    Files.write(path, content.getBytes(US_ASCII));
+  }
+
+  private void container(final String cgroup, final long cpu, final long memory,
+                         final long rx, final long tx) throws IOException {
+    write(cgroups.resolve("cpuacct").resolve(cgroup).resolve("cpuacct.usage"), cpu + "\n");
+    write(cgroups.resolve("cpuacct").resolve(cgroup).resolve("cgroup.procs"), "4711\n4712\n");
+    write(cgroups.resolve("memory").resolve(cgroup).resolve("memory.usage_in_bytes"),
+          memory + "\n");
+    write(cgroups.resolve("blkio").resolve(cgroup).resolve("blkio.throttle.io_service_bytes"),
+          "8:0 Read 4096\n8:0 Write 8192\n8:0 Sync 0\n8:0 Total 12288\n"
+          + "8:16 Read 1024\n8:16 Write 0\nTotal 13312\n");
+    write(proc.resolve("4711/net/dev"),
+          "Inter-|   Receive                            |  Transmit\n"
+          + " face |bytes    packets errs drop fifo frame compressed multicast|bytes    packets "
+          + "errs drop fifo colls carrier compressed\n"
+          + "    lo:   99999      10    0    0    0     0          0         0    99999      10 "
+          + "   0    0    0     0       0          0\n"
+          + "  eth0: " + rx + "    20    0    0    0     0          0         0 " + tx
+          + "    30    0    0    0     0       0          0\n");
+  }
+
+  @Test
+  public void testSample() throws Exception {
+    container("docker/" + CONTAINER, 5000, 1 << 20, 300, 200);
+
+    final CgroupSampler.Sample sample = sampler.sample(CONTAINER);
+    assertEquals(5000, sample.cpuNanos);
+    assertEquals(1 << 20, sample.memoryBytes);
+    assertEquals(300, sample.networkRxBytes);
+    assertEquals(200, sample.networkTxBytes);
+    assertEquals(5120, sample.blockReadBytes);
+    assertEquals(8192, sample.blockWriteBytes);
+  }
+
+  @Test
+  public void testSystemdLayout() throws Exception {
+    container("system.slice/docker-" + CONTAINER + ".scope", 5000, 1 << 20, 300, 200);
+    assertEquals(5000, sampler.sample(CONTAINER).cpuNanos);
+  }
+
+  @Test
+  public void testMissingContainer() throws Exception {
+    assertNull(sampler.sample(CONTAINER));
+
+    container("docker/" + CONTAINER, 5000, 1 << 20, 300, 200);
+    sampler.sample(CONTAINER);
+    Files.delete(cgroups.resolve("memory/docker/" + CONTAINER + "/memory.usage_in_bytes"));
+    assertNull(sampler.sample(CONTAINER));
+  }
+
+  @Test
+  public void testWindow() throws Exception {
+    final ResourceUsageWindow window = new ResourceUsageWindow(3);
+    window.add(0, new CgroupSampler.Sample(0, 100, 0, 0, 0, 0));
+    assertNull(window.usage());
+
+    window.add(SECONDS.toNanos(10), new CgroupSampler.Sample(SECONDS.toNanos(5), 300, 10, 20,
+                                                             30, 40));
+    window.add(SECONDS.toNanos(20), new CgroupSampler.Sample(SECONDS.toNanos(10), 200, 20, 40,
+                                                             60, 80));
+    assertEquals(new ResourceUsage(20, 0.5, 200, 300, 1, 2, 3, 4), window.usage());
+
+    // The oldest sample is dropped
+    window.add(SECONDS.toNanos(30), new CgroupSampler.Sample(SECONDS.toNanos(30), 100, 20, 40,
+                                                             60, 80));
+    assertEquals(new ResourceUsage(20, 1.25, 100, 300, 0.5, 1, 1.5, 2), window.usage());
+  }
+}
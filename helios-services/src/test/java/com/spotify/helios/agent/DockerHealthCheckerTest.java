@@ -19,6 +19,7 @@ package com.spotify.helios.agent;
 
 import com.aphyr.riemann.Proto.Event;
 import com.spotify.helios.servicescommon.CapturingRiemannClient;
+import com.spotify.helios.servicescommon.statistics.LatencyPercentiles;
 import com.spotify.helios.servicescommon.statistics.MeterRates;
 import com.spotify.helios.servicescommon.statistics.SupervisorMetrics;
 
@@ -31,9 +32,13 @@ import java.util.concurrent.TimeUnit;
 
 import static com.spotify.helios.agent.DockerHealthChecker.FAILURE_HIGH_WATERMARK;
 import static com.spotify.helios.agent.DockerHealthChecker.FAILURE_LOW_WATERMARK;
+import static com.spotify.helios.agent.DockerHealthChecker.LATENCY_HIGH_WATERMARK_MILLIS;
+import static com.spotify.helios.agent.DockerHealthChecker.LATENCY_LOW_WATERMARK_MILLIS;
+import static com.spotify.helios.agent.DockerHealthChecker.LATENCY_MIN_SAMPLES;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.when;
 
 public class DockerHealthCheckerTest {
@@ -125,6 +130,42 @@ public class DockerHealthCheckerTest {
     checkForState("ok");
   }
 
+  @Test
+  public void testLatency() throws Exception {
+    when(metrics.getDockerTimeoutRates()).thenReturn(ZERO_RATE);
+    when(metrics.getContainersThrewExceptionRates()).thenReturn(ZERO_RATE);
+    when(metrics.getSupervisorRunRates()).thenReturn(RUN_RATE);
+    when(metrics.getDockerLatency(anyString())).thenReturn(latency(10));
+
+    checker.start();
+    assertTrue(checker.check().isHealthy());
+
+    // A few slow calls aren't enough
+    when(metrics.getDockerLatency("startContainer")).thenReturn(
+        new LatencyPercentiles(LATENCY_MIN_SAMPLES - 1, 10, LATENCY_HIGH_WATERMARK_MILLIS + 1));
+    assertTrue(checker.check().isHealthy());
+    checkForNoEmission();
+
+    when(metrics.getDockerLatency("startContainer"))
+        .thenReturn(latency(LATENCY_HIGH_WATERMARK_MILLIS + 1));
+    assertFalse(checker.check().isHealthy());
+    checkForState("critical");
+
+    when(metrics.getDockerLatency("startContainer"))
+        .thenReturn(latency(LATENCY_LOW_WATERMARK_MILLIS + 1));
+    assertFalse(checker.check().isHealthy());
+    checkForNoEmission();
+
+    when(metrics.getDockerLatency("startContainer"))
+        .thenReturn(latency(LATENCY_LOW_WATERMARK_MILLIS - 1));
+    assertTrue(checker.check().isHealthy());
+    checkForState("ok");
+  }
+
+  private static LatencyPercentiles latency(double percentile99) {
+    return new LatencyPercentiles(100, 10, percentile99);
+  }
+
   private void checkForState(String expectedState) {
     final List<Event> events = riemannClient.getEvents();
     assertFalse(events.isEmpty());
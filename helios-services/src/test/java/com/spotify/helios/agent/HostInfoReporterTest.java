@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.agent;
+
+import com.spotify.docker.client.DockerClient;
+import com.spotify.docker.client.DockerHost;
+import com.spotify.helios.common.Clock;
+import com.spotify.helios.common.Json;
+import com.spotify.helios.common.descriptors.HostInfo;
+import com.spotify.helios.servicescommon.coordination.NodeUpdaterFactory;
+import com.spotify.helios.servicescommon.coordination.ZooKeeperNodeUpdater;
+import com.sun.management.OperatingSystemMXBean;
+
+import org.joda.time.Instant;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class HostInfoReporterTest {
+
+  private final OperatingSystemMXBean operatingSystemMXBean = mock(OperatingSystemMXBean.class);
+  private final NodeUpdaterFactory nodeUpdaterFactory = mock(NodeUpdaterFactory.class);
+  private final ZooKeeperNodeUpdater nodeUpdater = mock(ZooKeeperNodeUpdater.class);
+  private final Clock clock = mock(Clock.class);
+
+  private HostInfoReporter reporter;
+
+  @Before
+  public void setUp() throws Exception {
+    when(nodeUpdaterFactory.create(anyString())).thenReturn(nodeUpdater);
+    when(nodeUpdater.exists()).thenReturn(true);
+    when(nodeUpdater.update(any(byte[].class))).thenReturn(true);
+    when(clock.now()).thenReturn(new Instant(0));
+    reporter = new HostInfoReporter(operatingSystemMXBean, nodeUpdaterFactory, "agent",
+                                    mock(DockerClient.class), DockerHost.from("unix:///sock", null),
+                                    1, MINUTES, new CountDownLatch(0), clock);
+  }
+
+  @Test
+  public void testStatsWrittenWithTheirTimestamp() throws Exception {
+    when(operatingSystemMXBean.getSystemLoadAverage()).thenReturn(0.5, 2.0);
+    when(clock.now()).thenReturn(new Instant(MINUTES.toMillis(1)));
+    reporter.runOneIteration();
+
+    // A new load average alone isn't written
+    when(clock.now()).thenReturn(new Instant(MINUTES.toMillis(2)));
+    reporter.runOneIteration();
+    verify(nodeUpdater, times(1)).update(any(byte[].class));
+
+    // It's written along with when it was read once the node expires
+    when(clock.now()).thenReturn(new Instant(MINUTES.toMillis(11)));
+    reporter.runOneIteration();
+
+    final ArgumentCaptor<byte[]> written = ArgumentCaptor.forClass(byte[].class);
+    verify(nodeUpdater, times(2)).update(written.capture());
+    final List<byte[]> values = written.getAllValues();
+    final HostInfo first = Json.read(values.get(0), HostInfo.class);
+    assertEquals(0.5, first.getLoadAvg(), 0);
+    assertEquals(MINUTES.toMillis(1), first.getStatsTimestamp());
+    final HostInfo second = Json.read(values.get(1), HostInfo.class);
+    assertEquals(2.0, second.getLoadAvg(), 0);
+    assertEquals(MINUTES.toMillis(11), second.getStatsTimestamp());
+  }
+}
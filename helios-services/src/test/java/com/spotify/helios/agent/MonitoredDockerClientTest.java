@@ -25,6 +25,7 @@ import com.spotify.docker.client.DockerClient;
 import com.spotify.docker.client.DockerException;
 import com.spotify.docker.client.DockerTimeoutException;
 import com.spotify.helios.servicescommon.RiemannFacade;
+import com.spotify.helios.servicescommon.statistics.SupervisorMetrics;
 
 import org.junit.Before;
 import org.junit.Rule;
@@ -33,6 +34,7 @@ import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
@@ -40,8 +42,12 @@ import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -53,6 +59,7 @@ public class MonitoredDockerClientTest {
   @Rule public ExpectedException exception = ExpectedException.none();
   @Mock public DockerClient client;
   @Mock public AbstractRiemannClient riemannClient;
+  @Mock public SupervisorMetrics metrics;
 
   @Captor public ArgumentCaptor<Proto.Event> eventCaptor;
 
@@ -64,7 +71,16 @@ public class MonitoredDockerClientTest {
         .thenReturn(new Promise<Boolean>());
     when(riemannClient.event()).thenReturn(new EventDSL(riemannClient));
     final RiemannFacade riemannFacade = new RiemannFacade(riemannClient, HOST, SERVICE);
-    sut = MonitoredDockerClient.wrap(riemannFacade, client);
+    sut = MonitoredDockerClient.wrap(riemannFacade, metrics, client);
+  }
+
+  @Test
+  public void testRequestLatency() throws Exception {
+    sut.inspectContainer("foo");
+    final InOrder inOrder = inOrder(metrics, client);
+    inOrder.verify(metrics).dockerCallStarted("inspectContainer");
+    inOrder.verify(client).inspectContainer("foo");
+    inOrder.verify(metrics).dockerCallFinished(eq("inspectContainer"), anyLong());
   }
 
   @Test()
@@ -75,6 +91,7 @@ public class MonitoredDockerClientTest {
       fail();
     } catch (DockerTimeoutException ignore) {
     }
+    verify(metrics).dockerCallFinished(eq("inspectContainer"), anyLong());
     final Proto.Event event = eventCaptor.getValue();
     assertThat(event.getTagsList(), contains("docker", "timeout", "inspectContainer"));
     assertThat(event.getService(), equalTo("helios-agent/docker"));
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.agent;
+
+import com.google.common.collect.ImmutableMap;
+
+import com.spotify.helios.common.descriptors.Goal;
+import com.spotify.helios.common.descriptors.Job;
+import com.spotify.helios.common.descriptors.JobId;
+import com.spotify.helios.common.descriptors.ResourceUsage;
+import com.spotify.helios.common.descriptors.TaskStatus;
+import com.spotify.helios.servicescommon.coordination.NodeUpdaterFactory;
+import com.spotify.helios.servicescommon.coordination.ZooKeeperNodeUpdater;
+import com.spotify.helios.servicescommon.statistics.SupervisorMetrics;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static com.spotify.helios.common.descriptors.TaskStatus.State.EXITED;
+import static com.spotify.helios.common.descriptors.TaskStatus.State.RUNNING;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ResourceUsageReporterTest {
+
+  private static final Job JOB = Job.newBuilder()
+      .setName("foo")
+      .setVersion("17")
+      .setImage("busybox")
+      .build();
+
+  private final AgentModel model = mock(AgentModel.class);
+  private final CgroupSampler sampler = mock(CgroupSampler.class);
+  private final NodeUpdaterFactory nodeUpdaterFactory = mock(NodeUpdaterFactory.class);
+  private final ZooKeeperNodeUpdater nodeUpdater = mock(ZooKeeperNodeUpdater.class);
+  private final SupervisorMetrics metrics = mock(SupervisorMetrics.class);
+
+  private ResourceUsageReporter reporter;
+
+  @Before
+  public void setUp() throws Exception {
+    when(nodeUpdaterFactory.create(anyString())).thenReturn(nodeUpdater);
+    when(sampler.sample("c1")).thenReturn(new CgroupSampler.Sample(0, 100, 0, 0, 0, 0),
+                                          new CgroupSampler.Sample(0, 300, 0, 0, 0, 0),
+                                          new CgroupSampler.Sample(0, 200, 0, 0, 0, 0));
+    // Two intervals per window
+    reporter = new ResourceUsageReporter(model, sampler, nodeUpdaterFactory, "agent", metrics,
+                                         ResourceUsageReporter.WINDOW_SECONDS / 2, SECONDS,
+                                         new CountDownLatch(0));
+  }
+
+  private static Map<JobId, TaskStatus> status(final TaskStatus.State state) {
+    return ImmutableMap.of(JOB.getId(), TaskStatus.newBuilder()
+        .setJob(JOB)
+        .setGoal(Goal.START)
+        .setState(state)
+        .setContainerId("c1")
+        .build());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testReportsOncePerWindow() throws Exception {
+    when(model.getTaskStatuses()).thenReturn(status(RUNNING));
+
+    reporter.runOneIteration();
+    verify(nodeUpdater, never()).update(any(byte[].class));
+    reporter.runOneIteration();
+    verify(nodeUpdater, times(1)).update(any(byte[].class));
+    verify(metrics, times(1)).resourceUsage(anyMapOf(JobId.class, ResourceUsage.class));
+    verify(metrics, times(2)).resourceUsageSampled(anyLong());
+
+    reporter.runOneIteration();
+    final ResourceUsage usage = reporter.usage().get(JOB.getId());
+    assertEquals(200, usage.getMemoryBytes());
+    assertEquals(300, usage.getMemoryMaxBytes());
+  }
+
+  @Test
+  public void testForgetsStoppedContainers() throws Exception {
+    when(model.getTaskStatuses()).thenReturn(status(RUNNING));
+    reporter.sample();
+    reporter.sample();
+    assertEquals(1, reporter.usage().size());
+
+    when(model.getTaskStatuses()).thenReturn(status(EXITED));
+    reporter.sample();
+    assertEquals(0, reporter.usage().size());
+    verify(sampler).forget("c1");
+  }
+}
@@ -30,12 +30,15 @@ import com.spotify.helios.common.descriptors.TaskStatus.State;
 import com.spotify.helios.common.descriptors.TaskStatusEvent;
 import com.spotify.helios.master.ZooKeeperMasterModel;
 import com.spotify.helios.servicescommon.KafkaSender;
+import com.spotify.helios.servicescommon.PayloadFormat;
 import com.spotify.helios.servicescommon.coordination.DefaultZooKeeperClient;
 import com.spotify.helios.servicescommon.coordination.Paths;
 import com.spotify.helios.servicescommon.coordination.ZooKeeperClient;
 import com.spotify.helios.servicescommon.coordination.ZooKeeperClientProvider;
 import com.spotify.helios.servicescommon.coordination.ZooKeeperModelReporter;
+import com.spotify.helios.servicescommon.coordination.ZooKeeperOperation;
 
+import org.apache.curator.framework.api.transaction.CuratorTransactionResult;
 import org.apache.zookeeper.KeeperException;
 import org.junit.After;
 import org.junit.Before;
@@ -45,6 +48,7 @@ import org.mockito.stubbing.Answer;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
@@ -54,9 +58,14 @@ import static com.spotify.helios.Polling.await;
 import static com.spotify.helios.common.descriptors.Goal.START;
 import static org.apache.zookeeper.KeeperException.ConnectionLossException;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 
@@ -121,34 +130,32 @@ public class TaskHistoryWriterTest {
   @Test
   public void testZooKeeperErrorDoesntLoseItemsReally() throws Exception {
     final ZooKeeperClient mockClient = mock(ZooKeeperClient.class, delegatesTo(client));
-    final String path = Paths.historyJobHostEventsTimestamp(JOB_ID, HOSTNAME, TIMESTAMP);
 
     // make save operations fail
-    final AtomicBoolean throwExceptionOnCreateAndSet = new AtomicBoolean(true);
+    final AtomicBoolean throwExceptionOnTransaction = new AtomicBoolean(true);
     final KeeperException exc = new ConnectionLossException();
 
-    doAnswer(new Answer<Void>() {
+    doAnswer(new Answer<Collection<CuratorTransactionResult>>() {
       @Override
-      public Void answer(InvocationOnMock invocation) throws Throwable {
-        if (throwExceptionOnCreateAndSet.get()) {
+      @SuppressWarnings("unchecked")
+      public Collection<CuratorTransactionResult> answer(InvocationOnMock invocation)
+          throws Throwable {
+        if (throwExceptionOnTransaction.get()) {
           throw exc;
         } else {
-          client.createAndSetData(
-              (String) invocation.getArguments()[0],
-              (byte[]) invocation.getArguments()[1]);
-          return null;
+          return client.transaction((List<ZooKeeperOperation>) invocation.getArguments()[0]);
         }
       }
-    }).when(mockClient).createAndSetData(path, TASK_STATUS.toJsonBytes());
+    }).when(mockClient).transaction(anyListOf(ZooKeeperOperation.class));
 
     makeWriter(mockClient);
 
     writer.saveHistoryItem(TASK_STATUS, TIMESTAMP);
     // wait up to 10s for it to fail twice -- and make sure I mocked it correctly.
-    verify(mockClient, timeout(10000).atLeast(2)).createAndSetData(path, TASK_STATUS.toJsonBytes());
+    verify(mockClient, timeout(10000).atLeast(2)).transaction(anyListOf(ZooKeeperOperation.class));
 
     // now make the client work
-    throwExceptionOnCreateAndSet.set(false);
+    throwExceptionOnTransaction.set(false);
 
     awaitHistoryItems();
   }
@@ -161,6 +168,19 @@ public class TaskHistoryWriterTest {
     assertEquals(JOB_ID, historyItem.getStatus().getJob().getId());
   }
 
+  @Test
+  public void testCompactHistoryIsResolved() throws Exception {
+    writer.stopAsync().awaitTerminated();
+    writer = new TaskHistoryWriter(HOSTNAME, client, agentStateDirs.resolve("task-history.json"),
+                                   true, PayloadFormat.DEFLATE);
+    writer.startUp();
+
+    writer.saveHistoryItem(TASK_STATUS, TIMESTAMP);
+
+    final TaskStatusEvent historyItem = Iterables.getOnlyElement(awaitHistoryItems());
+    assertEquals(TASK_STATUS, historyItem.getStatus());
+  }
+
   private Iterable<TaskStatusEvent> awaitHistoryItems() throws Exception {
     return await(40L, TimeUnit.SECONDS, new Callable<Iterable<TaskStatusEvent>>() {
       @Override
@@ -192,6 +212,36 @@ public class TaskHistoryWriterTest {
     assertEquals(JOB_ID, historyItem.getStatus().getJob().getId());
   }
 
+  @Test
+  public void testBacklogIsWrittenInOneTransaction() throws Exception {
+    writer.stopAsync().awaitTerminated();
+    final ZooKeeperClient mockClient = mock(ZooKeeperClient.class, delegatesTo(client));
+    writer = new TaskHistoryWriter(HOSTNAME, mockClient,
+                                   agentStateDirs.resolve("task-history.json"));
+
+    // Queue more events than are retained before the writer gets to run
+    final int events = TaskHistoryWriter.MAX_NUMBER_STATUS_EVENTS_TO_RETAIN + 10;
+    for (int i = 0; i < events; i++) {
+      writer.saveHistoryItem(TASK_STATUS, TIMESTAMP + i);
+    }
+    writer.run();
+
+    assertTrue(writer.isEmpty());
+    verify(mockClient).transaction(anyListOf(ZooKeeperOperation.class));
+    verify(mockClient, never()).createAndSetData(anyString(), any(byte[].class));
+    final List<TaskStatusEvent> history = masterModel.getJobHistory(JOB_ID);
+    assertEquals(TaskHistoryWriter.MAX_NUMBER_STATUS_EVENTS_TO_RETAIN, history.size());
+    assertEquals(TIMESTAMP + 10, history.get(0).getTimestamp());
+    assertEquals(TIMESTAMP + events - 1, Iterables.getLast(history).getTimestamp());
+
+    // Trimming what's there doesn't list the events again
+    writer.saveHistoryItem(TASK_STATUS, TIMESTAMP + events);
+    writer.run();
+
+    verify(mockClient).getChildren(Paths.historyJobHostEvents(JOB_ID, HOSTNAME));
+    assertEquals(TIMESTAMP + 11, masterModel.getJobHistory(JOB_ID).get(0).getTimestamp());
+  }
+
   @Test
   public void testKeepsNoMoreThanMaxHistoryItems() throws Exception {
     // And that it keeps the correct items!
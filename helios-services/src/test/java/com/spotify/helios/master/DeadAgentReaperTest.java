@@ -18,22 +18,21 @@
 package com.spotify.helios.master;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 import com.spotify.helios.common.Clock;
-import com.spotify.helios.common.descriptors.AgentInfo;
-import com.spotify.helios.common.descriptors.Deployment;
+import com.spotify.helios.common.descriptors.HostLiveness;
 import com.spotify.helios.common.descriptors.HostStatus;
-import com.spotify.helios.common.descriptors.JobId;
-import com.spotify.helios.common.descriptors.TaskStatus;
 
 import org.joda.time.Instant;
 import org.junit.Test;
 
-import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 import static java.util.concurrent.TimeUnit.HOURS;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.timeout;
@@ -65,8 +64,10 @@ public class DeadAgentReaperTest {
   @Test
   public void testDeadAgentReaper() throws Exception {
     final MasterModel masterModel = mock(MasterModel.class);
+    final HostLivenessTracker hostLiveness = mock(HostLivenessTracker.class);
     final Clock clock = mock(Clock.class);
     when(clock.now()).thenReturn(new Instant(HOURS.toMillis(2000)));
+    when(hostLiveness.isInitialized()).thenReturn(true);
 
     final List<Datapoint> datapoints = Lists.newArrayList(
         new Datapoint("host1", 0, TIMEOUT_HOURS - 1, HostStatus.Status.DOWN, true),
@@ -80,31 +81,45 @@ public class DeadAgentReaperTest {
         new Datapoint("host6", 0, 0, HostStatus.Status.UP, false)
     );
 
-    when(masterModel.listHosts()).thenReturn(Lists.newArrayList(
-        datapoints.stream().map(input -> input.host).collect(Collectors.toList())));
-
+    final Map<String, HostLiveness> hosts = Maps.newLinkedHashMap();
     for (final Datapoint datapoint : datapoints) {
-      when(masterModel.getHostStatus(datapoint.host)).thenReturn(
-          HostStatus.newBuilder()
-              .setStatus(datapoint.status)
-              .setAgentInfo(AgentInfo.newBuilder()
-                                .setStartTime(datapoint.startTime)
-                                .setUptime(datapoint.uptime)
-                                .build())
-              .setJobs(Collections.<JobId, Deployment>emptyMap())
-              .setStatuses(Collections.<JobId, TaskStatus>emptyMap())
-              .build());
+      hosts.put(datapoint.host, new HostLiveness(datapoint.status, datapoint.startTime,
+                                                 datapoint.startTime + datapoint.uptime, null));
     }
+    // A host that has never reported in can't be known to be dead
+    hosts.put("host7", new HostLiveness(HostStatus.Status.DOWN, null, null, null));
+    // An agent that came back up after its deregistration was cut short
+    hosts.put("host9", new HostLiveness(HostStatus.Status.UP, 0L, 0L, null));
+    when(hostLiveness.getHosts()).thenReturn(hosts);
 
-    final DeadAgentReaper reaper = new DeadAgentReaper(masterModel, TIMEOUT_HOURS, clock);
-    reaper.startAsync().awaitRunning();
+    // A deregistration that was cut short is finished, unless the agent is up again
+    when(masterModel.listDeregisteringHosts()).thenReturn(Lists.newArrayList("host8", "host9"));
 
+    final List<String> expected = Lists.newArrayList("host8");
     for (final Datapoint datapoint : datapoints) {
       if (datapoint.expectReap) {
-        verify(masterModel, timeout(500)).deregisterHost(datapoint.host);
-      } else {
-        verify(masterModel, never()).deregisterHost(datapoint.host);
+        expected.add(datapoint.host);
       }
     }
+
+    final DeadAgentReaper reaper = new DeadAgentReaper(masterModel, hostLiveness, TIMEOUT_HOURS,
+                                                       clock);
+    reaper.startAsync().awaitRunning();
+
+    verify(masterModel, timeout(500)).deregisterHosts(expected);
+    verify(masterModel, never()).deregisterHost(anyString());
+  }
+
+  @Test
+  public void testNothingReapedUntilLivenessIsKnown() throws Exception {
+    final MasterModel masterModel = mock(MasterModel.class);
+    final HostLivenessTracker hostLiveness = mock(HostLivenessTracker.class);
+    when(hostLiveness.isInitialized()).thenReturn(false);
+    when(masterModel.listDeregisteringHosts()).thenReturn(Lists.newArrayList("host1"));
+
+    final DeadAgentReaper reaper = new DeadAgentReaper(masterModel, hostLiveness, TIMEOUT_HOURS);
+    reaper.runOneIteration();
+
+    verify(masterModel, never()).deregisterHosts(anyListOf(String.class));
   }
 }
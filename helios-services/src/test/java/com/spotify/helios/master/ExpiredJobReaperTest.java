@@ -38,6 +38,7 @@ import java.util.Date;
 import java.util.Map;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.ignoreStubs;
@@ -91,7 +92,8 @@ public class ExpiredJobReaperTest {
   @Test
   public void testExpiredJobReaper() throws Exception {
     when(mockClock.now()).thenReturn(new Instant(CURRENT_TS));
-    when(masterModel.getJobs()).thenReturn(JOBS);
+    when(masterModel.getExpiredJobs(CURRENT_TS)).thenReturn(singletonList(EXPIRING_JOB_ID));
+    when(masterModel.getJob(EXPIRING_JOB_ID)).thenReturn(EXPIRING_JOB);
 
     when(masterModel.getJobStatus(any(JobId.class)))
       .then(new Answer<JobStatus>() {
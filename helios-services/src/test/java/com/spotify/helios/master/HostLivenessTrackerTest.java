@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.master;
+
+import com.spotify.helios.Polling;
+import com.spotify.helios.ZooKeeperTestManager;
+import com.spotify.helios.ZooKeeperTestingServerManager;
+import com.spotify.helios.common.Json;
+import com.spotify.helios.common.descriptors.AgentInfo;
+import com.spotify.helios.common.descriptors.HostLiveness;
+import com.spotify.helios.common.descriptors.HostStatus;
+import com.spotify.helios.servicescommon.coordination.DefaultZooKeeperClient;
+import com.spotify.helios.servicescommon.coordination.Paths;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class HostLivenessTrackerTest {
+
+  private static final String HOST = "host1";
+
+  private ZooKeeperTestManager zk;
+  private DefaultZooKeeperClient client;
+  private HostLivenessTracker tracker;
+
+  @Before
+  public void setUp() throws Exception {
+    zk = new ZooKeeperTestingServerManager();
+    client = new DefaultZooKeeperClient(zk.curatorWithSuperAuth());
+    client.ensurePath(Paths.configHosts());
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    if (tracker != null) {
+      tracker.stopAsync().awaitTerminated();
+    }
+    if (zk != null) {
+      zk.stop();
+    }
+  }
+
+  @Test
+  public void testTracksHosts() throws Exception {
+    final AgentInfo agentInfo = AgentInfo.newBuilder()
+        .setStartTime(1000L)
+        .setUptime(500L)
+        .setVersion("0.8.0")
+        .build();
+    client.ensurePath(Paths.configHost(HOST));
+    client.ensurePath(Paths.statusHost(HOST));
+    client.createAndSetData(Paths.statusHostAgentInfo(HOST), Json.asBytes(agentInfo));
+    client.createAndSetData(Paths.statusHostUp(HOST), new byte[0]);
+
+    tracker = new HostLivenessTracker(client);
+    tracker.startAsync().awaitRunning();
+    assertTrue(tracker.awaitInitialized(1, MINUTES));
+
+    // The hosts that are registered when the tracker starts are known once it's initialized
+    assertEquals(new HostLiveness(HostStatus.Status.UP, 1000L, 1500L, "0.8.0"),
+                 tracker.get(HOST));
+
+    client.delete(Paths.statusHostUp(HOST));
+    awaitStatus(HostStatus.Status.DOWN);
+    assertEquals(1500L, (long) tracker.get(HOST).getLastSeen());
+
+    client.createAndSetData(Paths.statusHostUp(HOST), new byte[0]);
+    awaitStatus(HostStatus.Status.UP);
+
+    client.deleteRecursive(Paths.configHost(HOST));
+    Polling.await(1, MINUTES, new Callable<Object>() {
+      @Override
+      public Object call() throws Exception {
+        return tracker.getHosts().isEmpty() ? true : null;
+      }
+    });
+  }
+
+  @Test
+  public void testStartsWithoutZooKeeper() throws Exception {
+    client.ensurePath(Paths.configHost(HOST));
+    zk.stop();
+
+    tracker = new HostLivenessTracker(client);
+    tracker.startAsync().awaitRunning(1, MINUTES);
+
+    // The liveness of the hosts is unknown until ZooKeeper is back
+    assertFalse(tracker.isInitialized());
+    assertNull(tracker.get(HOST));
+
+    zk.start();
+    assertTrue(tracker.awaitInitialized(1, MINUTES));
+    assertEquals(HostStatus.Status.DOWN, tracker.get(HOST).getStatus());
+  }
+
+  private void awaitStatus(final HostStatus.Status status) throws Exception {
+    Polling.await(1, MINUTES, new Callable<Object>() {
+      @Override
+      public Object call() throws Exception {
+        final HostLiveness liveness = tracker.get(HOST);
+        return liveness != null && liveness.getStatus() == status ? true : null;
+      }
+    });
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.master;
+
+import com.spotify.helios.common.descriptors.Job;
+
+import org.junit.Test;
+
+import java.util.Date;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertEquals;
+
+public class JobIndexTest {
+
+  private final JobIndex index = new JobIndex();
+
+  private static Job job(final String name, final long created, final Long expires) {
+    return Job.newBuilder()
+        .setName(name)
+        .setVersion("1")
+        .setImage("busybox")
+        .setCreated(created)
+        .setExpires(expires == null ? null : new Date(expires))
+        .build();
+  }
+
+  @Test
+  public void testExpiredJobsInExpiryOrder() {
+    final Job later = job("later", 0, 20L);
+    final Job sooner = job("sooner", 0, 10L);
+    final Job never = job("never", 0, null);
+    index.add(later);
+    index.add(sooner);
+    index.add(never);
+
+    assertEquals(emptyList(), index.expiredAt(9));
+    assertEquals(asList(sooner.getId()), index.expiredAt(10));
+    assertEquals(asList(sooner.getId(), later.getId()), index.expiredAt(100));
+
+    index.remove(sooner.getId());
+    assertEquals(asList(later.getId()), index.expiredAt(100));
+  }
+
+  @Test
+  public void testInactiveJobsInActivityOrder() {
+    final Job old = job("old", 10, null);
+    final Job older = job("older", 5, null);
+    final Job recent = job("recent", 50, null);
+    index.add(old);
+    index.add(older);
+    index.add(recent);
+
+    assertEquals(asList(older.getId(), old.getId()), index.inactiveSince(50));
+
+    // Activity only moves forward
+    index.touch(older.getId(), 60);
+    index.touch(old.getId(), 1);
+    assertEquals(asList(old.getId()), index.inactiveSince(50));
+    assertEquals(asList(old.getId(), recent.getId(), older.getId()), index.inactiveSince(100));
+
+    // Adding a job again doesn't forget its activity
+    index.add(older);
+    assertEquals(asList(old.getId()), index.inactiveSince(50));
+  }
+}
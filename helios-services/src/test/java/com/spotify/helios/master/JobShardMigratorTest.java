@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.master;
+
+import com.google.common.collect.ImmutableSet;
+
+import com.spotify.helios.ZooKeeperTestingServerManager;
+import com.spotify.helios.common.descriptors.Deployment;
+import com.spotify.helios.common.descriptors.Goal;
+import com.spotify.helios.common.descriptors.Job;
+import com.spotify.helios.servicescommon.KafkaSender;
+import com.spotify.helios.servicescommon.coordination.DefaultZooKeeperClient;
+import com.spotify.helios.servicescommon.coordination.Paths;
+import com.spotify.helios.servicescommon.coordination.ZooKeeperClient;
+import com.spotify.helios.servicescommon.coordination.ZooKeeperClientProvider;
+import com.spotify.helios.servicescommon.coordination.ZooKeeperModelReporter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+
+public class JobShardMigratorTest {
+
+  private static final String HOST = "host";
+
+  private ZooKeeperTestingServerManager zk;
+  private ZooKeeperClient client;
+  private ZooKeeperMasterModel model;
+
+  @Before
+  public void setUp() throws Exception {
+    zk = new ZooKeeperTestingServerManager();
+    zk.awaitUp(5, TimeUnit.SECONDS);
+    client = new DefaultZooKeeperClient(zk.curatorWithSuperAuth());
+    client.ensurePath(Paths.configHosts());
+    client.ensurePath(Paths.configJobs());
+    client.ensurePath(Paths.configJobRefs());
+    client.ensurePath(Paths.statusHosts());
+    client.ensurePath(Paths.historyJobs());
+    model = new ZooKeeperMasterModel(
+        new ZooKeeperClientProvider(client, ZooKeeperModelReporter.noop()), "test",
+        mock(KafkaSender.class));
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    client.close();
+    if (zk != null) {
+      zk.close();
+    }
+  }
+
+  private static Job job(final String version) {
+    return Job.newBuilder()
+        .setName("foo")
+        .setVersion(version)
+        .setImage("busybox")
+        .build();
+  }
+
+  @Test
+  public void testMigrate() throws Exception {
+    final Job deployed = job("1");
+    final Job idle = job("2");
+    model.addJob(deployed);
+    model.addJob(idle);
+    model.registerHost(HOST, "id");
+    model.deployJob(HOST, Deployment.newBuilder()
+        .setJobId(deployed.getId())
+        .setGoal(Goal.START)
+        .build());
+
+    assertEquals(0, JobShardMigrator.migrate(client, true));
+
+    assertNull(client.exists(Paths.configJob(deployed.getId())));
+    assertNull(client.exists(Paths.configJob(idle.getId())));
+    assertNotNull(client.exists(Paths.configJobHost(deployed.getId(), HOST, true)));
+    assertEquals(ImmutableSet.of(deployed.getId(), idle.getId()), model.getJobs().keySet());
+    assertEquals(ImmutableSet.of(HOST),
+                 model.getJobStatus(deployed.getId()).getDeployments().keySet());
+
+    // Moving jobs again does nothing, and they can be moved back
+    assertEquals(0, JobShardMigrator.migrate(client, true));
+    assertEquals(0, JobShardMigrator.migrate(client, false));
+    assertNotNull(client.exists(Paths.configJobHost(deployed.getId(), HOST)));
+    assertNotNull(client.exists(Paths.configJob(idle.getId())));
+    assertEquals(ImmutableSet.of(deployed.getId(), idle.getId()), model.getJobs().keySet());
+  }
+}
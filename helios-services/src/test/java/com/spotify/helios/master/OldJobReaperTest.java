@@ -41,6 +41,7 @@ import java.util.stream.Collectors;
 
 import static java.util.Collections.emptyList;
 import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonList;
 import static java.util.concurrent.TimeUnit.HOURS;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -154,10 +155,12 @@ public class OldJobReaperTest {
                       events(ImmutableList.of(HOURS.toMillis(20), HOURS.toMillis(40))), false)
     );
 
-    when(masterModel.getJobs()).thenReturn(
-        datapoints.stream().collect(Collectors.toMap(Datapoint::getJobId, Datapoint::getJob)));
+    // The index can't tell deployed jobs or those with recent history apart from idle ones
+    when(masterModel.getInactiveJobs(HOURS.toMillis(24))).thenReturn(
+        datapoints.stream().map(Datapoint::getJobId).collect(Collectors.toList()));
 
     for (final Datapoint datapoint : datapoints) {
+      when(masterModel.getJob(datapoint.getJobId())).thenReturn(datapoint.getJob());
       when(masterModel.getJobHistory(datapoint.getJobId())).thenReturn(datapoint.getHistory());
       when(masterModel.getJobStatus(datapoint.getJobId())).thenReturn(datapoint.getJobStatus());
     }
@@ -175,5 +178,33 @@ public class OldJobReaperTest {
         verify(masterModel, never()).removeJob(datapoint.getJobId(), Job.EMPTY_TOKEN);
       }
     }
+
+    // Jobs found in use aren't looked at again until they've been idle for the retention time
+    verify(masterModel).recordJobActivity(JobId.fromString("job2"), HOURS.toMillis(40));
+    verify(masterModel).recordJobActivity(JobId.fromString("job6"), HOURS.toMillis(48));
+    verify(masterModel).recordJobActivity(JobId.fromString("job7"), HOURS.toMillis(48));
+    verify(masterModel).recordJobActivity(JobId.fromString("job8"), HOURS.toMillis(48));
+  }
+
+  @Test
+  public void testOnlyInactiveJobsAreChecked() throws Exception {
+    final MasterModel masterModel = mock(MasterModel.class);
+    final Clock clock = mock(Clock.class);
+    when(clock.now()).thenReturn(new Instant(HOURS.toMillis(48)));
+
+    final Job idle = Job.newBuilder().setName("idle").setCreated(HOURS.toMillis(1)).build();
+    when(masterModel.getInactiveJobs(HOURS.toMillis(24))).thenReturn(singletonList(idle.getId()));
+    when(masterModel.getJob(idle.getId())).thenReturn(idle);
+    when(masterModel.getJobStatus(idle.getId())).thenReturn(
+        JobStatus.newBuilder().setDeployments(emptyMap()).build());
+    when(masterModel.getJobHistory(idle.getId())).thenReturn(emptyList());
+
+    final OldJobReaper reaper = new OldJobReaper(masterModel, RETENTION_DAYS, clock);
+    reaper.runOneIteration();
+
+    verify(masterModel).removeJob(idle.getId(), Job.EMPTY_TOKEN);
+    verify(masterModel, never()).getJobs();
+    verify(masterModel).getJobStatus(idle.getId());
+    verify(masterModel).getJobHistory(idle.getId());
   }
 }
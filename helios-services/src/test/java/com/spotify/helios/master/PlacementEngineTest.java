@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.master;
+
+import com.google.common.base.Function;
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+import com.spotify.helios.common.descriptors.Deployment;
+import com.spotify.helios.common.descriptors.Goal;
+import com.spotify.helios.common.descriptors.HostInfo;
+import com.spotify.helios.common.descriptors.HostStatus;
+import com.spotify.helios.common.descriptors.Job;
+import com.spotify.helios.common.descriptors.JobId;
+import com.spotify.helios.common.descriptors.Resources;
+import com.spotify.helios.common.descriptors.TaskStatus;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+import static com.spotify.helios.common.descriptors.HostStatus.Status.DOWN;
+import static com.spotify.helios.common.descriptors.HostStatus.Status.UP;
+import static org.junit.Assert.assertEquals;
+
+public class PlacementEngineTest {
+
+  private static final long GB = 1024L * 1024 * 1024;
+
+  private final Map<JobId, Job> jobs = Maps.newHashMap();
+
+  private final PlacementEngine engine = new PlacementEngine(new Function<JobId, Job>() {
+    @Override
+    public Job apply(final JobId id) {
+      return jobs.get(id);
+    }
+  });
+
+  private Job job(final String name, final Long memory, final Long cpuShares) {
+    final Job job = Job.newBuilder()
+        .setName(name)
+        .setVersion("1")
+        .setImage("busybox")
+        .setResources(new Resources(memory, null, cpuShares, null))
+        .build();
+    jobs.put(job.getId(), job);
+    return job;
+  }
+
+  private static HostStatus host(final HostStatus.Status status, final int cpus, final long memory,
+                                 final Map<String, String> labels, final Job... deployed) {
+    final Map<JobId, Deployment> deployments = Maps.newHashMap();
+    for (final Job job : deployed) {
+      deployments.put(job.getId(), Deployment.of(job.getId(), Goal.START));
+    }
+    return HostStatus.newBuilder()
+        .setStatus(status)
+        .setJobs(deployments)
+        .setStatuses(ImmutableMap.<JobId, TaskStatus>of())
+        .setHostInfo(HostInfo.newBuilder().setCpus(cpus).setMemoryTotalBytes(memory).build())
+        .setLabels(labels)
+        .build();
+  }
+
+  private static HostStatus host(final int cpus, final long memory, final Job... deployed) {
+    return host(UP, cpus, memory, ImmutableMap.<String, String>of(), deployed);
+  }
+
+  @Test
+  public void testBestFit() {
+    final Job job = job("foo", 4 * GB, 1024L);
+    final Job big = job("big", 10 * GB, 2048L);
+    final Job hungry = job("hungry", 1 * GB, 6144L);
+
+    final Map<String, HostStatus> hosts = ImmutableMap.of(
+        "empty", host(8, 16 * GB),
+        "busy", host(8, 16 * GB, big),
+        "full", host(8, 16 * GB, big, job("more", 4 * GB, null)),
+        "cpu-bound", host(8, 16 * GB, hungry, job("hungrier", null, 2048L)));
+
+    assertEquals(ImmutableList.of("busy", "empty"), engine.place(job, hosts, null));
+  }
+
+  @Test
+  public void testSkipsUnavailableHosts() {
+    final Job job = job("foo", GB, null);
+    final Map<String, HostStatus> hosts = ImmutableMap.of(
+        "up", host(2, 4 * GB),
+        "down", host(DOWN, 2, 4 * GB, ImmutableMap.<String, String>of()),
+        "running", host(2, 4 * GB, job),
+        "unknown", HostStatus.newBuilder()
+            .setStatus(UP)
+            .setJobs(ImmutableMap.<JobId, Deployment>of())
+            .setStatuses(ImmutableMap.<JobId, TaskStatus>of())
+            .build());
+
+    assertEquals(ImmutableList.of("up"), engine.place(job, hosts, null));
+  }
+
+  @Test
+  public void testPrefersHostsWithoutOtherVersions() {
+    final Job job = job("foo", GB, null);
+    final Job old = Job.newBuilder().setName("foo").setVersion("0").setImage("busybox").build();
+    jobs.put(old.getId(), old);
+
+    final Map<String, HostStatus> hosts = ImmutableMap.of(
+        "a", host(2, 2 * GB, old),
+        "b", host(2, 4 * GB));
+
+    assertEquals(ImmutableList.of("b", "a"), engine.place(job, hosts, null));
+  }
+
+  @Test
+  public void testSpread() {
+    final Job job = job("foo", GB, null);
+    final Map<String, HostStatus> hosts = ImmutableMap.of(
+        "a1", host(UP, 2, 2 * GB, ImmutableMap.of("rack", "a")),
+        "a2", host(UP, 2, 3 * GB, ImmutableMap.of("rack", "a")),
+        "b1", host(UP, 2, 4 * GB, ImmutableMap.of("rack", "b")),
+        "none", host(UP, 2, 5 * GB, ImmutableMap.<String, String>of()));
+
+    assertEquals(ImmutableList.of("a1", "b1", "none", "a2"), engine.place(job, hosts, "rack"));
+  }
+
+  @Test
+  public void testOrderKeepsOverpackedHostsLast() {
+    final Job job = job("foo", 2 * GB, null);
+    final Job current = job("current", 2 * GB, null);
+    final Job other = job("other", 2 * GB, null);
+
+    final Map<String, HostStatus> hosts = ImmutableMap.of(
+        "overpacked", host(2, 3 * GB, other),
+        "replaced", host(2, 3 * GB, current),
+        "roomy", host(2, 8 * GB));
+
+    assertEquals(ImmutableList.of("roomy", "overpacked", "replaced"),
+                 engine.order(job, hosts, Predicates.<Deployment>alwaysFalse()));
+    assertEquals(ImmutableList.of("replaced", "roomy", "overpacked"),
+                 engine.order(job, hosts,
+                              deployment -> deployment.getJobId().equals(current.getId())));
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.master.metrics;
+
+import com.spotify.helios.servicescommon.coordination.ZooKeeperModelReporter;
+import com.spotify.helios.servicescommon.statistics.MasterMetrics;
+import com.spotify.helios.servicescommon.statistics.RequestTrace;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import static com.google.common.util.concurrent.Uninterruptibles.sleepUninterruptibly;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class RequestTracingFilterTest {
+
+  private final MasterMetrics metrics = mock(MasterMetrics.class);
+  private final FilterChain chain = mock(FilterChain.class);
+  private final ServletRequest request = mock(ServletRequest.class);
+  private final ServletResponse response = mock(ServletResponse.class);
+  private final ZooKeeperModelReporter reporter = ZooKeeperModelReporter.noop();
+
+  private final RequestTracingFilter filter = new RequestTracingFilter(metrics, 0);
+
+  @Test
+  public void testTracesZooKeeperOperations() throws Exception {
+    doAnswer(invocation -> {
+      reporter.time("tag", "getData", () -> null);
+      reporter.time("tag", "getData", () -> null);
+      reporter.time("tag", "getChildren", () -> {
+        sleepUninterruptibly(10, MILLISECONDS);
+        return null;
+      });
+      RequestTrace.current().handled("HostsResource#list", 20, MILLISECONDS);
+      return null;
+    }).when(chain).doFilter(request, response);
+
+    filter.doFilter(request, response, chain);
+
+    final ArgumentCaptor<RequestTrace> captor = ArgumentCaptor.forClass(RequestTrace.class);
+    verify(metrics).requestTrace(captor.capture());
+    final RequestTrace trace = captor.getValue();
+    assertEquals("HostsResource#list", trace.getEndpoint());
+    assertEquals(3, trace.getZooKeeperOperations());
+    assertThat(trace.getZooKeeperNanos(), greaterThanOrEqualTo(MILLISECONDS.toNanos(10)));
+    assertThat(trace.toString(), containsString("getChildren x1"));
+    assertThat(trace.toString(), containsString("getData x2"));
+
+    // The trace ends with the request
+    assertNull(RequestTrace.current());
+  }
+
+  @Test
+  public void testRequestsNotHandledByResourcesAreNotReported() throws Exception {
+    filter.doFilter(request, response, chain);
+    verify(metrics, never()).requestTrace(any(RequestTrace.class));
+    assertNull(RequestTrace.current());
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.master.resources;
+
+import com.google.common.collect.ImmutableList;
+
+import com.spotify.helios.master.HostLivenessTracker;
+import com.spotify.helios.master.MasterModel;
+import com.sun.jersey.core.header.InBoundHeaders;
+import com.sun.jersey.spi.container.ContainerRequest;
+import com.sun.jersey.spi.container.WebApplication;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.util.List;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class HostsResourceTest {
+
+  private static final List<String> HOSTS = ImmutableList.of("host1", "host2");
+
+  private final MasterModel model = mock(MasterModel.class);
+  private final HostsResource resource =
+      new HostsResource(model, mock(HostLivenessTracker.class));
+
+  @Before
+  public void setUp() throws Exception {
+    when(model.getHostsVersion()).thenReturn("v1");
+    when(model.listHosts()).thenReturn(HOSTS);
+  }
+
+  static Request request(final String ifNoneMatch) {
+    final InBoundHeaders headers = new InBoundHeaders();
+    if (ifNoneMatch != null) {
+      headers.add(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+    }
+    return new ContainerRequest(mock(WebApplication.class), "GET",
+                                URI.create("http://helios/"), URI.create("http://helios/hosts"),
+                                headers, new ByteArrayInputStream(new byte[0]));
+  }
+
+  @Test
+  public void testListWithoutIfNoneMatch() throws Exception {
+    final Response response = resource.list(request(null));
+
+    assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+    assertEquals(HOSTS, response.getEntity());
+    assertEquals(new EntityTag("v1"), response.getMetadata().getFirst(HttpHeaders.ETAG));
+  }
+
+  @Test
+  public void testListNotModified() throws Exception {
+    final Response response = resource.list(request("\"v1\""));
+
+    assertEquals(Response.Status.NOT_MODIFIED.getStatusCode(), response.getStatus());
+    assertNull(response.getEntity());
+    verify(model, never()).listHosts();
+  }
+
+  @Test
+  public void testListAfterHostsChanged() throws Exception {
+    when(model.getHostsVersion()).thenReturn("v2");
+
+    final Response response = resource.list(request("\"v1\""));
+
+    assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+    assertEquals(HOSTS, response.getEntity());
+    assertEquals(new EntityTag("v2"), response.getMetadata().getFirst(HttpHeaders.ETAG));
+  }
+
+  @Test
+  public void testListWithInvalidIfNoneMatch() throws Exception {
+    try {
+      resource.list(request("not a tag"));
+      fail();
+    } catch (WebApplicationException e) {
+      assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), e.getResponse().getStatus());
+    }
+    verify(model, never()).listHosts();
+  }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.master.resources;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedSet;
+
+import com.spotify.helios.common.HeliosRuntimeException;
+import com.spotify.helios.common.descriptors.Deployment;
+import com.spotify.helios.common.descriptors.HostInfo;
+import com.spotify.helios.common.descriptors.HostSelector;
+import com.spotify.helios.common.descriptors.HostStatus;
+import com.spotify.helios.common.descriptors.Job;
+import com.spotify.helios.common.descriptors.JobId;
+import com.spotify.helios.common.descriptors.TaskStatus;
+import com.spotify.helios.common.protocol.JobPlacementRequest;
+import com.spotify.helios.common.protocol.JobPlacementResponse;
+import com.spotify.helios.master.HostChangedException;
+import com.spotify.helios.master.JobPortAllocationConflictException;
+import com.spotify.helios.master.MasterModel;
+import com.spotify.helios.servicescommon.VersionedValue;
+import com.spotify.helios.servicescommon.statistics.MasterMetrics;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.GenericEntity;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+import static com.spotify.helios.master.resources.HostsResourceTest.request;
+import static com.spotify.helios.common.descriptors.Goal.START;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class JobsResourceTest {
+
+  private static final Job JOB = Job.newBuilder()
+      .setName("foo")
+      .setVersion("1")
+      .setImage("busybox")
+      .build();
+  private static final Map<JobId, Job> JOBS = ImmutableMap.of(JOB.getId(), JOB);
+
+  private final MasterModel model = mock(MasterModel.class);
+  private final JobsResource resource = new JobsResource(model, mock(MasterMetrics.class));
+
+  @Before
+  public void setUp() throws Exception {
+    when(model.getJobsVersion()).thenReturn("v1");
+    when(model.getJobs()).thenReturn(JOBS);
+    when(model.getJob(JOB.getId())).thenReturn(JOB);
+    when(model.getHostPlacementStatuses()).thenReturn(hosts(3));
+  }
+
+  @Test
+  public void testListWithoutIfNoneMatch() throws Exception {
+    final Response response = resource.list("", request(null));
+
+    assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+    assertEquals(JOBS, entity(response));
+    assertEquals(new EntityTag("v1"), response.getMetadata().getFirst(HttpHeaders.ETAG));
+  }
+
+  @Test
+  public void testListNotModified() throws Exception {
+    final Response response = resource.list("", request("\"v1\""));
+
+    assertEquals(Response.Status.NOT_MODIFIED.getStatusCode(), response.getStatus());
+    assertNull(response.getEntity());
+    verify(model, never()).getJobs();
+  }
+
+  @Test
+  public void testListAfterJobsChanged() throws Exception {
+    when(model.getJobsVersion()).thenReturn("v2");
+
+    final Response response = resource.list("", request("\"v1\""));
+
+    assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+    assertEquals(JOBS, entity(response));
+    assertEquals(new EntityTag("v2"), response.getMetadata().getFirst(HttpHeaders.ETAG));
+  }
+
+  @Test
+  public void testListWithInvalidIfNoneMatch() throws Exception {
+    try {
+      resource.list("", request("not a tag"));
+      fail();
+    } catch (WebApplicationException e) {
+      assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), e.getResponse().getStatus());
+    }
+    verify(model, never()).getJobs();
+  }
+
+  @Test
+  public void testDeploy() throws Exception {
+    final JobPlacementResponse response = resource.deploy(
+        JOB.getId(), new JobPlacementRequest(START, 2, null, null), "user", "");
+
+    assertEquals(JobPlacementResponse.Status.OK, response.getStatus());
+    assertEquals(2, response.getHosts().size());
+    for (final String host : response.getHosts()) {
+      verify(model).deployJob(eq(host), eq(Deployment.of(JOB.getId(), START, "user")), eq(""),
+                              anyInt());
+    }
+  }
+
+  @Test
+  public void testDeployOnlyToMatchingHosts() throws Exception {
+    final JobPlacementRequest request = new JobPlacementRequest(
+        START, 2, ImmutableList.of(HostSelector.parse("pool=a")), null);
+
+    final JobPlacementResponse response = resource.deploy(JOB.getId(), request, "user", "");
+
+    assertEquals(ImmutableList.of("a1", "a2"), ImmutableList.copyOf(
+        ImmutableSortedSet.copyOf(response.getHosts())));
+    verify(model, never()).deployJob(eq("b1"), any(Deployment.class), anyString(), anyInt());
+  }
+
+  @Test
+  public void testInsufficientCapacityDeploysNothing() throws Exception {
+    final JobPlacementRequest request = new JobPlacementRequest(
+        START, 3, ImmutableList.of(HostSelector.parse("pool=a")), null);
+
+    try {
+      resource.deploy(JOB.getId(), request, "user", "");
+      fail();
+    } catch (WebApplicationException e) {
+      assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), e.getResponse().getStatus());
+      final JobPlacementResponse response = (JobPlacementResponse) e.getResponse().getEntity();
+      assertEquals(JobPlacementResponse.Status.INSUFFICIENT_CAPACITY, response.getStatus());
+      assertTrue(response.getHosts().isEmpty());
+    }
+    verify(model, never()).deployJob(anyString(), any(Deployment.class), anyString(), anyInt());
+  }
+
+  @Test
+  public void testShortfallRollsBackDeployments() throws Exception {
+    doThrow(new JobPortAllocationConflictException(
+        JOB.getId(), JobId.fromString("bar:1"), "b1", 4711))
+        .when(model).deployJob(eq("b1"), any(Deployment.class), anyString(), anyInt());
+
+    try {
+      resource.deploy(JOB.getId(), new JobPlacementRequest(START, 3, null, null), "user", "");
+      fail();
+    } catch (WebApplicationException e) {
+      assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), e.getResponse().getStatus());
+    }
+    verify(model).undeployJob("a1", JOB.getId(), "");
+    verify(model).undeployJob("a2", JOB.getId(), "");
+    verify(model, never()).undeployJob("b1", JOB.getId(), "");
+  }
+
+  @Test
+  public void testDeployPlacesAgainWhenHostChanged() throws Exception {
+    // Another job is deployed to b1 after the first placement read it
+    when(model.getHostPlacementStatuses()).thenReturn(hosts(3), hosts(4));
+    doThrow(new HostChangedException("b1"))
+        .when(model).deployJob(eq("b1"), any(Deployment.class), anyString(), eq(3));
+
+    final JobPlacementResponse response = resource.deploy(
+        JOB.getId(), new JobPlacementRequest(START, 3, null, null), "user", "");
+
+    assertEquals(JobPlacementResponse.Status.OK, response.getStatus());
+    assertEquals(ImmutableList.of("a1", "a2", "b1"), response.getHosts());
+    // The first placement is undone before placing the job again
+    verify(model).undeployJob("a1", JOB.getId(), "");
+    verify(model).undeployJob("a2", JOB.getId(), "");
+    verify(model, times(2)).deployJob(eq("a1"), any(Deployment.class), anyString(), eq(1));
+    verify(model).deployJob(eq("b1"), any(Deployment.class), anyString(), eq(4));
+  }
+
+  @Test(expected = HeliosRuntimeException.class)
+  public void testDeployGivesUpWhenHostKeepsChanging() throws Exception {
+    doThrow(new HostChangedException("b1"))
+        .when(model).deployJob(eq("b1"), any(Deployment.class), anyString(), anyInt());
+
+    resource.deploy(JOB.getId(), new JobPlacementRequest(START, 3, null, null), "user", "");
+  }
+
+  /**
+   * Hosts a1 and a2 in pool a and b1 in pool b, with the deployments on b1 at {@code b1Version}.
+   */
+  private static Map<String, VersionedValue<HostStatus>> hosts(final int b1Version) {
+    return ImmutableMap.of("a1", VersionedValue.of(host("a"), 1),
+                           "a2", VersionedValue.of(host("a"), 2),
+                           "b1", VersionedValue.of(host("b"), b1Version));
+  }
+
+  private static HostStatus host(final String pool) {
+    return HostStatus.newBuilder()
+        .setStatus(HostStatus.Status.UP)
+        .setJobs(ImmutableMap.<JobId, Deployment>of())
+        .setStatuses(ImmutableMap.<JobId, TaskStatus>of())
+        .setHostInfo(HostInfo.newBuilder().setCpus(4).setMemoryTotalBytes(1L << 32).build())
+        .setLabels(ImmutableMap.of("pool", pool))
+        .build();
+  }
+
+  private static Object entity(final Response response) {
+    // The jobs are wrapped in a GenericEntity to keep their type
+    return ((GenericEntity<?>) response.getEntity()).getEntity();
+  }
+}
@@ -17,6 +17,7 @@
 
 package com.spotify.helios.rollingupdate;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -26,6 +27,7 @@ import com.spotify.helios.common.descriptors.DeploymentGroupStatus;
 import com.spotify.helios.common.descriptors.DeploymentGroupTasks;
 import com.spotify.helios.common.descriptors.RolloutOptions;
 import com.spotify.helios.common.descriptors.RolloutTask;
+import com.spotify.helios.servicescommon.PayloadFormat;
 import com.spotify.helios.servicescommon.coordination.CreateEmpty;
 import com.spotify.helios.servicescommon.coordination.Delete;
 import com.spotify.helios.servicescommon.coordination.SetData;
@@ -168,6 +170,44 @@ public class RollingUpdateOpFactoryTest {
     verify(eventFactory).rollingUpdateStarted(DEPLOYMENT_GROUP, MANUAL);
   }
 
+  @Test
+  public void testStartWritesPayloadFormat() throws Exception {
+    final ArrayList<RolloutTask> rolloutTasks = Lists.newArrayList(
+        RolloutTask.of(RolloutTask.Action.UNDEPLOY_OLD_JOBS, "host1"),
+        RolloutTask.of(RolloutTask.Action.DEPLOY_NEW_JOB, "host1"),
+        RolloutTask.of(RolloutTask.Action.AWAIT_RUNNING, "host1")
+    );
+    final DeploymentGroupTasks deploymentGroupTasks = DeploymentGroupTasks.newBuilder()
+        .setTaskIndex(0)
+        .setRolloutTasks(rolloutTasks)
+        .setDeploymentGroup(DEPLOYMENT_GROUP)
+        .build();
+
+    final RollingUpdateOpFactory opFactory = new RollingUpdateOpFactory(
+        deploymentGroupTasks, eventFactory, PayloadFormat.DEFLATE);
+    final ZooKeeperClient client = mock(ZooKeeperClient.class);
+    when(client.exists(anyString())).thenReturn(mock(Stat.class));
+    final RollingUpdateOp op = opFactory.start(DEPLOYMENT_GROUP, MANUAL, client);
+
+    final DeploymentGroupStatus status = DeploymentGroupStatus.newBuilder()
+        .setState(DeploymentGroupStatus.State.ROLLING_OUT)
+        .build();
+    assertEquals(
+        ImmutableSet.of(
+            new SetData("/status/deployment-group-tasks/my_group",
+                        PayloadFormat.DEFLATE.encode(deploymentGroupTasks)),
+            new SetData("/status/deployment-groups/my_group",
+                        PayloadFormat.DEFLATE.encode(status))),
+        ImmutableSet.copyOf(op.operations()));
+
+    // Advancing to the next task writes the tasks in the same format
+    assertEquals(
+        ImmutableList.of(
+            new SetData("/status/deployment-group-tasks/my_group", PayloadFormat.DEFLATE.encode(
+                deploymentGroupTasks.toBuilder().setTaskIndex(1).build()))),
+        opFactory.nextTask().operations());
+  }
+
   @Test
   public void testStartHostsChanged() throws Exception {
     // Create a DeploymentGroupTasks object with some rolloutTasks.
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.servicescommon;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import com.spotify.helios.common.Json;
+import com.spotify.helios.common.descriptors.Goal;
+import com.spotify.helios.common.descriptors.Job;
+import com.spotify.helios.common.descriptors.JobId;
+import com.spotify.helios.common.descriptors.PortMapping;
+import com.spotify.helios.common.descriptors.ServiceEndpoint;
+import com.spotify.helios.common.descriptors.ServicePorts;
+import com.spotify.helios.common.descriptors.TaskStatus;
+import com.spotify.helios.common.descriptors.ThrottleState;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static com.spotify.helios.common.descriptors.TaskStatus.State.RUNNING;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+
+public class CompactTaskStatusTest {
+
+  private static final Job JOB = Job.newBuilder()
+      .setName("foo")
+      .setVersion("17")
+      .setImage("registry.example.com/foo:17")
+      .setCommand(ImmutableList.of("/usr/bin/foo", "--config", "/etc/foo/foo.yaml"))
+      .setEnv(ImmutableMap.of("FOO_ENV", "production", "FOO_HEAP", "4g"))
+      .setPorts(ImmutableMap.of("http", PortMapping.of(8080),
+                                "http-admin", PortMapping.of(8081)))
+      .addRegistration(ServiceEndpoint.of("foo", "http"), ServicePorts.of("http"))
+      .setMetadata(ImmutableMap.of("owner", "foo-team", "commit", "4b2bdd0c0c5d5cbb"))
+      .build();
+
+  private static final TaskStatus STATUS = TaskStatus.newBuilder()
+      .setJob(JOB)
+      .setGoal(Goal.START)
+      .setState(RUNNING)
+      .setContainerId("e890d827e802934a29c97d7e9e3c96a55ca049e519ab0c28be8020621a0a3750")
+      .setThrottled(ThrottleState.NO)
+      .setPorts(ImmutableMap.of("http", PortMapping.of(8080, 20000),
+                                "http-admin", PortMapping.of(8081, 20001)))
+      .setEnv(ImmutableMap.of("SYSLOG_HOST_PORT", "10.99.0.1:514"))
+      .build();
+
+  private static final CompactTaskStatus.JobResolver RESOLVER =
+      new CompactTaskStatus.JobResolver() {
+        @Override
+        public Job resolve(final JobId jobId) {
+          return JOB.getId().equals(jobId) ? JOB : null;
+        }
+      };
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    final byte[] compact = CompactTaskStatus.toJsonBytes(STATUS);
+    assertEquals(STATUS, CompactTaskStatus.parse(compact, RESOLVER));
+  }
+
+  @Test
+  public void testReadsFullForm() throws Exception {
+    final CompactTaskStatus.JobResolver none = new CompactTaskStatus.JobResolver() {
+      @Override
+      public Job resolve(final JobId jobId) {
+        return null;
+      }
+    };
+    assertEquals(STATUS, CompactTaskStatus.parse(STATUS.toJsonBytes(), none));
+  }
+
+  @Test
+  public void testUnresolvedJob() throws Exception {
+    final TaskStatus other = STATUS.asBuilder()
+        .setJob(JOB.toBuilder().setVersion("18").build())
+        .build();
+    assertNull(CompactTaskStatus.parse(CompactTaskStatus.toJsonBytes(other), RESOLVER));
+  }
+
+  @Test(expected = IOException.class)
+  public void testNewerVersionIsRejected() throws Exception {
+    final String json = new String(CompactTaskStatus.toJsonBytes(STATUS), UTF_8)
+        .replace("\"version\":1", "\"version\":2");
+    CompactTaskStatus.parse(json.getBytes(UTF_8), RESOLVER);
+  }
+
+  @Test
+  public void testSize() throws Exception {
+    final byte[] full = STATUS.toJsonBytes();
+    final byte[] compact = CompactTaskStatus.toJsonBytes(STATUS);
+
+    // A status is written for every state transition and kept in the history, so this is the
+    // saving per ZooKeeper write and per history event.
+    assertThat(compact.length, lessThan(full.length / 2));
+    assertEquals(JOB.getId().toString(), Json.readTree(compact).get("jobId").asText());
+  }
+}
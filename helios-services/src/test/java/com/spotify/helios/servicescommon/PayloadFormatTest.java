@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.servicescommon;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import com.spotify.helios.common.descriptors.Goal;
+import com.spotify.helios.common.descriptors.Job;
+import com.spotify.helios.common.descriptors.JobId;
+import com.spotify.helios.common.descriptors.PortMapping;
+import com.spotify.helios.common.descriptors.Task;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+public class PayloadFormatTest {
+
+  private static final Job JOB = Job.newBuilder()
+      .setName("foo")
+      .setVersion("17")
+      .setImage("registry.example.com/foo:17")
+      .setCommand(ImmutableList.of("/usr/bin/foo", "--config", "/etc/foo/foo.yaml"))
+      .setEnv(ImmutableMap.of("FOO_ENV", "production", "FOO_HEAP", "4g"))
+      .setPorts(ImmutableMap.of("http", PortMapping.of(8080),
+                                "http-admin", PortMapping.of(8081)))
+      .setMetadata(ImmutableMap.of("owner", "foo-team", "commit", "4b2bdd0c0c5d5cbb"))
+      .build();
+
+  private static final Task TASK = new Task(JOB, Goal.START, "agent", "master", null);
+
+  @Test
+  public void testJsonIsUnchanged() throws Exception {
+    assertArrayEquals(JOB.toJsonBytes(), PayloadFormat.JSON.encode(JOB));
+    assertEquals(PayloadFormat.JSON, PayloadFormat.of(JOB.toJsonBytes()));
+  }
+
+  @Test
+  public void testDeflateRoundTrip() throws Exception {
+    for (final Object value : ImmutableList.of(JOB, TASK)) {
+      final byte[] json = PayloadFormat.JSON.encode(value);
+      final byte[] deflated = PayloadFormat.DEFLATE.encode(value);
+
+      assertEquals(PayloadFormat.DEFLATE, PayloadFormat.of(deflated));
+      assertThat(deflated.length, lessThan(json.length));
+      assertArrayEquals(json, PayloadFormat.toJson(deflated));
+      assertEquals(value, PayloadFormat.read(deflated, value.getClass()));
+    }
+  }
+
+  @Test
+  public void testSmallPayloadsStayJson() throws Exception {
+    final JobId jobId = JOB.getId();
+    final byte[] data = PayloadFormat.DEFLATE.encode(jobId);
+
+    assertEquals(PayloadFormat.JSON, PayloadFormat.of(data));
+    assertEquals(jobId, PayloadFormat.read(data, JobId.class));
+  }
+
+  @Test(expected = IOException.class)
+  public void testUnknownFormatIsRejected() throws Exception {
+    PayloadFormat.read(new byte[]{PayloadFormat.MAGIC, 42, 1, 2, 3}, Job.class);
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.servicescommon;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ScheduledReactorTest {
+
+  private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(4);
+
+  @After
+  public void tearDown() throws Exception {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testSignalsAreCoalesced() throws Exception {
+    final BlockingQueue<Boolean> calls = new LinkedBlockingQueue<>();
+    final Reactor reactor = new ScheduledReactor("test", new Reactor.Callback() {
+      @Override
+      public void run(final boolean timeout) {
+        calls.add(timeout);
+      }
+    }, 0, 200, executor);
+    reactor.startAsync().awaitRunning();
+
+    for (int i = 0; i < 10; i++) {
+      reactor.signal();
+    }
+
+    assertFalse(calls.poll(5, SECONDS));
+    assertNull(calls.poll(500, MILLISECONDS));
+    reactor.stopAsync().awaitTerminated();
+  }
+
+  @Test
+  public void testSignalBeforeStartIsKept() throws Exception {
+    final CountDownLatch called = new CountDownLatch(1);
+    final Reactor reactor = new ScheduledReactor("test", new Reactor.Callback() {
+      @Override
+      public void run(final boolean timeout) {
+        called.countDown();
+      }
+    }, 0, 0, executor);
+
+    reactor.signal();
+    reactor.startAsync().awaitRunning();
+
+    assertTrue(called.await(5, SECONDS));
+    reactor.stopAsync().awaitTerminated();
+  }
+
+  @Test
+  public void testTimeout() throws Exception {
+    final BlockingQueue<Boolean> calls = new LinkedBlockingQueue<>();
+    final Reactor reactor = new ScheduledReactor("test", new Reactor.Callback() {
+      @Override
+      public void run(final boolean timeout) {
+        calls.add(timeout);
+      }
+    }, 100, 0, executor);
+    reactor.startAsync().awaitRunning();
+
+    assertTrue(calls.poll(5, SECONDS));
+    assertTrue(calls.poll(5, SECONDS));
+    reactor.stopAsync().awaitTerminated();
+  }
+
+  @Test
+  public void testCallbackIsNeverConcurrent() throws Exception {
+    final AtomicInteger concurrent = new AtomicInteger();
+    final AtomicInteger maxConcurrent = new AtomicInteger();
+    final AtomicInteger calls = new AtomicInteger();
+    final Reactor reactor = new ScheduledReactor("test", new Reactor.Callback() {
+      @Override
+      public void run(final boolean timeout) throws InterruptedException {
+        final int n = concurrent.incrementAndGet();
+        if (n > maxConcurrent.get()) {
+          maxConcurrent.set(n);
+        }
+        Thread.sleep(10);
+        concurrent.decrementAndGet();
+        calls.incrementAndGet();
+      }
+    }, 0, 0, executor);
+    reactor.startAsync().awaitRunning();
+
+    for (int i = 0; i < 20; i++) {
+      reactor.signal();
+      Thread.sleep(5);
+    }
+    reactor.stopAsync().awaitTerminated();
+
+    assertEquals(1, maxConcurrent.get());
+    assertTrue(calls.get() > 1);
+  }
+
+  @Test
+  public void testStopInterruptsAndWaitsForCallback() throws Exception {
+    final CountDownLatch started = new CountDownLatch(1);
+    final AtomicInteger calls = new AtomicInteger();
+    final AtomicInteger finished = new AtomicInteger();
+    final Reactor reactor = new ScheduledReactor("test", new Reactor.Callback() {
+      @Override
+      public void run(final boolean timeout) throws InterruptedException {
+        calls.incrementAndGet();
+        started.countDown();
+        try {
+          Thread.sleep(SECONDS.toMillis(30));
+        } finally {
+          finished.incrementAndGet();
+        }
+      }
+    }, 0, 0, executor);
+    reactor.startAsync().awaitRunning();
+
+    reactor.signal();
+    assertTrue(started.await(5, SECONDS));
+    reactor.signal();
+    reactor.stopAsync().awaitTerminated(5, SECONDS);
+
+    assertEquals(1, finished.get());
+    Thread.sleep(100);
+    assertEquals(1, calls.get());
+  }
+}
@@ -19,6 +19,7 @@ package com.spotify.helios.servicescommon;
 
 import com.spotify.helios.ZooKeeperTestingServerManager;
 import com.spotify.helios.common.descriptors.JobId;
+import com.spotify.helios.master.HostNotFoundException;
 import com.spotify.helios.servicescommon.coordination.DefaultZooKeeperClient;
 import com.spotify.helios.servicescommon.coordination.Paths;
 import com.spotify.helios.servicescommon.coordination.ZooKeeperClient;
@@ -32,6 +33,7 @@ import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
@@ -84,6 +86,66 @@ public class ZooKeeperRegistrarServiceUtilTest {
 
     assertNull(zkClient.exists(Paths.configHost(HOSTNAME)));
     assertNull(zkClient.exists(Paths.statusHost(HOSTNAME)));
+    assertThat(ZooKeeperRegistrarUtil.listDeregisteringHosts(zkClient), empty());
+  }
+
+  @Test
+  public void testDeregisterHostWithLotsOfHistory() throws Exception {
+    final String idPath = Paths.configHostId(HOSTNAME);
+    ZooKeeperRegistrarUtil.registerHost(zkClient, idPath, HOSTNAME, ID);
+    zkClient.ensurePath(Paths.configHostJob(HOSTNAME, JOB_ID1));
+    zkClient.ensurePath(Paths.configJobHost(JOB_ID1, HOSTNAME));
+    // More history than fits in one transaction
+    for (int i = 0; i < 1000; i++) {
+      zkClient.ensurePath(Paths.historyJobHostEventsTimestamp(JOB_ID1, HOSTNAME, i));
+    }
+
+    ZooKeeperRegistrarUtil.deregisterHost(zkClient, HOSTNAME);
+
+    assertNull(zkClient.exists(Paths.configHost(HOSTNAME)));
+    assertNull(zkClient.exists(Paths.configJobHost(JOB_ID1, HOSTNAME)));
+    assertNull(zkClient.exists(Paths.historyJobHost(JOB_ID1, HOSTNAME)));
+  }
+
+  @Test
+  public void testResumeDeregisterHost() throws Exception {
+    final String idPath = Paths.configHostId(HOSTNAME);
+    ZooKeeperRegistrarUtil.registerHost(zkClient, idPath, HOSTNAME, ID);
+    zkClient.ensurePath(Paths.configHostJob(HOSTNAME, JOB_ID1));
+
+    // A deregistration that got as far as removing the host status
+    zkClient.ensurePath(Paths.configDeregisteringHost(HOSTNAME));
+    zkClient.deleteRecursive(Paths.statusHost(HOSTNAME));
+    assertThat(ZooKeeperRegistrarUtil.listDeregisteringHosts(zkClient), contains(HOSTNAME));
+
+    ZooKeeperRegistrarUtil.deregisterHost(zkClient, HOSTNAME);
+
+    assertNull(zkClient.exists(Paths.configHost(HOSTNAME)));
+    assertThat(ZooKeeperRegistrarUtil.listDeregisteringHosts(zkClient), empty());
+  }
+
+  @Test
+  public void testCancelDeregistration() throws Exception {
+    ZooKeeperRegistrarUtil.registerHost(zkClient, Paths.configHostId(HOSTNAME), HOSTNAME, ID);
+    zkClient.ensurePath(Paths.configDeregisteringHost(HOSTNAME));
+
+    ZooKeeperRegistrarUtil.cancelDeregistration(zkClient, HOSTNAME);
+
+    assertNotNull(zkClient.exists(Paths.configHost(HOSTNAME)));
+    assertThat(ZooKeeperRegistrarUtil.listDeregisteringHosts(zkClient), empty());
+
+    // Nothing to call off
+    ZooKeeperRegistrarUtil.cancelDeregistration(zkClient, HOSTNAME);
+  }
+
+  @Test(expected = HostNotFoundException.class)
+  public void testDeregisterMissingHostRemovesTombstone() throws Exception {
+    zkClient.ensurePath(Paths.configDeregisteringHost(HOSTNAME));
+    try {
+      ZooKeeperRegistrarUtil.deregisterHost(zkClient, HOSTNAME);
+    } finally {
+      assertThat(ZooKeeperRegistrarUtil.listDeregisteringHosts(zkClient), empty());
+    }
   }
 
   // Verify that the re-registering:
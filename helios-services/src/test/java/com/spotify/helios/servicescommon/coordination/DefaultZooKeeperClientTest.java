@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.servicescommon.coordination;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+
+import com.spotify.helios.ZooKeeperTestingServerManager;
+
+import org.apache.zookeeper.KeeperException.NoNodeException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+
+public class DefaultZooKeeperClientTest {
+
+  private ZooKeeperTestingServerManager zk;
+  private DefaultZooKeeperClient client;
+
+  @Before
+  public void setUp() throws Exception {
+    zk = new ZooKeeperTestingServerManager();
+    zk.awaitUp(5, TimeUnit.SECONDS);
+    client = new DefaultZooKeeperClient(zk.curatorWithSuperAuth());
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    client.close();
+    if (zk != null) {
+      zk.close();
+    }
+  }
+
+  @Test
+  public void testListRecursive() throws Exception {
+    final List<String> expected = Lists.newArrayList("/tree");
+    client.ensurePath("/tree");
+    for (int i = 0; i < 10; i++) {
+      final String child = "/tree/" + i;
+      expected.add(child);
+      for (int j = 0; j < 10; j++) {
+        final String grandchild = child + "/" + j;
+        expected.add(grandchild);
+        client.ensurePath(grandchild);
+      }
+      client.ensurePath(child);
+    }
+
+    final List<String> tree = client.listRecursive("/tree");
+
+    assertThat(tree, containsInAnyOrder(expected.toArray()));
+    // Parents come before their children
+    for (final String node : tree) {
+      if (!node.equals("/tree")) {
+        final String parent = node.substring(0, node.lastIndexOf('/'));
+        assertThat(tree.indexOf(parent), lessThan(tree.indexOf(node)));
+      }
+    }
+  }
+
+  @Test(expected = NoNodeException.class)
+  public void testListRecursiveMissing() throws Exception {
+    client.listRecursive("/missing");
+  }
+
+  @Test
+  public void testGetNodes() throws Exception {
+    final List<String> paths = Lists.newArrayList("/missing");
+    for (int i = 0; i < 100; i++) {
+      final String path = "/nodes/" + i;
+      client.ensurePath(path, true);
+      client.createAndSetData(path, String.valueOf(i).getBytes(UTF_8));
+      paths.add(path);
+    }
+    client.setData("/nodes/7", "updated".getBytes(UTF_8));
+
+    final Map<String, Node> nodes = client.getNodes(paths);
+
+    assertEquals(100, nodes.size());
+    assertArrayEquals("42".getBytes(UTF_8), nodes.get("/nodes/42").getBytes());
+    assertArrayEquals("updated".getBytes(UTF_8), nodes.get("/nodes/7").getBytes());
+    assertEquals(1, nodes.get("/nodes/7").getStat().getVersion());
+    assertFalse(nodes.containsKey("/missing"));
+  }
+
+  @Test
+  public void testDeleteRecursiveLargerThanOneRequest() throws Exception {
+    // About 1.5 MB of paths, more than ZooKeeper takes in one request
+    final String name = Strings.repeat("x", 500);
+    client.ensurePath("/tree");
+    final List<ZooKeeperOperation> creates = Lists.newArrayList();
+    for (int i = 0; i < 3000; i++) {
+      creates.add(new CreateEmpty("/tree/" + name + i));
+      if (creates.size() == 500) {
+        client.transaction(creates);
+        creates.clear();
+      }
+    }
+
+    client.deleteRecursive("/tree");
+
+    assertNull(client.exists("/tree"));
+  }
+}
@@ -33,12 +33,14 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.spotify.helios.Polling.await;
 import static com.spotify.helios.servicescommon.coordination.ZooKeeperModelReporter.noop;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.apache.zookeeper.KeeperException.NodeExistsException;
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 
 @RunWith(Parallelized.class)
 public class ZooKeeperUpdatingPersistentDirectoryTest {
@@ -70,12 +72,15 @@ public class ZooKeeperUpdatingPersistentDirectoryTest {
   }
 
   private void setupDirectory() throws IOException, InterruptedException {
-    final DefaultZooKeeperClient client = new DefaultZooKeeperClient(zk.curatorWithSuperAuth());
-    final ZooKeeperClientProvider provider = new ZooKeeperClientProvider(client, noop());
-    sut = ZooKeeperUpdatingPersistentDirectory.create("test", provider, stateFile, PARENT_PATH);
+    sut = ZooKeeperUpdatingPersistentDirectory.create("test", provider(), stateFile, PARENT_PATH);
     sut.startAsync();
   }
 
+  private ZooKeeperClientProvider provider() {
+    final DefaultZooKeeperClient client = new DefaultZooKeeperClient(zk.curatorWithSuperAuth());
+    return new ZooKeeperClientProvider(client, noop());
+  }
+
   @After
   public void tearDown() throws Exception {
     sut.stopAsync().awaitTerminated();
@@ -111,6 +116,46 @@ public class ZooKeeperUpdatingPersistentDirectoryTest {
     awaitNoNode(FOO_PATH);
   }
 
+  @Test
+  public void verifyCoalescesUpdates() throws Exception {
+    sut.stopAsync().awaitTerminated();
+    final AtomicInteger updates = new AtomicInteger();
+    final AtomicInteger writes = new AtomicInteger();
+    sut = ZooKeeperUpdatingPersistentDirectory.create(
+        "test", provider(), stateFile, PARENT_PATH, 1000, (changes, written) -> {
+          updates.addAndGet(changes);
+          writes.addAndGet(written);
+        });
+    sut.startAsync().awaitRunning();
+
+    sut.put(FOO_NODE, BAR1_DATA);
+    sut.put(FOO_NODE, BAR2_DATA);
+    sut.put(BAZ_NODE, BAR1_DATA);
+    sut.put(BAZ_NODE, BAR3_DATA);
+    awaitNodeWithData(FOO_PATH, BAR2_DATA);
+    awaitNodeWithData(BAZ_PATH, BAR3_DATA);
+
+    // Both nodes were written, once each, in a single flush
+    await(30, SECONDS, () -> updates.get() == 4 ? true : null);
+    assertEquals(2, writes.get());
+  }
+
+  @Test
+  public void verifyWritesStateFileBeforeCoalescedWrite() throws Exception {
+    sut.stopAsync().awaitTerminated();
+    sut = ZooKeeperUpdatingPersistentDirectory.create(
+        "test", provider(), stateFile, PARENT_PATH, 60000, (changes, written) -> { });
+    sut.startAsync().awaitRunning();
+
+    sut.put(FOO_NODE, BAR1_DATA);
+
+    // Read back by a directory that isn't started, as an agent restarted after a crash would
+    final ZooKeeperUpdatingPersistentDirectory restarted =
+        ZooKeeperUpdatingPersistentDirectory.create("restarted", provider(), stateFile,
+                                                    PARENT_PATH);
+    assertArrayEquals(BAR1_DATA, restarted.get(FOO_NODE));
+  }
+
   @Test
   public void verifyRecoversFromBackupRestoreOnline() throws Exception {
     // Create backup
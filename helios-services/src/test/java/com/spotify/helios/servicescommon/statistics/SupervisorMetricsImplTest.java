@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.servicescommon.statistics;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.MetricRegistry;
+
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+
+public class SupervisorMetricsImplTest {
+
+  private final FakeClock clock = new FakeClock();
+  private final SupervisorMetrics metrics =
+      new SupervisorMetricsImpl("group", new MetricRegistry(), clock);
+
+  @Test
+  public void testDockerLatencyRecoversWithoutNewCalls() throws Exception {
+    for (int i = 0; i < 20; i++) {
+      metrics.dockerCallStarted("startContainer");
+      metrics.dockerCallFinished("startContainer", SECONDS.toNanos(30));
+    }
+
+    final LatencyPercentiles slow = metrics.getDockerLatency("startContainer");
+    assertEquals(20, slow.getSamples());
+    assertEquals(30000, slow.get99thPercentile(), 1);
+
+    // The slow calls age out even though docker isn't called again
+    clock.ticks += MINUTES.toNanos(10);
+    final LatencyPercentiles recovered = metrics.getDockerLatency("startContainer");
+    assertEquals(0, recovered.getSamples());
+    assertEquals(0, recovered.get99thPercentile(), 0);
+  }
+
+  private static class FakeClock extends Clock {
+
+    long ticks = MINUTES.toNanos(1);
+
+    @Override
+    public long getTick() {
+      return ticks;
+    }
+  }
+}
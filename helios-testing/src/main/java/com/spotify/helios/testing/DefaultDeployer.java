@@ -33,8 +33,10 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
 
 import static com.google.common.base.Predicates.containsPattern;
 import static com.google.common.base.Strings.isNullOrEmpty;
@@ -51,7 +53,9 @@ public class DefaultDeployer implements Deployer {
   private final String jobDeployedMessageFormat;
   private final long deployTimeoutMillis;
 
-  private boolean readyToDeploy;
+  private final JobStatusWatcher statusWatcher;
+
+  private volatile boolean readyToDeploy;
 
   public DefaultDeployer(final HeliosClient client, final List<TemporaryJob> jobs,
                          final HostPickingStrategy hostPicker,
@@ -61,6 +65,7 @@ public class DefaultDeployer implements Deployer {
     this.hostPicker = hostPicker;
     this.jobDeployedMessageFormat = jobDeployedMessageFormat;
     this.deployTimeoutMillis = deployTimeoutMillis;
+    this.statusWatcher = new JobStatusWatcher(client);
   }
 
   @Override
@@ -97,29 +102,40 @@ public class DefaultDeployer implements Deployer {
       fail(format("no hosts matched the filter pattern - %s", hostFilter));
     }
 
-    final String chosenHost = pickHost(filteredHosts);
+    final String chosenHost;
+    final TemporaryJobReports.Step pickHost = reportWriter.step("pick host")
+        .tag("hostFilter", hostFilter);
+    try {
+      chosenHost = pickHost(filteredHosts);
+      pickHost.tag("host", chosenHost).markSuccess();
+    } finally {
+      pickHost.finish();
+    }
     return deploy(job, Collections.singletonList(chosenHost), waitPorts, prober, reportWriter);
   }
 
   @VisibleForTesting
   String pickHost(final List<String> filteredHosts) {
-    final List<String> mutatedList = Lists.newArrayList(filteredHosts);
-    
-    while (true) {
-      final String candidateHost = hostPicker.pickHost(mutatedList);
-      try {
-        final HostStatus hostStatus = client.hostStatus(candidateHost).get();
-        if (hostStatus != null && Status.UP == hostStatus.getStatus()) {
-          return candidateHost;
-        } 
-        mutatedList.remove(candidateHost);
-        if (mutatedList.isEmpty()) {
-          fail("all hosts matching filter pattern are DOWN");
-        }
-      } catch (InterruptedException | ExecutionException e) {
-        throw Throwables.propagate(e);
+    final Map<String, HostStatus> statuses = hostStatuses(filteredHosts);
+    final List<String> upHosts = Lists.newArrayList();
+    for (final String host : filteredHosts) {
+      final HostStatus hostStatus = statuses.get(host);
+      if (hostStatus != null && Status.UP == hostStatus.getStatus()) {
+        upHosts.add(host);
       }
     }
+    if (upHosts.isEmpty()) {
+      fail("all hosts matching filter pattern are DOWN");
+    }
+    return hostPicker.pickHost(upHosts);
+  }
+
+  private Map<String, HostStatus> hostStatuses(final List<String> hosts) {
+    try {
+      return Jobs.hostStatuses(client, hosts);
+    } catch (InterruptedException | ExecutionException | TimeoutException e) {
+      throw Throwables.propagate(e);
+    }
   }
 
   @Override
@@ -137,8 +153,9 @@ public class DefaultDeployer implements Deployer {
     }
 
     log.info("Deploying {} to {}", job.getImage(), Joiner.on(", ").skipNulls().join(hosts));
-    final TemporaryJob temporaryJob = new TemporaryJob(client, prober, reportWriter, job, hosts,
-                                                       waitPorts, jobDeployedMessageFormat,
+    final TemporaryJob temporaryJob = new TemporaryJob(client, statusWatcher, prober, reportWriter,
+                                                       job, hosts, waitPorts,
+                                                       jobDeployedMessageFormat,
                                                        deployTimeoutMillis);
     jobs.add(temporaryJob);
     temporaryJob.deploy();
@@ -21,15 +21,20 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Joiner;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Ordering;
+import com.google.common.hash.Hashing;
 import com.google.common.net.HostAndPort;
 import com.google.common.util.concurrent.FutureFallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 
+import com.spotify.docker.client.ContainerNotFoundException;
 import com.spotify.docker.client.DefaultDockerClient;
 import com.spotify.docker.client.DockerCertificateException;
 import com.spotify.docker.client.DockerClient;
@@ -39,6 +44,7 @@ import com.spotify.docker.client.ImageNotFoundException;
 import com.spotify.docker.client.messages.ContainerConfig;
 import com.spotify.docker.client.messages.ContainerCreation;
 import com.spotify.docker.client.messages.ContainerExit;
+import com.spotify.docker.client.messages.ContainerInfo;
 import com.spotify.docker.client.messages.HostConfig;
 import com.spotify.docker.client.messages.Info;
 import com.spotify.docker.client.messages.NetworkSettings;
@@ -58,6 +64,11 @@ import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -70,6 +81,7 @@ import java.util.concurrent.TimeUnit;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Strings.isNullOrEmpty;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Collections.singletonList;
 
 /**
@@ -89,6 +101,7 @@ public class HeliosSoloDeployment implements HeliosDeployment {
   public static final String HELIOS_SOLO_PROFILES = "helios.solo.profiles.";
   public static final int HELIOS_MASTER_PORT = 5801;
   private static final int DEFAULT_WAIT_SECONDS = 30;
+  private static final String DEFAULT_POOL_DIRECTORY = "/tmp/helios-solo-pool";
 
   private final DockerClient dockerClient;
   /** The DockerHost we use to communicate with docker */
@@ -105,6 +118,8 @@ public class HeliosSoloDeployment implements HeliosDeployment {
   private final HeliosClient heliosClient;
   private boolean removeHeliosSoloContainerOnExit;
   private final int jobUndeployWaitSeconds;
+  /** Held while a pooled container is in use, null if this deployment is not pooled */
+  private final JobPrefixFile poolLock;
 
   HeliosSoloDeployment(final Builder builder) {
     this.heliosSoloImage = builder.heliosSoloImage;
@@ -118,27 +133,56 @@ public class HeliosSoloDeployment implements HeliosDeployment {
     this.dockerHost = Optional.fromNullable(builder.dockerHost).or(DockerHost.fromEnv());
     this.containerDockerHost = Optional.fromNullable(builder.containerDockerHost)
         .or(containerDockerHost());
-    this.namespace = Optional.fromNullable(builder.namespace).or(randomString());
     this.env = containerEnv(builder.env);
     this.binds = containerBinds();
 
-    final String heliosHost;
+    // Containers are only reused by deployments that would have created an identical container
+    final Path poolDirectory = builder.poolDirectory == null
+                               ? null
+                               : builder.poolDirectory.resolve(poolKey());
+    final JobPrefixFile pooled = poolDirectory == null
+                                 ? null
+                                 : claimPooledContainer(poolDirectory, builder.namespace);
+    // A new pool member reserves a name of its own before its container is created, so that
+    // concurrent deployments with the same namespace don't create the same container
+    final JobPrefixFile reserved = poolDirectory == null || pooled != null
+                                   ? null
+                                   : reservePoolMember(poolDirectory, builder.namespace);
+
     final String heliosPort;
     //TODO(negz): Determine and propagate NetworkManager DNS servers?
     try {
-      log.info("checking that docker can be reached from within a container");
-      final String probeContainerGateway = checkDockerAndGetGateway();
-      if (dockerHost.address().equals("localhost") || dockerHost.address().equals("127.0.0.1")) {
-        heliosHost = probeContainerGateway;
+      if (pooled != null) {
+        this.namespace = pooled.prefix();
+        this.heliosContainerId = containerId(HELIOS_CONTAINER_PREFIX + namespace);
+        log.info("reusing pooled helios-solo container {}", heliosContainerId);
       } else {
-        heliosHost = dockerHost.address();
+        this.namespace = reserved != null
+                         ? reserved.prefix()
+                         : Optional.fromNullable(builder.namespace).or(randomString());
+        log.info("checking that docker can be reached from within a container");
+        final String heliosHost;
+        final String probeContainerGateway = checkDockerAndGetGateway();
+        if (dockerHost.address().equals("localhost") || dockerHost.address().equals("127.0.0.1")) {
+          heliosHost = probeContainerGateway;
+        } else {
+          heliosHost = dockerHost.address();
+        }
+        this.heliosContainerId = deploySolo(heliosHost);
       }
-      this.heliosContainerId = deploySolo(heliosHost);
       heliosPort = getHostPort(this.heliosContainerId, HELIOS_MASTER_PORT);
     } catch (HeliosDeploymentException e) {
+      if (pooled != null) {
+        pooled.release();
+      }
+      if (reserved != null) {
+        reserved.delete();
+      }
       throw new AssertionError("Unable to deploy helios-solo container.", e);
     }
 
+    this.poolLock = pooled != null ? pooled : reserved;
+
     // Running the String host:port through HostAndPort does some validation for us.
     this.deploymentAddress = HostAndPort.fromString(dockerHost.address() + ":" + heliosPort);
     this.heliosClient = Optional.fromNullable(builder.heliosClient).or(
@@ -146,6 +190,111 @@ public class HeliosSoloDeployment implements HeliosDeployment {
             .setUser(username)
             .setEndpoints("http://" + deploymentAddress)
             .build());
+
+    if (pooled != null) {
+      // The previous user of the container should have cleaned up, but may have crashed
+      resetPooledDeployment();
+    }
+  }
+
+  /**
+   * Returns a key identifying the docker daemon and the configuration of the helios-solo
+   * container.
+   */
+  private String poolKey() {
+    final String config = Joiner.on('\n').join(
+        dockerHost.uri(),
+        heliosSoloImage,
+        Joiner.on(',').join(Ordering.natural().sortedCopy(env)),
+        Joiner.on(',').join(Ordering.natural().sortedCopy(binds)));
+    return Hashing.sha1().hashString(config, UTF_8).toString().substring(0, 12);
+  }
+
+  /**
+   * Claims a running helios-solo container from the pool by locking its file. Files of containers
+   * that are no longer running are removed.
+   *
+   * @param poolDirectory The directory holding a lock file for each pooled container.
+   * @param namespace If not null, only a container whose namespace starts with this namespace
+   *                  will be claimed, see {@link #reservePoolMember(Path, String)}.
+   * @return The locked file of the claimed container, which is named after its namespace, or null
+   * if there is no free container.
+   */
+  private JobPrefixFile claimPooledContainer(final Path poolDirectory, final String namespace) {
+    final List<Path> files = Lists.newArrayList();
+    try {
+      Files.createDirectories(poolDirectory);
+      try (final DirectoryStream<Path> stream = Files.newDirectoryStream(poolDirectory)) {
+        for (final Path file : stream) {
+          if (!file.toString().endsWith(".tmp")) {
+            files.add(file);
+          }
+        }
+      }
+    } catch (IOException e) {
+      log.warn("unable to list pooled helios-solo containers in {}", poolDirectory, e);
+      return null;
+    }
+
+    for (final Path file : files) {
+      if (namespace != null && !file.getFileName().toString().startsWith(namespace + "-")) {
+        continue;
+      }
+      final JobPrefixFile lock;
+      try {
+        lock = JobPrefixFile.tryFromExistingFile(file);
+      } catch (IOException e) {
+        // Most likely removed by another process after we listed it
+        log.debug("unable to lock {}", file, e);
+        continue;
+      }
+      if (lock == null) {
+        // In use by someone else
+        continue;
+      }
+      if (isRunning(HELIOS_CONTAINER_PREFIX + lock.prefix())) {
+        return lock;
+      }
+      log.info("removing stopped helios-solo container {} from pool", lock.prefix());
+      lock.delete();
+    }
+    return null;
+  }
+
+  /**
+   * Adds a new container to the pool, locked until we are done with it.
+   *
+   * @param poolDirectory The directory holding a lock file for each pooled container.
+   * @param namespace If not null, the prefix of the namespace of the container.
+   * @return The locked file of the new container, which is named after its namespace.
+   */
+  private JobPrefixFile reservePoolMember(final Path poolDirectory, final String namespace) {
+    final String prefix = namespace == null ? "" : namespace + "-";
+    try {
+      return JobPrefixFile.create(prefix + randomString(), poolDirectory);
+    } catch (IOException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  private String containerId(final String containerName) throws HeliosDeploymentException {
+    try {
+      return dockerClient.inspectContainer(containerName).id();
+    } catch (DockerException | InterruptedException e) {
+      throw new HeliosDeploymentException("unable to inspect container " + containerName, e);
+    }
+  }
+
+  private boolean isRunning(final String containerId) {
+    try {
+      final ContainerInfo info = dockerClient.inspectContainer(containerId);
+      return info.state() != null && Boolean.TRUE.equals(info.state().running());
+    } catch (ContainerNotFoundException e) {
+      return false;
+    } catch (DockerException | InterruptedException e) {
+      log.warn("unable to inspect container {}", containerId, e);
+      return false;
+    }
   }
 
   /** Returns the DockerHost that the container should use to refer to the docker daemon. */
@@ -420,6 +569,14 @@ public class HeliosSoloDeployment implements HeliosDeployment {
    * Undeploy (shut down) this HeliosSoloDeployment.
    */
   public void close() {
+    if (poolLock != null) {
+      log.info("returning helios-solo container {} to the pool", heliosContainerId);
+      resetPooledDeployment();
+      poolLock.release();
+      this.dockerClient.close();
+      return;
+    }
+
     log.info("shutting ourselves down");
 
     undeployLeftoverJobs();
@@ -482,6 +639,22 @@ public class HeliosSoloDeployment implements HeliosDeployment {
     }
   }
 
+  /**
+   * Brings a pooled deployment back to the state of a freshly started helios-solo by undeploying
+   * and removing all jobs. This is much faster than starting a new container.
+   */
+  private void resetPooledDeployment() {
+    undeployLeftoverJobs();
+    try {
+      for (final JobId jobId : heliosClient.jobs().get().keySet()) {
+        log.info("Removing leftover job {}", jobId);
+        heliosClient.deleteJob(jobId).get();
+      }
+    } catch (Exception e) {
+      log.warn("Exception occurred when trying to remove leftover jobs.", e);
+    }
+  }
+
   private Boolean awaitJobUndeployed(final HeliosClient client, final String host,
                                      final JobId jobId, final int timeout,
                                      final TimeUnit timeunit) throws Exception {
@@ -573,6 +746,7 @@ public class HeliosSoloDeployment implements HeliosDeployment {
     private boolean pullBeforeCreate = true;
     private boolean removeHeliosSoloContainerOnExit = true;
     private int jobUndeployWaitSeconds = DEFAULT_WAIT_SECONDS;
+    private Path poolDirectory;
 
     Builder(String profile, Config rootConfig) {
       this.env = new HashSet<>();
@@ -594,6 +768,9 @@ public class HeliosSoloDeployment implements HeliosDeployment {
       if (config.hasPath("username")) {
         namespace(config.getString("username"));
       }
+      if (config.hasPath("pooled")) {
+        pooled(config.getBoolean("pooled"));
+      }
       if (config.hasPath("env")) {
         for (final Map.Entry<String, ConfigValue> entry : config.getConfig("env").entrySet()) {
           env(entry.getKey(), entry.getValue().unwrapped());
@@ -622,6 +799,27 @@ public class HeliosSoloDeployment implements HeliosDeployment {
       return this;
     }
 
+    /**
+     * Reuse a helios-solo container that an earlier deployment with the same configuration left
+     * running, and leave the container running when {@link HeliosSoloDeployment#close()} is
+     * called. This saves starting ZooKeeper, the master and the agent for every test class or
+     * test run. A lock file per container in /tmp/helios-solo-pool makes sure that a container is
+     * used by one deployment at a time, and all jobs are removed when it is handed over. Pooled
+     * containers have to be removed manually when no longer needed. Containers are only shared by
+     * deployments that use the same docker daemon and the same container configuration. If a
+     * {@link #namespace(String)} is set, it is the prefix of the namespace of each pooled
+     * container. Disabled by default.
+     */
+    public Builder pooled(boolean enabled) {
+      return poolDirectory(enabled ? Paths.get(DEFAULT_POOL_DIRECTORY) : null);
+    }
+
+    @VisibleForTesting
+    Builder poolDirectory(final Path poolDirectory) {
+      this.poolDirectory = poolDirectory;
+      return this;
+    }
+
     /**
      * Set the number of seconds Helios solo will wait for jobs to be undeployed and, as a result,
      * their associated Docker containers to stop running before shutting itself down.
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.helios.testing;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import com.spotify.helios.client.HeliosClient;
+import com.spotify.helios.common.descriptors.JobId;
+import com.spotify.helios.common.descriptors.JobStatus;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import static com.spotify.helios.testing.Jobs.get;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Shares job status polling between the {@link TemporaryJob}s that are waiting for their
+ * containers to come up. Instead of each job asking the master for its own status, the statuses
+ * of all watched jobs are fetched with a single request, at most once per polling interval.
+ */
+class JobStatusWatcher {
+
+  private static final long REFRESH_INTERVAL_NANOS = MILLISECONDS.toNanos(500);
+
+  private final HeliosClient client;
+  private final Set<JobId> watched = Sets.newHashSet();
+
+  private Map<JobId, JobStatus> statuses = Collections.emptyMap();
+  private Set<JobId> fetched = Collections.emptySet();
+  private long refreshedNanos;
+
+  JobStatusWatcher(final HeliosClient client) {
+    this.client = client;
+  }
+
+  /**
+   * Returns the most recent status of a job, or null if the master doesn't know of it. The job is
+   * watched until {@link #unwatch(JobId)} is called.
+   */
+  synchronized JobStatus status(final JobId jobId)
+      throws InterruptedException, ExecutionException, TimeoutException {
+    watched.add(jobId);
+    if (!fetched.contains(jobId) || nanoTime() - refreshedNanos >= REFRESH_INTERVAL_NANOS) {
+      final Set<JobId> jobIds = ImmutableSet.copyOf(watched);
+      statuses = Maps.newHashMap(get(client.jobStatuses(jobIds)));
+      fetched = jobIds;
+      refreshedNanos = nanoTime();
+    }
+    return statuses.get(jobId);
+  }
+
+  synchronized void unwatch(final JobId jobId) {
+    watched.remove(jobId);
+  }
+}
@@ -17,9 +17,11 @@
 
 package com.spotify.helios.testing;
 
+import com.google.common.collect.Maps;
 import com.google.common.util.concurrent.ListenableFuture;
 
 import com.spotify.helios.client.HeliosClient;
+import com.spotify.helios.common.descriptors.HostStatus;
 import com.spotify.helios.common.descriptors.Job;
 import com.spotify.helios.common.descriptors.JobId;
 import com.spotify.helios.common.protocol.JobDeleteResponse;
@@ -29,6 +31,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -52,6 +55,34 @@ class Jobs {
     return future.get(timeout, MILLISECONDS);
   }
 
+  /**
+   * Gets the status of the hosts in a single request, falling back to requesting them one by one
+   * from masters that don't support batch requests.
+   * @param client the HeliosClient to use
+   * @param hosts the hosts to get the status of
+   * @return the status of each host, by host name. Hosts that aren't known are left out.
+   */
+  static Map<String, HostStatus> hostStatuses(final HeliosClient client, final List<String> hosts)
+      throws InterruptedException, ExecutionException, TimeoutException {
+    try {
+      return get(client.hostStatuses(hosts));
+    } catch (ExecutionException e) {
+      log.debug("Batch host status request failed, falling back to one request per host", e);
+    }
+    final Map<String, ListenableFuture<HostStatus>> futures = Maps.newHashMap();
+    for (final String host : hosts) {
+      futures.put(host, client.hostStatus(host));
+    }
+    final Map<String, HostStatus> statuses = Maps.newHashMap();
+    for (final Map.Entry<String, ListenableFuture<HostStatus>> entry : futures.entrySet()) {
+      final HostStatus status = get(entry.getValue());
+      if (status != null) {
+        statuses.put(entry.getKey(), status);
+      }
+    }
+    return statuses;
+  }
+
   static String getJobDescription(final Job job) {
     final String shortHash = job.getId().getHash().substring(0, 7);
     return String.format("%s (Job %s)", job.getImage(), shortHash);
@@ -71,11 +102,18 @@ class Jobs {
                                        final List<String> hosts,
                                        final List<AssertionError> errors) {
     final JobId id = job.getId();
+
+    // Undeploy from all hosts at once
+    final Map<String, ListenableFuture<JobUndeployResponse>> futures = Maps.newHashMap();
     for (String host : hosts) {
       log.info("Undeploying {} from {}", getJobDescription(job), host);
+      futures.put(host, client.undeploy(id, host));
+    }
+
+    for (ListenableFuture<JobUndeployResponse> future : futures.values()) {
       final JobUndeployResponse response;
       try {
-        response = get(client.undeploy(id, host));
+        response = get(future);
         if (response.getStatus() != JobUndeployResponse.Status.OK &&
             response.getStatus() != JobUndeployResponse.Status.JOB_NOT_FOUND) {
           errors.add(new AssertionError(format("Failed to undeploy job %s - %s",
@@ -24,6 +24,7 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.net.HostAndPort;
 import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import com.spotify.helios.client.HeliosClient;
 import com.spotify.helios.common.descriptors.Deployment;
@@ -47,12 +48,13 @@ import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeoutException;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Strings.isNullOrEmpty;
+import static com.google.common.collect.Maps.newConcurrentMap;
 import static com.google.common.collect.Maps.newHashMap;
+import static com.google.common.collect.Sets.newHashSet;
 import static com.spotify.helios.testing.Jobs.TIMEOUT_MILLIS;
 import static com.spotify.helios.testing.Jobs.get;
 import static com.spotify.helios.testing.Jobs.getJobDescription;
@@ -64,8 +66,9 @@ public class TemporaryJob {
 
   private static final Logger log = LoggerFactory.getLogger(TemporaryJob.class);
 
-  private final Map<String, TaskStatus> statuses = newHashMap();
+  private final Map<String, TaskStatus> statuses = newConcurrentMap();
   private final HeliosClient client;
+  private final JobStatusWatcher statusWatcher;
   private final Prober prober;
   private final TemporaryJobReports.ReportWriter reportWriter;
   private final Job job;
@@ -75,11 +78,12 @@ public class TemporaryJob {
   private final String jobDeployedMessageFormat;
   private final long deployTimeoutMillis;
 
-  TemporaryJob(final HeliosClient client, final Prober prober,
-               final TemporaryJobReports.ReportWriter reportWriter, final Job job,
-               final List<String> hosts, final Set<String> waitPorts,
+  TemporaryJob(final HeliosClient client, final JobStatusWatcher statusWatcher,
+               final Prober prober, final TemporaryJobReports.ReportWriter reportWriter,
+               final Job job, final List<String> hosts, final Set<String> waitPorts,
                final String jobDeployedMessageFormat, final long deployTimeoutMillis) {
     this.client = checkNotNull(client, "client");
+    this.statusWatcher = checkNotNull(statusWatcher, "statusWatcher");
     this.prober = checkNotNull(prober, "prober");
     this.reportWriter = checkNotNull(reportWriter, "reportWriter");
     this.job = checkNotNull(job, "job");
@@ -186,21 +190,30 @@ public class TemporaryJob {
     final TemporaryJobReports.Step deployJob = reportWriter.step("deploy job")
         .tag("jobId", job.getId());
     try {
-      // Deploy job
-      final Deployment deployment = Deployment.of(job.getId(), Goal.START);
+      // HELIOS_HOST_ADDRESS is the IP address we should use to reach the host, instead of
+      // the hostname. This is used when running a helios cluster inside a VM, and the containers
+      // can be reached by IP address only, since DNS won't be able to resolve the host name of
+      // the helios agent running in the VM.
+      final Map<String, HostStatus> hostStatuses = Jobs.hostStatuses(client, hosts);
       for (final String host : hosts) {
-        // HELIOS_HOST_ADDRESS is the IP address we should use to reach the host, instead of
-        // the hostname. This is used when running a helios cluster inside a VM, and the containers
-        // can be reached by IP address only, since DNS won't be able to resolve the host name of
-        // the helios agent running in the VM.
-        final HostStatus hostStatus = client.hostStatus(host).get();
-        final String hostAddress = hostStatus.getEnvironment().get("HELIOS_HOST_ADDRESS");
+        final HostStatus hostStatus = hostStatuses.get(host);
+        final String hostAddress = hostStatus == null
+                                   ? null
+                                   : hostStatus.getEnvironment().get("HELIOS_HOST_ADDRESS");
         if (hostAddress != null) {
           hostToIp.put(host, hostAddress);
         }
+      }
 
+      // Deploy job to all hosts at once
+      final Deployment deployment = Deployment.of(job.getId(), Goal.START);
+      final Map<String, ListenableFuture<JobDeployResponse>> deployResponses = newHashMap();
+      for (final String host : hosts) {
         log.info("Deploying {} to {}", getJobDescription(job), host);
-        final JobDeployResponse deployResponse = get(client.deploy(deployment, host));
+        deployResponses.put(host, client.deploy(deployment, host));
+      }
+      for (final ListenableFuture<JobDeployResponse> future : deployResponses.values()) {
+        final JobDeployResponse deployResponse = get(future);
         if (deployResponse.getStatus() != JobDeployResponse.Status.OK) {
           fail(format("Failed to deploy job %s %s - %s",
                       job.getId(), job.toString(), deployResponse));
@@ -216,8 +229,9 @@ public class TemporaryJob {
 
     try {
       // Wait for job to come up
+      awaitRunning();
       for (final String host : hosts) {
-        awaitUp(host);
+        awaitProbes(host);
       }
     } catch (TimeoutException e) {
       fail(format("Failed while probing job %s %s - %s", job.getId(), job.toString(), e));
@@ -243,56 +257,70 @@ public class TemporaryJob {
     }
   }
   
-  private void awaitUp(final String host) throws TimeoutException {
-    final TemporaryJobReports.Step startContainer = reportWriter.step("start container")
-        .tag("jobId", job.getId())
-        .tag("host", host)
-        .tag("image", job.getImage());
+  /**
+   * Waits for the job to be running on all hosts. The status of the job on every host is
+   * checked with a single request per polling round, shared with any other jobs being deployed.
+   */
+  private void awaitRunning() throws TimeoutException {
+    final Map<String, TemporaryJobReports.Step> startContainers = newHashMap();
+    for (final String host : hosts) {
+      startContainers.put(host, reportWriter.step("start container")
+          .tag("jobId", job.getId())
+          .tag("host", host)
+          .tag("image", job.getImage()));
+    }
     try {
-      final AtomicBoolean messagePrinted = new AtomicBoolean(false);
-      final TaskStatus status = Polling.awaitUnchecked(
-          deployTimeoutMillis, MILLISECONDS, new Callable<TaskStatus>() {
+      final Set<String> messagePrinted = newHashSet();
+      Polling.awaitUnchecked(
+          deployTimeoutMillis, MILLISECONDS, new Callable<Boolean>() {
             @Override
-            public TaskStatus call() throws Exception {
-              final JobStatus status = Futures.getUnchecked(client.jobStatus(job.getId()));
+            public Boolean call() throws Exception {
+              final JobStatus status = statusWatcher.status(job.getId());
               if (status == null) {
                 log.debug("Job status not available");
                 return null;
               }
-              final TaskStatus taskStatus = status.getTaskStatuses().get(host);
-              if (taskStatus == null) {
-                log.debug("Task status not available on {}", host);
-                return null;
-              }
-
-              if (!messagePrinted.get() &&
-                  !isNullOrEmpty(jobDeployedMessageFormat) &&
-                  !isNullOrEmpty(taskStatus.getContainerId())) {
-                outputDeployedMessage(host, taskStatus.getContainerId());
-                messagePrinted.set(true);
+              for (final String host : hosts) {
+                if (statuses.containsKey(host)) {
+                  continue;
+                }
+                final TaskStatus taskStatus = status.getTaskStatuses().get(host);
+                if (taskStatus == null) {
+                  log.debug("Task status not available on {}", host);
+                  continue;
+                }
+
+                if (!isNullOrEmpty(jobDeployedMessageFormat) &&
+                    !isNullOrEmpty(taskStatus.getContainerId()) &&
+                    messagePrinted.add(host)) {
+                  outputDeployedMessage(host, taskStatus.getContainerId());
+                }
+
+                verifyHealthy(host, taskStatus);
+
+                final TaskStatus.State state = taskStatus.getState();
+                log.info("Job state of {} on {}: {}", job.getImage(), host, state);
+
+                if (state == TaskStatus.State.RUNNING) {
+                  statuses.put(host, taskStatus);
+                  startContainers.get(host).markSuccess().finish();
+                }
               }
-
-              verifyHealthy(host, taskStatus);
-
-              final TaskStatus.State state = taskStatus.getState();
-              log.info("Job state of {}: {}", job.getImage(), state);
-
-              if (state == TaskStatus.State.RUNNING) {
-                return taskStatus;
-              }
-
-              return null;
+              return statuses.keySet().containsAll(hosts) ? true : null;
             }
           }
       );
-
-      statuses.put(host, status);
-
-      startContainer.markSuccess();
     } finally {
-      startContainer.finish();
+      statusWatcher.unwatch(job.getId());
+      for (final String host : hosts) {
+        if (!statuses.containsKey(host)) {
+          startContainers.get(host).finish();
+        }
+      }
     }
+  }
 
+  private void awaitProbes(final String host) throws TimeoutException {
     final TemporaryJobReports.Step probe = reportWriter.step("probe")
         .tag("jobId", job.getId())
         .tag("host", host);
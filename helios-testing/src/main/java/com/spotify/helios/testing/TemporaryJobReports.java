@@ -118,7 +118,8 @@ public class TemporaryJobReports {
       writeEvent(event);
     }
 
-    private void writeEvent(final TemporaryJobEvent event) {
+    // Steps of jobs that are deployed or undeployed concurrently finish on different threads
+    private synchronized void writeEvent(final TemporaryJobEvent event) {
       if (jg == null) {
         return;
       }
@@ -131,7 +132,7 @@ public class TemporaryJobReports {
     }
 
     @Override
-    public void close() throws IOException {
+    public synchronized void close() throws IOException {
       if (jg != null) {
         jg.close();
       }
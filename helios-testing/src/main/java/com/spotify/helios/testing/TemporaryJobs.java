@@ -54,6 +54,7 @@ import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -69,7 +70,6 @@ import static com.google.common.base.Optional.fromNullable;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Strings.isNullOrEmpty;
-import static com.google.common.collect.Lists.newArrayList;
 import static com.spotify.helios.testing.Jobs.undeploy;
 import static java.lang.String.format;
 import static java.lang.System.getProperty;
@@ -110,6 +110,15 @@ public class TemporaryJobs implements TestRule {
               .build()),
       0, SECONDS);
 
+  // Deploys and undeploys jobs concurrently
+  private final ExecutorService deployExecutor = MoreExecutors.getExitingExecutorService(
+      (ThreadPoolExecutor) Executors.newCachedThreadPool(
+          new ThreadFactoryBuilder()
+              .setNameFormat("helios-test-deployer-%d")
+              .setDaemon(true)
+              .build()),
+      0, SECONDS);
+
   TemporaryJobs(final Builder builder, final Config config) {
     this.client = checkNotNull(builder.client, "client");
     this.prober = checkNotNull(builder.prober, "prober");
@@ -191,12 +200,38 @@ public class TemporaryJobs implements TestRule {
     } catch (InterruptedException ignore) {
     }
 
-    final List<AssertionError> errors = newArrayList();
+    final List<AssertionError> errors =
+        Collections.synchronizedList(new ArrayList<AssertionError>());
 
-    for (TemporaryJob job : jobs) {
+    // Undeploy all jobs at once
+    final List<Future<?>> undeploys = Lists.newArrayListWithCapacity(jobs.size());
+    for (final TemporaryJob job : jobs) {
       jobIds.add(job.job().getId());
-      job.undeploy(errors);
+      undeploys.add(deployExecutor.submit(new Runnable() {
+        @Override
+        public void run() {
+          final Optional<TemporaryJobReports.Step> undeployJob = undeploy.isPresent()
+              ? Optional.of(writer.get().step("undeploy job").tag("jobId", job.job().getId()))
+              : Optional.<TemporaryJobReports.Step>absent();
+          final int errorsBefore = errors.size();
+          job.undeploy(errors);
+          for (TemporaryJobReports.Step step : undeployJob.asSet()) {
+            if (errors.size() == errorsBefore) {
+              step.markSuccess();
+            }
+            step.finish();
+          }
+        }
+      }));
+    }
+    for (final Future<?> future : undeploys) {
+      try {
+        future.get();
+      } catch (InterruptedException | ExecutionException e) {
+        errors.add(new AssertionError(e));
+      }
     }
+    deployExecutor.shutdown();
 
     for (TemporaryJobReports.Step step : undeploy.asSet()) {
       step.tag("jobs", jobIds);
@@ -220,6 +255,38 @@ public class TemporaryJobs implements TestRule {
     }
   }
 
+  /**
+   * Deploys several jobs concurrently and waits for all of them to come up. This is faster than
+   * calling {@link TemporaryJobBuilder#deploy(String...)} for each job in turn when a test needs
+   * many jobs.
+   * @param builders the jobs to deploy, to the hosts or host filter set on each builder
+   * @return the deployed jobs, in the same order as the builders
+   */
+  public List<TemporaryJob> deploy(final TemporaryJobBuilder... builders) {
+    final List<Future<TemporaryJob>> futures = Lists.newArrayListWithCapacity(builders.length);
+    for (final TemporaryJobBuilder builder : builders) {
+      futures.add(deployExecutor.submit(new Callable<TemporaryJob>() {
+        @Override
+        public TemporaryJob call() throws Exception {
+          return builder.deploy();
+        }
+      }));
+    }
+
+    final List<TemporaryJob> deployed = Lists.newArrayListWithCapacity(builders.length);
+    for (final Future<TemporaryJob> future : futures) {
+      try {
+        deployed.add(future.get());
+      } catch (InterruptedException e) {
+        throw Throwables.propagate(e);
+      } catch (ExecutionException e) {
+        // Rethrow the AssertionError of the first job that failed to deploy
+        throw Throwables.propagate(e.getCause());
+      }
+    }
+    return deployed;
+  }
+
   public TemporaryJobBuilder job() {
     return this.job(Job.newBuilder());
   }
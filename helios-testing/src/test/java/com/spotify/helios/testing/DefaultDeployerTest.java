@@ -18,9 +18,9 @@
 package com.spotify.helios.testing;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.Futures;
-import com.google.common.util.concurrent.ListenableFuture;
 
 import com.spotify.helios.client.HeliosClient;
 import com.spotify.helios.common.descriptors.Deployment;
@@ -49,10 +49,8 @@ public class DefaultDeployerTest {
   private static final String HOSTA = "hosta";
 
   private static final List<TemporaryJob> EMPTY_JOBS_LIST = Lists.newArrayList();
-  private static final ListenableFuture<HostStatus> DOWN_STATUS = Futures.immediateFuture(
-      makeDummyStatusBuilder().setStatus(DOWN).build());
-  private static final ListenableFuture<HostStatus> UP_STATUS = Futures.immediateFuture(
-      makeDummyStatusBuilder().setStatus(UP).build());
+  private static final HostStatus DOWN_STATUS = makeDummyStatusBuilder().setStatus(DOWN).build();
+  private static final HostStatus UP_STATUS = makeDummyStatusBuilder().setStatus(UP).build();
   private static final List<String> HOSTS = ImmutableList.of(HOSTA, HOSTB);
   private static final long TIMEOUT = MINUTES.toMillis(5);
   
@@ -75,9 +73,8 @@ public class DefaultDeployerTest {
   @Test
   public void testTryAgainOnHostDown() throws Exception {
     // hosta is down, hostb is up.
-    when(client.hostStatus(HOSTA)).thenReturn(DOWN_STATUS);
-    when(client.hostStatus(HOSTB)).thenReturn(UP_STATUS);
-    
+    whenHostStatuses(ImmutableMap.of(HOSTA, DOWN_STATUS, HOSTB, UP_STATUS));
+
     assertEquals(HOSTB, deployer.pickHost(HOSTS));
   }
 
@@ -86,9 +83,8 @@ public class DefaultDeployerTest {
     final DefaultDeployer sut = new DefaultDeployer(client, EMPTY_JOBS_LIST, PICK_FIRST, "",
                                                     TIMEOUT);
     
-    // hosta is down, hostb is down too. 
-    when(client.hostStatus(HOSTA)).thenReturn(DOWN_STATUS);
-    when(client.hostStatus(HOSTB)).thenReturn(DOWN_STATUS);
+    // hosta is down, hostb is down too.
+    whenHostStatuses(ImmutableMap.of(HOSTA, DOWN_STATUS, HOSTB, DOWN_STATUS));
 
     exception.expect(AssertionError.class);
 
@@ -105,9 +101,23 @@ public class DefaultDeployerTest {
 
   @Test
   public void testHostStatusIsNull() throws Exception {
-    when(client.hostStatus(HOSTA)).thenReturn(Futures.<HostStatus>immediateFuture(null));
-    when(client.hostStatus(HOSTB)).thenReturn(UP_STATUS);
+    // The master leaves out hosts it doesn't know the status of
+    whenHostStatuses(ImmutableMap.of(HOSTB, UP_STATUS));
 
     assertEquals(HOSTB, deployer.pickHost(HOSTS));
   }
+
+  @Test
+  public void testFallsBackToSingleHostStatus() throws Exception {
+    when(client.hostStatuses(HOSTS)).thenReturn(
+        Futures.<Map<String, HostStatus>>immediateFailedFuture(new RuntimeException()));
+    when(client.hostStatus(HOSTA)).thenReturn(Futures.immediateFuture(DOWN_STATUS));
+    when(client.hostStatus(HOSTB)).thenReturn(Futures.immediateFuture(UP_STATUS));
+
+    assertEquals(HOSTB, deployer.pickHost(HOSTS));
+  }
+
+  private void whenHostStatuses(final Map<String, HostStatus> statuses) {
+    when(client.hostStatuses(HOSTS)).thenReturn(Futures.immediateFuture(statuses));
+  }
 }
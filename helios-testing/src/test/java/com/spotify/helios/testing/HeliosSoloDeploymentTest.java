@@ -20,6 +20,7 @@ package com.spotify.helios.testing;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 
@@ -30,6 +31,7 @@ import com.spotify.docker.client.messages.ContainerConfig;
 import com.spotify.docker.client.messages.ContainerCreation;
 import com.spotify.docker.client.messages.ContainerExit;
 import com.spotify.docker.client.messages.ContainerInfo;
+import com.spotify.docker.client.messages.ContainerState;
 import com.spotify.docker.client.messages.ImageInfo;
 import com.spotify.docker.client.messages.Info;
 import com.spotify.docker.client.messages.NetworkSettings;
@@ -48,7 +50,9 @@ import com.typesafe.config.ConfigFactory;
 import com.typesafe.config.ConfigValueFactory;
 
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Matchers;
 
@@ -57,11 +61,16 @@ import java.util.List;
 import java.util.Map;
 
 import static org.hamcrest.Matchers.hasItem;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.startsWith;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -93,6 +102,9 @@ public class HeliosSoloDeploymentTest {
       .setState(TaskStatus.State.RUNNING)
       .build();
 
+  @Rule
+  public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   private DockerClient dockerClient;
   private HeliosClient heliosClient;
   private ArgumentCaptor<ContainerConfig> containerConfig;
@@ -284,4 +296,111 @@ public class HeliosSoloDeploymentTest {
     // There should be no more calls to any HeliosClient methods.
     verify(heliosClient, never()).jobStatus(Matchers.any(JobId.class));
   }
+
+  @Test
+  public void testPooledContainerIsReused() throws Exception {
+    final String namespace = "pooled";
+    when(heliosClient.jobs()).thenReturn(Futures.immediateFuture(
+        Collections.<JobId, Job>emptyMap()));
+
+    final HeliosDeployment first = HeliosSoloDeployment.builder()
+        .dockerClient(dockerClient)
+        .heliosClient(heliosClient)
+        .namespace(namespace)
+        .poolDirectory(temporaryFolder.getRoot().toPath())
+        .build();
+    first.close();
+
+    // The container is left running for the next deployment
+    verify(dockerClient, never()).killContainer(CONTAINER_ID);
+    verify(dockerClient, times(2)).createContainer(any(ContainerConfig.class), anyString());
+
+    // The pooled container was given a namespace of its own, prefixed with ours
+    when(dockerClient.inspectContainer(
+        startsWith(HeliosSoloDeployment.HELIOS_CONTAINER_PREFIX + namespace + "-")))
+        .thenReturn(new ContainerInfo() {
+          @Override
+          public String id() {
+            return CONTAINER_ID;
+          }
+
+          @Override
+          public ContainerState state() {
+            return new ContainerState() {
+              @Override
+              public Boolean running() {
+                return true;
+              }
+            };
+          }
+        });
+
+    final HeliosSoloDeployment second = (HeliosSoloDeployment) HeliosSoloDeployment.builder()
+        .dockerClient(dockerClient)
+        .heliosClient(heliosClient)
+        .namespace(namespace)
+        .poolDirectory(temporaryFolder.getRoot().toPath())
+        .build();
+
+    // Neither the probe nor the helios-solo container were created again
+    verify(dockerClient, times(2)).createContainer(any(ContainerConfig.class), anyString());
+    assertEquals(CONTAINER_ID, second.heliosContainerId());
+    second.close();
+  }
+
+  @Test
+  public void testConcurrentPoolMembersHaveTheirOwnNamespaces() throws Exception {
+    final HeliosDeployment first = HeliosSoloDeployment.builder()
+        .dockerClient(dockerClient)
+        .heliosClient(heliosClient)
+        .namespace("pooled")
+        .poolDirectory(temporaryFolder.getRoot().toPath())
+        .build();
+    final HeliosDeployment second = HeliosSoloDeployment.builder()
+        .dockerClient(dockerClient)
+        .heliosClient(heliosClient)
+        .namespace("pooled")
+        .poolDirectory(temporaryFolder.getRoot().toPath())
+        .build();
+
+    final ArgumentCaptor<String> names = ArgumentCaptor.forClass(String.class);
+    verify(dockerClient, times(4)).createContainer(any(ContainerConfig.class), names.capture());
+    final List<String> soloNames = Lists.newArrayList();
+    for (final String name : names.getAllValues()) {
+      if (name.startsWith(HeliosSoloDeployment.HELIOS_CONTAINER_PREFIX)) {
+        soloNames.add(name);
+      }
+    }
+    assertEquals(2, soloNames.size());
+    assertNotEquals(soloNames.get(0), soloNames.get(1));
+    final String prefix = HeliosSoloDeployment.HELIOS_CONTAINER_PREFIX + "pooled-";
+    assertTrue(soloNames.get(0).startsWith(prefix));
+
+    first.close();
+    second.close();
+  }
+
+  @Test
+  public void testPoolIsPerDockerHost() throws Exception {
+    final HeliosDeployment first = HeliosSoloDeployment.builder()
+        .dockerClient(dockerClient)
+        .heliosClient(heliosClient)
+        .dockerHost(DockerHost.from("tcp://192.0.2.1:2375", null))
+        .poolDirectory(temporaryFolder.getRoot().toPath())
+        .build();
+    first.close();
+
+    final HeliosDeployment second = HeliosSoloDeployment.builder()
+        .dockerClient(dockerClient)
+        .heliosClient(heliosClient)
+        .dockerHost(DockerHost.from("tcp://192.0.2.2:2375", null))
+        .poolDirectory(temporaryFolder.getRoot().toPath())
+        .build();
+    second.close();
+
+    // The container left running on the first docker host isn't even considered
+    verify(dockerClient, never())
+        .inspectContainer(startsWith(HeliosSoloDeployment.HELIOS_CONTAINER_PREFIX));
+    verify(dockerClient, times(4)).createContainer(any(ContainerConfig.class), anyString());
+  }
 }
@@ -325,6 +325,12 @@ public class CliParser {
           .setDefault(10)
           .help("Timeout (in seconds) for each HTTP/S request to the master.");
 
+      addArgument("--no-cache")
+          .action(storeTrue())
+          .help("Do not use the local cache of hosts and jobs in ~/.helios/cache. Cached lists are "
+                + "always revalidated with the master, so this is only needed if the cache is "
+                + "broken.");
+
       addArgument("--retry-timeout")
           .type(Integer.class)
           .setDefault(60)
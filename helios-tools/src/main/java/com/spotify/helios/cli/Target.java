@@ -17,13 +17,19 @@
 
 package com.spotify.helios.cli;
 
+import com.google.common.base.Optional;
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
 
+import com.spotify.helios.client.CachingEndpointSupplier;
+import com.spotify.helios.client.Endpoint;
+import com.spotify.helios.client.Endpoints;
 import com.spotify.helios.common.Resolver;
 
 import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 
 /**
@@ -31,6 +37,13 @@ import java.util.List;
  * com.spotify.helios.client.HeliosClient}.
  */
 public abstract class Target {
+
+  private static final Path ENDPOINT_CACHE_DIRECTORY =
+      Paths.get(System.getProperty("user.home"), ".helios", "endpoints");
+
+  private static final Path RESPONSE_CACHE_DIRECTORY =
+      Paths.get(System.getProperty("user.home"), ".helios", "cache");
+
   private final String name;
 
   Target(final String name) {
@@ -39,6 +52,27 @@ public abstract class Target {
 
   public abstract Supplier<List<URI>> getEndpointSupplier();
 
+  /**
+   * Returns a {@link Supplier} of the master endpoints of this target with their hostnames
+   * resolved. The endpoints are resolved at most once by the returned supplier.
+   * @return A Supplier of Endpoints.
+   */
+  public Supplier<List<Endpoint>> getEndpoints() {
+    return Suppliers.memoize(Endpoints.of(getEndpointSupplier()));
+  }
+
+  /**
+   * Returns the directory in which responses from the masters of this target are cached.
+   * @return A directory under ~/.helios/cache.
+   */
+  public Path getCacheDirectory() {
+    return RESPONSE_CACHE_DIRECTORY.resolve(cacheKey().replaceAll("[^A-Za-z0-9._-]", "_"));
+  }
+
+  String cacheKey() {
+    return name;
+  }
+
   public String getName() {
     return name;
   }
@@ -66,6 +100,18 @@ public abstract class Target {
       return Resolver.supplier(srv, domain);
     }
 
+    @Override
+    public Supplier<List<Endpoint>> getEndpoints() {
+      // Cache the masters on disk, as most CLI invocations are too short to benefit from
+      // caching them in memory.
+      return CachingEndpointSupplier.forDomain(srv, domain, Optional.of(ENDPOINT_CACHE_DIRECTORY));
+    }
+
+    @Override
+    String cacheKey() {
+      return srv + "." + domain;
+    }
+
     @Override
     public String toString() {
       return domain + " (srv: " + srv + ")";
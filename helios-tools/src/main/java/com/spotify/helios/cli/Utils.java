@@ -19,12 +19,13 @@ package com.spotify.helios.cli;
 
 import com.google.common.base.Function;
 import com.google.common.base.Strings;
+import com.google.common.base.Supplier;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Ordering;
 import com.google.common.util.concurrent.ListenableFuture;
 
-import com.spotify.helios.client.Endpoints;
+import com.spotify.helios.client.Endpoint;
 import com.spotify.helios.client.HeliosClient;
 import com.spotify.helios.common.descriptors.Deployment;
 import com.spotify.helios.common.descriptors.HostSelector;
@@ -36,7 +37,6 @@ import net.sourceforge.argparse4j.inf.Namespace;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.PrintStream;
-import java.net.URI;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -59,9 +59,10 @@ public class Utils {
   public static HeliosClient getClient(final Target target, final PrintStream err,
                                        final String username, final Namespace options) {
 
-    List<URI> endpoints = Collections.emptyList();
+    final Supplier<List<Endpoint>> endpointSupplier = target.getEndpoints();
+    List<Endpoint> endpoints = Collections.emptyList();
     try {
-      endpoints = target.getEndpointSupplier().get();
+      endpoints = endpointSupplier.get();
     } catch (Exception ignore) {
       // TODO (dano): Nasty. Refactor target to propagate resolution failure in a checked manner.
     }
@@ -70,14 +71,19 @@ public class Utils {
       return null;
     }
 
-    return HeliosClient.newBuilder()
-        .setEndpointSupplier(Endpoints.of(target.getEndpointSupplier()))
+    final HeliosClient.Builder builder = HeliosClient.newBuilder()
+        .setEndpointSupplier(endpointSupplier)
         //argparse4j converts names like "--http-timeout" to dests of "http_timeout"
         .setHttpTimeout(options.getInt("http_timeout"), TimeUnit.SECONDS)
         .setRetryTimeout(options.getInt("retry_timeout"), TimeUnit.SECONDS)
         .setSslHostnameVerification(!options.getBoolean("insecure"))
-        .setUser(username)
-        .build();
+        .setUser(username);
+
+    if (!options.getBoolean("no_cache")) {
+      builder.setCacheDirectory(target.getCacheDirectory());
+    }
+
+    return builder.build();
   }
 
   public static boolean userConfirmed(final PrintStream out, final BufferedReader stdin)
@@ -50,6 +50,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static com.google.common.base.Predicates.containsPattern;
 import static com.google.common.base.Strings.isNullOrEmpty;
@@ -67,6 +68,8 @@ import static net.sourceforge.argparse4j.impl.Arguments.storeTrue;
 
 public class HostListCommand extends ControlCommand {
 
+  private static final long STATS_MAX_FRESH_MILLIS = TimeUnit.MINUTES.toMillis(2);
+
   private final Argument quietArg;
   private final Argument patternArg;
   private final Argument fullArg;
@@ -250,10 +253,11 @@ public class HostListCommand extends ControlCommand {
           if (hi != null) {
             final long free = hi.getMemoryFreeBytes();
             final long total = hi.getMemoryTotalBytes();
-            memUsage = format("%.2f", (float) (total - free) / total);
+            final String age = statsAge(hi);
+            memUsage = format("%.2f", (float) (total - free) / total) + age;
             cpus = String.valueOf(hi.getCpus());
             mem = hi.getMemoryTotalBytes() / (1024 * 1024 * 1024) + " gb";
-            loadAvg = format("%.2f", hi.getLoadAvg());
+            loadAvg = format("%.2f", hi.getLoadAvg()) + age;
             os = hi.getOsName() + " " + hi.getOsVersion();
             final DockerVersion dv = hi.getDockerVersion();
             docker = (dv != null) ? format("%s (%s)", dv.getVersion(), dv.getApiVersion()) : "";
@@ -291,4 +295,17 @@ public class HostListCommand extends ControlCommand {
     }
     return 0;
   }
+
+  /**
+   * Returns how old the load average and memory usage of a host are, if they're more than a couple
+   * of minutes old. Agents only write them along with other changes to their host info, or every
+   * ten minutes.
+   */
+  private static String statsAge(final HostInfo hostInfo) {
+    if (hostInfo.getStatsTimestamp() == 0) {
+      return "";
+    }
+    final long age = currentTimeMillis() - hostInfo.getStatsTimestamp();
+    return age < STATS_MAX_FRESH_MILLIS ? "" : " (" + humanDuration(age) + " ago)";
+  }
 }
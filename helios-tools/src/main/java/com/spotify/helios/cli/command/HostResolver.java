@@ -18,6 +18,7 @@
 package com.spotify.helios.cli.command;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
@@ -29,17 +30,20 @@ import org.xbill.DNS.ResolverConfig;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.NavigableSet;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 
 class HostResolver {
   private static final Name[] EMPTY_PATH = new Name[]{};
-  private final Set<String> allHosts;
+  // Sorted, so that the hosts matching a prefix can be found with a range query rather than
+  // scanning every host in the cluster.
+  private final NavigableSet<String> allHosts;
   private final Name[] searchPath;
 
   HostResolver(final Set<String> allHosts,
                final Name[] searchPath) throws InterruptedException, ExecutionException {
-    this.allHosts = allHosts;
+    this.allHosts = Sets.newTreeSet(allHosts);
     this.searchPath = searchPath;
   }
 
@@ -56,7 +60,7 @@ class HostResolver {
     } else {
       path = EMPTY_PATH;
     }
-    return new HostResolver(Sets.newHashSet(client.listHosts().get()), path);
+    return new HostResolver(ImmutableSet.copyOf(client.listHosts().get()), path);
   }
 
   private static class ScoredHost {
@@ -119,13 +123,8 @@ class HostResolver {
   }
 
   private List<String> findPrefixMatches(final String pfx) {
-    final ImmutableList.Builder<String> builder = ImmutableList.builder();
-    for (final String name : allHosts) {
-      if (name.startsWith(pfx)) {
-        builder.add(name);
-      }
-    }
-    return builder.build();
+    return ImmutableList.copyOf(
+        allHosts.subSet(pfx, true, pfx + Character.MAX_VALUE, true));
   }
 
   // Assumes sorted input in scored
@@ -191,4 +191,18 @@ public class CliParserTest {
 
     assertTrue(parser.getNamespace().getBoolean("insecure"));
   }
+
+  @Test
+  public void testCacheEnabledByDefault() throws Exception {
+    final CliParser parser = new CliParser(toArray(singleEndpointArgs));
+
+    assertFalse(parser.getNamespace().getBoolean("no_cache"));
+  }
+
+  @Test
+  public void testNoCache() throws Exception {
+    final CliParser parser = new CliParser(toArray(singleEndpointArgs, "--no-cache"));
+
+    assertTrue(parser.getNamespace().getBoolean("no_cache"));
+  }
 }
@@ -183,6 +183,33 @@ public class HostListCommandTest {
         + "OS foo 0.1.0    0.8.420    1.7.0 (1.18)    foo=bar, baz=qux"));
   }
 
+  @Test
+  public void testStaleStatsShowTheirAge() throws Exception {
+    final HostInfo hostInfo = HostInfo.newBuilder()
+        .setCpus(4)
+        .setMemoryTotalBytes((long) Math.pow(1024, 3))
+        .setMemoryFreeBytes(500000000)
+        .setLoadAvg(0.1)
+        .setStatsTimestamp(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(8))
+        .build();
+    final HostStatus status = HostStatus.newBuilder()
+        .setJobs(JOBS)
+        .setStatuses(JOB_STATUSES)
+        .setStatus(UP)
+        .setHostInfo(hostInfo)
+        .setLabels(LABELS)
+        .build();
+    final Map<String, HostStatus> statuses = ImmutableMap.of(HOSTS.get(0), status);
+    when(client.hostStatuses(anyListOf(String.class), anyMapOf(String.class, String.class)))
+        .thenReturn(Futures.immediateFuture(statuses));
+
+    final int ret = command.run(options, client, out, false, null);
+    final String output = baos.toString();
+
+    assertEquals(0, ret);
+    assertThat(output, containsString("0.10 (8 minutes ago)    0.53 (8 minutes ago)"));
+  }
+
   @Test
   public void testQuietOutputIsSorted() throws Exception {
     when(options.getBoolean("q")).thenReturn(true);
@@ -124,8 +124,7 @@ public class JobCreateCommandTest {
     assertThat(output, containsString("\"metadata\":{\"a\":\"1\",\"b\":\"2\"},"));
     assertThat(output, containsString("\"gracePeriod\":100"));
     assertThat(output, containsString(
-        "\"healthCheck\":{\"type\":\"exec\","
-        + "\"command\":[\"touch\",\"/this\"],\"type\":\"exec\"},"));
+        "\"healthCheck\":{\"command\":[\"touch\",\"/this\"],\"type\":\"exec\"},"));
     assertThat(output, containsString("\"securityOpt\":[\"label:user:dxia\",\"apparmor:foo\"]"));
     assertThat(output, containsString("\"networkMode\":\"host\""));
     assertThat(output, containsString("\"expires\":null"));